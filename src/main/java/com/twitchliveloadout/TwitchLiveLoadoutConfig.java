@@ -66,6 +66,7 @@ public interface TwitchLiveLoadoutConfig extends Config
 	public final static String SEASONAL_TALENTS_CONFIG_KEY = "seasonal-talents";
 
 	public final static String EVENT_SUB_HANDLED_FOLLOWER_IDS = "event-sub-handled-follower-ids";
+	public final static String MARKETPLACE_HANDLED_TRANSACTION_IDS = "marketplace-handled-transaction-ids";
 	public final static String[] PERSISTENT_STATE_CONFIG_KEYS = new String[]{
 		COLLECTION_LOG_CONFIG_KEY,
 		COLLECTION_LOG_OBTAINED_AMOUNT_CONFIG_KEY,
@@ -430,6 +431,23 @@ public interface TwitchLiveLoadoutConfig extends Config
 		return 180;
 	}
 
+	@Range(
+			min = 1,
+			max = 24 * 60
+	)
+	@ConfigItem(
+			keyName = "fightStatisticsArchiveTime",
+			name = "Fight history archive time",
+			description = "Move finished fight sessions to disk after the configured minutes to limit memory usage.",
+			position = 13,
+			section = combatSection
+	)
+	@Units(Units.MINUTES)
+	default int fightStatisticsArchiveTime()
+	{
+		return 30;
+	}
+
 	@ConfigItem(
 			keyName = "fightStatisticsAutoIdling",
 			name = "Auto idling of fight timer",
@@ -1433,6 +1451,23 @@ public interface TwitchLiveLoadoutConfig extends Config
 		return false;
 	}
 
+	@Range(
+			min = 1,
+			max = 16
+	)
+	@ConfigItem(
+			keyName = "marketplaceFrameBudgetMs",
+			name = "Random Event frame budget",
+			description = "Maximum time per frame for Random Event processing before less urgent work is postponed to the next frames.",
+			position = 3,
+			section = advancedSection
+	)
+	@Units(Units.MILLISECONDS)
+	default int marketplaceFrameBudgetMs()
+	{
+		return 4;
+	}
+
 	@ConfigItem(
 			keyName = "debugMenuOptionClicks",
 			name = "Debug menu clicks",
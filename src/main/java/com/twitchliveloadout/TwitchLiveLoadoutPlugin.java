@@ -640,8 +640,9 @@ public class TwitchLiveLoadoutPlugin extends Plugin
 
 	/**
 	 * Polling mechanism to get new Twitch transactions
+	 * NOTE: the manager decides whether a fetch is due depending on the recent activity
 	 */
-	@Schedule(period = 3, unit = ChronoUnit.SECONDS, asynchronous = false)
+	@Schedule(period = 500, unit = ChronoUnit.MILLIS, asynchronous = false)
 	public void fetchMarketplaceTransactions()
 	{
 		try {
@@ -896,6 +897,32 @@ public class TwitchLiveLoadoutPlugin extends Plugin
 		}
 	}
 
+	@Subscribe
+	public void onNpcSpawned(NpcSpawned npcSpawned)
+	{
+		try {
+			if (shouldTrackFightStatistics())
+			{
+				fightStateManager.onNpcSpawned(npcSpawned);
+			}
+		} catch (Exception exception) {
+			logWarning("on-npc-spawned", "Could not handle NPC spawned event: ", exception);
+		}
+	}
+
+	@Subscribe
+	public void onPlayerSpawned(PlayerSpawned playerSpawned)
+	{
+		try {
+			if (shouldTrackFightStatistics())
+			{
+				fightStateManager.onPlayerSpawned(playerSpawned);
+			}
+		} catch (Exception exception) {
+			logWarning("on-player-spawned", "Could not handle player spawned event: ", exception);
+		}
+	}
+
 	@Subscribe
 	public void onNpcDespawned(NpcDespawned npcDespawned)
 	{
@@ -1036,6 +1063,71 @@ public class TwitchLiveLoadoutPlugin extends Plugin
 		}
 	}
 
+	/**
+	 * Handle objects that are added or removed from the scene, because they can change the collision maps
+	 */
+	@Subscribe
+	public void onGameObjectSpawned(GameObjectSpawned gameObjectSpawned)
+	{
+		handleCollisionMapChanged();
+	}
+
+	@Subscribe
+	public void onGameObjectDespawned(GameObjectDespawned gameObjectDespawned)
+	{
+		handleCollisionMapChanged();
+	}
+
+	@Subscribe
+	public void onWallObjectSpawned(WallObjectSpawned wallObjectSpawned)
+	{
+		handleCollisionMapChanged();
+	}
+
+	@Subscribe
+	public void onWallObjectDespawned(WallObjectDespawned wallObjectDespawned)
+	{
+		handleCollisionMapChanged();
+	}
+
+	private void handleCollisionMapChanged()
+	{
+		try {
+			if (config.marketplaceEnabled())
+			{
+				marketplaceManager.onCollisionMapChanged();
+			}
+		} catch (Exception exception) {
+			logWarning("on-collision-map-changed", "Could not handle collision map change: ", exception);
+		}
+	}
+
+	@Subscribe
+	public void onWidgetLoaded(WidgetLoaded widgetLoaded)
+	{
+		try {
+			if (config.marketplaceEnabled())
+			{
+				marketplaceManager.onWidgetLoaded(widgetLoaded);
+			}
+		} catch (Exception exception) {
+			logWarning("on-widget-loaded", "Could not handle widget loaded event: ", exception);
+		}
+	}
+
+	@Subscribe
+	public void onWidgetClosed(WidgetClosed widgetClosed)
+	{
+		try {
+			if (config.marketplaceEnabled())
+			{
+				marketplaceManager.onWidgetClosed(widgetClosed);
+			}
+		} catch (Exception exception) {
+			logWarning("on-widget-closed", "Could not handle widget closed event: ", exception);
+		}
+	}
+
 	@Subscribe
 	public void onScriptPostFired(ScriptPostFired scriptPostFired)
 	{
@@ -1366,7 +1458,7 @@ public class TwitchLiveLoadoutPlugin extends Plugin
 	 * Get the account identifier based on the account hash and whether there is a world type being used
 	 * which requires the account identifier to be unique as well (in the case of a dedicated OSRS profile save).
 	 */
-	private String getAccountIdentifier() {
+	public String getAccountIdentifier() {
 		String accountHash = Long.toString(client.getAccountHash());
 		String worldTypeIdentifier = getWorldTypeIdentifier();
 
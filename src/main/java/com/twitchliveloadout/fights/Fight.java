@@ -6,10 +6,12 @@ import net.runelite.api.GameObject;
 import net.runelite.api.NPC;
 
 import java.time.Instant;
+import java.util.ArrayDeque;
 import java.util.Collection;
 import java.util.Iterator;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
 
 import static com.twitchliveloadout.fights.FightStateManager.MAX_FINISHED_FIGHT_SESSION_AMOUNT;
 
@@ -25,6 +27,18 @@ public class Fight {
 	private final ConcurrentHashMap<Actor, FightSession> sessions = new ConcurrentHashMap<>();
 	private final CopyOnWriteArrayList<FightSession> finishedSessions = new CopyOnWriteArrayList<>();
 
+	// Finished sessions are moved to the archive on disk after some time, only the running totals of these sessions
+	// and their sequences in the archive are kept in memory. Once the maximum amount of finished sessions is exceeded
+	// the oldest archived session is dropped and the totals are summed again from the archive, just like the sessions in memory.
+	private final FightSessionArchive archive;
+	private final ArrayDeque<Long> archivedSessionSequences = new ArrayDeque<>();
+	private volatile FightSession archivedTotalSession;
+
+	// Incremented on every change of the archived sessions to only apply totals that are summed from the latest sessions.
+	private long archivedSessionsVersion = 0;
+	private boolean isSummingArchivedSessions = false;
+	private final Instant createdAt = Instant.now();
+
 	// The session counter should not match the finished session list size,
 	// because some finished sessions are not kills / deaths, separate counter for this.
 	// For example when a fight expires due to time it should not register a kill / death.
@@ -33,11 +47,24 @@ public class Fight {
 	private long idleTickCounter = 0;
 	private long idleQueuedTickCounter = 0;
 
+	// Idle ticks are registered when idling stops instead of every game tick, see FightIdleTracker.
+	private long idleSinceTick = -1;
+	private long idleDeadlineTick = -1;
+	private long idleScheduledTick = -1;
+	private boolean idleCheckRequested = false;
+
 	private Actor lastActor;
 	private FightSession lastSession;
 
-	public Fight(Actor actor, String actorName, boolean isLocalPlayer)
+	// Incremented on every change that influences the exported state of this fight.
+	// This allows the state fragment to only be rebuilt when something actually changed.
+	private final AtomicLong version = new AtomicLong(0);
+	private volatile FightStateFragment stateFragment;
+
+	public Fight(Actor actor, String actorName, boolean isLocalPlayer, FightSessionArchive archive)
 	{
+		this.archive = archive;
+		this.archivedTotalSession = new FightSession(this);
 		this.lastActor = actor;
 		this.actorName = actorName;
 		this.lastSession = ensureSession(actor);
@@ -73,7 +100,7 @@ public class Fight {
 		cleanQueuedStatistics();
 	}
 
-	public void registerQueuedStatistics(Actor actor, int hitsplatAmount)
+	public void registerQueuedStatistics(Actor actor, int hitsplatAmount, Instant hitsplatAt)
 	{
 		log.debug("Checking queue statistics, queued size {} for hitsplat {}", queuedStatistics.size(), hitsplatAmount);
 
@@ -96,7 +123,8 @@ public class Fight {
 			}
 
 			// Will prevent registering twice
-			if (!queuedStatistic.isValid())
+			// NOTE: validate against the moment of the hitsplat as they are handled in batches
+			if (!queuedStatistic.isValid(hitsplatAt))
 			{
 				log.debug("Skipping queued statistic because of invalid.");
 				continue;
@@ -152,6 +180,33 @@ public class Fight {
 	public void handleStatisticUpdate()
 	{
 		registerQueuedIdleTicks();
+		markModified();
+	}
+
+	public void markModified()
+	{
+		version.incrementAndGet();
+	}
+
+	public long getVersion()
+	{
+		return version.get();
+	}
+
+	public FightStateFragment getStateFragment()
+	{
+		final long currentVersion = version.get();
+		FightStateFragment fragment = stateFragment;
+
+		// NOTE: the version is read before building to make sure changes
+		// during the build will trigger another rebuild on the next request
+		if (fragment == null || fragment.getVersion() != currentVersion)
+		{
+			fragment = new FightStateFragment(this, currentVersion);
+			stateFragment = fragment;
+		}
+
+		return fragment;
 	}
 
 	public void queueIdleTicks(long amount)
@@ -170,6 +225,78 @@ public class Fight {
 		return idleTickCounter;
 	}
 
+	public boolean isIdling()
+	{
+		return idleSinceTick >= 0;
+	}
+
+	public void startIdling(long tick)
+	{
+		if (isIdling())
+		{
+			return;
+		}
+
+		idleSinceTick = tick;
+	}
+
+	public void stopIdling(long tick)
+	{
+		if (!isIdling())
+		{
+			return;
+		}
+
+		final long idleTicks = tick - idleSinceTick;
+
+		// add shared idle ticks for the total session
+		queueIdleTicks(idleTicks);
+
+		// add the ticks to all of the sessions that currently exist
+		// to get the right duration of the last session
+		for (FightSession session : sessions.values())
+		{
+			session.queueIdleTicks(idleTicks);
+		}
+
+		idleSinceTick = -1;
+	}
+
+	public void cancelIdling()
+	{
+		idleSinceTick = -1;
+	}
+
+	long getIdleDeadlineTick()
+	{
+		return idleDeadlineTick;
+	}
+
+	void setIdleDeadlineTick(long idleDeadlineTick)
+	{
+		this.idleDeadlineTick = idleDeadlineTick;
+	}
+
+	long getIdleScheduledTick()
+	{
+		return idleScheduledTick;
+	}
+
+	void setIdleScheduledTick(long idleScheduledTick)
+	{
+		this.idleScheduledTick = idleScheduledTick;
+	}
+
+	boolean isIdleCheckRequested()
+	{
+		return idleCheckRequested;
+	}
+
+	void setIdleCheckRequested(boolean idleCheckRequested)
+	{
+		this.idleCheckRequested = idleCheckRequested;
+	}
+
 	public boolean hasSession(Actor actor)
 	{
 		return sessions.containsKey(actor);
@@ -253,33 +380,20 @@ public class Fight {
 		return lastSession;
 	}
 
-	public boolean isIdling(CopyOnWriteArrayList<String> actorNames)
+	public void setLastActor(Actor actor)
 	{
-		for (String actorName : actorNames)
-		{
+		final FightSession session = ensureSession(actor);
 
-			// Not idling when the actor can be found in the surroundings
-			// for some boss fights this would not work (e.g. The Gauntlet)
-			// because often you are seeing the boss while prepping.
-			// We accept these inconsistencies as it weighs out situations where
-			// you are not interacting/attacking the boss due to a certain phase and
-			// then we don't want idling to kick in to skew your DPS (e.g. certain Olm phases)
-			if (this.actorName.equals(actorName))
-			{
-				return false;
-			}
+		if (session != lastSession)
+		{
+			markModified();
 		}
 
-		return true;
-	}
-
-	public void setLastActor(Actor actor)
-	{
 		this.lastActor = actor;
-		this.lastSession = ensureSession(actor);
+		this.lastSession = session;
 	}
 
-	public void finishSession(Actor actor)
+	public synchronized void finishSession(Actor actor)
 	{
 		if (!hasSession(actor))
 		{
@@ -295,16 +409,135 @@ public class Fight {
 		sessions.remove(actor);
 		finishedSessions.add(session);
 
-		if (finishedSessions.size() > MAX_FINISHED_FIGHT_SESSION_AMOUNT)
+		// the archived sessions still count towards the maximum to keep the totals the same
+		if (finishedSessions.size() + archivedSessionSequences.size() > MAX_FINISHED_FIGHT_SESSION_AMOUNT)
 		{
 			log.debug("Removing a finished session due to maximum amount reached...");
-			finishedSessions.remove(0);
+			removeOldestFinishedSession();
+		}
+
+		markModified();
+	}
+
+	/**
+	 * Move all finished sessions that were finished before the given moment to the archive.
+	 * Sessions are kept in memory when there is no archive available to not lose them.
+	 */
+	public synchronized void archiveFinishedSessions(Instant archiveBefore)
+	{
+
+		// guard: skip when the sessions cannot be archived
+		if (archive == null || !archive.isAvailable())
+		{
+			return;
+		}
+
+		for (FightSession session : finishedSessions)
+		{
+			final Instant finishedAt = session.getFinishedAt();
+
+			// guard: sessions are finished in order so all next sessions are more recent
+			if (finishedAt == null || !finishedAt.isBefore(archiveBefore))
+			{
+				break;
+			}
+
+			final long sequence = archive.append(FightSessionArchive.serialize(this, session));
+
+			// guard: stop when the archive was shut down in the meantime
+			if (sequence < 0)
+			{
+				break;
+			}
+
+			// NOTE: the totals stay the same so there is no need to mark the fight as modified
+			archivedSessionSequences.addLast(sequence);
+			archivedSessionsVersion++;
+			FightSessionArchive.addToSession(archivedTotalSession, session);
+			finishedSessions.remove(session);
+		}
+	}
+
+	/**
+	 * Remove the oldest finished session from the totals, where the archived sessions are always the oldest.
+	 * Sessions that are still in memory are written to the archive to keep the history complete.
+	 */
+	private void removeOldestFinishedSession()
+	{
+		if (archivedSessionSequences.pollFirst() != null)
+		{
+			archivedSessionsVersion++;
+			sumArchivedSessions();
+			return;
+		}
+
+		final FightSession oldestSession = finishedSessions.get(0);
+
+		if (archive != null)
+		{
+			archive.append(FightSessionArchive.serialize(this, oldestSession));
+		}
+
+		finishedSessions.remove(oldestSession);
+	}
+
+	/**
+	 * Sum the archived sessions again on the archive thread. When the archived sessions changed while
+	 * summing the result is discarded and they are summed again, because the running totals already
+	 * include the newly archived sessions while the result might not.
+	 */
+	private void sumArchivedSessions()
+	{
+
+		// guard: the latest sessions are summed again when the current sum is done
+		if (isSummingArchivedSessions)
+		{
+			return;
+		}
+
+		final long summedVersion = archivedSessionsVersion;
+		final long[] sequences = new long[archivedSessionSequences.size()];
+		int sequenceIndex = 0;
+
+		for (Long sequence : archivedSessionSequences)
+		{
+			sequences[sequenceIndex++] = sequence;
 		}
+
+		isSummingArchivedSessions = true;
+		archive.sumSessions(this, sequences).whenComplete((totalSession, exception) -> {
+			synchronized (this)
+			{
+				isSummingArchivedSessions = false;
+
+				if (summedVersion != archivedSessionsVersion)
+				{
+					sumArchivedSessions();
+					return;
+				}
+
+				// guard: keep the current totals when the archive could not be read
+				if (exception != null)
+				{
+					log.warn("Could not sum the archived fight sessions: ", exception);
+					return;
+				}
+
+				archivedTotalSession = totalSession;
+				markModified();
+			}
+		});
+	}
+
+	synchronized boolean isSummingArchivedSessions()
+	{
+		return isSummingArchivedSessions;
 	}
 
 	public void increaseSessionCounter()
 	{
 		sessionCounter++;
+		markModified();
 	}
 
 	public ActorType getActorType()
@@ -342,12 +575,22 @@ public class Fight {
 		return sessions.values();
 	}
 
+	public Instant getCreatedAt()
+	{
+		return createdAt;
+	}
+
+	/**
+	 * All sessions in memory where the archived sessions are represented by one session with their totals.
+	 */
 	public CopyOnWriteArrayList<FightSession> getAllSessions()
 	{
 		CopyOnWriteArrayList<FightSession> allSessions = new CopyOnWriteArrayList<>();
 		Iterator<FightSession> finishedSessionIterator = finishedSessions.iterator();
 		Iterator<FightSession> sessionIterator = sessions.values().iterator();
 
+		allSessions.add(archivedTotalSession);
+
 		while (finishedSessionIterator.hasNext())
 		{
 			allSessions.add(finishedSessionIterator.next());
@@ -0,0 +1,144 @@
+package com.twitchliveloadout.fights;
+
+import net.runelite.api.Actor;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Consumer;
+
+/**
+ * Bounded lock-free ring buffer to capture hitsplats with as little work as possible
+ * on the thread the event is fired on. Multiple producers can offer at the same time,
+ * while there is only a single consumer handling them in batches.
+ * Every slot has a sequence that tells whether it is free to write to or ready to be read.
+ */
+public class FightHitsplatQueue {
+	private final int capacity;
+	private final int mask;
+	private final FightQueuedHitsplat[] hitsplats;
+	private final AtomicLongArray sequences;
+	private final AtomicLong tail = new AtomicLong(0);
+	private long head = 0;
+
+	private final AtomicLong droppedCounter = new AtomicLong(0);
+	private final AtomicLong handledCounter = new AtomicLong(0);
+
+	public FightHitsplatQueue(int capacity)
+	{
+		if (capacity <= 0 || Integer.bitCount(capacity) != 1)
+		{
+			throw new IllegalArgumentException("The hitsplat queue capacity should be a power of two, got: "+ capacity);
+		}
+
+		this.capacity = capacity;
+		this.mask = capacity - 1;
+		this.hitsplats = new FightQueuedHitsplat[capacity];
+		this.sequences = new AtomicLongArray(capacity);
+
+		for (int index = 0; index < capacity; index++)
+		{
+			hitsplats[index] = new FightQueuedHitsplat();
+			sequences.set(index, index);
+		}
+	}
+
+	/**
+	 * Capture a hitsplat, returns false when the queue is full in which case
+	 * the hitsplat is dropped and registered on the dropped counter.
+	 */
+	public boolean offer(Actor actor, int hitsplatType, int amount, boolean mine, boolean smiting, long capturedAtMs)
+	{
+		long position = tail.get();
+
+		while (true)
+		{
+			final int index = (int) (position & mask);
+			final long sequence = sequences.get(index);
+			final long difference = sequence - position;
+
+			// slot is free, try to claim it
+			if (difference == 0)
+			{
+				if (tail.compareAndSet(position, position + 1))
+				{
+					hitsplats[index].set(actor, hitsplatType, amount, mine, smiting, capturedAtMs);
+
+					// publish to the consumer, the write of the hitsplat happens before this
+					sequences.lazySet(index, position + 1);
+					return true;
+				}
+
+				position = tail.get();
+			}
+			// slot is not yet released by the consumer, meaning the queue is full
+			else if (difference < 0)
+			{
+				droppedCounter.incrementAndGet();
+				return false;
+			}
+			// another producer claimed this slot, retry with the latest position
+			else
+			{
+				position = tail.get();
+			}
+		}
+	}
+
+	/**
+	 * Handle all the published hitsplats in the order they were captured.
+	 * Synchronized to guarantee a single consumer, producers are never blocked by this.
+	 */
+	public synchronized int drain(Consumer<FightQueuedHitsplat> handler)
+	{
+		int handledAmount = 0;
+
+		while (true)
+		{
+			final int index = (int) (head & mask);
+			final long sequence = sequences.get(index);
+
+			// guard: stop when the next slot is not published yet
+			if (sequence != head + 1)
+			{
+				break;
+			}
+
+			final FightQueuedHitsplat hitsplat = hitsplats[index];
+
+			try {
+				handler.accept(hitsplat);
+			} finally {
+				hitsplat.clear();
+
+				// release the slot for the next cycle of the producers
+				sequences.lazySet(index, head + capacity);
+				head++;
+			}
+
+			handledAmount++;
+		}
+
+		handledCounter.addAndGet(handledAmount);
+		return handledAmount;
+	}
+
+	public void clear()
+	{
+		drain((hitsplat) -> {});
+	}
+
+	public long getDroppedCounter()
+	{
+		return droppedCounter.get();
+	}
+
+	public long getHandledCounter()
+	{
+		return handledCounter.get();
+	}
+
+	public int getCapacity()
+	{
+		return capacity;
+	}
+}
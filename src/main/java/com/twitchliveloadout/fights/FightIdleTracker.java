@@ -0,0 +1,200 @@
+package com.twitchliveloadout.fights;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.function.Predicate;
+
+/**
+ * Tick-indexed timing wheel to detect when fights become idle. Fights are only touched when
+ * there is activity on them or when their deadline passes, which makes the cost per game tick
+ * proportional to the activity instead of to the amount of fights that are tracked.
+ * Every fight is in at most one bucket at a time, extending a deadline is done lazily by
+ * moving the fight to the right bucket when its current bucket is reached.
+ * Ticks are numbered by the game tick they belong to, events between two game ticks
+ * belong to the upcoming game tick, just like they did with the check on every game tick.
+ */
+public class FightIdleTracker
+{
+	// power of two and larger than the maximum delay a deadline can be scheduled with
+	private static final int WHEEL_SIZE = 16;
+	private static final int WHEEL_MASK = WHEEL_SIZE - 1;
+	public static final int MAX_DEADLINE_DELAY = WHEEL_SIZE - 1;
+
+	private final ArrayList<ArrayList<Fight>> buckets = new ArrayList<>(WHEEL_SIZE);
+	private long currentTick = 0;
+
+	public FightIdleTracker()
+	{
+		for (int bucketIndex = 0; bucketIndex < WHEEL_SIZE; bucketIndex++)
+		{
+			buckets.add(new ArrayList<>());
+		}
+	}
+
+	public synchronized long getCurrentTick()
+	{
+		return currentTick;
+	}
+
+	/**
+	 * Stop idling of a fight and push back the moment it is checked again.
+	 */
+	public synchronized void registerActivity(Fight fight, int deadlineDelay)
+	{
+		fight.stopIdling(currentTick + 1);
+
+		// guard: activity does not postpone a requested check, because idling only depends on whether the actor is around
+		if (fight.isIdleCheckRequested())
+		{
+			return;
+		}
+
+		schedule(fight, currentTick + deadlineDelay);
+	}
+
+	/**
+	 * Check a fight sooner than its current deadline, for example when its actor despawned.
+	 */
+	public synchronized void scheduleCheck(Fight fight, int deadlineDelay)
+	{
+		// guard: idling fights are only woken up by activity
+		if (fight.isIdling())
+		{
+			return;
+		}
+
+		fight.setIdleCheckRequested(true);
+		schedule(fight, currentTick + deadlineDelay);
+	}
+
+	/**
+	 * Move to the next game tick and handle all fights of which the deadline has passed.
+	 * Fights that are still active according to the given check are scheduled for another check,
+	 * all others will start idling from this tick on.
+	 */
+	public synchronized void advance(Predicate<Fight> activeCheck, int deadlineDelay)
+	{
+		currentTick++;
+
+		final ArrayList<Fight> bucket = buckets.get(getBucketIndex(currentTick));
+
+		// guard: skip when nothing is due this tick
+		if (bucket.isEmpty())
+		{
+			return;
+		}
+
+		// NOTE: fights are never moved to the bucket that is being handled
+		// as the delays are always smaller than the size of the wheel
+		for (Fight fight : bucket)
+		{
+			final long deadlineTick = fight.getIdleDeadlineTick();
+			fight.setIdleScheduledTick(-1);
+
+			if (deadlineTick > currentTick)
+			{
+				insert(fight, deadlineTick);
+				continue;
+			}
+
+			fight.setIdleCheckRequested(false);
+
+			if (activeCheck.test(fight))
+			{
+				fight.setIdleDeadlineTick(currentTick + deadlineDelay);
+				insert(fight, currentTick + deadlineDelay);
+				continue;
+			}
+
+			fight.setIdleDeadlineTick(-1);
+			fight.startIdling(currentTick);
+		}
+
+		bucket.clear();
+	}
+
+	/**
+	 * Let all fights idle from now on, for example when logging out.
+	 */
+	public synchronized void idleAll(Collection<Fight> fights)
+	{
+		clear();
+
+		// NOTE: this is called before advancing to the game tick that is being handled
+		for (Fight fight : fights)
+		{
+			fight.setIdleDeadlineTick(-1);
+			fight.startIdling(currentTick + 1);
+		}
+	}
+
+	/**
+	 * Stop idling all fights without registering the idle ticks since then.
+	 */
+	public synchronized void resetAll(Collection<Fight> fights)
+	{
+		for (Fight fight : fights)
+		{
+			fight.cancelIdling();
+		}
+	}
+
+	public synchronized void remove(Fight fight)
+	{
+		final long scheduledTick = fight.getIdleScheduledTick();
+
+		if (scheduledTick < 0)
+		{
+			return;
+		}
+
+		buckets.get(getBucketIndex(scheduledTick)).remove(fight);
+		fight.setIdleScheduledTick(-1);
+		fight.setIdleDeadlineTick(-1);
+		fight.setIdleCheckRequested(false);
+	}
+
+	public synchronized void clear()
+	{
+		for (ArrayList<Fight> bucket : buckets)
+		{
+			for (Fight fight : bucket)
+			{
+				fight.setIdleScheduledTick(-1);
+				fight.setIdleCheckRequested(false);
+			}
+
+			bucket.clear();
+		}
+	}
+
+	private void schedule(Fight fight, long deadlineTick)
+	{
+		final long scheduledTick = fight.getIdleScheduledTick();
+		fight.setIdleDeadlineTick(deadlineTick);
+
+		// guard: the current bucket is reached first and will move it to the new deadline
+		if (scheduledTick >= 0 && scheduledTick <= deadlineTick)
+		{
+			return;
+		}
+
+		if (scheduledTick >= 0)
+		{
+			buckets.get(getBucketIndex(scheduledTick)).remove(fight);
+		}
+
+		insert(fight, deadlineTick);
+	}
+
+	private void insert(Fight fight, long tick)
+	{
+		buckets.get(getBucketIndex(tick)).add(fight);
+		fight.setIdleScheduledTick(tick);
+	}
+
+	private int getBucketIndex(long tick)
+	{
+		return (int) (tick & WHEEL_MASK);
+	}
+}
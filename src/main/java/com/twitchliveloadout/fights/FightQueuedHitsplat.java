@@ -0,0 +1,63 @@
+package com.twitchliveloadout.fights;
+
+import net.runelite.api.Actor;
+
+/**
+ * Compact copy of a hitsplat event that is captured on the client thread.
+ * Instances are pre-allocated and re-used by the hitsplat queue, which is why
+ * they should not be referenced after they have been handled.
+ */
+public class FightQueuedHitsplat {
+	private Actor actor;
+	private int hitsplatType;
+	private int amount;
+	private boolean mine;
+	private boolean smiting;
+	private long capturedAtMs;
+
+	void set(Actor actor, int hitsplatType, int amount, boolean mine, boolean smiting, long capturedAtMs)
+	{
+		this.actor = actor;
+		this.hitsplatType = hitsplatType;
+		this.amount = amount;
+		this.mine = mine;
+		this.smiting = smiting;
+		this.capturedAtMs = capturedAtMs;
+	}
+
+	void clear()
+	{
+		// release the actor to not keep despawned actors in memory
+		actor = null;
+	}
+
+	public Actor getActor()
+	{
+		return actor;
+	}
+
+	public int getHitsplatType()
+	{
+		return hitsplatType;
+	}
+
+	public int getAmount()
+	{
+		return amount;
+	}
+
+	public boolean isMine()
+	{
+		return mine;
+	}
+
+	public boolean isSmiting()
+	{
+		return smiting;
+	}
+
+	public long getCapturedAtMs()
+	{
+		return capturedAtMs;
+	}
+}
@@ -25,7 +25,11 @@ public class FightQueuedStatistic {
 
 	public boolean isValid()
 	{
-		Instant now = Instant.now();
+		return isValid(Instant.now());
+	}
+
+	public boolean isValid(Instant now)
+	{
 		Instant expiredAt = createdAt.plusMillis(expiryTimeMs);
 
 		log.debug("Queued statistic time until expiry: {}", (expiredAt.toEpochMilli() - now.toEpochMilli()));
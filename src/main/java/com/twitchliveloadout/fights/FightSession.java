@@ -14,6 +14,7 @@ public class FightSession {
 	private long idleTickCounter = 0;
 	private long idleQueuedTickCounter = 0;
 	private boolean finished = false;
+	private Instant finishedAt;
 
 	public FightSession(Fight fight)
 	{
@@ -88,6 +89,13 @@ public class FightSession {
 	public void finish()
 	{
 		finished = true;
+		finishedAt = Instant.now();
+	}
+
+	void restoreFinished(Instant finishedAt)
+	{
+		this.finished = true;
+		this.finishedAt = finishedAt;
 	}
 
 	public boolean isFinished()
@@ -95,6 +103,11 @@ public class FightSession {
 		return finished;
 	}
 
+	public Instant getFinishedAt()
+	{
+		return finishedAt;
+	}
+
 	public Instant getFirstUpdate()
 	{
 		Instant minFirstUpdate = null;
@@ -0,0 +1,504 @@
+package com.twitchliveloadout.fights;
+
+import lombok.extern.slf4j.Slf4j;
+import net.runelite.client.RuneLite;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+/**
+ * Per account binary file where finished fight sessions are moved to after some time.
+ * This keeps the memory usage flat during long streams, while the history is still available
+ * by reading the records back. Every session is stored as a fixed-width record with a checksum
+ * to be able to recover from partially written records when the client crashes.
+ * Appended records are identified by a sequence number that stays the same when the file is compacted.
+ */
+@Slf4j
+public class FightSessionArchive
+{
+	public static final File ARCHIVE_DIRECTORY = new File(RuneLite.RUNELITE_DIR, "twitch-live-loadout");
+	public static final int MAX_ARCHIVED_SESSION_AMOUNT = 50000;
+
+	private static final int FILE_MAGIC = 0x544C4C53; // TLLS
+	private static final int FILE_VERSION = 1;
+	static final int HEADER_SIZE = 16;
+	private static final int STATISTIC_SIZE = 6 * Long.BYTES;
+	private static final int ENTRY_AMOUNT = FightStatisticEntry.values().length;
+	static final int RECORD_SIZE = 4 * Long.BYTES + ENTRY_AMOUNT * STATISTIC_SIZE + Integer.BYTES;
+	private static final long EMPTY_INSTANT = -1;
+
+	private final ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1);
+	private final File directory;
+	private final int maxSessionAmount;
+	private FileChannel channel;
+	private Path path;
+	private volatile boolean isAvailable = false;
+
+	/**
+	 * Sequence of the next appended record, which is assigned on the appending thread
+	 */
+	private long nextSequence = 0;
+
+	/**
+	 * Sequence of the next append that is handled on the archive thread
+	 */
+	private long nextHandledSequence = 0;
+
+	/**
+	 * Difference between the sequence of a record and its index in the file, which grows when the file is compacted
+	 */
+	private long sequenceIndexOffset = 0;
+
+	public FightSessionArchive()
+	{
+		this(ARCHIVE_DIRECTORY, MAX_ARCHIVED_SESSION_AMOUNT);
+	}
+
+	FightSessionArchive(File directory, int maxSessionAmount)
+	{
+		this.directory = directory;
+		this.maxSessionAmount = maxSessionAmount;
+	}
+
+	static File getArchiveFile(File directory, String accountIdentifier)
+	{
+		return new File(directory, "fight-sessions-"+ accountIdentifier +".bin");
+	}
+
+	/**
+	 * Switch to the archive of another account, the file is validated and
+	 * possibly repaired on the archive thread.
+	 */
+	public void open(String accountIdentifier)
+	{
+		if (executor.isShutdown())
+		{
+			return;
+		}
+
+		executor.execute(() -> {
+			closeChannel();
+
+			try {
+				Files.createDirectories(directory.toPath());
+				path = getArchiveFile(directory, accountIdentifier).toPath();
+				channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+				repair();
+
+				// the next append is written right after the existing records
+				sequenceIndexOffset = nextHandledSequence - getRecordAmount();
+				isAvailable = true;
+			} catch (Exception exception) {
+				log.warn("Could not open the fight session archive, sessions will not be archived: ", exception);
+				closeChannel();
+			}
+		});
+	}
+
+	public void shutDown()
+	{
+		executor.execute(this::closeChannel);
+		executor.shutdown();
+	}
+
+	boolean awaitShutDown(long timeoutMs) throws InterruptedException
+	{
+		return executor.awaitTermination(timeoutMs, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Wait until all the work that is queued before this call is handled.
+	 */
+	void awaitPending(long timeoutMs) throws Exception
+	{
+		CompletableFuture.runAsync(() -> {}, executor).get(timeoutMs, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Whether the archive of the current account is opened and sessions can be moved to it.
+	 */
+	public boolean isAvailable()
+	{
+		return isAvailable && !executor.isShutdown();
+	}
+
+	/**
+	 * Append a record that is serialized on the calling thread on the archive thread.
+	 * Returns the sequence to read the record back with or -1 when the archive is shut down.
+	 */
+	public synchronized long append(ByteBuffer record)
+	{
+		if (executor.isShutdown())
+		{
+			return -1;
+		}
+
+		final long sequence = nextSequence++;
+
+		executor.execute(() -> {
+			nextHandledSequence = sequence + 1;
+
+			// guard: skip when no archive could be opened
+			if (channel == null)
+			{
+				return;
+			}
+
+			try {
+
+				// NOTE: the record is written at the position of its sequence to not shift
+				// all the records after a record that could only partially be written
+				final long position = HEADER_SIZE + (sequence - sequenceIndexOffset) * RECORD_SIZE;
+
+				while (record.hasRemaining())
+				{
+					channel.write(record, position + record.position());
+				}
+
+				if (getRecordAmount() > maxSessionAmount)
+				{
+					compact();
+				}
+			} catch (Exception exception) {
+				log.warn("Could not append a session to the fight session archive: ", exception);
+			}
+		});
+
+		return sequence;
+	}
+
+	/**
+	 * Read the archived sessions of a fight with the given sequences in order. The sessions are read on
+	 * the archive thread after all the pending appends, the returned future completes when all are handled.
+	 * Sessions that are removed by compacting the archive or that could not be read are skipped.
+	 * The future fails when the archive is not available or could not be read at all.
+	 */
+	public CompletableFuture<Void> readSessions(Fight fight, long[] sequences, Consumer<FightSession> handler)
+	{
+		final long fightKey = getFightKey(fight);
+		final long createdAtMs = fight.getCreatedAt().toEpochMilli();
+
+		if (executor.isShutdown())
+		{
+			return CompletableFuture.failedFuture(new IllegalStateException("The fight session archive is shut down."));
+		}
+
+		return CompletableFuture.runAsync(() -> {
+
+			// guard: make sure the archive could be opened
+			if (channel == null)
+			{
+				throw new IllegalStateException("The fight session archive is not opened.");
+			}
+
+			try {
+				final ByteBuffer record = ByteBuffer.allocate(RECORD_SIZE);
+				final long recordAmount = getRecordAmount();
+
+				for (long sequence : sequences)
+				{
+					final long recordIndex = sequence - sequenceIndexOffset;
+
+					// guard: skip records that are compacted or not written
+					if (recordIndex < 0 || recordIndex >= recordAmount || !readRecord(recordIndex, record))
+					{
+						continue;
+					}
+
+					// guard: skip sessions of other fights or of an earlier fight against the same actor
+					if (record.getLong(0) != fightKey || record.getLong(Long.BYTES) < createdAtMs)
+					{
+						continue;
+					}
+
+					handler.accept(deserialize(fight, record));
+				}
+			} catch (IOException exception) {
+				throw new UncheckedIOException(exception);
+			}
+		}, executor);
+	}
+
+	/**
+	 * Sum the archived sessions of a fight with the given sequences into one session with the totals.
+	 */
+	public CompletableFuture<FightSession> sumSessions(Fight fight, long[] sequences)
+	{
+		final FightSession totalSession = new FightSession(fight);
+
+		return readSessions(fight, sequences, (session) -> addToSession(totalSession, session))
+			.thenApply((result) -> totalSession);
+	}
+
+	static ByteBuffer serialize(Fight fight, FightSession session)
+	{
+		final ByteBuffer record = ByteBuffer.allocate(RECORD_SIZE);
+		final Instant finishedAt = session.getFinishedAt();
+
+		record.putLong(getFightKey(fight));
+		record.putLong(finishedAt == null ? EMPTY_INSTANT : finishedAt.toEpochMilli());
+		record.putLong(session.getInteractingTickCounter());
+		record.putLong(session.getIdleTickCounter());
+
+		for (FightStatisticEntry statisticEntry : FightStatisticEntry.values())
+		{
+			final FightStatistic statistic = session.getStatistic(statisticEntry);
+
+			record.putLong(statistic.getHitDamage());
+			record.putLong(statistic.getMissDamage());
+			record.putLong(statistic.getHitCounter());
+			record.putLong(statistic.getMissCounter());
+			record.putLong(toEpochMilli(statistic.getFirstUpdate()));
+			record.putLong(toEpochMilli(statistic.getLastUpdate()));
+		}
+
+		record.putInt(calculateChecksum(record));
+		record.flip();
+
+		return record;
+	}
+
+	static FightSession deserialize(Fight fight, ByteBuffer record)
+	{
+		final FightSession session = new FightSession(fight);
+
+		record.position(Long.BYTES);
+		session.restoreFinished(fromEpochMilli(record.getLong()));
+		session.addInteractingTicks(record.getLong());
+		session.addIdleTicks(record.getLong());
+
+		for (FightStatisticEntry statisticEntry : FightStatisticEntry.values())
+		{
+			final FightStatistic statistic = session.getStatistic(statisticEntry);
+
+			statistic.restore(
+				record.getLong(),
+				record.getLong(),
+				record.getLong(),
+				record.getLong(),
+				fromEpochMilli(record.getLong()),
+				fromEpochMilli(record.getLong())
+			);
+		}
+
+		return session;
+	}
+
+	static void addToSession(FightSession targetSession, FightSession session)
+	{
+		targetSession.addInteractingTicks(session.getInteractingTickCounter());
+
+		for (FightStatisticEntry statisticEntry : FightStatisticEntry.values())
+		{
+			targetSession.getStatistic(statisticEntry).addStatistic(session.getStatistic(statisticEntry));
+		}
+	}
+
+	/**
+	 * Make sure the file has a valid header and ends with a complete and valid record.
+	 * Records that were only partially written before a crash are truncated.
+	 */
+	private void repair() throws IOException
+	{
+		final ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+		final boolean hasHeader = channel.size() >= HEADER_SIZE && channel.read(header, 0) == HEADER_SIZE;
+
+		if (!hasHeader || header.getInt(0) != FILE_MAGIC || header.getInt(4) != FILE_VERSION || header.getInt(8) != ENTRY_AMOUNT)
+		{
+			log.debug("Resetting the fight session archive because of an unknown format.");
+			channel.truncate(0);
+			writeHeader(channel);
+			return;
+		}
+
+		final ByteBuffer record = ByteBuffer.allocate(RECORD_SIZE);
+		long recordAmount = getRecordAmount();
+
+		while (recordAmount > 0 && !readRecord(recordAmount - 1, record))
+		{
+			recordAmount--;
+		}
+
+		final long validSize = HEADER_SIZE + recordAmount * RECORD_SIZE;
+
+		if (channel.size() != validSize)
+		{
+			log.debug("Truncating the fight session archive to the last valid record.");
+			channel.truncate(validSize);
+		}
+
+		if (recordAmount > maxSessionAmount)
+		{
+			compact();
+		}
+	}
+
+	/**
+	 * Only keep the newest half of the records to bound the size of the file.
+	 * A new file is written first and then moved over the old one to never end up with a broken archive.
+	 * The archive is always reopened afterwards, so a failed move leaves the old archive in use.
+	 */
+	private void compact() throws IOException
+	{
+		final long recordAmount = getRecordAmount();
+		final long keptRecordAmount = maxSessionAmount / 2;
+		final long firstKeptRecordIndex = Math.max(0, recordAmount - keptRecordAmount);
+		final Path compactedPath = path.resolveSibling(path.getFileName() +".tmp");
+
+		log.debug("Compacting the fight session archive from {} to {} records.", recordAmount, recordAmount - firstKeptRecordIndex);
+
+		try (FileChannel compactedChannel = FileChannel.open(compactedPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING))
+		{
+			writeHeader(compactedChannel);
+
+			// NOTE: the header is written at an absolute position, which does not move the channel
+			compactedChannel.position(HEADER_SIZE);
+
+			final long position = HEADER_SIZE + firstKeptRecordIndex * RECORD_SIZE;
+			final long size = channel.size() - position;
+			long transferred = 0;
+
+			while (transferred < size)
+			{
+				transferred += channel.transferTo(position + transferred, size - transferred, compactedChannel);
+			}
+
+			compactedChannel.force(true);
+		}
+
+		channel.close();
+
+		try {
+			Files.move(compactedPath, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			sequenceIndexOffset += firstKeptRecordIndex;
+		} finally {
+			reopenChannel();
+		}
+	}
+
+	private void reopenChannel() throws IOException
+	{
+		try {
+			channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+		} catch (IOException exception) {
+			channel = null;
+			isAvailable = false;
+			throw exception;
+		}
+	}
+
+	private boolean readRecord(long recordIndex, ByteBuffer record) throws IOException
+	{
+		final long position = HEADER_SIZE + recordIndex * RECORD_SIZE;
+
+		record.clear();
+
+		while (record.hasRemaining())
+		{
+			if (channel.read(record, position + record.position()) < 0)
+			{
+				return false;
+			}
+		}
+
+		record.position(RECORD_SIZE - Integer.BYTES);
+		return record.getInt() == calculateChecksum(record);
+	}
+
+	private void writeHeader(FileChannel targetChannel) throws IOException
+	{
+		final ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+
+		header.putInt(FILE_MAGIC);
+		header.putInt(FILE_VERSION);
+		header.putInt(ENTRY_AMOUNT);
+		header.putInt(RECORD_SIZE);
+		header.flip();
+
+		while (header.hasRemaining())
+		{
+			targetChannel.write(header, header.position());
+		}
+	}
+
+	private long getRecordAmount() throws IOException
+	{
+		return Math.max(0, channel.size() - HEADER_SIZE) / RECORD_SIZE;
+	}
+
+	private void closeChannel()
+	{
+		isAvailable = false;
+
+		if (channel == null)
+		{
+			return;
+		}
+
+		try {
+			channel.close();
+		} catch (IOException exception) {
+			log.warn("Could not close the fight session archive: ", exception);
+		}
+
+		channel = null;
+	}
+
+	/**
+	 * Checksum of the record without the trailing checksum itself.
+	 */
+	private static int calculateChecksum(ByteBuffer record)
+	{
+		final CRC32 checksum = new CRC32();
+		final ByteBuffer content = record.duplicate();
+
+		content.position(0);
+		content.limit(RECORD_SIZE - Integer.BYTES);
+		checksum.update(content);
+
+		return (int) checksum.getValue();
+	}
+
+	/**
+	 * Stable key of the actor a fight is against to identify records of the same fight.
+	 */
+	private static long getFightKey(Fight fight)
+	{
+		final String actorName = fight.getActorName();
+		final byte[] identifier = (fight.getActorType().getKey() +":"+ actorName).getBytes(StandardCharsets.UTF_8);
+		long hash = 0xcbf29ce484222325L;
+
+		// 64-bit FNV-1a
+		for (byte character : identifier)
+		{
+			hash ^= (character & 0xff);
+			hash *= 0x100000001b3L;
+		}
+
+		return hash;
+	}
+
+	private static long toEpochMilli(Instant instant)
+	{
+		return instant == null ? EMPTY_INSTANT : instant.toEpochMilli();
+	}
+
+	private static Instant fromEpochMilli(long epochMilli)
+	{
+		return epochMilli == EMPTY_INSTANT ? null : Instant.ofEpochMilli(epochMilli);
+	}
+}
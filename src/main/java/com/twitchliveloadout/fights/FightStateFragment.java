@@ -0,0 +1,145 @@
+package com.twitchliveloadout.fights;
+
+import com.google.gson.JsonArray;
+import com.twitchliveloadout.twitch.TwitchState;
+
+import java.time.Instant;
+
+/**
+ * Exported state of a single fight at a specific version.
+ * Calculating this requires walking all the sessions of a fight
+ * which is why it is cached on the fight itself and only rebuilt
+ * when the version of the fight has changed.
+ */
+public class FightStateFragment
+{
+	private final long version;
+	private final String actorName;
+	private final ActorType actorType;
+	private final int actorId;
+	private final int actorCombatLevel;
+	private final long totalInteractingTicks;
+	private final long lastInteractingTicks;
+	private final long totalDuration;
+	private final long lastDuration;
+	private final int sessionCounter;
+	private final long updatedAt;
+
+	// indexed by the ordinals of the statistic entries and properties
+	private final JsonArray[][] statisticValues;
+	private final boolean[] everUpdatedEntries;
+
+	public FightStateFragment(Fight fight, long version)
+	{
+		final FightSession totalSession = fight.calculateTotalSession();
+		final FightSession lastSession = fight.getLastSession();
+		final Instant lastUpdate = fight.getLastUpdate(true);
+		final FightStatisticEntry[] entries = FightStatisticEntry.values();
+		final FightStatisticProperty[] properties = FightStatisticProperty.values();
+
+		this.version = version;
+		actorName = fight.getActorName();
+		actorType = fight.getActorType();
+		actorId = fight.getActorId();
+		actorCombatLevel = fight.getActorCombatLevel();
+		totalInteractingTicks = totalSession.getInteractingTickCounter();
+		lastInteractingTicks = lastSession.getInteractingTickCounter();
+		totalDuration = totalSession.getDurationSeconds();
+		lastDuration = lastSession.getDurationSeconds();
+		sessionCounter = fight.getSessionCounter();
+		updatedAt = (lastUpdate == null ? 0 : lastUpdate.getEpochSecond());
+		statisticValues = new JsonArray[entries.length][properties.length];
+		everUpdatedEntries = new boolean[entries.length];
+
+		for (FightStatisticEntry statisticEntry : entries)
+		{
+			FightStatistic totalStatistic = totalSession.getStatistic(statisticEntry);
+			FightStatistic lastStatistic = lastSession.getStatistic(statisticEntry);
+
+			everUpdatedEntries[statisticEntry.ordinal()] = totalStatistic.isEverUpdated() || lastStatistic.isEverUpdated();
+
+			for (FightStatisticProperty property : properties)
+			{
+				long totalValue = totalStatistic.getValueByProperty(property);
+				long lastValue = lastStatistic.getValueByProperty(property);
+				JsonArray totalAndLastValue = new JsonArray();
+
+				// check if we need to test the maximum state
+				if (TwitchState.STATE_STRESS_TEST_ENABLED)
+				{
+					totalValue = (int) (Math.random() * TwitchState.MAX_FIGHT_STATISTIC_VALUE);
+					lastValue = (int) (Math.random() * TwitchState.MAX_FIGHT_STATISTIC_VALUE);
+				}
+
+				totalAndLastValue.add(totalValue);
+				totalAndLastValue.add(lastValue);
+				statisticValues[statisticEntry.ordinal()][property.ordinal()] = totalAndLastValue;
+			}
+		}
+	}
+
+	public long getVersion()
+	{
+		return version;
+	}
+
+	public String getActorName()
+	{
+		return actorName;
+	}
+
+	public ActorType getActorType()
+	{
+		return actorType;
+	}
+
+	public int getActorId()
+	{
+		return actorId;
+	}
+
+	public int getActorCombatLevel()
+	{
+		return actorCombatLevel;
+	}
+
+	public long getTotalInteractingTicks()
+	{
+		return totalInteractingTicks;
+	}
+
+	public long getLastInteractingTicks()
+	{
+		return lastInteractingTicks;
+	}
+
+	public long getTotalDuration()
+	{
+		return totalDuration;
+	}
+
+	public long getLastDuration()
+	{
+		return lastDuration;
+	}
+
+	public int getSessionCounter()
+	{
+		return sessionCounter;
+	}
+
+	public long getUpdatedAt()
+	{
+		return updatedAt;
+	}
+
+	public boolean isEverUpdated(FightStatisticEntry statisticEntry)
+	{
+		return everUpdatedEntries[statisticEntry.ordinal()];
+	}
+
+	public JsonArray getStatisticValue(FightStatisticEntry statisticEntry, FightStatisticProperty property)
+	{
+		return statisticValues[statisticEntry.ordinal()][property.ordinal()];
+	}
+}
@@ -39,11 +39,11 @@ import net.runelite.api.gameval.VarPlayerID;
 
 import java.time.Instant;
 import java.util.ArrayList;
-import java.util.Iterator;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
 
 @Slf4j
 public class FightStateManager
@@ -56,6 +56,11 @@ public class FightStateManager
 
 	private static final int ON_GRAPHIC_CHANGED_DELAY = 200; // ms
 	private final ScheduledThreadPoolExecutor scheduledExecutor = new ScheduledThreadPoolExecutor(1);
+	private final FightSessionArchive sessionArchive = new FightSessionArchive();
+
+	// finished sessions of all fights are moved to the archive periodically, including fights that are idle
+	private static final int ARCHIVE_SWEEP_INTERVAL = 60000; // ms
+	private Instant lastArchiveSweepAt = Instant.now();
 
 	public static final String HIDDEN_PLAYER_ACTOR_NAME = "__self__";
 	public static final float GAME_TICK_DURATION = 0.6f; // seconds
@@ -83,6 +88,18 @@ public class FightStateManager
 	private static final int INCOMING_FIGHT_SESSION_AUTO_EXPIRY_TIME = 60000; // ms
 	private final ConcurrentHashMap<Actor, Instant> lastInteractingActors = new ConcurrentHashMap<>();
 
+	// must be a power of two, several raid rooms worth of hitsplats in one game tick
+	private static final int MAX_QUEUED_HITSPLAT_AMOUNT = 1024;
+	private final FightHitsplatQueue queuedHitsplats = new FightHitsplatQueue(MAX_QUEUED_HITSPLAT_AMOUNT);
+
+	// game ticks after the last activity before checking whether the actor of a fight is still around
+	private static final int IDLE_CHECK_DELAY = 5;
+	private static final int IDLE_DESPAWN_CHECK_DELAY = 1;
+	private final FightIdleTracker idleTracker = new FightIdleTracker();
+	private boolean wasLoggedIn = false;
+	private boolean wasAutoIdling = true;
+	private Actor interactingActor;
+
 	private static final String ACTOR_NAME_KEY = "actorNames";
 	private static final String ACTOR_TYPE_KEY = "actorTypes";
 	private static final String ACTOR_ID_KEY = "actorIds";
@@ -95,6 +112,17 @@ public class FightStateManager
 	private static final String SESSION_COUNTERS_KEY = "sessionCounters";
 	private static final String STATISTICS_KEY = "statistics";
 
+	// Incremented whenever a fight is added or removed, changes within
+	// a fight are tracked by the version of the fight itself.
+	private final AtomicLong fightsVersion = new AtomicLong(0);
+	private JsonObject cachedFightStatisticsState;
+	private long cachedFightsVersion = -1;
+	private long cachedFightVersionSum = -1;
+	private boolean cachedPlayerInfoEnabled;
+	private int cachedMaxFightAmountInState = -1;
+
+	private static final Pattern ACTOR_NAME_TAG_PATTERN = Pattern.compile("\\<[^>]*>");
+
 	public static final Skill NO_SKILL = null;
 	public static final int NO_ANIMATION_ID = -1;
 	public static final int SINGLE_ANCIENT_ANIMATION_ID = 1978;
@@ -118,6 +146,7 @@ public class FightStateManager
 	{
 		clearScheduledUpdates();
 		scheduledExecutor.shutdown();
+		sessionArchive.shutDown();
 	}
 
 	public void onGraphicChanged(GraphicChanged event)
@@ -264,6 +293,7 @@ public class FightStateManager
 
 			// When all checks passed make sure the fight exists
 			Fight fight = ensureValidFight(eventActor);
+			registerFightActivity(fight);
 
 			if (property == FightStatisticProperty.MISS_COUNTERS || property == FightStatisticProperty.MISS_DAMAGES)
 			{
@@ -387,6 +417,9 @@ public class FightStateManager
 		// Handle local player deaths as we cannot use the despawned event
 		if (eventActor == localPlayer && animationId == DEATH_ANIMATION_ID)
 		{
+			// make sure the final hitsplats are part of the session that is finished
+			handleQueuedHitsplats();
+
 			if (!hasFight(eventActor))
 			{
 				return;
@@ -401,10 +434,32 @@ public class FightStateManager
 
 	public void onHitsplatApplied(HitsplatApplied event)
 	{
-		Actor eventActor = event.getActor();
-		Hitsplat hitsplat = event.getHitsplat();
-		Player player = client.getLocalPlayer();
-		HeadIcon headIcon = player.getOverheadIcon();
+		final Actor eventActor = event.getActor();
+		final Hitsplat hitsplat = event.getHitsplat();
+		final Player localPlayer = client.getLocalPlayer();
+		final boolean isSmiting = (localPlayer != null && localPlayer.getOverheadIcon() == HeadIcon.SMITE);
+
+		// NOTE: only capture the hitsplat here to keep the work on the client thread minimal,
+		// the fights are updated in batches on the next game tick.
+		if (!queuedHitsplats.offer(eventActor, hitsplat.getHitsplatType(), hitsplat.getAmount(), hitsplat.isMine(), isSmiting, System.currentTimeMillis()))
+		{
+			log.debug("Dropped a hitsplat because the queue is full, total dropped: {}", queuedHitsplats.getDroppedCounter());
+		}
+	}
+
+	public void handleQueuedHitsplats()
+	{
+		final int handledAmount = queuedHitsplats.drain(this::handleQueuedHitsplat);
+
+		if (handledAmount > 0)
+		{
+			log.debug("Handled {} queued hitsplats, total dropped: {}", handledAmount, queuedHitsplats.getDroppedCounter());
+		}
+	}
+
+	private void handleQueuedHitsplat(FightQueuedHitsplat hitsplat)
+	{
+		Actor eventActor = hitsplat.getActor();
 		int hitsplatType = hitsplat.getHitsplatType();
 		boolean isOnSelf = isLocalPlayer(eventActor);
 
@@ -445,17 +500,44 @@ public class FightStateManager
 		registerEnsuredFightHitsplat(eventActor, FightStatisticEntry.TOTAL, hitsplat);
 
 		// Register damage done while having smite up and dealing damage to other entity
-		if (!isOnSelf && isPlayer(eventActor) && headIcon == HeadIcon.SMITE)
+		if (!isOnSelf && isPlayer(eventActor) && hitsplat.isSmiting())
 		{
 			registerEnsuredFightHitsplat(eventActor, FightStatisticEntry.SMITE, hitsplat);
 		}
 	}
 
+	public void onNpcSpawned(NpcSpawned npcSpawned)
+	{
+		onActorSpawned(npcSpawned.getActor());
+	}
+
+	public void onPlayerSpawned(PlayerSpawned playerSpawned)
+	{
+		onActorSpawned(playerSpawned.getActor());
+	}
+
+	private void onActorSpawned(Actor eventActor)
+	{
+		final Fight fight = getFight(eventActor);
+
+		// guard: only fights are tracked for idling
+		if (fight == null)
+		{
+			return;
+		}
+
+		// the actor is around again which means the fight is not idling anymore
+		registerFightActivity(fight);
+	}
+
 	public void onNpcDespawned(NpcDespawned npcDespawned)
 	{
 		final NPC npc = npcDespawned.getNpc();
 		final Actor eventActor = npcDespawned.getActor();
 
+		clearInteractingActor(eventActor);
+		scheduleIdleCheck(eventActor);
+
 		if (!npc.isDead())
 		{
 			return;
@@ -469,6 +551,9 @@ public class FightStateManager
 		final Player player = playerDespawned.getPlayer();
 		final Actor eventActor = playerDespawned.getActor();
 
+		clearInteractingActor(eventActor);
+		scheduleIdleCheck(eventActor);
+
 		// Guard: make sure the player died
 		if (player.getHealthRatio() != 0)
 		{
@@ -481,6 +566,9 @@ public class FightStateManager
 	private void onActorDespawned(Actor eventActor)
 	{
 
+		// make sure the final hitsplats are part of the session that is finished
+		handleQueuedHitsplats();
+
 		if (!hasFight(eventActor))
 		{
 			return;
@@ -529,6 +617,8 @@ public class FightStateManager
 			return;
 		}
 
+		interactingActor = target;
+
 		if (target == null)
 		{
 			return;
@@ -542,6 +632,11 @@ public class FightStateManager
 		{
 			rotateOldestInteractingActor();
 		}
+
+		if (hasFight(target))
+		{
+			registerFightActivity(getFight(target));
+		}
 	}
 
 	private void rotateOldestInteractingActor()
@@ -593,81 +688,167 @@ public class FightStateManager
 
 	public void onGameTick()
 	{
+		handleQueuedHitsplats();
 		registerIdleGameTick();
 		registerInteractingGameTick();
+		archiveFinishedSessions();
 	}
 
-	private void registerIdleGameTick()
+	private void archiveFinishedSessions()
 	{
-		if (!config.fightStatisticsAutoIdling())
+		final Instant now = Instant.now();
+
+		// guard: only sweep the fights every interval
+		if (lastArchiveSweepAt.plusMillis(ARCHIVE_SWEEP_INTERVAL).isAfter(now))
 		{
 			return;
 		}
 
-		final boolean isLoggedIn = (client.getGameState() == GameState.LOGGED_IN);
-		final CopyOnWriteArrayList<String> actorNames = getOtherActorNames();
+		final Instant archiveBefore = now.minusSeconds(config.fightStatisticsArchiveTime() * 60L);
+		lastArchiveSweepAt = now;
 
 		for (Fight fight : fights.values())
 		{
-			if (!fight.isIdling(actorNames) && isLoggedIn)
-			{
-				continue;
-			}
+			fight.archiveFinishedSessions(archiveBefore);
+		}
+	}
+
+	private void registerIdleGameTick()
+	{
+		final boolean isLoggedIn = (client.getGameState() == GameState.LOGGED_IN);
+		final boolean isAutoIdling = config.fightStatisticsAutoIdling();
+		final boolean isLoggingOut = (wasLoggedIn && !isLoggedIn);
 
-			// add shared idle ticks for the total session
-			fight.queueIdleTicks(1);
+		if (isLoggingOut)
+		{
+			interactingActor = null;
+		}
 
-			// add a tick to all of the sessions that currently exist
-			// to get the right duration of the last session
-			for (FightSession session : fight.getOngoingSessions())
+		wasLoggedIn = isLoggedIn;
+
+		if (!isAutoIdling)
+		{
+			// stop all idling once without counting the ticks since then
+			if (wasAutoIdling)
 			{
-				session.queueIdleTicks(1);
+				idleTracker.resetAll(fights.values());
 			}
+
+			wasAutoIdling = false;
+			idleTracker.advance((fight) -> true, IDLE_CHECK_DELAY);
+			return;
+		}
+
+		wasAutoIdling = true;
+
+		// all fights are idling while logged out,
+		// once logged in they are woken up again by activity or spawns of their actor
+		if (isLoggingOut)
+		{
+			idleTracker.idleAll(fights.values());
 		}
+
+		idleTracker.advance(this::isFightActorPresent, IDLE_CHECK_DELAY);
 	}
 
 	private void registerInteractingGameTick()
 	{
-		// getInteracting needs to be run on the client thread
-		plugin.runOnClientThread(() -> {
-			Player localPlayer = client.getLocalPlayer();
+		// NOTE: the interacting actor is tracked with the interacting changed event,
+		// which makes sure this doesn't need to be run on the client thread.
+		final Actor interactingActor = this.interactingActor;
 
-			if (localPlayer == null)
-			{
-				return;
-			}
+		if (interactingActor == null)
+		{
+			return;
+		}
 
-			Actor interactingActor = localPlayer.getInteracting();
+		// Always update the current interacting actor to make sure it doesn't expire
+		// while the local player is still interacting with them
+		lastInteractingActors.put(interactingActor, Instant.now());
 
-			if (interactingActor == null)
-			{
-				return;
-			}
+		// Guard: only handle game tick when a fight is initiated (which means one hitsplat was dealt).
+		// This is to prevent non-attackable NPC's to also count interacting game ticks.
+		if (!hasFight(interactingActor))
+		{
+			return;
+		}
+
+		Fight fight = getFight(interactingActor);
+		registerFightActivity(fight);
 
-			// Always update the current interacting actor to make sure it doesn't expire
-			// while the local player is still interacting with them
-			lastInteractingActors.put(interactingActor, Instant.now());
+		if (!fight.hasSession(interactingActor))
+		{
+			return;
+		}
+
+		FightSession session = fight.getSession(interactingActor);
+		session.addInteractingTicks(1);
+		fight.markModified();
+	}
+
+	/**
+	 * Stop counting interacting ticks against an actor that is not around anymore,
+	 * because no interacting changed event is received for it after it despawned.
+	 */
+	private void clearInteractingActor(Actor actor)
+	{
+		if (interactingActor != actor)
+		{
+			return;
+		}
+
+		interactingActor = null;
+	}
 
-			// Guard: only handle game tick when a fight is initiated (which means one hitsplat was dealt).
-			// This is to prevent non-attackable NPC's to also count interacting game ticks.
-			if (!hasFight(interactingActor))
+	private void registerFightActivity(Fight fight)
+	{
+		idleTracker.registerActivity(fight, IDLE_CHECK_DELAY);
+	}
+
+	private void scheduleIdleCheck(Actor actor)
+	{
+		final Fight fight = getFight(actor);
+
+		// guard: only fights are tracked for idling
+		if (fight == null)
+		{
+			return;
+		}
+
+		idleTracker.scheduleCheck(fight, IDLE_DESPAWN_CHECK_DELAY);
+	}
+
+	private boolean isFightActorPresent(Fight fight)
+	{
+		final String fightActorName = fight.getActorName();
+		final WorldView worldView = client.getTopLevelWorldView();
+
+		// Not idling when the actor can be found in the surroundings
+		// for some boss fights this would not work (e.g. The Gauntlet)
+		// because often you are seeing the boss while prepping.
+		// We accept these inconsistencies as it weighs out situations where
+		// you are not interacting/attacking the boss due to a certain phase and
+		// then we don't want idling to kick in to skew your DPS (e.g. certain Olm phases)
+		for (NPC npc : worldView.npcs())
+		{
+			if (fightActorName.equals(npc.getName()))
 			{
-				return;
+				return true;
 			}
+		}
 
-			Fight fight = getFight(interactingActor);
-
-			if (!fight.hasSession(interactingActor))
+		for (Player player : worldView.players())
+		{
+			if (fightActorName.equals(player.getName()))
 			{
-				return;
+				return true;
 			}
+		}
 
-			FightSession session = fight.getSession(interactingActor);
-			session.addInteractingTicks(1);
-		});
+		return false;
 	}
 
-	private void registerExistingFightHitsplat(Actor actor, FightStatisticEntry statisticEntry, Hitsplat hitsplat)
+	private void registerExistingFightHitsplat(Actor actor, FightStatisticEntry statisticEntry, FightQueuedHitsplat hitsplat)
 	{
 		Fight fight = getFight(actor);
 
@@ -688,14 +869,14 @@ public class FightStateManager
 		registerFightHitsplat(fight, actor, statisticEntry, hitsplat);
 	}
 
-	private void registerEnsuredFightHitsplat(Actor actor, FightStatisticEntry statisticEntry, Hitsplat hitsplat)
+	private void registerEnsuredFightHitsplat(Actor actor, FightStatisticEntry statisticEntry, FightQueuedHitsplat hitsplat)
 	{
 		Fight fight = ensureValidFight(actor);
 
 		registerFightHitsplat(fight, actor, statisticEntry, hitsplat);
 	}
 
-	private void registerFightHitsplat(Fight fight, Actor actor, FightStatisticEntry statisticEntry, Hitsplat hitsplat)
+	private void registerFightHitsplat(Fight fight, Actor actor, FightStatisticEntry statisticEntry, FightQueuedHitsplat hitsplat)
 	{
 		if (fight == null)
 		{
@@ -705,6 +886,9 @@ public class FightStateManager
 		Instant now = Instant.now();
 		boolean isOnSelf = isLocalPlayer(actor);
 
+		// register the activity first to make sure the idle ticks until now are included in this update
+		registerFightActivity(fight);
+
 		// check if we should automatically finish the last session for incoming damage
 		// as it is timed out. This is because the incoming fight sessions are only finishing
 		// when the local player died and this is not always indicating a fight ending.
@@ -737,7 +921,7 @@ public class FightStateManager
 		// prevent other player hits to trigger the queueing
 		if (hitsplat.isMine())
 		{
-			fight.registerQueuedStatistics(actor, amount);
+			fight.registerQueuedStatistics(actor, amount, Instant.ofEpochMilli(hitsplat.getCapturedAtMs()));
 		}
 
 		// Check for block or damage
@@ -844,7 +1028,7 @@ public class FightStateManager
 		String localPlayerName = client.getLocalPlayer().getName();
 		boolean isLocalPlayer = (actor instanceof Player) && localPlayerName.equals(actor.getName());
 		String actorName = getFormattedActorName(actor);
-		Fight fight = new Fight(actor, actorName, isLocalPlayer);
+		Fight fight = new Fight(actor, actorName, isLocalPlayer, sessionArchive);
 
 		// Rotate fights to prevent memory leaks when the client is on for a long time
 		while (fights.size() >= MAX_FIGHT_AMOUNT_IN_MEMORY)
@@ -855,6 +1039,7 @@ public class FightStateManager
 		log.debug("Creating new fight for actor {}", actorName);
 
 		fights.put(actorName, fight);
+		fightsVersion.incrementAndGet();
 		updateCombatPanel();
 	}
 
@@ -871,6 +1056,8 @@ public class FightStateManager
 
 		String actorName = fight.getActorName();
 		fights.remove(actorName);
+		idleTracker.remove(fight);
+		fightsVersion.incrementAndGet();
 		updateCombatPanel();
 	}
 
@@ -901,23 +1088,56 @@ public class FightStateManager
 	public void deleteAllFights()
 	{
 		fights.clear();
+		idleTracker.clear();
+		fightsVersion.incrementAndGet();
 		updateCombatPanel();
 	}
 
 	public void onAccountChanged()
 	{
+		queuedHitsplats.clear();
 		deleteAllFights();
+		sessionArchive.open(plugin.getAccountIdentifier());
 	}
 
 	private void updateCombatPanel()
 	{
+		// guard: the panels are created after the managers
+		if (!plugin.hasValidPanels())
+		{
+			return;
+		}
+
 		plugin.getPluginPanel().getCombatPanel().rebuild();
 	}
 
 	public JsonObject getFightStatisticsState()
 	{
-		CopyOnWriteArrayList<Fight> includedFights = new CopyOnWriteArrayList<>();
-		CopyOnWriteArrayList<FightStatisticEntry> includedStatisticEntries = new CopyOnWriteArrayList<>();
+		final boolean playerInfoEnabled = config.playerInfoEnabled();
+		final int maxFightAmountInState = getMaxFightAmountInState();
+		final long currentFightsVersion = fightsVersion.get();
+		long fightVersionSum = 0;
+
+		// NOTE: the versions of fights only increase, which means the sum only stays
+		// the same when no fight changed, the set of fights itself is tracked separately
+		for (Fight fight : fights.values())
+		{
+			fightVersionSum += fight.getVersion();
+		}
+
+		// guard: reuse the previous state when nothing changed since it was built
+		if (!TwitchState.STATE_STRESS_TEST_ENABLED
+			&& cachedFightStatisticsState != null
+			&& cachedFightsVersion == currentFightsVersion
+			&& cachedFightVersionSum == fightVersionSum
+			&& cachedPlayerInfoEnabled == playerInfoEnabled
+			&& cachedMaxFightAmountInState == maxFightAmountInState)
+		{
+			return cachedFightStatisticsState;
+		}
+
+		ArrayList<FightStateFragment> includedFragments = new ArrayList<>();
+		boolean[] includedStatisticEntries = new boolean[FightStatisticEntry.values().length];
 
 		final JsonObject state = new JsonObject();
 		JsonObject statistics = new JsonObject();
@@ -945,34 +1165,30 @@ public class FightStateManager
 				continue;
 			}
 
-			includedFights.add(fight);
+			// only rebuilds the fragment when the fight changed since the last state
+			includedFragments.add(fight.getStateFragment());
 		}
 
 		// override the included fights when we want to stress test the state
 		if (TwitchState.STATE_STRESS_TEST_ENABLED && fights.size() > 0)
 		{
-			final int maxFightAmount = getMaxFightAmountInState();
 			final Fight firstFight = fights.values().iterator().next();
-			includedFights.clear();
+			includedFragments.clear();
 
-			for (int fightIndex = 0; fightIndex < maxFightAmount; fightIndex++)
+			for (int fightIndex = 0; fightIndex < maxFightAmountInState; fightIndex++)
 			{
-				includedFights.add(firstFight);
+				includedFragments.add(new FightStateFragment(firstFight, firstFight.getVersion()));
 			}
 		}
 
-		int fightAmount = includedFights.size();
-		int maxFightAmountInState = getMaxFightAmountInState();
+		int fightAmount = includedFragments.size();
 
 		if (fightAmount > maxFightAmountInState) {
 			fightAmount = maxFightAmountInState;
 		}
 
-		// order by last update time
-		includedFights.sort(new FightSorter());
-
-		// only send a specific maximum to Twitch
-		CopyOnWriteArrayList<Fight> slicedFights = new CopyOnWriteArrayList<>(includedFights.subList(0, fightAmount));
+		// order by last update time, descending from later to earlier fight
+		includedFragments.sort((f1, f2) -> Long.compare(f2.getUpdatedAt(), f1.getUpdatedAt()));
 
 		state.add(ACTOR_NAME_KEY, actorNames);
 		state.add(ACTOR_TYPE_KEY, actorTypes);
@@ -1002,63 +1218,43 @@ public class FightStateManager
 			statistics.add(statisticEntry.getKey(), fightStatistic);
 		}
 
-		for (Fight fight : slicedFights)
+		// only send a specific maximum to Twitch
+		for (FightStateFragment fragment : includedFragments.subList(0, fightAmount))
 		{
-			FightSession totalSession = fight.calculateTotalSession();
-			FightSession lastSession = fight.getLastSession();
-			String actorName = fight.getActorName();
-			Instant lastUpdate = fight.getLastUpdate(true);
+			String actorName = fragment.getActorName();
 
 			// Hide display name when this is not allowed to be published due to the config
-			if (fight.getActorType() == ActorType.LOCAL_PLAYER && !config.playerInfoEnabled())
+			if (fragment.getActorType() == ActorType.LOCAL_PLAYER && !playerInfoEnabled)
 			{
 				actorName = HIDDEN_PLAYER_ACTOR_NAME;
 			}
 
 			actorNames.add(actorName);
-			actorTypes.add(fight.getActorType().getKey());
-			actorIds.add(fight.getActorId());
-			actorCombatLevels.add(fight.getActorCombatLevel());
+			actorTypes.add(fragment.getActorType().getKey());
+			actorIds.add(fragment.getActorId());
+			actorCombatLevels.add(fragment.getActorCombatLevel());
 
-			totalInteractingTicks.add(totalSession.getInteractingTickCounter());
-			lastInteractingTicks.add(lastSession.getInteractingTickCounter());
+			totalInteractingTicks.add(fragment.getTotalInteractingTicks());
+			lastInteractingTicks.add(fragment.getLastInteractingTicks());
 
-			totalDurations.add(totalSession.getDurationSeconds());
-			lastDurations.add(lastSession.getDurationSeconds());
+			totalDurations.add(fragment.getTotalDuration());
+			lastDurations.add(fragment.getLastDuration());
 
-			sessionCounters.add(fight.getSessionCounter());
-			updatedAts.add(lastUpdate == null ? 0 : lastUpdate.getEpochSecond());
+			sessionCounters.add(fragment.getSessionCounter());
+			updatedAts.add(fragment.getUpdatedAt());
 
 			for (FightStatisticEntry statisticEntry : FightStatisticEntry.values())
 			{
-				FightStatistic totalStatistic = totalSession.getStatistic(statisticEntry);
-				FightStatistic lastStatistic = lastSession.getStatistic(statisticEntry);
 				JsonObject statisticState = statistics.getAsJsonObject(statisticEntry.getKey());
 
+				if (fragment.isEverUpdated(statisticEntry))
+				{
+					includedStatisticEntries[statisticEntry.ordinal()] = true;
+				}
+
 				for (FightStatisticProperty property : FightStatisticProperty.values())
 				{
-					long totalValue = totalStatistic.getValueByProperty(property);
-					long lastValue = lastStatistic.getValueByProperty(property);
-					JsonArray totalAndLastValue = new JsonArray();
-
-					// check if we need to test the maximum state
-					if (TwitchState.STATE_STRESS_TEST_ENABLED)
-					{
-						totalValue = (int) (Math.random() * TwitchState.MAX_FIGHT_STATISTIC_VALUE);
-						lastValue = (int) (Math.random() * TwitchState.MAX_FIGHT_STATISTIC_VALUE);
-					}
-
-					if (totalStatistic.isEverUpdated() || lastStatistic.isEverUpdated())
-					{
-						if (!includedStatisticEntries.contains(statisticEntry))
-						{
-							includedStatisticEntries.add(statisticEntry);
-						}
-					}
-
-					totalAndLastValue.add(totalValue);
-					totalAndLastValue.add(lastValue);
-					statisticState.getAsJsonArray(property.getKey()).add(totalAndLastValue);
+					statisticState.getAsJsonArray(property.getKey()).add(fragment.getStatisticValue(statisticEntry, property));
 				}
 			}
 		}
@@ -1068,12 +1264,18 @@ public class FightStateManager
 		// have any freezes, heals, blood heals, smite drains etc.
 		for (FightStatisticEntry statisticEntry : FightStatisticEntry.values())
 		{
-			if (!includedStatisticEntries.contains(statisticEntry))
+			if (!includedStatisticEntries[statisticEntry.ordinal()])
 			{
 				statistics.remove(statisticEntry.getKey());
 			}
 		}
 
+		cachedFightStatisticsState = state;
+		cachedFightsVersion = currentFightsVersion;
+		cachedFightVersionSum = fightVersionSum;
+		cachedPlayerInfoEnabled = playerInfoEnabled;
+		cachedMaxFightAmountInState = maxFightAmountInState;
+
 		return state;
 	}
 
@@ -1111,7 +1313,7 @@ public class FightStateManager
 
 		// Remove any HTML-like tags from the actor name, this is the case
 		// for example with objects getting a <col=00ffff>name</col> tag
-		String formattedActorName = actorName.replaceAll("\\<[^>]*>","");
+		String formattedActorName = ACTOR_NAME_TAG_PATTERN.matcher(actorName).replaceAll("");
 
 		return formattedActorName;
 	}
@@ -1137,28 +1339,6 @@ public class FightStateManager
 		return playerAmount > allowedPlayerAmount;
 	}
 
-	public CopyOnWriteArrayList<String> getOtherActorNames()
-	{
-		final CopyOnWriteArrayList<String> actorNames = new CopyOnWriteArrayList<>();
-		WorldView worldView = client.getTopLevelWorldView();
-		Iterator<? extends NPC> npcIterator = worldView.npcs().iterator();
-		Iterator<? extends Player> playerIterator = worldView.players().iterator();
-
-		while (npcIterator.hasNext())
-		{
-			NPC npc = npcIterator.next();
-			actorNames.add(npc.getName());
-		}
-
-		while (playerIterator.hasNext())
-		{
-			Player player = playerIterator.next();
-			actorNames.add(player.getName());
-		}
-
-		return actorNames;
-	}
-
 	public int getMaxFightAmountInState()
 	{
 		int maxAmount = config.fightStatisticsMaxFightAmount();
@@ -141,6 +141,16 @@ public class FightStatistic {
 		return 0;
 	}
 
+	void restore(long hitDamage, long missDamage, long hitCounter, long missCounter, Instant firstUpdate, Instant lastUpdate)
+	{
+		this.hitDamage = hitDamage;
+		this.missDamage = missDamage;
+		this.hitCounter = hitCounter;
+		this.missCounter = missCounter;
+		this.firstUpdate = firstUpdate;
+		this.lastUpdate = lastUpdate;
+	}
+
 	public void reset()
 	{
 		hitDamage = 0;
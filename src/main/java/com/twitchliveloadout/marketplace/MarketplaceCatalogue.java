@@ -0,0 +1,195 @@
+package com.twitchliveloadout.marketplace;
+
+import com.twitchliveloadout.marketplace.products.ChannelPointReward;
+import com.twitchliveloadout.marketplace.products.EbsProduct;
+import com.twitchliveloadout.marketplace.products.EbsProductPlan;
+import com.twitchliveloadout.marketplace.products.StreamerProduct;
+
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * Immutable snapshot of all the products that are known at a certain moment.
+ * A refresh of any of the product lists creates a new snapshot with lookups by ID or SKU,
+ * which allows readers on any thread to get a consistent view without copying the lists.
+ * EBS products are compiled to execution plans when they are added, where plans of the same product instances are reused.
+ */
+public class MarketplaceCatalogue
+{
+	public static final MarketplaceCatalogue EMPTY = new MarketplaceCatalogue(
+		Collections.emptyList(),
+		Collections.emptyList(),
+		Collections.emptyList(),
+		Collections.emptyList(),
+		null
+	);
+
+	private final List<StreamerProduct> streamerProducts;
+	private final List<EbsProduct> ebsProducts;
+	private final List<EbsProduct> customEbsProducts;
+	private final List<ChannelPointReward> channelPointRewards;
+
+	private final Map<String, StreamerProduct> streamerProductsBySku;
+	private final Map<String, EbsProduct> ebsProductsById;
+	private final Map<String, EbsProduct> customEbsProductsById;
+	private final Map<String, ChannelPointReward> channelPointRewardsById;
+
+	private final Map<String, EbsProductPlan> ebsProductPlansById;
+	private final Map<String, EbsProductPlan> customEbsProductPlansById;
+
+	private MarketplaceCatalogue(List<StreamerProduct> streamerProducts, List<EbsProduct> ebsProducts, List<EbsProduct> customEbsProducts, List<ChannelPointReward> channelPointRewards, MarketplaceCatalogue previousCatalogue)
+	{
+		this.streamerProducts = Collections.unmodifiableList(new ArrayList<>(streamerProducts));
+		this.ebsProducts = Collections.unmodifiableList(new ArrayList<>(ebsProducts));
+		this.customEbsProducts = Collections.unmodifiableList(new ArrayList<>(customEbsProducts));
+		this.channelPointRewards = Collections.unmodifiableList(new ArrayList<>(channelPointRewards));
+		this.streamerProductsBySku = createIndex(this.streamerProducts, (streamerProduct) -> streamerProduct.twitchProductSku);
+		this.ebsProductsById = createIndex(this.ebsProducts, (ebsProduct) -> ebsProduct.id);
+		this.customEbsProductsById = createIndex(this.customEbsProducts, (ebsProduct) -> ebsProduct.id);
+		this.channelPointRewardsById = createIndex(this.channelPointRewards, (channelPointReward) -> channelPointReward.id);
+		this.ebsProductPlansById = compilePlans(this.ebsProductsById, previousCatalogue == null ? null : previousCatalogue.ebsProductPlansById);
+		this.customEbsProductPlansById = compilePlans(this.customEbsProductsById, previousCatalogue == null ? null : previousCatalogue.customEbsProductPlansById);
+	}
+
+	public MarketplaceCatalogue withStreamerProducts(List<StreamerProduct> newStreamerProducts)
+	{
+		return new MarketplaceCatalogue(newStreamerProducts, ebsProducts, customEbsProducts, channelPointRewards, this);
+	}
+
+	public MarketplaceCatalogue withEbsProducts(List<EbsProduct> newEbsProducts)
+	{
+		return new MarketplaceCatalogue(streamerProducts, newEbsProducts, customEbsProducts, channelPointRewards, this);
+	}
+
+	public MarketplaceCatalogue withChannelPointRewards(List<ChannelPointReward> newChannelPointRewards)
+	{
+		return new MarketplaceCatalogue(streamerProducts, ebsProducts, customEbsProducts, newChannelPointRewards, this);
+	}
+
+	/**
+	 * Add a custom EBS product at the end and replace any existing one with the same ID.
+	 */
+	public MarketplaceCatalogue withCustomEbsProduct(EbsProduct customEbsProduct)
+	{
+		List<EbsProduct> newCustomEbsProducts = new ArrayList<>(customEbsProducts);
+
+		newCustomEbsProducts.removeIf((candidateEbsProduct) -> Objects.equals(candidateEbsProduct.id, customEbsProduct.id));
+		newCustomEbsProducts.add(customEbsProduct);
+
+		return new MarketplaceCatalogue(streamerProducts, ebsProducts, newCustomEbsProducts, channelPointRewards, this);
+	}
+
+	public List<StreamerProduct> getStreamerProducts()
+	{
+		return streamerProducts;
+	}
+
+	public List<EbsProduct> getEbsProducts()
+	{
+		return ebsProducts;
+	}
+
+	public List<EbsProduct> getCustomEbsProducts()
+	{
+		return customEbsProducts;
+	}
+
+	public List<ChannelPointReward> getChannelPointRewards()
+	{
+		return channelPointRewards;
+	}
+
+	public StreamerProduct getStreamerProductBySku(String twitchProductSku)
+	{
+		return twitchProductSku == null ? null : streamerProductsBySku.get(twitchProductSku);
+	}
+
+	/**
+	 * Get the EBS product by ID where custom EBS products take priority to allow overriding.
+	 */
+	public EbsProduct getEbsProductById(String ebsProductId)
+	{
+
+		// guard: make sure the ID is valid
+		if (ebsProductId == null)
+		{
+			return null;
+		}
+
+		EbsProduct customEbsProduct = customEbsProductsById.get(ebsProductId);
+
+		return customEbsProduct != null ? customEbsProduct : ebsProductsById.get(ebsProductId);
+	}
+
+	/**
+	 * Get the execution plan of the EBS product that is returned by the ID.
+	 */
+	public EbsProductPlan getEbsProductPlanById(String ebsProductId)
+	{
+
+		// guard: make sure the ID is valid
+		if (ebsProductId == null)
+		{
+			return null;
+		}
+
+		EbsProductPlan customEbsProductPlan = customEbsProductPlansById.get(ebsProductId);
+
+		return customEbsProductPlan != null ? customEbsProductPlan : ebsProductPlansById.get(ebsProductId);
+	}
+
+	public ChannelPointReward getChannelPointRewardById(String channelPointRewardId)
+	{
+		return channelPointRewardId == null ? null : channelPointRewardsById.get(channelPointRewardId);
+	}
+
+	/**
+	 * Index the entities by key where the first entity wins on duplicate keys
+	 * to stay consistent with the order of the lists.
+	 */
+	private static <T> Map<String, T> createIndex(List<T> entities, Function<T, String> keyGetter)
+	{
+		HashMap<String, T> index = new HashMap<>(entities.size() * 4 / 3 + 1);
+
+		for (T entity : entities)
+		{
+			String key = (entity == null ? null : keyGetter.apply(entity));
+
+			// guard: skip entities without a key
+			if (key == null)
+			{
+				continue;
+			}
+
+			index.putIfAbsent(key, entity);
+		}
+
+		return Collections.unmodifiableMap(index);
+	}
+
+	/**
+	 * Compile a plan for each indexed EBS product where the plans of the previous snapshot are reused
+	 * for the same product instances. Products are edited without bumping their version, so every fetch
+	 * of the products is compiled again, while refreshing the other lists keeps the compiled plans.
+	 */
+	private static Map<String, EbsProductPlan> compilePlans(Map<String, EbsProduct> ebsProductsById, Map<String, EbsProductPlan> previousPlansById)
+	{
+		HashMap<String, EbsProductPlan> plansById = new HashMap<>(ebsProductsById.size() * 4 / 3 + 1);
+
+		for (Map.Entry<String, EbsProduct> entry : ebsProductsById.entrySet())
+		{
+			EbsProduct ebsProduct = entry.getValue();
+			EbsProductPlan plan = (previousPlansById == null ? null : previousPlansById.get(entry.getKey()));
+
+			// guard: compile products that changed or are new
+			if (plan == null || plan.getEbsProduct() != ebsProduct)
+			{
+				plan = EbsProductPlan.compile(ebsProduct);
+			}
+
+			plansById.put(entry.getKey(), plan);
+		}
+
+		return Collections.unmodifiableMap(plansById);
+	}
+}
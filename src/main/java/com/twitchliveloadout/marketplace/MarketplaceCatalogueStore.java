@@ -0,0 +1,38 @@
+package com.twitchliveloadout.marketplace;
+
+import com.twitchliveloadout.marketplace.transactions.TwitchTransactionScheduler;
+
+import java.util.function.UnaryOperator;
+
+/**
+ * Publishes the current catalogue, where every update replaces it with a new snapshot.
+ * Writers are serialized to not lose any concurrent updates, while readers only need the volatile read of the catalogue.
+ */
+public class MarketplaceCatalogueStore
+{
+	private final TwitchTransactionScheduler transactionScheduler;
+	private volatile MarketplaceCatalogue catalogue = MarketplaceCatalogue.EMPTY;
+
+	public MarketplaceCatalogueStore(TwitchTransactionScheduler transactionScheduler)
+	{
+		this.transactionScheduler = transactionScheduler;
+	}
+
+	public MarketplaceCatalogue get()
+	{
+		return catalogue;
+	}
+
+	/**
+	 * Publish a new catalogue based on the current one and return it.
+	 */
+	public synchronized MarketplaceCatalogue update(UnaryOperator<MarketplaceCatalogue> updater)
+	{
+		catalogue = updater.apply(catalogue);
+
+		// transactions that could not be matched to a product might be valid now
+		transactionScheduler.wake(TwitchTransactionScheduler.ParkReason.PRODUCT);
+
+		return catalogue;
+	}
+}
@@ -13,6 +13,7 @@ public class MarketplaceConstants {
 	public static final int MAX_CUSTOM_RANDOM_PRODUCTS = 20;
 	public static final int TRANSACTION_DELAY_CORRECTION_MS = 1000;
 	public static final int TRANSACTION_EXPIRY_CLOCK_TOLERANCE_MS = 45 * 1000;
+	public static final int TRANSACTION_SPAWN_POINT_RETRY_DELAY_MS = 5 * 1000;
 	public static final int TICK_DURATION_MS = 600;
 	public static final int GAME_CYCLE_DURATION_MS = 20; // refer to client.getGameCycle()
 
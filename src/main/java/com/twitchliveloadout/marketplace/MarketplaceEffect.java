@@ -53,6 +53,11 @@ public class MarketplaceEffect<K extends EbsEffectFrame> {
 	@Setter
 	private boolean isApplied = false;
 
+	/**
+	 * Message that is formatted for this effect, which is only rendered again when its values have changed.
+	 */
+	private final MarketplaceMessages.FormattedMessage formattedMessage = new MarketplaceMessages.FormattedMessage();
+
 	public MarketplaceEffect(MarketplaceProduct marketplaceProduct, K frame, SpawnedObject spawnedObject, Instant expiresAt)
 	{
 		this.marketplaceProduct = marketplaceProduct;
@@ -62,6 +67,14 @@ public class MarketplaceEffect<K extends EbsEffectFrame> {
 		this.expiresAt = expiresAt;
 	}
 
+	/**
+	 * Format a message that is shown repeatedly for this effect, such as an overhead text that is rendered every frame.
+	 */
+	public String formatMessage(String message)
+	{
+		return formattedMessage.format(message, marketplaceProduct, this);
+	}
+
 	public boolean isActive()
 	{
 		return !isExpired() && marketplaceProduct.isActive();
@@ -0,0 +1,122 @@
+package com.twitchliveloadout.marketplace;
+
+import java.util.function.LongSupplier;
+
+/**
+ * Work budget of the marketplace processing within a single client tick. Deferrable timers that are due
+ * after the budget is spent are postponed to one of the next client ticks to spread heavy work over
+ * multiple frames. To prevent starvation a timer is always allowed after it is deferred too many times.
+ * NOTE: the clock is injectable to allow a synthetic clock.
+ */
+public class MarketplaceFrameBudget
+{
+	public static final int MAX_DEFERRED_FRAMES = 10;
+	private static final long REPORT_INTERVAL_NANOS = 60L * 1000 * 1000 * 1000;
+	private static final long NANOS_PER_MS = 1000 * 1000;
+
+	private final LongSupplier nanoClock;
+	private final int[] deferredFrameAmounts = new int[MarketplaceTimer.values().length];
+	private long frameStartedAtNanos = 0;
+	private long budgetNanos = 0;
+
+	/**
+	 * Statistics since the last report
+	 */
+	private long lastReportedAtNanos;
+	private long frameAmount = 0;
+	private long overrunFrameAmount = 0;
+	private long deferralAmount = 0;
+	private long forcedAmount = 0;
+	private long maxFrameNanos = 0;
+
+	public MarketplaceFrameBudget(LongSupplier nanoClock)
+	{
+		this.nanoClock = nanoClock;
+		this.lastReportedAtNanos = nanoClock.getAsLong();
+	}
+
+	public void startFrame(int budgetMs)
+	{
+		frameStartedAtNanos = nanoClock.getAsLong();
+		budgetNanos = budgetMs * NANOS_PER_MS;
+	}
+
+	/**
+	 * Check whether a timer that is due can run in this frame. Deferred timers stay due,
+	 * which means they will be checked again in the next frame.
+	 */
+	public boolean allows(MarketplaceTimer timer)
+	{
+		int timerIndex = timer.ordinal();
+
+		// guard: timers that cannot be deferred or have been deferred too often are always allowed
+		if (!timer.isDeferrable() || deferredFrameAmounts[timerIndex] >= MAX_DEFERRED_FRAMES)
+		{
+			if (deferredFrameAmounts[timerIndex] >= MAX_DEFERRED_FRAMES)
+			{
+				forcedAmount += 1;
+			}
+
+			deferredFrameAmounts[timerIndex] = 0;
+			return true;
+		}
+
+		// guard: defer when the budget of this frame is spent
+		if (getElapsedNanos() >= budgetNanos)
+		{
+			deferredFrameAmounts[timerIndex] += 1;
+			deferralAmount += 1;
+			return false;
+		}
+
+		deferredFrameAmounts[timerIndex] = 0;
+		return true;
+	}
+
+	/**
+	 * Register the end of the frame and get a report of the deferrals and overruns when one is due.
+	 */
+	public String endFrame()
+	{
+		long frameNanos = getElapsedNanos();
+
+		frameAmount += 1;
+		maxFrameNanos = Math.max(maxFrameNanos, frameNanos);
+
+		if (frameNanos > budgetNanos)
+		{
+			overrunFrameAmount += 1;
+		}
+
+		long nowNanos = nanoClock.getAsLong();
+
+		// guard: skip when no report is due yet
+		if (nowNanos - lastReportedAtNanos < REPORT_INTERVAL_NANOS)
+		{
+			return null;
+		}
+
+		String report = null;
+
+		// only report when the budget was actually exceeded to not spam the logs
+		if (overrunFrameAmount > 0 || deferralAmount > 0)
+		{
+			report = "Marketplace frame budget of "+ (budgetNanos / NANOS_PER_MS) +"ms was exceeded in "+ overrunFrameAmount +" of "+ frameAmount +" frames"
+				+" (max frame: "+ (maxFrameNanos / 1000) +"us), deferred work "+ deferralAmount +" time(s) and forced deferred work "+ forcedAmount +" time(s).";
+		}
+
+		lastReportedAtNanos = nowNanos;
+		frameAmount = 0;
+		overrunFrameAmount = 0;
+		deferralAmount = 0;
+		forcedAmount = 0;
+		maxFrameNanos = 0;
+
+		return report;
+	}
+
+	private long getElapsedNanos()
+	{
+		return nanoClock.getAsLong() - frameStartedAtNanos;
+	}
+}
@@ -0,0 +1,287 @@
+package com.twitchliveloadout.marketplace;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import lombok.Getter;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+
+/**
+ * Helpers to decode the responses of the EBS and Twitch directly from the response stream
+ * without building an intermediate JSON tree. The value readers are lenient and skip values
+ * of an unexpected type to make sure one malformed field never breaks the rest of the stream.
+ */
+public class MarketplaceJsonReader
+{
+
+	/**
+	 * Decoded response with an optional status, message and the list of entries.
+	 */
+	public static class Response<T>
+	{
+		@Getter
+		private boolean status = false;
+		@Getter
+		private String message = null;
+		@Getter
+		private final ArrayList<T> entries = new ArrayList<>();
+		@Getter
+		private int invalidEntryAmount = 0;
+		private boolean hasEntries = false;
+
+		/**
+		 * Whether the entries key was present with an array, even if it was empty
+		 */
+		public boolean hasEntries()
+		{
+			return hasEntries;
+		}
+	}
+
+	public interface EntryReader<T> {
+		T read(JsonReader reader) throws IOException;
+	}
+
+	/**
+	 * Read a response object with the entries stored as an array under the given key.
+	 * Entries that are null or fail to decode are counted, but don't stop the decoding of others,
+	 * which requires the entry reader to always consume the full entry when it succeeds.
+	 * The remainder of an entry that failed halfway is skipped before continuing with the next one.
+	 */
+	public static <T> Response<T> readResponse(Reader source, String entriesKey, EntryReader<T> entryReader) throws IOException
+	{
+		Response<T> response = new Response<>();
+
+		try (JsonReader reader = new JsonReader(source))
+		{
+			reader.beginObject();
+
+			while (reader.hasNext())
+			{
+				String name = reader.nextName();
+
+				if (name.equals("status"))
+				{
+					response.status = nextBoolean(reader, false);
+				}
+				else if (name.equals("message"))
+				{
+					response.message = nextString(reader);
+				}
+				else if (name.equals(entriesKey) && reader.peek() == JsonToken.BEGIN_ARRAY)
+				{
+					response.hasEntries = true;
+					reader.beginArray();
+
+					while (reader.hasNext())
+					{
+						String entryPath = reader.getPath();
+						T entry = null;
+
+						try {
+							entry = entryReader.read(reader);
+						} catch (RuntimeException exception) {
+							skipRemainingEntry(reader, entryPath);
+						}
+
+						if (entry == null)
+						{
+							response.invalidEntryAmount++;
+							continue;
+						}
+
+						response.entries.add(entry);
+					}
+
+					reader.endArray();
+				}
+				else
+				{
+					reader.skipValue();
+				}
+			}
+
+			reader.endObject();
+		}
+
+		return response;
+	}
+
+	/**
+	 * Skip whatever is left of an entry of which the decoding failed, so the reader is positioned
+	 * right before the next entry again. The entry path is the path of the reader before the entry was read,
+	 * e.g. `$.data[3]`, which is used to find out how deep inside the entry the reader still is.
+	 */
+	private static void skipRemainingEntry(JsonReader reader, String entryPath) throws IOException
+	{
+
+		// guard: skip the full entry when nothing of it was consumed yet
+		if (reader.getPath().equals(entryPath))
+		{
+			reader.skipValue();
+			return;
+		}
+
+		String entriesPath = entryPath.substring(0, entryPath.lastIndexOf('[') + 1);
+
+		while (!isAtEntriesLevel(reader.getPath(), entriesPath))
+		{
+			switch (reader.peek())
+			{
+				case END_OBJECT: reader.endObject(); break;
+				case END_ARRAY: reader.endArray(); break;
+				case NAME: reader.nextName(); break;
+				case END_DOCUMENT: throw new EOFException("Unexpected end of an entry at "+ reader.getPath());
+				default: reader.skipValue();
+			}
+		}
+	}
+
+	private static boolean isAtEntriesLevel(String path, String entriesPath)
+	{
+		return path.startsWith(entriesPath) && path.indexOf(']', entriesPath.length()) == path.length() - 1;
+	}
+
+	/**
+	 * Start reading an object and return true, or skip the value and return false when it is not an object.
+	 */
+	public static boolean beginObjectOrSkip(JsonReader reader) throws IOException
+	{
+
+		// guard: skip anything that is not an object, including nulls
+		if (reader.peek() != JsonToken.BEGIN_OBJECT)
+		{
+			reader.skipValue();
+			return false;
+		}
+
+		reader.beginObject();
+		return true;
+	}
+
+	/**
+	 * Read an array with the given reader for every element. Elements that are decoded to null are kept,
+	 * in the same way the default Gson adapters do. Returns null when the value is not an array.
+	 */
+	public static <T> ArrayList<T> nextList(JsonReader reader, EntryReader<T> elementReader) throws IOException
+	{
+
+		// guard: skip anything that is not an array, including nulls
+		if (reader.peek() != JsonToken.BEGIN_ARRAY)
+		{
+			reader.skipValue();
+			return null;
+		}
+
+		ArrayList<T> list = new ArrayList<>();
+		reader.beginArray();
+
+		while (reader.hasNext())
+		{
+			list.add(elementReader.read(reader));
+		}
+
+		reader.endArray();
+		return list;
+	}
+
+	public static String nextString(JsonReader reader) throws IOException
+	{
+		JsonToken token = reader.peek();
+
+		if (token == JsonToken.STRING || token == JsonToken.NUMBER)
+		{
+			return reader.nextString();
+		}
+
+		if (token == JsonToken.BOOLEAN)
+		{
+			return Boolean.toString(reader.nextBoolean());
+		}
+
+		reader.skipValue();
+		return null;
+	}
+
+	public static boolean nextBoolean(JsonReader reader, boolean fallback) throws IOException
+	{
+		Boolean value = nextBooleanOrNull(reader);
+		return value == null ? fallback : value;
+	}
+
+	public static Boolean nextBooleanOrNull(JsonReader reader) throws IOException
+	{
+		JsonToken token = reader.peek();
+
+		if (token == JsonToken.BOOLEAN)
+		{
+			return reader.nextBoolean();
+		}
+
+		if (token == JsonToken.STRING)
+		{
+			return Boolean.parseBoolean(reader.nextString());
+		}
+
+		reader.skipValue();
+		return null;
+	}
+
+	public static Double nextDoubleOrNull(JsonReader reader) throws IOException
+	{
+
+		// guard: skip any non-numeric values
+		if (reader.peek() != JsonToken.NUMBER && reader.peek() != JsonToken.STRING)
+		{
+			reader.skipValue();
+			return null;
+		}
+
+		String rawValue = reader.nextString();
+
+		try {
+			return Double.parseDouble(rawValue);
+		} catch (NumberFormatException exception) {
+			return null;
+		}
+	}
+
+	public static int nextInt(JsonReader reader, int fallback) throws IOException
+	{
+		Double value = nextDoubleOrNull(reader);
+		return value == null ? fallback : value.intValue();
+	}
+
+	public static Integer nextIntegerOrNull(JsonReader reader) throws IOException
+	{
+		Double value = nextDoubleOrNull(reader);
+		return value == null ? null : value.intValue();
+	}
+
+	/**
+	 * Read an enum by its constant name in the same way the default Gson adapters do.
+	 */
+	public static <E extends Enum<E>> E nextEnum(JsonReader reader, Class<E> enumClass, E fallback) throws IOException
+	{
+		String name = nextString(reader);
+
+		// guard: make sure there is a value
+		if (name == null)
+		{
+			return fallback;
+		}
+
+		for (E constant : enumClass.getEnumConstants())
+		{
+			if (constant.name().equals(name))
+			{
+				return constant;
+			}
+		}
+
+		return fallback;
+	}
+}
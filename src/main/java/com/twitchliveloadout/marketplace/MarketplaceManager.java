@@ -4,24 +4,29 @@ import com.google.common.collect.ImmutableList;
 import com.google.gson.Gson;
 import com.google.gson.JsonArray;
 import com.google.gson.JsonObject;
-import com.google.gson.JsonParser;
 import com.twitchliveloadout.TwitchLiveLoadoutConfig;
 import com.twitchliveloadout.TwitchLiveLoadoutPlugin;
 import com.twitchliveloadout.fights.FightStateManager;
 import com.twitchliveloadout.marketplace.animations.AnimationManager;
+import com.twitchliveloadout.marketplace.conditions.ConditionContext;
 import com.twitchliveloadout.marketplace.draws.DrawManager;
 import com.twitchliveloadout.marketplace.interfaces.MenuManager;
 import com.twitchliveloadout.marketplace.interfaces.WidgetManager;
 import com.twitchliveloadout.marketplace.notifications.NotificationManager;
 import com.twitchliveloadout.marketplace.products.*;
 import com.twitchliveloadout.marketplace.sounds.SoundManager;
+import com.twitchliveloadout.marketplace.spawns.CanvasCamera;
 import com.twitchliveloadout.marketplace.spawns.SpawnManager;
 import com.twitchliveloadout.marketplace.spawns.SpawnOverheadManager;
 import com.twitchliveloadout.marketplace.spawns.SpawnPoint;
 import com.twitchliveloadout.marketplace.spawns.SpawnedObject;
 import com.twitchliveloadout.marketplace.transactions.TwitchTransaction;
+import com.twitchliveloadout.marketplace.transactions.TwitchTransactionIdStore;
+import com.twitchliveloadout.marketplace.transactions.TwitchTransactionPoller;
 import com.twitchliveloadout.marketplace.transactions.TwitchTransactionOrigin;
 import com.twitchliveloadout.marketplace.transactions.TwitchTransactionProductType;
+import com.twitchliveloadout.marketplace.transactions.TwitchTransactionScheduler;
+import com.twitchliveloadout.marketplace.transactions.TwitchTransactionTypeAdapter;
 import com.twitchliveloadout.marketplace.transmogs.TransmogManager;
 import com.twitchliveloadout.twitch.TwitchApi;
 import com.twitchliveloadout.twitch.TwitchSegmentType;
@@ -35,7 +40,6 @@ import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
 import net.runelite.api.*;
 import net.runelite.api.events.*;
-import net.runelite.api.geometry.SimplePolygon;
 import net.runelite.client.chat.ChatMessageManager;
 import net.runelite.client.game.ItemManager;
 import net.runelite.client.ui.overlay.OverlayManager;
@@ -50,9 +54,11 @@ import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.UnaryOperator;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
+import static com.twitchliveloadout.TwitchLiveLoadoutConfig.MARKETPLACE_HANDLED_TRANSACTION_IDS;
 import static com.twitchliveloadout.TwitchLiveLoadoutPlugin.IN_DEVELOPMENT;
 import static com.twitchliveloadout.marketplace.MarketplaceConstants.EVENT_SUB_DEFAULT_EBS_PRODUCT_ID;
 
@@ -104,45 +110,59 @@ public class MarketplaceManager {
 	@Getter
 	private final FightStateManager fightStateManager;
 
+	@Getter
+	private final ConditionContext conditionContext;
+
 	/**
-	 * List to keep track of all the active products
+	 * Timing wheel for the delayed effect frames of all products that is drained each client tick
 	 */
-	private final CopyOnWriteArrayList<MarketplaceProduct> activeProducts = new CopyOnWriteArrayList<>();
+	private final MarketplaceTimingWheel effectTimingWheel = new MarketplaceTimingWheel();
 
 	/**
-	 * List of all streamer products from the Twitch configuration segment
+	 * Work budget per client tick to spread the deferrable timers over multiple frames
 	 */
-	private CopyOnWriteArrayList<StreamerProduct> streamerProducts = new CopyOnWriteArrayList<>();
+	private final MarketplaceFrameBudget frameBudget = new MarketplaceFrameBudget(MarketplaceTimerRegistry.SYSTEM_NANO_CLOCK);
 
 	/**
-	 * List of all EBS products from Twitch
+	 * Camera the menu was last opened with to reuse the projected polygons of spawned objects
 	 */
-	private CopyOnWriteArrayList<EbsProduct> ebsProducts = new CopyOnWriteArrayList<>();
+	private CanvasCamera menuCanvasCamera = null;
 
 	/**
-	 * List of all custom EBS products loaded within RL
+	 * List to keep track of all the active products
 	 */
-	@Getter
-	private CopyOnWriteArrayList<EbsProduct> customEbsProducts = new CopyOnWriteArrayList<>();
+	private final CopyOnWriteArrayList<MarketplaceProduct> activeProducts = new CopyOnWriteArrayList<>();
 
 	/**
-	 * List of all EBS products from Twitch
+	 * Scheduler of all extension transactions that should be handled
 	 */
-	private CopyOnWriteArrayList<ChannelPointReward> channelPointRewards = new CopyOnWriteArrayList<>();
+	private final TwitchTransactionScheduler queuedTransactions = new TwitchTransactionScheduler();
+	private final CopyOnWriteArrayList<TwitchTransaction> archivedTransactions = new CopyOnWriteArrayList<>();
 
 	/**
-	 * List of all extension transactions that should be handled
+	 * Snapshot of the streamer products from the Twitch configuration segment, the EBS products from Twitch,
+	 * the custom EBS products loaded within RL and the channel point rewards. Every refresh publishes a new snapshot.
 	 */
-	private final CopyOnWriteArrayList<TwitchTransaction> queuedTransactions = new CopyOnWriteArrayList<>();
-	private final CopyOnWriteArrayList<TwitchTransaction> archivedTransactions = new CopyOnWriteArrayList<>();
+	private final MarketplaceCatalogueStore catalogueStore = new MarketplaceCatalogueStore(queuedTransactions);
 
-	private final CopyOnWriteArrayList<String> handledTransactionIds = new CopyOnWriteArrayList<>();
+	/**
+	 * Bounded lookup of handled transaction IDs that is persisted per channel
+	 * to prevent transactions from being handled twice after a restart
+	 */
+	public final static int MAX_HANDLED_TRANSACTION_ID_AMOUNT = 2500;
+	public final static long HANDLED_TRANSACTION_IDS_PERSIST_DELAY_MS = 10 * 1000;
+	private final TwitchTransactionIdStore handledTransactionIds;
 	private String lastTransactionId = null;
 
+	/**
+	 * Adaptive interval of fetching new transactions depending on the recent activity
+	 */
+	private final TwitchTransactionPoller transactionPoller = new TwitchTransactionPoller();
+
 	/**
 	 * Track several times that should be slower than client ticks but faster than game ticks
 	 */
-	private final ConcurrentHashMap<String, Instant> timerLastTriggeredAt = new ConcurrentHashMap<>();
+	private final MarketplaceTimerRegistry<MarketplaceTimer> timers = new MarketplaceTimerRegistry<>(MarketplaceTimer.class);
 
 	/**
 	 * Flag whether any events are allowed to be active
@@ -194,6 +214,13 @@ public class MarketplaceManager {
 	private int currentRegionId = 0;
 	private boolean isLoggedIn = false;
 
+	/**
+	 * Streaming decoders for the responses that are polled most often
+	 */
+	private static final TwitchTransactionTypeAdapter TRANSACTION_ADAPTER = new TwitchTransactionTypeAdapter();
+	private static final ChannelPointRewardTypeAdapter CHANNEL_POINT_REWARD_ADAPTER = new ChannelPointRewardTypeAdapter();
+	private static final EbsProductTypeAdapter EBS_PRODUCT_ADAPTER = new EbsProductTypeAdapter();
+
 	/**
 	 * Patterns within chat messages to trigger random events for
 	 */
@@ -223,6 +250,21 @@ public class MarketplaceManager {
 		this.menuManager = new MenuManager(plugin, config, client);
 		this.drawManager = new DrawManager(client);
 		this.soundManager = new SoundManager(client, config);
+		this.conditionContext = new ConditionContext(this, client);
+		this.handledTransactionIds = new TwitchTransactionIdStore(MAX_HANDLED_TRANSACTION_ID_AMOUNT, HANDLED_TRANSACTION_IDS_PERSIST_DELAY_MS, new TwitchTransactionIdStore.Storage()
+		{
+			@Override
+			public String load(String channelId)
+			{
+				return twitchApi.getChannelConfiguration(channelId, MARKETPLACE_HANDLED_TRANSACTION_IDS);
+			}
+
+			@Override
+			public void save(String channelId, String serializedTransactionIds)
+			{
+				twitchApi.setChannelConfiguration(channelId, MARKETPLACE_HANDLED_TRANSACTION_IDS, serializedTransactionIds);
+			}
+		});
 	}
 
 	/**
@@ -230,6 +272,7 @@ public class MarketplaceManager {
 	 */
 	public void fetchAsyncNewEbsTransactions()
 	{
+		handledTransactionIds.persistWhenDue(System.currentTimeMillis());
 
 		// guard: block when already fetching
 		if (isFetchingEbsTransactions)
@@ -237,24 +280,39 @@ public class MarketplaceManager {
 			return;
 		}
 
+		// guard: skip when the adaptive poll interval has not passed yet
+		if (!transactionPoller.isFetchDue())
+		{
+			return;
+		}
+
+		MarketplaceCatalogue knownCatalogue = catalogueStore.get();
+
 		// guard: skip updating new transactions when no products are enabled
 		// fetching of new transactions in this case is useless anyways because
 		// the configurations for them are not available without products
 		// NOTE: exception when test mode is active, which allows testing without any active
-		if ((streamerProducts.size() <= 0 || ebsProducts.size() <= 0) && !isTestModeActive())
+		if ((knownCatalogue.getStreamerProducts().isEmpty() || knownCatalogue.getEbsProducts().isEmpty()) && !isTestModeActive())
 		{
 			return;
 		}
 
+		// make sure the handled transactions of the current channel are known before fetching
+		loadHandledTransactionIds();
+
 		try {
 			isFetchingEbsTransactions = true;
+			transactionPoller.registerFetchStart();
 			twitchApi.fetchAsyncEbsTransactions(lastTransactionId, (Response response) -> {
 				isFetchingEbsTransactions = false;
 				fetchingEbsTransactionsErrored = false;
-				JsonObject result = (new JsonParser()).parse(response.body().string()).getAsJsonObject();
-				boolean status = result.get("status").getAsBoolean();
-				String message = result.get("message").getAsString();
-				JsonArray newTransactionsJson = result.getAsJsonArray("transactions");
+				MarketplaceJsonReader.Response<TwitchTransaction> result = MarketplaceJsonReader.readResponse(
+					response.body().charStream(),
+					"transactions",
+					TRANSACTION_ADAPTER::read
+				);
+				boolean status = result.isStatus();
+				String message = result.getMessage();
 				ArrayList<TwitchTransaction> newTransactions = new ArrayList<>();
 				final AtomicBoolean updatedLastTransactionId = new AtomicBoolean(false);
 
@@ -263,15 +321,21 @@ public class MarketplaceManager {
 				{
 					plugin.logSupport("Could not fetch EBS transactions from Twitch as the status is invalid with message: "+ message);
 					fetchingEbsTransactionsErrored = true;
+					transactionPoller.registerError();
 					return;
 				}
 
-				newTransactionsJson.forEach((element) -> {
+				// guard: report any transactions that could not be decoded, others are still handled
+				if (result.getInvalidEntryAmount() > 0)
+				{
+					log.error("Could not parse "+ result.getInvalidEntryAmount() +" Twitch Extension transaction(s).");
+				}
+
+				result.getEntries().forEach((twitchTransaction) -> {
 
 					// try catch for each individual transaction to not have one invalid transaction
 					// cancel all others with the top-level try-catch in this function
 					try {
-						TwitchTransaction twitchTransaction = gson.fromJson(element, TwitchTransaction.class);
 						String transactionId = twitchTransaction.id;
 
 						// update the ID to tell for next requests to fetch newer transactions
@@ -284,13 +348,12 @@ public class MarketplaceManager {
 						// guard: check if this transaction is already handled
 						// this is required because we have an offset on the last checked at date
 						// because with the HTTP request delays it is possible to miss a transaction
-						if (handledTransactionIds.contains(transactionId))
+						if (!handledTransactionIds.add(transactionId))
 						{
 							log.info("Skipping Twitch transaction because it was already handled: " + transactionId);
 							return;
 						}
 
-						handledTransactionIds.add(transactionId);
 						newTransactions.add(twitchTransaction);
 						log.info("Queued a new Twitch transaction with ID: " + transactionId);
 					} catch (Exception exception) {
@@ -298,6 +361,9 @@ public class MarketplaceManager {
 					}
 				});
 
+				// poll more often when new transactions were found as more are likely to follow
+				transactionPoller.registerFetch(newTransactions.size() > 0);
+
 				// guard: only update the lists and the panel when new transactions were found
 				if (newTransactions.size() <= 0)
 				{
@@ -322,6 +388,7 @@ public class MarketplaceManager {
 			}, (exception) -> {
 				isFetchingEbsTransactions = false;
 				fetchingEbsTransactionsErrored = true;
+				transactionPoller.registerError();
 			});
 		} catch (Exception exception) {
 			// empty
@@ -355,20 +422,19 @@ public class MarketplaceManager {
 			return;
 		}
 
-		Iterator<TwitchTransaction> iterator = queuedTransactions.iterator();
-
-		while (iterator.hasNext())
+		// guard: while there is no account type known at the moment skip handling any transactions
+		// the check for dangerous account types will come later to actually skip specific effects
+		// NOTE: can only run on client thread
+		if (plugin.getAccountType() == null)
 		{
-			TwitchTransaction transaction = iterator.next();
-			int activeProductAmount = activeProducts.size();
+			return;
+		}
 
-			// guard: check if the maximum amount of active products is exceeded
-			// this means this transaction is kept in the queue until one of the products
-			// is done with its effects.
-			if (activeProductAmount >= config.marketplaceMaxActiveProducts())
-			{
-				break;
-			}
+		// NOTE: the maximum amount of active products is checked before taking a transaction from the queue
+		// this means transactions are kept in the queue until one of the products is done with its effects
+		TwitchTransaction transaction;
+		while (activeProducts.size() < config.marketplaceMaxActiveProducts() && (transaction = queuedTransactions.poll(System.currentTimeMillis())) != null)
+		{
 
 			// try to handle each individual transaction to prevent one invalid transaction in the queue
 			// to cancel all other transactions and with that all their effects
@@ -378,9 +444,11 @@ public class MarketplaceManager {
 				StreamerProduct streamerProduct = getStreamerProductByTransaction(transaction);
 
 				// guard: make sure a products are exist for this transaction
+				// parked until the products are refreshed as they might be loaded later
 				if (twitchProduct == null || streamerProduct == null)
 				{
 					plugin.logSupport("Could not match the transaction product details to a Twitch and Streamer product. Transaction ID: "+ transactionId);
+					queuedTransactions.park(transaction, TwitchTransactionScheduler.ParkReason.PRODUCT, null);
 					continue;
 				}
 
@@ -389,20 +457,29 @@ public class MarketplaceManager {
 				String ebsProductId = streamerProduct.ebsProductId;
 				Instant now = Instant.now();
 				Instant cooldownUntil = streamerProductCooldownUntil.get(streamerProductId);
-				EbsProduct ebsProduct = getEbsProductById(ebsProductId);
+				EbsProductPlan ebsProductPlan = getEbsProductPlanById(ebsProductId);
+				EbsProduct ebsProduct = (ebsProductPlan == null ? null : ebsProductPlan.getEbsProduct());
 				String productType = transaction.product_type;
 				boolean isProductCoolingDown = cooldownUntil != null && now.isBefore(cooldownUntil);
 				boolean isSharedCoolingDown = sharedCooldownUntil != null && now.isBefore(sharedCooldownUntil);
 				boolean isTestTransaction = productType.equals(TwitchTransactionProductType.TEST.getType());
 				boolean isFreeTransaction = productType.equals(TwitchTransactionProductType.FREE.getType());
 				boolean isManualTransaction = productType.equals(TwitchTransactionProductType.MANUAL.getType());
-				boolean isValidEbsProduct = ebsProduct != null && ebsProduct.enabled && ebsProduct.behaviour != null;
-				boolean hasValidAccountType = plugin.getAccountType() != null; // NOTE: can only run on client thread
+				boolean isValidEbsProduct = ebsProduct != null && ebsProduct.enabled && ebsProductPlan.isValid();
 
 				// guard: make sure this product is not cooling down
 				// this can be the case when two transactions are done at the same time
+				// parked until the latest of the cooldowns has passed
 				if (isProductCoolingDown || isSharedCoolingDown)
 				{
+					Instant wakeAt = (isProductCoolingDown ? cooldownUntil : sharedCooldownUntil);
+
+					if (isProductCoolingDown && isSharedCoolingDown && sharedCooldownUntil.isAfter(cooldownUntil))
+					{
+						wakeAt = sharedCooldownUntil;
+					}
+
+					queuedTransactions.park(transaction, TwitchTransactionScheduler.ParkReason.COOLDOWN, wakeAt.toEpochMilli());
 					continue;
 				}
 
@@ -410,13 +487,7 @@ public class MarketplaceManager {
 				// we will not remove from the queue because the EBS product might need to be loaded still
 				if (!isValidEbsProduct)
 				{
-					continue;
-				}
-
-				// guard: while there is no account type known at the moment skip handling any transactions
-				// the check for dangerous account types will come later to actually skip specific effects
-				if (!hasValidAccountType)
-				{
+					queuedTransactions.park(transaction, TwitchTransactionScheduler.ParkReason.PRODUCT, null);
 					continue;
 				}
 
@@ -431,9 +502,11 @@ public class MarketplaceManager {
 					SpawnPoint spawnPoint = spawnManager.getSpawnPoint(requiredModelPlacement, null);
 
 					// guard: continue with the queue and don't remove from queue because we will wait for a valid spawn point
+					// parked until the spawn area changes or the retry delay has passed in case the spawn point is randomized
 					if (spawnPoint == null)
 					{
 						plugin.logSupport("Skipping transaction because required model placement could not be satisfied: "+ transaction.id);
+						queuedTransactions.park(transaction, TwitchTransactionScheduler.ParkReason.SPAWN_POINT, System.currentTimeMillis() + MarketplaceConstants.TRANSACTION_SPAWN_POINT_RETRY_DELAY_MS);
 						continue;
 					}
 				}
@@ -495,7 +568,7 @@ public class MarketplaceManager {
 				MarketplaceProduct newProduct = new MarketplaceProduct(
 					this,
 					transaction,
-					ebsProduct,
+					ebsProductPlan,
 					streamerProduct,
 					twitchProduct
 				);
@@ -603,18 +676,57 @@ public class MarketplaceManager {
 		String transactionId = transaction.id;
 
 		// guard: skip when already handled
-		if (handledTransactionIds.contains(transactionId))
+		if (!handledTransactionIds.add(transactionId))
 		{
 			return;
 		}
 
 		// add it to the queue and archive
 		queuedTransactions.add(transaction);
-		handledTransactionIds.add(transactionId);
 		archivedTransactions.add(0, transaction);
 		updateMarketplacePanel();
 	}
 
+	/**
+	 * Load the handled transaction IDs of the current channel when the channel has changed.
+	 */
+	private void loadHandledTransactionIds()
+	{
+		String channelId = twitchApi.getChannelId();
+
+		try {
+
+			// guard: skip when there is no channel or it is already loaded
+			if (!handledTransactionIds.switchChannel(channelId))
+			{
+				return;
+			}
+
+			lastTransactionId = null;
+			log.debug("Loaded {} handled transaction IDs for the current channel.", handledTransactionIds.size());
+		} catch (Exception exception) {
+			lastTransactionId = null;
+			plugin.logSupport("Could not load the handled transaction IDs due to the following error: ", exception);
+		}
+	}
+
+	/**
+	 * Fetch new transactions as soon as possible, because other events suggest viewers are active.
+	 */
+	public void requestTransactionFetch()
+	{
+		transactionPoller.wakeUp();
+	}
+
+	/**
+	 * Wake up the queued transactions that are waiting for a spawn point, because
+	 * the player moved or a tile became available.
+	 */
+	public void onSpawnAreaChanged()
+	{
+		queuedTransactions.wake(TwitchTransactionScheduler.ParkReason.SPAWN_POINT);
+	}
+
 	public void handleGameEvent(GameEventType gameEventType)
 	{
 		String eventId = gameEventType.getId();
@@ -686,6 +798,8 @@ public class MarketplaceManager {
 			return;
 		}
 
+		List<EbsProduct> ebsProducts = catalogueStore.get().getEbsProducts();
+
 		// guard: skip when there are no products loaded yet
 		if (ebsProducts.size() <= 0)
 		{
@@ -872,9 +986,8 @@ public class MarketplaceManager {
 				return;
 			}
 
-			// hide and free up the tile
-			spawnedObject.hide();
-			spawnManager.deregisterSpawnedObjectPlacement(spawnedObject);
+			// hide, free up the tile and reuse the object
+			spawnManager.despawnSpawnedObject(spawnedObject);
 		});
 	}
 
@@ -904,7 +1017,7 @@ public class MarketplaceManager {
 				return;
 			}
 
-			CopyOnWriteArrayList<StreamerProduct> newStreamerProducts = new CopyOnWriteArrayList<>();
+			ArrayList<StreamerProduct> newStreamerProducts = new ArrayList<>();
 
 			rawStreamerProducts.forEach((element) -> {
 				try {
@@ -916,7 +1029,7 @@ public class MarketplaceManager {
 				}
 			});
 
-			streamerProducts = newStreamerProducts;
+			updateCatalogue((currentCatalogue) -> currentCatalogue.withStreamerProducts(newStreamerProducts));
 
 			// trigger the several initial game events on the first load of the streamer products that might've been missed
 			// due to the game performing the events too fast before the initial load of the products
@@ -947,12 +1060,14 @@ public class MarketplaceManager {
 			return;
 		}
 
+		MarketplaceCatalogue knownCatalogue = catalogueStore.get();
+
 		// guard: skip updating the EBS products when there are no streamer products found
 		// this prevents requests to be made by streamers who have not configured the marketplace
 		// NOTE: we do allow an initial fetch to get an initial set of EBS products in case the
 		// streamer products are still being fetched
 		// NOTE: we also allow when test mode is active when streamers want to preview events
-		if ((streamerProducts.isEmpty() && !ebsProducts.isEmpty()) && !isTestModeActive())
+		if ((knownCatalogue.getStreamerProducts().isEmpty() && !knownCatalogue.getEbsProducts().isEmpty()) && !isTestModeActive())
 		{
 			return;
 		}
@@ -961,10 +1076,15 @@ public class MarketplaceManager {
 			isFetchingEbsProducts = true;
 			twitchApi.fetchAsyncEbsProducts((Response response) -> {
 				isFetchingEbsProducts = false;
-				JsonObject result = (new JsonParser()).parse(response.body().string()).getAsJsonObject();
-				boolean status = result.get("status").getAsBoolean();
-				String message = result.get("message").getAsString();
-				JsonArray products = result.getAsJsonArray("products");
+
+				// NOTE: products are decoded one by one from the stream to not let all products crash on one misconfiguration
+				MarketplaceJsonReader.Response<EbsProduct> result = MarketplaceJsonReader.readResponse(
+					response.body().charStream(),
+					"products",
+					EBS_PRODUCT_ADAPTER::read
+				);
+				boolean status = result.isStatus();
+				String message = result.getMessage();
 
 				// guard: check if the status is valid
 				// if not we want to keep the old products intact
@@ -974,19 +1094,14 @@ public class MarketplaceManager {
 					return;
 				}
 
-				CopyOnWriteArrayList<EbsProduct> newEbsProducts = new CopyOnWriteArrayList<>();
+				ArrayList<EbsProduct> newEbsProducts = result.getEntries();
 
-				// try-catch for every parse, to not let all products crash on one misconfiguration
-				products.forEach((product) -> {
-					try {
-						EbsProduct ebsProduct = gson.fromJson(product, EbsProduct.class);
-						newEbsProducts.add(ebsProduct);
-					} catch (Exception exception) {
-						plugin.logSupport("Could not parse the raw EBS product to a valid product: ", exception);
-					}
-				});
+				if (result.getInvalidEntryAmount() > 0)
+				{
+					plugin.logSupport("Could not parse "+ result.getInvalidEntryAmount() +" raw EBS product(s) to a valid product.");
+				}
 
-				ebsProducts = newEbsProducts;
+				updateCatalogue((currentCatalogue) -> currentCatalogue.withEbsProducts(newEbsProducts));
 			}, (exception) -> {
 				isFetchingEbsProducts = false;
 			});
@@ -1008,38 +1123,41 @@ public class MarketplaceManager {
 		twitchApi.fetchAsyncChannelPointRewards(
 			(response) -> {
 				isFetchingChannelPointRewards = false;
-				JsonObject result = (new JsonParser()).parse(response.body().string()).getAsJsonObject();
-				JsonArray rewards = result.getAsJsonArray("data");
-				CopyOnWriteArrayList<ChannelPointReward> newChannelPointRewards = new CopyOnWriteArrayList<>();
+				MarketplaceJsonReader.Response<ChannelPointReward> result = MarketplaceJsonReader.readResponse(
+					response.body().charStream(),
+					"data",
+					CHANNEL_POINT_REWARD_ADAPTER::read
+				);
+				ArrayList<ChannelPointReward> newChannelPointRewards = new ArrayList<>();
 
 				// guard: check if the rewards could be fetched
 				// NOTE: on empty data we will reset the channel point rewards to make sure 'old' data is not synced up
-				if (rewards == null)
+				if (!result.hasEntries())
 				{
-					channelPointRewards = newChannelPointRewards;
+					updateCatalogue((currentCatalogue) -> currentCatalogue.withChannelPointRewards(newChannelPointRewards));
 					plugin.logSupport("Could not find any valid Channel Point Rewards.");
 					return;
 				}
 
-				// try-catch for every parse, to not let all products crash on one misconfiguration
-				rewards.forEach((reward) -> {
-					try {
-						ChannelPointReward channelPointReward = gson.fromJson(reward, ChannelPointReward.class);
+				if (result.getInvalidEntryAmount() > 0)
+				{
+					plugin.logSupport("Could not parse "+ result.getInvalidEntryAmount() +" raw Channel Point Reward(s).");
+				}
 
-						// guard: skip any rewards that are not enabled
-						if (!channelPointReward.is_enabled)
-						{
-							return;
-						}
+				for (ChannelPointReward channelPointReward : result.getEntries())
+				{
 
-						newChannelPointRewards.add(channelPointReward);
-					} catch (Exception exception) {
-						plugin.logSupport("Could not parse the raw Channel Point Reward: ", exception);
+					// guard: skip any rewards that are not enabled
+					if (!channelPointReward.is_enabled)
+					{
+						continue;
 					}
-				});
+
+					newChannelPointRewards.add(channelPointReward);
+				}
 
 				plugin.logSupport("Updated to new channel point rewards with amount: "+ newChannelPointRewards.size());
-				channelPointRewards = newChannelPointRewards;
+				updateCatalogue((currentCatalogue) -> currentCatalogue.withChannelPointRewards(newChannelPointRewards));
 			},
 			(error) -> {
 				isFetchingChannelPointRewards = false;
@@ -1064,11 +1182,19 @@ public class MarketplaceManager {
 	}
 
 	/**
-	 * Get a copy of the streamer products list to prevent mutations
+	 * Get the immutable streamer products of the current catalogue
+	 */
+	public List<StreamerProduct> getStreamerProducts()
+	{
+		return catalogueStore.get().getStreamerProducts();
+	}
+
+	/**
+	 * Get the immutable custom EBS products of the current catalogue
 	 */
-	public CopyOnWriteArrayList<StreamerProduct> getStreamerProducts()
+	public List<EbsProduct> getCustomEbsProducts()
 	{
-		return new CopyOnWriteArrayList<>(streamerProducts);
+		return catalogueStore.get().getCustomEbsProducts();
 	}
 
 	/**
@@ -1080,7 +1206,7 @@ public class MarketplaceManager {
 	{
 		// use a JSON format for easy JS hashing compatibility ["id-1", "id-2", ...]
 		JsonArray knownStreamerProductIds = new JsonArray();
-		LambdaIterator.handleAll(streamerProducts, (streamerProduct) -> {
+		LambdaIterator.handleAll(catalogueStore.get().getStreamerProducts(), (streamerProduct) -> {
 			knownStreamerProductIds.add(streamerProduct.id);
 		});
 		String knownStreamerProductIdsString = knownStreamerProductIds.toString();
@@ -1109,7 +1235,7 @@ public class MarketplaceManager {
 	 */
 	public CopyOnWriteArrayList<TwitchTransaction> getQueuedTransactions()
 	{
-		return new CopyOnWriteArrayList<>(queuedTransactions);
+		return new CopyOnWriteArrayList<>(queuedTransactions.getTransactions());
 	}
 
 	/**
@@ -1121,11 +1247,11 @@ public class MarketplaceManager {
 	}
 
 	/**
-	 * Get a copy of the channel point rewards list to prevent mutations
+	 * Get the immutable channel point rewards of the current catalogue
 	 */
-	public CopyOnWriteArrayList<ChannelPointReward> getChannelPointRewards()
+	public List<ChannelPointReward> getChannelPointRewards()
 	{
-		return new CopyOnWriteArrayList<>(channelPointRewards);
+		return catalogueStore.get().getChannelPointRewards();
 	}
 
 	/**
@@ -1144,6 +1270,30 @@ public class MarketplaceManager {
 		animationManager.onPlayerChanged(playerChanged);
 	}
 
+	/**
+	 * Handle interfaces being loaded to resolve the widgets of interface effects again.
+	 */
+	public void onWidgetLoaded(WidgetLoaded widgetLoaded)
+	{
+		widgetManager.onWidgetLoaded(widgetLoaded);
+	}
+
+	/**
+	 * Handle interfaces being closed to resolve the widgets of interface effects again.
+	 */
+	public void onWidgetClosed(WidgetClosed widgetClosed)
+	{
+		widgetManager.onWidgetClosed(widgetClosed);
+	}
+
+	/**
+	 * Handle changes to objects in the scene that could have changed the collision maps.
+	 */
+	public void onCollisionMapChanged()
+	{
+		spawnManager.onCollisionMapChanged();
+	}
+
 	/**
 	 * Handle game state changes to respawn all objects, because they are cleared
 	 * when a new scene is being loaded.
@@ -1157,6 +1307,7 @@ public class MarketplaceManager {
 		spawnManager.onGameStateChanged(gameStateChanged);
 		animationManager.onGameStateChanged(gameStateChanged);
 		transmogManager.onGameStateChanged(gameStateChanged);
+		widgetManager.onGameStateChanged(gameStateChanged);
 
 		// trigger any products tied to the login game event
 		if (!isLoggedIn && isNowLoggedIn)
@@ -1240,7 +1391,11 @@ public class MarketplaceManager {
 	 */
 	public void onClientTick()
 	{
-		Instant now = Instant.now();
+		long nowNanos = timers.getNanoTime();
+		frameBudget.startFrame(config.marketplaceFrameBudgetMs());
+
+		// execute the effect frames that are due, also when logged out to not let them pile up
+		effectTimingWheel.drain(getMonotonicTimeMs(), this::executeEffect);
 
 		// guard: don't do anything when not logged in
 		if (!plugin.isLoggedIn())
@@ -1250,45 +1405,83 @@ public class MarketplaceManager {
 
 		// custom timer running on client ticks every x ms for more heavy things to be executed
 		// this is because the @Schedule is delaying very often and some of the processes in here are time-sensitive
-		if (passTimerOnce(MarketplaceTimer.RESPAWNS, now))
+		if (passTimerWithinBudget(MarketplaceTimer.RESPAWNS, nowNanos))
 		{
 			// respawn all spawned objects that require it
 			// due to for example the reloading of a scene
 			spawnManager.respawnRequested();
 		}
 
-		if (passTimerOnce(MarketplaceTimer.RECORD_LOCATION, now))
+		if (passTimerOnce(MarketplaceTimer.RECORD_LOCATION, nowNanos))
 		{
 			// record a history of the player location that we can use
 			// when spawning new objects that are relative in some way to the player
 			spawnManager.recordPlayerLocation();
 		}
 
-		if (passTimerOnce(MarketplaceTimer.DRAWS, now))
+		if (passTimerOnce(MarketplaceTimer.DRAWS, nowNanos))
 		{
 			drawManager.updateEffects();
 		}
 
-		if (passTimerOnce(MarketplaceTimer.PRODUCT_BEHAVIOURS, now))
+		if (passTimerWithinBudget(MarketplaceTimer.PRODUCT_BEHAVIOURS, nowNanos))
 		{
 			handleActiveProducts((marketplaceProduct) -> {
 				marketplaceProduct.handleBehaviour();
 			});
 		}
 
-		if (passTimerOnce(MarketplaceTimer.PRODUCT_EXPIRED_SPAWNS, now))
+		if (passTimerOnce(MarketplaceTimer.PRODUCT_EXPIRED_SPAWNS, nowNanos))
 		{
 			handleActiveProducts((marketplaceProduct) -> {
 				marketplaceProduct.cleanExpiredSpawnedObjects();
 			});
 		}
 
-		if (passTimerOnce(MarketplaceTimer.PRODUCT_SPAWN_ROTATIONS, now))
+		if (passTimerWithinBudget(MarketplaceTimer.PRODUCT_SPAWN_ROTATIONS, nowNanos))
 		{
 			handleActiveProducts((marketplaceProduct) -> {
 				marketplaceProduct.handleSpawnRotations();
 			});
 		}
+
+		String frameBudgetReport = frameBudget.endFrame();
+
+		if (frameBudgetReport != null)
+		{
+			plugin.logSupport(frameBudgetReport);
+		}
+	}
+
+	/**
+	 * Schedule an effect of a product to be executed on the client thread after the delay.
+	 * Effects without a delay are executed right away when already on the client thread.
+	 */
+	public void scheduleEffect(MarketplaceProduct product, TwitchLiveLoadoutPlugin.ClientThreadAction action, long delayMs)
+	{
+		if (delayMs <= 0)
+		{
+			plugin.runOnClientThread(action);
+			return;
+		}
+
+		effectTimingWheel.schedule(product, action::execute, delayMs, getMonotonicTimeMs());
+	}
+
+	private void executeEffect(Runnable effect)
+	{
+
+		// NOTE: catch per effect to not skip the other effects that are due
+		try {
+			effect.run();
+		} catch (Exception exception) {
+			plugin.logSupport("Could not execute a scheduled effect: ", exception);
+		}
+	}
+
+	private long getMonotonicTimeMs()
+	{
+		return timers.getNanoTime() / 1_000_000L;
 	}
 
 	public void onPostClientTick()
@@ -1347,6 +1540,11 @@ public class MarketplaceManager {
 		}
 
 		int finalFirstAvailableMenuEntryIndex = firstAvailableMenuEntryIndex;
+		int mouseCanvasX = mouseCanvasPoint.getX();
+		int mouseCanvasY = mouseCanvasPoint.getY();
+		CanvasCamera canvasCamera = CanvasCamera.capture(client, menuCanvasCamera);
+		menuCanvasCamera = canvasCamera;
+
 		spawnManager.handleAllSpawnedObjects((spawnedObject) -> {
 			MarketplaceProduct product = spawnedObject.getProduct();
 			ArrayList<EbsMenuEntry> menuEntries = spawnedObject.getModelSet().menuEntries;
@@ -1356,11 +1554,9 @@ public class MarketplaceManager {
 				return;
 			}
 
-			// only calculate the polygon when there are menu entries
-			SimplePolygon polygon = spawnedObject.calculatePolygon();
-
+			// only check the polygon when there are menu entries
 			// guard: skip when not in poly
-			if (!polygon.contains(mouseCanvasPoint.getX(), mouseCanvasPoint.getY()))
+			if (!spawnedObject.isOnCanvasPoint(canvasCamera, mouseCanvasX, mouseCanvasY))
 			{
 				return;
 			}
@@ -1371,8 +1567,6 @@ public class MarketplaceManager {
 				String option = menuEntry.option;
 				String target = menuEntry.target;
 				ArrayList<EbsEffect> onClickEffects = menuEntry.onClickEffects;
-				String formattedOption = MarketplaceMessages.formatMessage(option, product, null);
-				String formattedTarget = MarketplaceMessages.formatMessage(target, product, null);
 
 				// guard: make sure the entry is valid
 				if (option == null || target == null || option.isEmpty() || target.isEmpty())
@@ -1380,6 +1574,9 @@ public class MarketplaceManager {
 					continue;
 				}
 
+				String formattedOption = MarketplaceMessages.formatMessage(option, product, null);
+				String formattedTarget = MarketplaceMessages.formatMessage(target, product, null);
+
 				client.getMenu().createMenuEntry(finalFirstAvailableMenuEntryIndex)
 					.setOption(formattedOption)
 					.setTarget(formattedTarget)
@@ -1401,27 +1598,31 @@ public class MarketplaceManager {
 		});
 	}
 
-	private boolean passTimerOnce(MarketplaceTimer timer, Instant now)
+	private boolean passTimerOnce(MarketplaceTimer timer, long nowNanos)
 	{
 
-		// guard: make sure the timer name is valid
+		// guard: make sure the timer is valid
 		if (timer == null)
 		{
 			return false;
 		}
 
-		String name = timer.getName();
-		int delayMs = timer.getDelayMs();
-		Instant lastTriggeredAt = timerLastTriggeredAt.get(name);
-		boolean isPassed = lastTriggeredAt == null || now.isAfter(lastTriggeredAt.plusMillis((delayMs)));
+		return timers.passOnce(timer, timer.getDelayMs(), nowNanos);
+	}
 
-		// update the timer when passed
-		if (isPassed)
+	/**
+	 * Pass a timer when there is budget left in this frame, otherwise the timer stays due for the next frame.
+	 */
+	private boolean passTimerWithinBudget(MarketplaceTimer timer, long nowNanos)
+	{
+
+		// guard: check if the timer is due before checking the budget to only count real deferrals
+		if (!timers.isPassed(timer, nowNanos) || !frameBudget.allows(timer))
 		{
-			timerLastTriggeredAt.put(name, now);
+			return false;
 		}
 
-		return isPassed;
+		return passTimerOnce(timer, nowNanos);
 	}
 
 	public int countActiveAndQueuedTransactionsByGameEventType(GameEventType gameEventType)
@@ -1436,7 +1637,7 @@ public class MarketplaceManager {
 			}
 		});
 
-		LambdaIterator.handleAll(queuedTransactions, (transaction) -> {
+		queuedTransactions.handleAll((transaction) -> {
 			if (transaction.gameEventType == gameEventType) {
 				amount.getAndIncrement();
 			}
@@ -1539,79 +1740,44 @@ public class MarketplaceManager {
 
 	private StreamerProduct getStreamerProductBySku(String twitchProductSku)
 	{
-		Iterator<StreamerProduct> iterator = streamerProducts.iterator();
-
-		while(iterator.hasNext())
-		{
-			StreamerProduct candidateStreamerProduct = iterator.next();
-
-			// guard: check if a match is found
-			if (twitchProductSku.equals(candidateStreamerProduct.twitchProductSku))
-			{
-				return candidateStreamerProduct;
-			}
-		}
-
-		return null;
+		return catalogueStore.get().getStreamerProductBySku(twitchProductSku);
 	}
 
 	private EbsProduct getEbsProductById(String ebsProductId)
 	{
-		EbsProduct ebsProduct = getEbsProductById(ebsProductId, ebsProducts);
-		EbsProduct customEbsProduct = getEbsProductById(ebsProductId, customEbsProducts);
 
-		// NOTE: prioritize the custom EBS product to allow overriding!
-		return customEbsProduct != null ? customEbsProduct : ebsProduct;
+		// NOTE: the catalogue prioritizes the custom EBS product to allow overriding!
+		return catalogueStore.get().getEbsProductById(ebsProductId);
 	}
 
-	private EbsProduct getEbsProductById(String ebsProductId, CopyOnWriteArrayList<EbsProduct> ebsProductCandidates)
+	private EbsProductPlan getEbsProductPlanById(String ebsProductId)
 	{
-		Iterator<EbsProduct> iterator = ebsProductCandidates.iterator();
-
-		while (iterator.hasNext())
-		{
-			EbsProduct candidateEbsProduct = iterator.next();
-
-			// guard: check if a match is found
-			if (ebsProductId.equals(candidateEbsProduct.id))
-			{
-				return candidateEbsProduct;
-			}
-		}
-
-		return null;
+		return catalogueStore.get().getEbsProductPlanById(ebsProductId);
 	}
 
 	public void addCustomEbsProduct(EbsProduct ebsProduct)
 	{
-		String newEbsProductId = ebsProduct.id;
-		EbsProduct existingCustomEbsProduct = getEbsProductById(newEbsProductId, customEbsProducts);
-
-		// remove the custom EBS product when the ID was already added
-		if (existingCustomEbsProduct != null)
-		{
-			customEbsProducts.remove(existingCustomEbsProduct);
-		}
 
-		customEbsProducts.add(ebsProduct);
+		// NOTE: any custom EBS product with the same ID is replaced
+		updateCatalogue((currentCatalogue) -> currentCatalogue.withCustomEbsProduct(ebsProduct));
 	}
 
 	private ChannelPointReward getChannelPointRewardById(String channelPointRewardId)
 	{
-		Iterator<ChannelPointReward> iterator = channelPointRewards.iterator();
-
-		while(iterator.hasNext())
-		{
-			ChannelPointReward candidateProduct = iterator.next();
+		return catalogueStore.get().getChannelPointRewardById(channelPointRewardId);
+	}
 
-			// guard: check if a match is found
-			if (channelPointRewardId.equals(candidateProduct.id))
-			{
-				return candidateProduct;
-			}
-		}
+	public MarketplaceCatalogue getCatalogue()
+	{
+		return catalogueStore.get();
+	}
 
-		return null;
+	/**
+	 * Publish a new catalogue based on the current one.
+	 */
+	private void updateCatalogue(UnaryOperator<MarketplaceCatalogue> updater)
+	{
+		catalogueStore.update(updater);
 	}
 
 	/**
@@ -1729,7 +1895,12 @@ public class MarketplaceManager {
 	 */
 	public void shutDown()
 	{
+		handledTransactionIds.persist();
 		disable();
+		effectTimingWheel.clear();
+		timers.reset();
+		spawnManager.getModelDataCache().clear();
+		spawnManager.getObjectPool().clear();
 		spawnOverheadManager.removeOverlay();
 	}
 
@@ -1737,10 +1908,6 @@ public class MarketplaceManager {
 		public void execute();
 	}
 
-	public interface GetTimeHandler {
-		public Instant execute();
-	}
-
 	public interface SpawnedObjectHandler {
 		public void execute(SpawnedObject spawnedObject);
 	}
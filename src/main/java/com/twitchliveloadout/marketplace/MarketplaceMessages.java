@@ -9,17 +9,84 @@ import com.twitchliveloadout.twitch.eventsub.messages.*;
 import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
 
 @Slf4j
 public class MarketplaceMessages {
+	private static final int MAX_COMPILED_MESSAGE_AMOUNT = 512;
+	private static final ConcurrentHashMap<String, CompiledMessage> compiledMessages = new ConcurrentHashMap<>();
+	private static final HashMap<String, MarketplaceMessageTemplate> templatesByName = new HashMap<>();
+	private static final ThreadLocal<StringBuilder> messageBuilder = ThreadLocal.withInitial(StringBuilder::new);
+
+	static {
+		for (MarketplaceMessageTemplate template : MarketplaceMessageTemplate.values())
+		{
+			templatesByName.put(template.name, template);
+		}
+	}
+
 	public static String formatMessage(String message, MarketplaceProduct marketplaceProduct, MarketplaceEffect marketplaceEffect)
+	{
+		CompiledMessage compiledMessage = getCompiledMessage(message);
+
+		// guard: skip rendering when there are no templates in the message
+		if (compiledMessage.templates.length <= 0)
+		{
+			return compiledMessage.literals[0];
+		}
+
+		StringBuilder builder = getMessageBuilder();
+
+		for (int templateIndex = 0; templateIndex < compiledMessage.templates.length; templateIndex++)
+		{
+			builder.append(compiledMessage.literals[templateIndex]);
+			appendValue(builder, resolveTemplate(compiledMessage.templates[templateIndex], marketplaceProduct, marketplaceEffect));
+		}
+
+		builder.append(compiledMessage.literals[compiledMessage.templates.length]);
+
+		return builder.toString().trim();
+	}
+
+	/**
+	 * Get the message split up in literals and the templates in between them, which is only done once per message.
+	 */
+	private static CompiledMessage getCompiledMessage(String message)
+	{
+		CompiledMessage compiledMessage = compiledMessages.get(message);
+
+		if (compiledMessage != null)
+		{
+			return compiledMessage;
+		}
+
+		// messages are mostly from the products and the config, so this only happens when something is off
+		if (compiledMessages.size() >= MAX_COMPILED_MESSAGE_AMOUNT)
+		{
+			log.debug("Clearing the compiled messages, because the maximum of "+ MAX_COMPILED_MESSAGE_AMOUNT +" is reached.");
+			compiledMessages.clear();
+		}
+
+		compiledMessage = new CompiledMessage(message);
+		compiledMessages.put(message, compiledMessage);
+
+		return compiledMessage;
+	}
+
+	/**
+	 * Get the value of a single template. When no value is set from the message or transaction
+	 * the template is replaced with an empty string, while unknown templates are never replaced
+	 * because we want the streamer to see it doesn't exist!
+	 */
+	private static String resolveTemplate(MarketplaceMessageTemplate template, MarketplaceProduct marketplaceProduct, MarketplaceEffect marketplaceEffect)
 	{
 		TwitchTransaction transaction = null;
 		TwitchProduct twitchProduct = null;
 		StreamerProduct streamerProduct = null;
 		BaseMessage eventSubMessage = null;
-		HashMap<MarketplaceMessageTemplate, String> templateLookup = new HashMap<>();
 
 		if (marketplaceProduct != null) {
 			transaction = marketplaceProduct.getTransaction();
@@ -27,112 +94,220 @@ public class MarketplaceMessages {
 			streamerProduct = marketplaceProduct.getStreamerProduct();
 		}
 
-		// add defaults
-		templateLookup.put(MarketplaceMessageTemplate.VIEWER_NAME, "viewer");
-		templateLookup.put(MarketplaceMessageTemplate.CHANNEL_NAME, "streamer");
-		templateLookup.put(MarketplaceMessageTemplate.PRODUCT_NAME, "Random Event");
-
 		if (transaction != null) {
-			templateLookup.put(MarketplaceMessageTemplate.VIEWER_NAME, transaction.user_name);
-			templateLookup.put(MarketplaceMessageTemplate.CHANNEL_NAME, transaction.broadcaster_name);
 			eventSubMessage = transaction.eventSubMessage;
 		}
 
-		if (streamerProduct != null) {
-			templateLookup.put(MarketplaceMessageTemplate.PRODUCT_NAME, streamerProduct.name);
-		}
+		// NOTE: the most specific source is checked first, because it would override the others
+		switch (template)
+		{
+			case VIEWER_NAME:
+				if (eventSubMessage instanceof ChannelRaid) {
+					return ((ChannelRaid) eventSubMessage).from_broadcaster_user_name;
+				}
+				if (eventSubMessage instanceof BaseUserInfo) {
+					return ((BaseUserInfo) eventSubMessage).user_name;
+				}
+				return (transaction != null ? transaction.user_name : "viewer");
+			case CHANNEL_NAME:
+				if (eventSubMessage instanceof BaseUserInfo) {
+					return ((BaseUserInfo) eventSubMessage).broadcaster_user_name;
+				}
+				return (transaction != null ? transaction.broadcaster_name : "streamer");
+			case PRODUCT_NAME:
+				return (streamerProduct != null ? streamerProduct.name : "Random Event");
+			case CURRENCY_AMOUNT:
+				if (twitchProduct == null) {
+					return null;
+				}
 
-		if (twitchProduct != null) {
+				// make sure things such as '150.0' are displayed as '150'
+				Double rawCurrencyAmount = twitchProduct.cost.amount;
+				boolean hasDecimalPlaces = (rawCurrencyAmount % 1 != 0);
+				return hasDecimalPlaces ? rawCurrencyAmount.toString() : Integer.toString(rawCurrencyAmount.intValue());
+			case CURRENCY_TYPE:
+				return (twitchProduct != null ? twitchProduct.cost.type : null);
+			case EFFECT_DURATION:
+				return (marketplaceEffect != null ? MarketplaceDuration.humanizeDurationRounded(marketplaceEffect.getDuration()) : null);
+			case EFFECT_DURATION_LEFT:
+				return (marketplaceEffect != null ? MarketplaceDuration.humanizeDurationRounded(marketplaceEffect.getDurationLeft()) : null);
+			case PRODUCT_DURATION:
+				return (marketplaceProduct != null ? MarketplaceDuration.humanizeDurationRounded(marketplaceProduct.getDuration()) : null);
+			case PRODUCT_DURATION_LEFT:
+				return (marketplaceProduct != null ? MarketplaceDuration.humanizeDurationRounded(marketplaceProduct.getDurationLeft()) : null);
+			case SUB_MONTHS:
+				return (eventSubMessage instanceof ChannelContinueSubscription ? ((ChannelContinueSubscription) eventSubMessage).duration_months.toString() : null);
+			case SUB_TOTAL_MONTHS:
+				return (eventSubMessage instanceof ChannelContinueSubscription ? ((ChannelContinueSubscription) eventSubMessage).cumulative_months.toString() : null);
+			case GIFTED_AMOUNT:
+				return (eventSubMessage instanceof ChannelGiftSubscription ? ((ChannelGiftSubscription) eventSubMessage).total.toString() : null);
+			case GIFTED_TOTAL_AMOUNT:
+				return (eventSubMessage instanceof ChannelGiftSubscription ? ((ChannelGiftSubscription) eventSubMessage).cumulative_total.toString() : null);
+			case RAIDER_CHANNEL_NAME:
+				return (eventSubMessage instanceof ChannelRaid ? ((ChannelRaid) eventSubMessage).from_broadcaster_user_name : null);
+			case RAIDED_CHANNEL_NAME:
+				return (eventSubMessage instanceof ChannelRaid ? ((ChannelRaid) eventSubMessage).to_broadcaster_user_name : null);
+			case RAID_VIEWER_AMOUNT:
+				return (eventSubMessage instanceof ChannelRaid ? ((ChannelRaid) eventSubMessage).viewers.toString() : null);
+			case CHARITY_NAME:
+				return (eventSubMessage instanceof BaseCharityCampaignInfo ? ((BaseCharityCampaignInfo) eventSubMessage).charity_name : null);
+			case CHARITY_CURRENT_AMOUNT:
+				return (eventSubMessage instanceof CharityCampaignAmountInfo ? ((CharityCampaignAmountInfo) eventSubMessage).current_amount.getCurrencyAmount().toString() : null);
+			case CHARITY_CURRENT_CURRENCY:
+				return (eventSubMessage instanceof CharityCampaignAmountInfo ? ((CharityCampaignAmountInfo) eventSubMessage).current_amount.currency : null);
+			case CHARITY_TARGET_AMOUNT:
+				return (eventSubMessage instanceof CharityCampaignAmountInfo ? ((CharityCampaignAmountInfo) eventSubMessage).target_amount.getCurrencyAmount().toString() : null);
+			case CHARITY_TARGET_CURRENCY:
+				return (eventSubMessage instanceof CharityCampaignAmountInfo ? ((CharityCampaignAmountInfo) eventSubMessage).target_amount.currency : null);
+			case HYPE_TRAIN_LEVEL:
+				return (eventSubMessage instanceof BaseHypeTrain ? ((BaseHypeTrain) eventSubMessage).level.toString() : null);
+			case HYPE_TRAIN_TOTAL:
+				return (eventSubMessage instanceof BaseHypeTrain ? ((BaseHypeTrain) eventSubMessage).total.toString() : null);
+			case HYPE_TRAIN_PROGRESS:
+				return (eventSubMessage instanceof BaseHypeTrainWithGoal ? ((BaseHypeTrainWithGoal) eventSubMessage).progress.toString() : null);
+			case HYPE_TRAIN_GOAL:
+				return (eventSubMessage instanceof BaseHypeTrainWithGoal ? ((BaseHypeTrainWithGoal) eventSubMessage).goal.toString() : null);
+		}
 
-			// make sure things such as '150.0' are displayed as '150'
-			Double rawCurrencyAmount = twitchProduct.cost.amount;
-			boolean hasDecimalPlaces = (rawCurrencyAmount % 1 != 0);
-			String formattedCurrencyAmount = hasDecimalPlaces ? rawCurrencyAmount.toString() : Integer.toString(rawCurrencyAmount.intValue());
+		return null;
+	}
 
-			templateLookup.put(MarketplaceMessageTemplate.CURRENCY_AMOUNT, formattedCurrencyAmount);
-			templateLookup.put(MarketplaceMessageTemplate.CURRENCY_TYPE, twitchProduct.cost.type);
+	private static void appendValue(StringBuilder builder, String value)
+	{
+		if (value != null)
+		{
+			builder.append(value);
 		}
+	}
 
-		if (marketplaceEffect != null) {
-			templateLookup.put(MarketplaceMessageTemplate.EFFECT_DURATION, MarketplaceDuration.humanizeDurationRounded(marketplaceEffect.getDuration()));
-			templateLookup.put(MarketplaceMessageTemplate.EFFECT_DURATION_LEFT, MarketplaceDuration.humanizeDurationRounded(marketplaceEffect.getDurationLeft()));
-		}
+	private static StringBuilder getMessageBuilder()
+	{
+		StringBuilder builder = messageBuilder.get();
+		builder.setLength(0);
+		return builder;
+	}
 
-		if (marketplaceProduct != null) {
-			templateLookup.put(MarketplaceMessageTemplate.PRODUCT_DURATION, MarketplaceDuration.humanizeDurationRounded(marketplaceProduct.getDuration()));
-			templateLookup.put(MarketplaceMessageTemplate.PRODUCT_DURATION_LEFT, MarketplaceDuration.humanizeDurationRounded(marketplaceProduct.getDurationLeft()));
-		}
+	/**
+	 * Message split up in the literal parts and the known templates in between them.
+	 * There is always one more literal than there are templates, where literals can be empty.
+	 */
+	private static class CompiledMessage
+	{
+		private final String[] literals;
+		private final MarketplaceMessageTemplate[] templates;
 
-		if (eventSubMessage instanceof BaseUserInfo) {
-			BaseUserInfo baseUserInfo = (BaseUserInfo) eventSubMessage;
-			templateLookup.put(MarketplaceMessageTemplate.VIEWER_NAME, baseUserInfo.user_name);
-			templateLookup.put(MarketplaceMessageTemplate.CHANNEL_NAME, baseUserInfo.broadcaster_user_name);
-		}
+		private CompiledMessage(String message)
+		{
+			ArrayList<String> literalList = new ArrayList<>();
+			ArrayList<MarketplaceMessageTemplate> templateList = new ArrayList<>();
+			int literalStartIndex = 0;
+			int searchIndex = 0;
 
-		if (eventSubMessage instanceof ChannelContinueSubscription) {
-			ChannelContinueSubscription channelContinueSubscription = (ChannelContinueSubscription) eventSubMessage;
-			templateLookup.put(MarketplaceMessageTemplate.SUB_MONTHS, channelContinueSubscription.duration_months.toString());
-			templateLookup.put(MarketplaceMessageTemplate.SUB_TOTAL_MONTHS, channelContinueSubscription.cumulative_months.toString());
-		}
+			while (true)
+			{
+				int openIndex = message.indexOf('{', searchIndex);
 
-		if (eventSubMessage instanceof ChannelGiftSubscription) {
-			ChannelGiftSubscription channelGiftSubscription = (ChannelGiftSubscription) eventSubMessage;
-			templateLookup.put(MarketplaceMessageTemplate.GIFTED_AMOUNT, channelGiftSubscription.total.toString());
-			templateLookup.put(MarketplaceMessageTemplate.GIFTED_TOTAL_AMOUNT, channelGiftSubscription.cumulative_total.toString());
-		}
+				if (openIndex < 0)
+				{
+					break;
+				}
 
-		if (eventSubMessage instanceof ChannelRaid) {
-			ChannelRaid channelRaid = (ChannelRaid) eventSubMessage;
-			templateLookup.put(MarketplaceMessageTemplate.VIEWER_NAME, channelRaid.from_broadcaster_user_name);
-			templateLookup.put(MarketplaceMessageTemplate.RAID_VIEWER_AMOUNT, channelRaid.viewers.toString());
-			templateLookup.put(MarketplaceMessageTemplate.RAIDER_CHANNEL_NAME, channelRaid.from_broadcaster_user_name);
-			templateLookup.put(MarketplaceMessageTemplate.RAIDED_CHANNEL_NAME, channelRaid.to_broadcaster_user_name);
-		}
+				int closeIndex = message.indexOf('}', openIndex + 1);
 
-		if (eventSubMessage instanceof BaseCharityCampaignInfo) {
-			BaseCharityCampaignInfo baseCharityCampaignInfo = (BaseCharityCampaignInfo) eventSubMessage;
-			templateLookup.put(MarketplaceMessageTemplate.CHARITY_NAME, baseCharityCampaignInfo.charity_name);
-		}
+				if (closeIndex < 0)
+				{
+					break;
+				}
 
-		if (eventSubMessage instanceof CharityCampaignAmountInfo) {
-			CharityCampaignAmountInfo charityCampaignAmountInfo = (CharityCampaignAmountInfo) eventSubMessage;
-			templateLookup.put(MarketplaceMessageTemplate.CHARITY_CURRENT_AMOUNT, charityCampaignAmountInfo.current_amount.getCurrencyAmount().toString());
-			templateLookup.put(MarketplaceMessageTemplate.CHARITY_TARGET_AMOUNT, charityCampaignAmountInfo.target_amount.getCurrencyAmount().toString());
-			templateLookup.put(MarketplaceMessageTemplate.CHARITY_CURRENT_CURRENCY, charityCampaignAmountInfo.current_amount.currency);
-			templateLookup.put(MarketplaceMessageTemplate.CHARITY_TARGET_CURRENCY, charityCampaignAmountInfo.target_amount.currency);
-		}
+				MarketplaceMessageTemplate template = templatesByName.get(message.substring(openIndex + 1, closeIndex));
 
-		if (eventSubMessage instanceof BaseHypeTrain) {
-			BaseHypeTrain baseHypeTrain = (BaseHypeTrain) eventSubMessage;
-			templateLookup.put(MarketplaceMessageTemplate.HYPE_TRAIN_TOTAL, baseHypeTrain.total.toString());
-			templateLookup.put(MarketplaceMessageTemplate.HYPE_TRAIN_LEVEL, baseHypeTrain.level.toString());
-		}
+				// guard: keep unknown templates as part of the literal and search from the next character
+				// to also find templates directly after an opening brace, such as '{{viewerName}'
+				if (template == null)
+				{
+					searchIndex = openIndex + 1;
+					continue;
+				}
+
+				literalList.add(message.substring(literalStartIndex, openIndex));
+				templateList.add(template);
+				literalStartIndex = closeIndex + 1;
+				searchIndex = literalStartIndex;
+			}
+
+			literalList.add(message.substring(literalStartIndex));
+
+			// without templates the message only has to be trimmed once
+			if (templateList.isEmpty())
+			{
+				literalList.set(0, message.trim());
+			}
 
-		if (eventSubMessage instanceof BaseHypeTrainWithGoal) {
-			BaseHypeTrainWithGoal baseHypeTrainWithGoal = (BaseHypeTrainWithGoal) eventSubMessage;
-			templateLookup.put(MarketplaceMessageTemplate.HYPE_TRAIN_GOAL, baseHypeTrainWithGoal.goal.toString());
-			templateLookup.put(MarketplaceMessageTemplate.HYPE_TRAIN_PROGRESS, baseHypeTrainWithGoal.progress.toString());
+			literals = literalList.toArray(new String[0]);
+			templates = templateList.toArray(new MarketplaceMessageTemplate[0]);
 		}
+	}
 
-		// replace all the known template strings with their respective values
-		for (MarketplaceMessageTemplate template : MarketplaceMessageTemplate.values())
+	/**
+	 * Formatted message that is only rendered again when the message or any of the values of its templates
+	 * have changed, for example for texts that are formatted every frame while they only change every second.
+	 * NOTE: the values of the templates are still resolved every time, because they can change at any moment.
+	 */
+	public static class FormattedMessage
+	{
+		private CompiledMessage compiledMessage = null;
+		private String[] values = new String[0];
+		private String formattedMessage = null;
+
+		public synchronized String format(String message, MarketplaceProduct marketplaceProduct, MarketplaceEffect marketplaceEffect)
 		{
-			String newContent = templateLookup.get(template);
+			CompiledMessage newCompiledMessage = getCompiledMessage(message);
+			boolean isChanged = false;
 
-			// when no value is set from the message or transaction default to an empty string
-			// this ensures the removal of the template string
-			// NOTE: we don't want to remove unknown template strings because we want the streamer to see it doesn't exist!
-			if (newContent == null)
+			if (newCompiledMessage != compiledMessage)
 			{
-				newContent = "";
+				compiledMessage = newCompiledMessage;
+				values = new String[newCompiledMessage.templates.length];
+				isChanged = true;
 			}
 
-			message = message.replaceAll("\\{" + template.name + "\\}", newContent);
-		}
+			for (int templateIndex = 0; templateIndex < compiledMessage.templates.length; templateIndex++)
+			{
+				String value = resolveTemplate(compiledMessage.templates[templateIndex], marketplaceProduct, marketplaceEffect);
+
+				if (!Objects.equals(value, values[templateIndex]))
+				{
+					values[templateIndex] = value;
+					isChanged = true;
+				}
+			}
 
-		message = message.trim();
+			// guard: skip rendering when nothing has changed
+			if (!isChanged && formattedMessage != null)
+			{
+				return formattedMessage;
+			}
 
-		return message;
+			// guard: skip rendering when there are no templates in the message
+			if (compiledMessage.templates.length <= 0)
+			{
+				formattedMessage = compiledMessage.literals[0];
+				return formattedMessage;
+			}
+
+			StringBuilder builder = getMessageBuilder();
+
+			for (int templateIndex = 0; templateIndex < compiledMessage.templates.length; templateIndex++)
+			{
+				builder.append(compiledMessage.literals[templateIndex]);
+				appendValue(builder, values[templateIndex]);
+			}
+
+			builder.append(compiledMessage.literals[compiledMessage.templates.length]);
+			formattedMessage = builder.toString().trim();
+
+			return formattedMessage;
+		}
 	}
 
 	@Getter
@@ -6,21 +6,24 @@ import lombok.Getter;
 public enum MarketplaceTimer {
 	// NOTE: timers are distributed evenly across a game tick during the client ticks
 	// if a timer is needed to be > 600ms in terms of timer then use a game tick
-	PRODUCT_SPAWN_ROTATIONS("product-spawn-rotations", 75),
-	DRAWS("draws", 200),
-	RECORD_LOCATION("record-location", 200),
-	RESPAWNS("respawns", 200),
-	PRODUCT_BEHAVIOURS("product-behaviours", 300),
-	PRODUCT_EXPIRED_SPAWNS("product-expired-spawns", 500),
+	// NOTE: deferrable timers can be postponed to a next client tick when the frame budget is spent
+	PRODUCT_SPAWN_ROTATIONS("product-spawn-rotations", 75, true),
+	DRAWS("draws", 200, false),
+	RECORD_LOCATION("record-location", 200, false),
+	RESPAWNS("respawns", 200, true),
+	PRODUCT_BEHAVIOURS("product-behaviours", 300, true),
+	PRODUCT_EXPIRED_SPAWNS("product-expired-spawns", 500, false),
 	;
 
 	private final String name;
 	private final int delayMs;
+	private final boolean isDeferrable;
 
-	MarketplaceTimer(String name, int delayMs)
+	MarketplaceTimer(String name, int delayMs, boolean isDeferrable)
 	{
 		this.name = name;
 		this.delayMs = delayMs;
+		this.isDeferrable = isDeferrable;
 	}
 }
 
@@ -0,0 +1,92 @@
+package com.twitchliveloadout.marketplace;
+
+import java.util.Arrays;
+import java.util.function.LongSupplier;
+
+/**
+ * Timers indexed by the constants of an enum where each timer is a single deadline on a monotonic nano clock.
+ * This is used for the timers that are checked very often, such as on every client tick, where using
+ * instants in a map would allocate and hash for every check.
+ * NOTE: the clock is injectable to allow a deterministic clock.
+ */
+public class MarketplaceTimerRegistry<T extends Enum<T>>
+{
+	public static final LongSupplier SYSTEM_NANO_CLOCK = System::nanoTime;
+	private static final long NANOS_PER_MS = 1000 * 1000;
+
+	private final LongSupplier nanoClock;
+	private final long[] deadlinesNanos;
+	private final boolean[] hasDeadlines;
+
+	public MarketplaceTimerRegistry(Class<T> timerClass, LongSupplier nanoClock)
+	{
+		int timerAmount = timerClass.getEnumConstants().length;
+
+		this.nanoClock = nanoClock;
+		this.deadlinesNanos = new long[timerAmount];
+		this.hasDeadlines = new boolean[timerAmount];
+	}
+
+	public MarketplaceTimerRegistry(Class<T> timerClass)
+	{
+		this(timerClass, SYSTEM_NANO_CLOCK);
+	}
+
+	public long getNanoTime()
+	{
+		return nanoClock.getAsLong();
+	}
+
+	/**
+	 * Check whether the deadline of the timer has passed, which is also the case when it was never set.
+	 */
+	public synchronized boolean isPassed(T timer, long nowNanos)
+	{
+		int timerIndex = timer.ordinal();
+
+		// NOTE: compare the difference to be safe for overflows of the nano clock
+		return !hasDeadlines[timerIndex] || nowNanos - deadlinesNanos[timerIndex] >= 0;
+	}
+
+	public boolean isPassed(T timer)
+	{
+		return isPassed(timer, getNanoTime());
+	}
+
+	/**
+	 * Set the deadline of the timer to the given amount of time from now.
+	 */
+	public synchronized void setDelay(T timer, long delayMs, long nowNanos)
+	{
+		int timerIndex = timer.ordinal();
+
+		deadlinesNanos[timerIndex] = nowNanos + delayMs * NANOS_PER_MS;
+		hasDeadlines[timerIndex] = true;
+	}
+
+	public void setDelay(T timer, long delayMs)
+	{
+		setDelay(timer, delayMs, getNanoTime());
+	}
+
+	/**
+	 * Pass the timer when the deadline has passed and set a new deadline after the delay in one go.
+	 */
+	public synchronized boolean passOnce(T timer, long delayMs, long nowNanos)
+	{
+
+		// guard: skip when the deadline is not passed yet
+		if (!isPassed(timer, nowNanos))
+		{
+			return false;
+		}
+
+		setDelay(timer, delayMs, nowNanos);
+		return true;
+	}
+
+	public synchronized void reset()
+	{
+		Arrays.fill(hasDeadlines, false);
+	}
+}
@@ -0,0 +1,222 @@
+package com.twitchliveloadout.marketplace;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+
+/**
+ * Hashed timing wheel for the delayed effect frames of all products. Frames are put in the slot of the
+ * tick they are due in and the wheel is drained on the client thread every client tick, which avoids
+ * a scheduled task and thread hop per frame. Frames are never executed before they are due and frames
+ * that become due in the same drain are executed in order of their due time. Each slot spans one tick
+ * and frames that are due later than one rotation keep track of the rotations they still have to wait.
+ * NOTE: the time is passed in by the caller to allow a controllable clock.
+ */
+public class MarketplaceTimingWheel
+{
+	public static final int TICK_MS = 20;
+	public static final int WHEEL_SIZE = 512;
+	private static final int WHEEL_MASK = WHEEL_SIZE - 1;
+
+	/**
+	 * Owner of scheduled actions, such as a product, of which the actions are skipped once it is cancelled
+	 */
+	public interface Owner
+	{
+		boolean isCancelled();
+	}
+
+	private static class Entry
+	{
+		private final Owner owner;
+		private final Runnable action;
+		private final long dueAtMs;
+		private final long sequence;
+		private long rounds;
+
+		private Entry(Owner owner, Runnable action, long dueAtMs, long sequence)
+		{
+			this.owner = owner;
+			this.action = action;
+			this.dueAtMs = dueAtMs;
+			this.sequence = sequence;
+		}
+	}
+
+	private static final Comparator<Entry> DUE_ORDER = Comparator
+		.comparingLong((Entry entry) -> entry.dueAtMs)
+		.thenComparingLong((Entry entry) -> entry.sequence);
+
+	@SuppressWarnings("unchecked")
+	private final ArrayList<Entry>[] slots = new ArrayList[WHEEL_SIZE];
+	private final ArrayList<Entry> dueEntries = new ArrayList<>();
+	private boolean isStarted = false;
+	private long originMs = 0;
+	private long currentTick = 0;
+	private long sequenceCounter = 0;
+	private int size = 0;
+
+	public MarketplaceTimingWheel()
+	{
+		for (int slotIndex = 0; slotIndex < WHEEL_SIZE; slotIndex++)
+		{
+			slots[slotIndex] = new ArrayList<>();
+		}
+	}
+
+	/**
+	 * Schedule an action to be executed after the delay. The action is skipped
+	 * when the owner is cancelled before the action is due.
+	 */
+	public synchronized void schedule(Owner owner, Runnable action, long delayMs, long nowMs)
+	{
+		start(nowMs);
+
+		long dueAtMs = nowMs + Math.max(0, delayMs);
+		long dueTick = Math.max(toTick(dueAtMs), currentTick + 1);
+		long ticksAhead = dueTick - currentTick - 1;
+		Entry entry = new Entry(owner, action, dueAtMs, sequenceCounter++);
+
+		entry.rounds = ticksAhead / WHEEL_SIZE;
+		slots[(int) (dueTick & WHEEL_MASK)].add(entry);
+		size += 1;
+	}
+
+	/**
+	 * Execute all actions that are due at the given time in order of their due time.
+	 * NOTE: the actions are executed outside of the lock, so they can schedule new actions.
+	 */
+	public void drain(long nowMs, ActionHandler handler)
+	{
+		ArrayList<Entry> entries;
+
+		synchronized (this)
+		{
+
+			// guard: skip when nothing was scheduled yet
+			if (!isStarted)
+			{
+				return;
+			}
+
+			long nowTick = toTick(nowMs);
+
+			// all entries in the ticks before the current one are due
+			while (currentTick + 1 < nowTick && size > 0)
+			{
+				currentTick += 1;
+				collectDueEntries(slots[(int) (currentTick & WHEEL_MASK)], Long.MAX_VALUE, true);
+			}
+
+			// only the entries in the current tick that are due already, the others are checked in the next drain
+			if (currentTick < nowTick && size > 0)
+			{
+				collectDueEntries(slots[(int) (nowTick & WHEEL_MASK)], nowMs, false);
+			}
+
+			// move the wheel forward without any work when it is empty
+			if (size <= 0)
+			{
+				currentTick = Math.max(currentTick, nowTick - 1);
+			}
+
+			// guard: skip when nothing is due
+			if (dueEntries.isEmpty())
+			{
+				return;
+			}
+
+			dueEntries.sort(DUE_ORDER);
+			entries = new ArrayList<>(dueEntries);
+			dueEntries.clear();
+		}
+
+		for (Entry entry : entries)
+		{
+
+			// guard: skip the actions of cancelled owners
+			if (entry.owner != null && entry.owner.isCancelled())
+			{
+				continue;
+			}
+
+			handler.execute(entry.action);
+		}
+	}
+
+	public synchronized int size()
+	{
+		return size;
+	}
+
+	public synchronized void clear()
+	{
+		for (ArrayList<Entry> slot : slots)
+		{
+			slot.clear();
+		}
+
+		dueEntries.clear();
+		size = 0;
+	}
+
+	/**
+	 * Move the due entries of a slot to the due entries. The rotations are only counted
+	 * when the tick of the slot has fully passed, because a slot can be checked multiple times in its tick.
+	 */
+	private void collectDueEntries(ArrayList<Entry> slot, long nowMs, boolean isTickPassed)
+	{
+		int keptAmount = 0;
+
+		for (int entryIndex = 0; entryIndex < slot.size(); entryIndex++)
+		{
+			Entry entry = slot.get(entryIndex);
+
+			// keep entries that are due in one of the next rotations
+			if (entry.rounds > 0)
+			{
+				if (isTickPassed)
+				{
+					entry.rounds -= 1;
+				}
+
+				slot.set(keptAmount++, entry);
+				continue;
+			}
+
+			// keep entries that are due later in the current tick
+			if (entry.dueAtMs > nowMs)
+			{
+				slot.set(keptAmount++, entry);
+				continue;
+			}
+
+			dueEntries.add(entry);
+			size -= 1;
+		}
+
+		// remove the due entries in one go
+		slot.subList(keptAmount, slot.size()).clear();
+	}
+
+	private void start(long nowMs)
+	{
+		if (isStarted)
+		{
+			return;
+		}
+
+		isStarted = true;
+		originMs = nowMs;
+		currentTick = 0;
+	}
+
+	private long toTick(long timeMs)
+	{
+		return Math.floorDiv(timeMs - originMs, TICK_MS);
+	}
+
+	public interface ActionHandler
+	{
+		void execute(Runnable action);
+	}
+}
@@ -5,6 +5,7 @@ import com.twitchliveloadout.marketplace.MarketplaceEffect;
 import com.twitchliveloadout.marketplace.MarketplaceEffectManager;
 import com.twitchliveloadout.marketplace.MarketplaceManager;
 import com.twitchliveloadout.marketplace.MarketplaceRandomizers;
+import com.twitchliveloadout.marketplace.MarketplaceTimerRegistry;
 import com.twitchliveloadout.marketplace.products.EbsMovementFrame;
 import lombok.extern.slf4j.Slf4j;
 import net.runelite.api.*;
@@ -12,7 +13,6 @@ import net.runelite.api.events.AnimationChanged;
 import net.runelite.api.events.GameStateChanged;
 import net.runelite.api.events.PlayerChanged;
 
-import java.time.Instant;
 import java.util.ArrayList;
 import java.util.concurrent.ConcurrentHashMap;
 
@@ -24,8 +24,12 @@ public class AnimationManager extends MarketplaceEffectManager<EbsMovementFrame>
 	private final Client client;
 
 	private final ConcurrentHashMap<ActorAnimation, Integer> originalMovementAnimations = new ConcurrentHashMap<>();
-	private Instant animationLockedUntil;
-	private Instant graphicLockedUntil;
+	private final MarketplaceTimerRegistry<PlayerEffectLock> playerEffectLocks = new MarketplaceTimerRegistry<>(PlayerEffectLock.class);
+
+	private enum PlayerEffectLock {
+		ANIMATION,
+		GRAPHIC,
+	}
 
 	public AnimationManager(TwitchLiveLoadoutPlugin plugin, Client client)
 	{
@@ -187,11 +191,11 @@ public class AnimationManager extends MarketplaceEffectManager<EbsMovementFrame>
 		handleLockedPlayerEffect(
 			delayMs,
 			durationMs,
-			() -> graphicLockedUntil,
+			PlayerEffectLock.GRAPHIC,
 			() -> {
 				// locking the player graphic is not needed anymore because multiple graphics (spot anims)
 				// can be spawned on the player at once now! consider removing this completely with a next update
-				// graphicLockedUntil = Instant.now().plusMillis(durationMs);
+				// playerEffectLocks.setDelay(PlayerEffectLock.GRAPHIC, durationMs);
 			},
 			(player) -> {
 				player.createSpotAnim(graphicKey, graphicId, graphicHeight, 0);
@@ -213,9 +217,9 @@ public class AnimationManager extends MarketplaceEffectManager<EbsMovementFrame>
 		handleLockedPlayerEffect(
 			delayMs,
 			durationMs,
-			() -> animationLockedUntil,
+			PlayerEffectLock.ANIMATION,
 			() -> {
-				animationLockedUntil = Instant.now().plusMillis(durationMs);
+				playerEffectLocks.setDelay(PlayerEffectLock.ANIMATION, durationMs);
 			},
 			(player) -> {
 				player.setAnimationFrame(0);
@@ -234,12 +238,11 @@ public class AnimationManager extends MarketplaceEffectManager<EbsMovementFrame>
 		});
 	}
 
-	private void handleLockedPlayerEffect(long delayMs, long durationMs, MarketplaceManager.GetTimeHandler getLockedUntil, MarketplaceManager.EmptyHandler updateLockHandler, MarketplaceManager.PlayerHandler playerHandler)
+	private void handleLockedPlayerEffect(long delayMs, long durationMs, PlayerEffectLock lock, MarketplaceManager.EmptyHandler updateLockHandler, MarketplaceManager.PlayerHandler playerHandler)
 	{
 		handleLocalPlayer((player) -> {
 			plugin.scheduleOnClientThread(() -> {
-				Instant lockedUntil = getLockedUntil.execute();
-				boolean isLocked = (lockedUntil != null && Instant.now().isBefore(lockedUntil));
+				boolean isLocked = !playerEffectLocks.isPassed(lock);
 
 				// guard: skip the request if we are not yet done with animating the previous one
 				if (isLocked)
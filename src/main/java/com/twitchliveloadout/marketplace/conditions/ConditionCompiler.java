@@ -0,0 +1,408 @@
+package com.twitchliveloadout.marketplace.conditions;
+
+import com.twitchliveloadout.marketplace.MarketplaceRandomizers;
+import com.twitchliveloadout.marketplace.products.EbsCondition;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+import static com.twitchliveloadout.marketplace.MarketplaceConstants.*;
+
+/**
+ * Compiles EBS conditions into condition checks with all constants parsed up front. All checks of a
+ * condition, including the nested AND conditions, are flattened and ordered by their estimated cost.
+ * This makes sure the cheap checks can reject a condition before the expensive ones are evaluated.
+ * NOTE: the order does not change the outcome, because all checks of a condition are combined with AND logic.
+ */
+public class ConditionCompiler
+{
+	private static final int TIME_COST = 1;
+	private static final int PLAYER_COST = 2;
+	private static final int STATE_COST = 3;
+	private static final int VARBIT_COST = 4;
+	private static final int CHANCE_COST = 5;
+	private static final int SPAWN_IN_VIEW_COST = 10;
+	private static final int SPAWN_COUNT_COST = 20;
+	private static final int NESTED_COST = 50;
+
+	private static class Check
+	{
+		private final int cost;
+		private final MarketplaceCondition condition;
+
+		private Check(int cost, MarketplaceCondition condition)
+		{
+			this.cost = cost;
+			this.condition = condition;
+		}
+	}
+
+	/**
+	 * Compile a collection of conditions where all of them should be verified.
+	 */
+	public static MarketplaceCondition compileAll(List<EbsCondition> conditions)
+	{
+
+		// guard: no conditions are always verified
+		if (conditions == null)
+		{
+			return MarketplaceCondition.ALWAYS;
+		}
+
+		ArrayList<Check> checks = new ArrayList<>();
+
+		for (EbsCondition condition : conditions)
+		{
+			collectChecks(condition, checks);
+		}
+
+		return combineChecks(checks);
+	}
+
+	public static MarketplaceCondition compile(EbsCondition condition)
+	{
+		return compileAll(Collections.singletonList(condition));
+	}
+
+	private static MarketplaceCondition combineChecks(ArrayList<Check> checks)
+	{
+
+		// NOTE: the sort is stable so checks with the same cost keep the configured order
+		checks.sort(Comparator.comparingInt((Check check) -> check.cost));
+
+		if (checks.isEmpty())
+		{
+			return MarketplaceCondition.ALWAYS;
+		}
+
+		if (checks.size() == 1)
+		{
+			return checks.get(0).condition;
+		}
+
+		MarketplaceCondition[] conditions = new MarketplaceCondition[checks.size()];
+
+		for (int checkIndex = 0; checkIndex < conditions.length; checkIndex++)
+		{
+			conditions[checkIndex] = checks.get(checkIndex).condition;
+		}
+
+		return (product, spawnedObject, context) -> {
+			for (MarketplaceCondition condition : conditions)
+			{
+				if (!condition.verify(product, spawnedObject, context))
+				{
+					return false;
+				}
+			}
+
+			return true;
+		};
+	}
+
+	private static int getTotalCost(ArrayList<Check> checks)
+	{
+		int totalCost = 0;
+
+		for (Check check : checks)
+		{
+			totalCost += check.cost;
+		}
+
+		return totalCost;
+	}
+
+	/**
+	 * Add all checks of a single condition where missing values fall back to their defaults.
+	 */
+	private static void collectChecks(EbsCondition condition, ArrayList<Check> checks)
+	{
+
+		// guard: empty conditions are always verified
+		if (condition == null)
+		{
+			return;
+		}
+
+		int varbitId = valueOrDefault(condition.varbitId, -1);
+		int varbitValue = valueOrDefault(condition.varbitValue, -1);
+		int minTimeMs = valueOrDefault(condition.minTimeMs, 0);
+		int maxTimeMs = valueOrDefault(condition.maxTimeMs, Integer.MAX_VALUE);
+		double minTimePercentage = valueOrDefault(condition.minTimePercentage, 0d);
+		double maxTimePercentage = valueOrDefault(condition.maxTimePercentage, 1d);
+		int maxSpawnsInView = valueOrDefault(condition.maxSpawnsInView, -1);
+		int maxSpawnsInViewRadius = valueOrDefault(condition.maxSpawnsInViewRadius, CHUNK_SIZE);
+		int minSpawnsInView = valueOrDefault(condition.minSpawnsInView, -1);
+		int minSpawnsInViewRadius = valueOrDefault(condition.minSpawnsInViewRadius, CHUNK_SIZE);
+		int spawnInViewRadius = valueOrDefault(condition.spawnInViewRadius, -1);
+		Double chance = condition.chance;
+		String combatStyle = condition.combatStyle;
+		Integer regionId = condition.regionId;
+		Integer genderId = condition.genderId;
+
+		// check if it is allowed within an absolute time-frame
+		// NOTE: invalid time-frames or the full time-frame are always verified
+		if (minTimeMs >= 0 && maxTimeMs >= 0 && (minTimeMs != 0 || maxTimeMs != Integer.MAX_VALUE))
+		{
+			checks.add(new Check(TIME_COST, (product, spawnedObject, context) -> {
+				long passedMs = product.getDurationPassed().toMillis();
+				return passedMs >= minTimeMs && passedMs <= maxTimeMs;
+			}));
+		}
+
+		// check if it is allowed within a relative time-frame
+		// NOTE: invalid percentages or the full time-frame are always verified
+		boolean isValidPercentage = minTimePercentage >= 0 && maxTimePercentage >= 0 && minTimePercentage <= 1 && maxTimePercentage <= 1;
+		if (isValidPercentage && (minTimePercentage != 0 || maxTimePercentage != 1))
+		{
+			checks.add(new Check(TIME_COST, (product, spawnedObject, context) -> {
+				long durationMs = product.getDuration().toMillis();
+
+				// guard: make sure the duration is valid
+				if (durationMs <= 0)
+				{
+					return false;
+				}
+
+				double passedTimePercentage = ((double) product.getDurationPassed().toMillis()) / ((double) durationMs);
+				return passedTimePercentage >= minTimePercentage && passedTimePercentage <= maxTimePercentage;
+			}));
+		}
+
+		// check whether a specific region is requested
+		if (regionId != null)
+		{
+			int requiredRegionId = regionId;
+			checks.add(new Check(PLAYER_COST, (product, spawnedObject, context) -> context.getManager().getCurrentRegionId() == requiredRegionId));
+		}
+
+		// check whether a specific gender is requested
+		if (genderId != null)
+		{
+			int requiredGenderId = genderId;
+			checks.add(new Check(PLAYER_COST, (product, spawnedObject, context) -> context.getLocalGenderId() == requiredGenderId));
+		}
+
+		// check whether a specific combat style is requested
+		if (combatStyle != null)
+		{
+			checks.add(new Check(PLAYER_COST, (product, spawnedObject, context) -> context.getManager().getFightStateManager().isCurrentCombatStyle(combatStyle)));
+		}
+
+		// check if the required state is valid
+		MarketplaceCondition stateCondition = compileState(condition);
+		if (stateCondition != null)
+		{
+			checks.add(new Check(STATE_COST, stateCondition));
+		}
+
+		// check if this condition should check a varbit
+		if (varbitId >= 0)
+		{
+			checks.add(new Check(VARBIT_COST, (product, spawnedObject, context) -> context.getVarbitValue(varbitId) == varbitValue));
+		}
+
+		// check if the chance is passed, which is only rolled when all cheaper checks passed
+		// NOTE: a full chance always passes and is therefore skipped
+		if (chance != null && chance < 1)
+		{
+			checks.add(new Check(CHANCE_COST, (product, spawnedObject, context) -> MarketplaceRandomizers.rollChance(chance)));
+		}
+
+		// check for request to check the current spawn and if its in radius
+		if (spawnInViewRadius >= 0)
+		{
+			checks.add(new Check(SPAWN_IN_VIEW_COST, (product, spawnedObject, context) -> spawnedObject == null || spawnedObject.isInView(spawnInViewRadius)));
+		}
+
+		// check for max spawns in view
+		if (maxSpawnsInView > 0)
+		{
+			checks.add(new Check(SPAWN_COUNT_COST, (product, spawnedObject, context) -> context.countSpawnedObjectsInView(product, maxSpawnsInViewRadius) <= maxSpawnsInView));
+		}
+
+		// check for min spawns in view
+		if (minSpawnsInView > 0)
+		{
+			checks.add(new Check(SPAWN_COUNT_COST, (product, spawnedObject, context) -> context.countSpawnedObjectsInView(product, minSpawnsInViewRadius) >= minSpawnsInView));
+		}
+
+		// the nested AND conditions are flattened into the same collection of checks
+		if (condition.and != null)
+		{
+			for (EbsCondition andCondition : condition.and)
+			{
+				collectChecks(andCondition, checks);
+			}
+		}
+
+		// the collection of NOT conditions is handled as an AND statement where each condition should not be verified
+		if (condition.not != null)
+		{
+			for (EbsCondition notCondition : condition.not)
+			{
+				ArrayList<Check> notChecks = new ArrayList<>();
+				collectChecks(notCondition, notChecks);
+				MarketplaceCondition compiledNotCondition = combineChecks(notChecks);
+				checks.add(new Check(NESTED_COST + getTotalCost(notChecks), (product, spawnedObject, context) -> !compiledNotCondition.verify(product, spawnedObject, context)));
+			}
+		}
+
+		// check if one of the OR conditions is verified where the cheapest ones are tried first
+		if (condition.or != null)
+		{
+			ArrayList<Check> orChecks = new ArrayList<>();
+
+			for (EbsCondition orCondition : condition.or)
+			{
+				ArrayList<Check> orConditionChecks = new ArrayList<>();
+				collectChecks(orCondition, orConditionChecks);
+				orChecks.add(new Check(getTotalCost(orConditionChecks), combineChecks(orConditionChecks)));
+			}
+
+			orChecks.sort(Comparator.comparingInt((Check check) -> check.cost));
+			MarketplaceCondition[] orConditions = new MarketplaceCondition[orChecks.size()];
+
+			for (int orIndex = 0; orIndex < orConditions.length; orIndex++)
+			{
+				orConditions[orIndex] = orChecks.get(orIndex).condition;
+			}
+
+			checks.add(new Check(NESTED_COST + getTotalCost(orChecks), (product, spawnedObject, context) -> {
+				for (MarketplaceCondition orCondition : orConditions)
+				{
+					if (orCondition.verify(product, spawnedObject, context))
+					{
+						return true;
+					}
+				}
+
+				return false;
+			}));
+		}
+	}
+
+	/**
+	 * Compile the state comparison of a condition, or NULL when no state is checked.
+	 */
+	private static MarketplaceCondition compileState(EbsCondition condition)
+	{
+		String stateType = condition.stateType;
+		String stateFormat = condition.stateFormat;
+		String stateComparator = condition.stateComparator;
+		String stateKey = condition.stateKey;
+		String comparedStateValue = condition.stateValue;
+
+		// guard: make sure the state check is valid
+		if (stateType == null || stateKey == null)
+		{
+			return null;
+		}
+
+		boolean isProductState = PRODUCT_STATE_TYPE.equals(stateType);
+		boolean isObjectState = OBJECT_STATE_TYPE.equals(stateType);
+		StateComparison comparison = compileStateComparison(stateFormat, stateComparator, comparedStateValue);
+
+		return (product, spawnedObject, context) -> {
+
+			// default state is NULL
+			String currentStateValue = null;
+
+			if (isProductState) {
+				currentStateValue = product.getStateFrameValue(stateKey);
+			} else if (isObjectState && spawnedObject != null) {
+				currentStateValue = spawnedObject.getStateFrameValue(stateKey);
+			}
+
+			// guard: compare with a simple if when the current state is NULL
+			// it might be possible a NULL state is requested, so it can still be verified
+			if (currentStateValue == null)
+			{
+				return comparedStateValue == null;
+			}
+
+			return comparison.compare(currentStateValue);
+		};
+	}
+
+	interface StateComparison
+	{
+		boolean compare(String currentStateValue);
+	}
+
+	private interface IntegerComparison
+	{
+		boolean compare(int currentValue);
+	}
+
+	static StateComparison compileStateComparison(String stateFormat, String stateComparator, String comparedStateValue)
+	{
+
+		// guard: compare strings when no numeric comparison is requested
+		if (!INTEGER_STATE_FORMAT.equals(stateFormat))
+		{
+			return (currentStateValue) -> currentStateValue.equals(comparedStateValue);
+		}
+
+		Integer comparedValue = (comparedStateValue == null ? Integer.valueOf(0) : parseStateValue(comparedStateValue));
+
+		// guard: comparisons with an invalid number or without a comparator can never be verified
+		if (comparedValue == null || stateComparator == null)
+		{
+			return (currentStateValue) -> false;
+		}
+
+		int parsedComparedValue = comparedValue;
+		IntegerComparison integerComparison;
+
+		switch (stateComparator)
+		{
+			case EQUAL_STATE_COMPARISON: integerComparison = (currentValue) -> currentValue == parsedComparedValue; break;
+			case LARGER_EQUAL_THAN_STATE_COMPARISON: integerComparison = (currentValue) -> currentValue >= parsedComparedValue; break;
+			case LARGER_THAN_STATE_COMPARISON: integerComparison = (currentValue) -> currentValue > parsedComparedValue; break;
+			case SMALLER_EQUAL_THAN_STATE_COMPARISON: integerComparison = (currentValue) -> currentValue <= parsedComparedValue; break;
+			case SMALLER_THAN_STATE_COMPARISON: integerComparison = (currentValue) -> currentValue < parsedComparedValue; break;
+
+			// unknown comparators fall back to the string comparison
+			default: integerComparison = null;
+		}
+
+		return (currentStateValue) -> {
+			Integer currentValue = parseStateValue(currentStateValue);
+
+			// guard: invalid numbers can never be verified
+			if (currentValue == null)
+			{
+				return false;
+			}
+
+			if (integerComparison == null)
+			{
+				return currentStateValue.equals(comparedStateValue);
+			}
+
+			return integerComparison.compare(currentValue);
+		};
+	}
+
+	private static Integer parseStateValue(String stateValue)
+	{
+		try {
+			return Integer.parseInt(stateValue);
+		} catch (NumberFormatException exception) {
+			return null;
+		}
+	}
+
+	private static int valueOrDefault(Integer value, int defaultValue)
+	{
+		return value == null ? defaultValue : value;
+	}
+
+	private static double valueOrDefault(Double value, double defaultValue)
+	{
+		return value == null ? defaultValue : value;
+	}
+}
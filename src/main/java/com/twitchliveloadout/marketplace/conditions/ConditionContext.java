@@ -0,0 +1,145 @@
+package com.twitchliveloadout.marketplace.conditions;
+
+import com.twitchliveloadout.marketplace.MarketplaceManager;
+import com.twitchliveloadout.marketplace.products.MarketplaceProduct;
+import net.runelite.api.Client;
+import net.runelite.api.Player;
+import net.runelite.api.PlayerComposition;
+import net.runelite.api.coords.WorldPoint;
+
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+
+import static com.twitchliveloadout.marketplace.MarketplaceConstants.MALE_GENDER_ID;
+
+/**
+ * Shared state for evaluating conditions of all active products. Values that are expensive to
+ * look up are memoized for the current client cycle, because many products tend to check the
+ * same varbits and spawn counts within the same cycle.
+ * NOTE: memoization only happens on the client thread, other threads always get fresh values.
+ */
+public class ConditionContext
+{
+	private final MarketplaceManager manager;
+	private final Client client;
+
+	private final HashMap<Integer, Integer> varbitValues = new HashMap<>();
+	private final IdentityHashMap<MarketplaceProduct, HashMap<Integer, Integer>> spawnCountsInView = new IdentityHashMap<>();
+	private Integer localGenderId = null;
+	private int cycle = -1;
+
+	public ConditionContext(MarketplaceManager manager, Client client)
+	{
+		this.manager = manager;
+		this.client = client;
+	}
+
+	public MarketplaceManager getManager()
+	{
+		return manager;
+	}
+
+	public int getVarbitValue(int varbitId)
+	{
+
+		// guard: only memoize on the client thread
+		if (!prepareCycle())
+		{
+			return client.getVarbitValue(varbitId);
+		}
+
+		return varbitValues.computeIfAbsent(varbitId, client::getVarbitValue);
+	}
+
+	public int getLocalGenderId()
+	{
+
+		// guard: only memoize on the client thread
+		if (!prepareCycle())
+		{
+			return lookupLocalGenderId();
+		}
+
+		if (localGenderId == null)
+		{
+			localGenderId = lookupLocalGenderId();
+		}
+
+		return localGenderId;
+	}
+
+	public int countSpawnedObjectsInView(MarketplaceProduct product, int radius)
+	{
+
+		// guard: only memoize on the client thread
+		if (!prepareCycle())
+		{
+			return lookupSpawnedObjectsInView(product, radius);
+		}
+
+		HashMap<Integer, Integer> productSpawnCounts = spawnCountsInView.computeIfAbsent(product, (key) -> new HashMap<>());
+
+		return productSpawnCounts.computeIfAbsent(radius, (key) -> lookupSpawnedObjectsInView(product, radius));
+	}
+
+	/**
+	 * Forget the spawn counts of a product when its spawned objects have changed within the cycle.
+	 */
+	public void invalidateSpawnCounts(MarketplaceProduct product)
+	{
+		if (client.isClientThread())
+		{
+			spawnCountsInView.remove(product);
+		}
+	}
+
+	/**
+	 * Clear the memoized values when a new client cycle has started and return whether memoization is allowed.
+	 */
+	private boolean prepareCycle()
+	{
+
+		// guard: the memoized values are not synchronized
+		if (!client.isClientThread())
+		{
+			return false;
+		}
+
+		int currentCycle = client.getGameCycle();
+
+		if (currentCycle != cycle)
+		{
+			cycle = currentCycle;
+			varbitValues.clear();
+			spawnCountsInView.clear();
+			localGenderId = null;
+		}
+
+		return true;
+	}
+
+	private int lookupLocalGenderId()
+	{
+		Player localPlayer = client.getLocalPlayer();
+		PlayerComposition localPlayerComposition = (localPlayer == null ? null : localPlayer.getPlayerComposition());
+
+		// default to male gender?
+		return (localPlayerComposition == null ? MALE_GENDER_ID : localPlayerComposition.getGender());
+	}
+
+	private int lookupSpawnedObjectsInView(MarketplaceProduct product, int radius)
+	{
+		Player localPlayer = client.getLocalPlayer();
+
+		// guard: nothing is in view without a player
+		if (localPlayer == null)
+		{
+			return 0;
+		}
+
+		WorldPoint playerWorldPoint = WorldPoint.fromLocal(client, localPlayer.getLocalLocation());
+
+		// only the placements around the player are checked instead of all spawned objects of the product
+		return manager.getSpawnManager().countSpawnedObjectsInRadius(product, playerWorldPoint, radius);
+	}
+}
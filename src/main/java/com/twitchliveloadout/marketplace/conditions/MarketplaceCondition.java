@@ -0,0 +1,15 @@
+package com.twitchliveloadout.marketplace.conditions;
+
+import com.twitchliveloadout.marketplace.products.MarketplaceProduct;
+import com.twitchliveloadout.marketplace.spawns.SpawnedObject;
+
+/**
+ * Compiled version of one or more EBS conditions that can be evaluated
+ * without inspecting the raw condition configuration again.
+ */
+public interface MarketplaceCondition
+{
+	MarketplaceCondition ALWAYS = (product, spawnedObject, context) -> true;
+
+	boolean verify(MarketplaceProduct product, SpawnedObject spawnedObject, ConditionContext context);
+}
@@ -7,6 +7,9 @@ import com.twitchliveloadout.marketplace.MarketplaceEffectManager;
 import com.twitchliveloadout.marketplace.products.EbsInterfaceWidgetFrame;
 import lombok.extern.slf4j.Slf4j;
 import net.runelite.api.Client;
+import net.runelite.api.events.GameStateChanged;
+import net.runelite.api.events.WidgetClosed;
+import net.runelite.api.events.WidgetLoaded;
 import net.runelite.api.widgets.Widget;
 import net.runelite.api.widgets.WidgetType;
 
@@ -35,6 +38,12 @@ public class WidgetManager extends MarketplaceEffectManager<EbsInterfaceWidgetFr
 	 */
 	private final ConcurrentHashMap<Widget, OriginalWidget> originalWidgets = new ConcurrentHashMap<>();
 
+	/**
+	 * Widgets resolved per widget frame to prevent looking them up every frame while the effects are active.
+	 * Frames of interfaces that are not loaded are also tracked, they are resolved again when the interface is loaded.
+	 */
+	private final ConcurrentHashMap<EbsInterfaceWidgetFrame, ResolvedWidget> resolvedWidgets = new ConcurrentHashMap<>();
+
 	public WidgetManager(TwitchLiveLoadoutPlugin plugin, Client client)
 	{
 		super(WIDGET_EFFECT_MAX_SIZE);
@@ -48,6 +57,25 @@ public class WidgetManager extends MarketplaceEffectManager<EbsInterfaceWidgetFr
 		ensureCoveringOverlays();
 	}
 
+	public void onWidgetLoaded(WidgetLoaded widgetLoaded)
+	{
+		invalidateResolvedWidgets(widgetLoaded.getGroupId());
+	}
+
+	public void onWidgetClosed(WidgetClosed widgetClosed)
+	{
+		invalidateResolvedWidgets(widgetClosed.getGroupId());
+	}
+
+	@Override
+	public void onGameStateChanged(GameStateChanged gameStateChanged)
+	{
+
+		// all interfaces can be recreated when logging in or hopping
+		resolvedWidgets.clear();
+		super.onGameStateChanged(gameStateChanged);
+	}
+
 	public void onPostClientTick()
 	{
 		// widgets need to be updated post client tick to prevent flickering when
@@ -138,107 +166,135 @@ public class WidgetManager extends MarketplaceEffectManager<EbsInterfaceWidgetFr
 	protected void applyEffect(MarketplaceEffect<EbsInterfaceWidgetFrame> effect)
 	{
 		EbsInterfaceWidgetFrame widgetFrame = effect.getFrame();
-		ArrayList<Widget> widgets = getWidgets(widgetFrame);
+		boolean isOverlay = OVERLAY_INTERFACE_WIDGET_TYPE.equals(widgetFrame.effectType);
 
-		// guard: make sure this widget is known and valid
-		if (widgets.size() <= 0)
+		// guard: disable overlay widget effects when dangerous effects are not allowed
+		if (isOverlay && !plugin.canPerformDangerousEffects())
 		{
 			return;
 		}
 
-		// guard: disable overlay widget effects when dangerous effects are not allowed
-		if (OVERLAY_INTERFACE_WIDGET_TYPE.equals(widgetFrame.effectType) && !plugin.canPerformDangerousEffects())
+		if (isOverlay)
 		{
+			LambdaIterator.handleAllValues(coveringOverlays, (coveringOverlay) -> {
+				applyWidgetFrame(coveringOverlay, widgetFrame);
+			});
 			return;
 		}
 
-		LambdaIterator.handleAll(widgets, (widget) -> {
+		Widget widget = getWidget(widgetFrame);
 
-			// always make sure a potential original is stored
-			registerOriginalWidget(widget);
-			String effectType = widgetFrame.effectType;
-			Integer widgetType = widgetFrame.widgetType;
-			Integer contentType = widgetFrame.contentType;
-			String text = widgetFrame.text;
-			Integer textColor = widgetFrame.textColor;
-			Integer opacity = widgetFrame.opacity;
-			Integer itemId = widgetFrame.itemId;
-			Integer itemQuantity = widgetFrame.itemQuantity;
-			String name = widgetFrame.name;
-			Integer spriteId = widgetFrame.spriteId;
-			Integer modelId = widgetFrame.modelId;
-			Integer modelZoom = widgetFrame.modelZoom;
-			Integer animationId = widgetFrame.animationId;
-
-			plugin.runOnClientThread(() -> {
-				// only disable widgets dangerous effects are allowed
-				if (DISABLE_INTERFACE_WIDGET_TYPE.equals(effectType) && plugin.canPerformDangerousEffects())
-				{
-					widget.setHidden(true);
-					return;
-				}
+		// guard: make sure this widget is known and valid
+		if (widget == null)
+		{
+			return;
+		}
 
-				if (widgetType != null)
-				{
-					widget.setType(widgetType);
-				}
+		applyWidgetFrame(widget, widgetFrame);
+	}
 
-				if (contentType != null)
-				{
-					widget.setContentType(contentType);
-				}
+	/**
+	 * Apply the properties of a widget frame to a widget, where only the properties that differ are written.
+	 * Effects are applied every frame after the client tick, which means they are already on the client thread
+	 * and can be applied in one pass instead of scheduling a task for every widget.
+	 */
+	private void applyWidgetFrame(Widget widget, EbsInterfaceWidgetFrame widgetFrame)
+	{
 
-				if (text != null)
-				{
-					widget.setText(text);
-				}
+		// guard: schedule on the client thread when applied from elsewhere
+		if (!client.isClientThread())
+		{
+			plugin.runOnClientThread(() -> applyWidgetFrame(widget, widgetFrame));
+			return;
+		}
 
-				if (textColor != null)
-				{
-					widget.setTextColor(textColor);
-				}
+		// always make sure a potential original is stored
+		registerOriginalWidget(widget);
+		String effectType = widgetFrame.effectType;
+		Integer widgetType = widgetFrame.widgetType;
+		Integer contentType = widgetFrame.contentType;
+		String text = widgetFrame.text;
+		Integer textColor = widgetFrame.textColor;
+		Integer opacity = widgetFrame.opacity;
+		Integer itemId = widgetFrame.itemId;
+		Integer itemQuantity = widgetFrame.itemQuantity;
+		String name = widgetFrame.name;
+		Integer spriteId = widgetFrame.spriteId;
+		Integer modelId = widgetFrame.modelId;
+		Integer modelZoom = widgetFrame.modelZoom;
+		Integer animationId = widgetFrame.animationId;
+
+		// only disable widgets dangerous effects are allowed
+		if (DISABLE_INTERFACE_WIDGET_TYPE.equals(effectType) && plugin.canPerformDangerousEffects())
+		{
+			if (!widget.isSelfHidden())
+			{
+				widget.setHidden(true);
+			}
+			return;
+		}
 
-				if (opacity != null)
-				{
-					widget.setOpacity(opacity);
-				}
+		// NOTE: the values are compared with the widget itself instead of what was applied before,
+		// because scripts can change the widgets at any moment after which they should be applied again
+		if (widgetType != null && widget.getType() != widgetType)
+		{
+			widget.setType(widgetType);
+		}
 
-				if (itemId != null)
-				{
-					widget.setItemId(itemId);
-				}
+		if (contentType != null && widget.getContentType() != contentType)
+		{
+			widget.setContentType(contentType);
+		}
 
-				if (itemQuantity != null)
-				{
-					widget.setItemQuantity(itemQuantity);
-				}
+		if (text != null && !text.equals(widget.getText()))
+		{
+			widget.setText(text);
+		}
 
-				if (name != null)
-				{
-					widget.setName(name);
-				}
+		if (textColor != null && widget.getTextColor() != textColor)
+		{
+			widget.setTextColor(textColor);
+		}
 
-				if (spriteId != null)
-				{
-					widget.setSpriteId(spriteId);
-				}
+		if (opacity != null && widget.getOpacity() != opacity)
+		{
+			widget.setOpacity(opacity);
+		}
 
-				if (modelId != null)
-				{
-					widget.setModelId(modelId);
-				}
+		if (itemId != null && widget.getItemId() != itemId)
+		{
+			widget.setItemId(itemId);
+		}
 
-				if (modelZoom != null)
-				{
-					widget.setModelZoom(modelZoom);
-				}
+		if (itemQuantity != null && widget.getItemQuantity() != itemQuantity)
+		{
+			widget.setItemQuantity(itemQuantity);
+		}
 
-				if (animationId != null)
-				{
-					widget.setAnimationId(animationId);
-				}
-			});
-		});
+		if (name != null && !name.equals(widget.getName()))
+		{
+			widget.setName(name);
+		}
+
+		if (spriteId != null && widget.getSpriteId() != spriteId)
+		{
+			widget.setSpriteId(spriteId);
+		}
+
+		if (modelId != null && widget.getModelId() != modelId)
+		{
+			widget.setModelId(modelId);
+		}
+
+		if (modelZoom != null && widget.getModelZoom() != modelZoom)
+		{
+			widget.setModelZoom(modelZoom);
+		}
+
+		if (animationId != null && widget.getAnimationId() != animationId)
+		{
+			widget.setAnimationId(animationId);
+		}
 	}
 
 	@Override
@@ -299,10 +355,7 @@ public class WidgetManager extends MarketplaceEffectManager<EbsInterfaceWidgetFr
 			// one might keep on going on a certain effect when switching resizing mode
 			widgets.addAll(coveringOverlays.values());
 		} else {
-			final Integer parentId = widgetFrame.parentId;
-			final Integer childId = widgetFrame.childId;
-			final Integer listIndex = widgetFrame.listIndex;
-			Widget widget = getWidget(parentId, childId, listIndex);
+			Widget widget = getWidget(widgetFrame);
 
 			if (widget != null) {
 				widgets.add(widget);
@@ -312,9 +365,12 @@ public class WidgetManager extends MarketplaceEffectManager<EbsInterfaceWidgetFr
 		return widgets;
 	}
 
-	private Widget getWidget(Integer parentId, Integer childId, Integer listIndex)
+	private Widget getWidget(EbsInterfaceWidgetFrame widgetFrame)
 	{
 		try {
+			final Integer parentId = widgetFrame.parentId;
+			final Integer childId = widgetFrame.childId;
+			final Integer listIndex = widgetFrame.listIndex;
 
 			// guard: make sure the parent and child selectors are valid
 			if (parentId < 0 || childId < 0)
@@ -322,7 +378,15 @@ public class WidgetManager extends MarketplaceEffectManager<EbsInterfaceWidgetFr
 				return null;
 			}
 
-			Widget widget = client.getWidget(parentId, childId);
+			ResolvedWidget resolvedWidget = resolvedWidgets.get(widgetFrame);
+
+			if (resolvedWidget == null)
+			{
+				resolvedWidget = new ResolvedWidget(client.getWidget(parentId, childId));
+				resolvedWidgets.put(widgetFrame, resolvedWidget);
+			}
+
+			Widget widget = resolvedWidget.widget;
 
 			// guard: check if no index is requested
 			if (listIndex < 0)
@@ -335,6 +399,7 @@ public class WidgetManager extends MarketplaceEffectManager<EbsInterfaceWidgetFr
 				return null;
 			}
 
+			// NOTE: the children in the list are not cached, because scripts can recreate them at any moment
 			return widget.getChild(listIndex);
 		} catch (Exception exception) {
 			plugin.logSupport("Could not get a widget by widget frame, due to the following error:", exception);
@@ -343,6 +408,14 @@ public class WidgetManager extends MarketplaceEffectManager<EbsInterfaceWidgetFr
 		return null;
 	}
 
+	/**
+	 * Resolve the widgets of the frames of an interface again, because it was (re)loaded or closed.
+	 */
+	private void invalidateResolvedWidgets(int groupId)
+	{
+		resolvedWidgets.keySet().removeIf((widgetFrame) -> widgetFrame.parentId != null && widgetFrame.parentId == groupId);
+	}
+
 	@Override
 	protected void onAddEffect(MarketplaceEffect<EbsInterfaceWidgetFrame> effect)
 	{
@@ -352,6 +425,19 @@ public class WidgetManager extends MarketplaceEffectManager<EbsInterfaceWidgetFr
 	@Override
 	protected void onDeleteEffect(MarketplaceEffect<EbsInterfaceWidgetFrame> effect)
 	{
-		// empty
+		resolvedWidgets.remove(effect.getFrame());
+	}
+
+	/**
+	 * Widget that is resolved for a widget frame, which can also be nothing when the interface is not loaded.
+	 */
+	private static class ResolvedWidget
+	{
+		private final Widget widget;
+
+		private ResolvedWidget(Widget widget)
+		{
+			this.widget = widget;
+		}
 	}
 }
@@ -0,0 +1,82 @@
+package com.twitchliveloadout.marketplace.products;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+
+import static com.twitchliveloadout.marketplace.MarketplaceJsonReader.*;
+
+/**
+ * Streaming adapter for the channel point rewards from Twitch that are polled periodically.
+ * NOTE: the free-form objects such as the image and the cooldown settings are not used and therefore skipped.
+ */
+public class ChannelPointRewardTypeAdapter extends TypeAdapter<ChannelPointReward>
+{
+	@Override
+	public ChannelPointReward read(JsonReader reader) throws IOException
+	{
+
+		// guard: skip anything that is not a reward object
+		if (reader.peek() != JsonToken.BEGIN_OBJECT)
+		{
+			reader.skipValue();
+			return null;
+		}
+
+		ChannelPointReward reward = new ChannelPointReward();
+		reader.beginObject();
+
+		while (reader.hasNext())
+		{
+			switch (reader.nextName())
+			{
+				case "broadcaster_name": reward.broadcaster_name = nextString(reader); break;
+				case "broadcaster_login": reward.broadcaster_login = nextString(reader); break;
+				case "broadcaster_id": reward.broadcaster_id = nextString(reader); break;
+				case "id": reward.id = nextString(reader); break;
+				case "background_color": reward.background_color = nextString(reader); break;
+				case "is_enabled": reward.is_enabled = nextBoolean(reader, false); break;
+				case "cost": reward.cost = nextInt(reader, 0); break;
+				case "title": reward.title = nextString(reader); break;
+				case "prompt": reward.prompt = nextString(reader); break;
+				case "is_user_input_required": reward.is_user_input_required = nextBoolean(reader, false); break;
+				case "is_paused": reward.is_paused = nextBoolean(reader, false); break;
+				case "is_in_stock": reward.is_in_stock = nextBoolean(reader, false); break;
+				case "should_redemptions_skip_request_queue": reward.should_redemptions_skip_request_queue = nextBoolean(reader, false); break;
+				default: reader.skipValue();
+			}
+		}
+
+		reader.endObject();
+		return reward;
+	}
+
+	@Override
+	public void write(JsonWriter writer, ChannelPointReward reward) throws IOException
+	{
+		if (reward == null)
+		{
+			writer.nullValue();
+			return;
+		}
+
+		writer.beginObject();
+		writer.name("broadcaster_name").value(reward.broadcaster_name);
+		writer.name("broadcaster_login").value(reward.broadcaster_login);
+		writer.name("broadcaster_id").value(reward.broadcaster_id);
+		writer.name("id").value(reward.id);
+		writer.name("background_color").value(reward.background_color);
+		writer.name("is_enabled").value(reward.is_enabled);
+		writer.name("cost").value(reward.cost);
+		writer.name("title").value(reward.title);
+		writer.name("prompt").value(reward.prompt);
+		writer.name("is_user_input_required").value(reward.is_user_input_required);
+		writer.name("is_paused").value(reward.is_paused);
+		writer.name("is_in_stock").value(reward.is_in_stock);
+		writer.name("should_redemptions_skip_request_queue").value(reward.should_redemptions_skip_request_queue);
+		writer.endObject();
+	}
+}
@@ -0,0 +1,479 @@
+package com.twitchliveloadout.marketplace.products;
+
+import com.twitchliveloadout.marketplace.MarketplaceColors;
+import com.twitchliveloadout.marketplace.conditions.ConditionCompiler;
+import com.twitchliveloadout.marketplace.conditions.MarketplaceCondition;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.*;
+
+/**
+ * Execution plan of an EBS product that is compiled once when the product is fetched.
+ * The compilation validates the whole product tree, resolves all the defaults that would
+ * otherwise be determined on every tick and indexes every effect frame and condition collection by identity.
+ * This allows malformed products to be reported before they are ever bought by a viewer.
+ * NOTE: plans are never modified after they are compiled and can be shared between threads.
+ */
+@Slf4j
+public class EbsProductPlan
+{
+
+	/**
+	 * The EBS product this plan was compiled from
+	 */
+	@Getter
+	private final EbsProduct ebsProduct;
+
+	/**
+	 * Whether the product can be executed without errors
+	 */
+	@Getter
+	private final boolean isValid;
+
+	/**
+	 * All the problems that were found while compiling, including the ones that are not blocking
+	 */
+	@Getter
+	private final List<String> problems;
+
+	/**
+	 * Behaviour intervals with their defaults resolved when not configured
+	 */
+	@Getter
+	private final EbsInterval effectsInterval;
+	@Getter
+	private final EbsInterval spawnInterval;
+
+	/**
+	 * Lookup of all effect frames in the product by identity
+	 */
+	private final IdentityHashMap<EbsEffect, EffectFrame> effectFrames;
+
+	/**
+	 * Lookup of all compiled condition collections in the product by identity
+	 */
+	private final IdentityHashMap<List<EbsCondition>, MarketplaceCondition> conditions;
+
+	/**
+	 * Lookup of the resolved target colors of all recolors in the product by identity
+	 */
+	private final IdentityHashMap<EbsRecolor, Integer> targetColorHsls;
+
+	/**
+	 * Settings of a single effect frame that are determined once instead of each time the frame is executed
+	 */
+	public static class EffectFrame
+	{
+		@Getter
+		private final EbsEffect effect;
+		@Getter
+		private final boolean breakOnInvalidConditions;
+		@Getter
+		private final boolean breakOnValidConditions;
+		private final boolean hasConditions;
+
+		private EffectFrame(EbsEffect effect)
+		{
+			boolean blockingConditions = Boolean.TRUE.equals(effect.blockingConditions); // TMP: for backwards compatibility, remove after full update
+
+			this.effect = effect;
+			this.breakOnInvalidConditions = Boolean.TRUE.equals(effect.breakOnInvalidConditions) || blockingConditions;
+			this.breakOnValidConditions = Boolean.TRUE.equals(effect.breakOnValidConditions);
+			this.hasConditions = effect.conditions != null && !effect.conditions.isEmpty();
+		}
+
+		public boolean hasConditions()
+		{
+			return hasConditions;
+		}
+	}
+
+	private EbsProductPlan(EbsProduct ebsProduct, Compiler compiler)
+	{
+		this.ebsProduct = ebsProduct;
+		this.isValid = compiler.errorAmount <= 0;
+		this.problems = Collections.unmodifiableList(compiler.problems);
+		this.effectFrames = compiler.effectFrames;
+		this.conditions = compiler.conditions;
+		this.targetColorHsls = compiler.targetColorHsls;
+		this.effectsInterval = resolveInterval(ebsProduct.behaviour == null ? null : ebsProduct.behaviour.effectsInterval);
+		this.spawnInterval = resolveInterval(ebsProduct.behaviour == null ? null : ebsProduct.behaviour.spawnInterval);
+	}
+
+	/**
+	 * Validate and compile the EBS product into an execution plan.
+	 */
+	public static EbsProductPlan compile(EbsProduct ebsProduct)
+	{
+		Compiler compiler = new Compiler();
+		compiler.compileProduct(ebsProduct);
+		EbsProductPlan plan = new EbsProductPlan(ebsProduct, compiler);
+
+		if (!plan.problems.isEmpty())
+		{
+			log.warn("Found "+ plan.problems.size() +" problem(s) while compiling EBS product ("+ ebsProduct.id +") with version ("+ ebsProduct.version +"): "+ String.join(", ", plan.problems));
+		}
+
+		return plan;
+	}
+
+	public String getId()
+	{
+		return ebsProduct.id;
+	}
+
+	/**
+	 * Get the compiled frame of an effect, where effects that are not part of this product are compiled on the fly.
+	 */
+	public EffectFrame getEffectFrame(EbsEffect effect)
+	{
+		EffectFrame effectFrame = effectFrames.get(effect);
+
+		if (effectFrame == null)
+		{
+			effectFrame = new EffectFrame(effect);
+		}
+
+		return effectFrame;
+	}
+
+	/**
+	 * Get the compiled version of a collection of conditions, where conditions that are not part of this product are compiled on the fly.
+	 */
+	public MarketplaceCondition getCondition(List<EbsCondition> conditionCollection)
+	{
+
+		// guard: no conditions are always verified
+		if (conditionCollection == null)
+		{
+			return MarketplaceCondition.ALWAYS;
+		}
+
+		MarketplaceCondition condition = conditions.get(conditionCollection);
+
+		if (condition == null)
+		{
+			condition = ConditionCompiler.compileAll(conditionCollection);
+		}
+
+		return condition;
+	}
+
+	/**
+	 * Get the target color of a recolor in HSL, where recolors that are not part of this product are resolved on the fly.
+	 * Returns null when the recolor has no valid target color.
+	 */
+	public Integer getTargetColorHsl(EbsRecolor recolor)
+	{
+
+		// guard: resolved colors can also be null, so check for the key
+		if (targetColorHsls.containsKey(recolor))
+		{
+			return targetColorHsls.get(recolor);
+		}
+
+		return resolveTargetColorHsl(recolor);
+	}
+
+	public ArrayList<ArrayList<EbsEffect>> getStartEffectsOptions()
+	{
+		return ebsProduct.behaviour.startEffectsOptions;
+	}
+
+	public ArrayList<ArrayList<EbsEffect>> getStopEffectsOptions()
+	{
+		return ebsProduct.behaviour.stopEffectsOptions;
+	}
+
+	public ArrayList<ArrayList<EbsEffect>> getEffectsOptions()
+	{
+		return ebsProduct.behaviour.effectsOptions;
+	}
+
+	public ArrayList<EbsSpawnOption> getStartSpawnOptions()
+	{
+		return ebsProduct.behaviour.startSpawnOptions;
+	}
+
+	public ArrayList<EbsSpawnOption> getSpawnOptions()
+	{
+		return ebsProduct.behaviour.spawnOptions;
+	}
+
+	private static EbsInterval resolveInterval(EbsInterval interval)
+	{
+		if (interval != null)
+		{
+			return interval;
+		}
+
+		// when the interval is not set it can only trigger once
+		// this makes the most sense in the JSON configuration of the product
+		// if no interval is set -> no repetition
+		EbsInterval defaultInterval = new EbsInterval();
+		defaultInterval.repeatAmount = 1;
+
+		return defaultInterval;
+	}
+
+	private static Integer resolveTargetColorHsl(EbsRecolor recolor)
+	{
+
+		// NOTE: when also a HSL is passed the HSL takes priority
+		if (recolor.targetColorHsl != null || recolor.targetColorHex == null)
+		{
+			return recolor.targetColorHsl;
+		}
+
+		return MarketplaceColors.getColorHsl(recolor.targetColorHex);
+	}
+
+	/**
+	 * Walks the product tree once to collect problems and to compile all effect frames.
+	 * Errors are problems that would break the product while it is active, others are only reported.
+	 */
+	private static class Compiler
+	{
+		private final ArrayList<String> problems = new ArrayList<>();
+		private final IdentityHashMap<EbsEffect, EffectFrame> effectFrames = new IdentityHashMap<>();
+		private final IdentityHashMap<List<EbsCondition>, MarketplaceCondition> conditions = new IdentityHashMap<>();
+		private final IdentityHashMap<EbsRecolor, Integer> targetColorHsls = new IdentityHashMap<>();
+		private int errorAmount = 0;
+
+		private void compileProduct(EbsProduct ebsProduct)
+		{
+			EbsBehaviour behaviour = ebsProduct.behaviour;
+
+			// guard: nothing can be executed without a behaviour
+			if (behaviour == null)
+			{
+				addError("the behaviour is missing");
+				return;
+			}
+
+			compileEffectsOptions(behaviour.startEffectsOptions, "start effects");
+			compileEffectsOptions(behaviour.stopEffectsOptions, "stop effects");
+			compileEffectsOptions(behaviour.effectsOptions, "effects");
+			compileInterval(behaviour.effectsInterval, "effects interval");
+			compileSpawnOptions(behaviour.startSpawnOptions, "start spawns");
+			compileSpawnOptions(behaviour.spawnOptions, "spawns");
+			compileInterval(behaviour.spawnInterval, "spawn interval");
+		}
+
+		private void compileEffectsOptions(ArrayList<ArrayList<EbsEffect>> effectsOptions, String path)
+		{
+
+			// guard: optional options are valid
+			if (effectsOptions == null)
+			{
+				return;
+			}
+
+			if (effectsOptions.isEmpty())
+			{
+				addWarning(path +" have no options to select from");
+			}
+
+			for (ArrayList<EbsEffect> effects : effectsOptions)
+			{
+				if (effects == null)
+				{
+					addWarning(path +" contain an empty option");
+					continue;
+				}
+
+				compileEffects(effects, path);
+			}
+		}
+
+		private void compileEffects(ArrayList<EbsEffect> effects, String path)
+		{
+
+			// guard: optional effects are valid
+			if (effects == null)
+			{
+				return;
+			}
+
+			for (EbsEffect effect : effects)
+			{
+
+				// guard: missing frames would break the sequence of effects halfway
+				if (effect == null)
+				{
+					addError(path +" contain an empty effect frame");
+					continue;
+				}
+
+				// guard: skip effects that are referenced multiple times
+				if (effectFrames.containsKey(effect))
+				{
+					continue;
+				}
+
+				effectFrames.put(effect, new EffectFrame(effect));
+				compileConditions(effect.conditions);
+				compileSpawnOptions(effect.spawnOptions, path +" > spawns");
+				compileModelSet(effect.modelSet, path +" > model set");
+				compileEffectsOptions(effect.effectsOptions, path +" > effects");
+
+				if (effect.menuOptions != null)
+				{
+					for (EbsMenuOptionFrame menuOption : effect.menuOptions)
+					{
+						if (menuOption != null)
+						{
+							compileConditions(menuOption.conditions);
+							compileEffects(menuOption.onClickEffects, path +" > menu option click effects");
+						}
+					}
+				}
+			}
+		}
+
+		private void compileSpawnOptions(ArrayList<EbsSpawnOption> spawnOptions, String path)
+		{
+
+			// guard: optional spawn options are valid
+			if (spawnOptions == null)
+			{
+				return;
+			}
+
+			for (EbsSpawnOption spawnOption : spawnOptions)
+			{
+				if (spawnOption == null)
+				{
+					addError(path +" contain an empty spawn option");
+					continue;
+				}
+
+				compileConditions(spawnOption.conditions);
+
+				if (spawnOption.spawns == null)
+				{
+					addWarning(path +" contain a spawn option without spawns");
+					continue;
+				}
+
+				for (EbsSpawn spawn : spawnOption.spawns)
+				{
+					if (spawn == null)
+					{
+						addError(path +" contain an empty spawn");
+						continue;
+					}
+
+					if (spawn.modelSetOptions == null || spawn.modelSetOptions.isEmpty())
+					{
+						addWarning(path +" contain a spawn without model sets");
+					}
+					else
+					{
+						for (EbsModelSet modelSet : spawn.modelSetOptions)
+						{
+							compileModelSet(modelSet, path +" > model set");
+						}
+					}
+
+					compileModelPlacement(spawn.modelPlacement);
+					compileModelPlacement(spawn.modelRespawnPlacement);
+					compileEffects(spawn.showEffects, path +" > show effects");
+					compileEffects(spawn.hideEffects, path +" > hide effects");
+					compileEffectsOptions(spawn.randomEffectsOptions, path +" > random effects");
+					compileInterval(spawn.randomEffectsInterval, path +" > random effects interval");
+				}
+			}
+		}
+
+		private void compileModelSet(EbsModelSet modelSet, String path)
+		{
+
+			// guard: optional model sets are valid
+			if (modelSet == null)
+			{
+				return;
+			}
+
+			if (modelSet.ids == null)
+			{
+				addWarning(path +" has no model IDs");
+			}
+
+			if (modelSet.recolors != null)
+			{
+				for (EbsRecolor recolor : modelSet.recolors)
+				{
+
+					// resolve the hex colors up front to not convert them for every spawned object
+					// NOTE: the fetched recolor itself is left untouched
+					if (recolor != null)
+					{
+						targetColorHsls.put(recolor, resolveTargetColorHsl(recolor));
+					}
+				}
+			}
+
+			if (modelSet.menuEntries != null)
+			{
+				for (EbsMenuEntry menuEntry : modelSet.menuEntries)
+				{
+					if (menuEntry != null)
+					{
+						compileEffects(menuEntry.onClickEffects, path +" > menu entry click effects");
+					}
+				}
+			}
+		}
+
+		private void compileInterval(EbsInterval interval, String path)
+		{
+
+			// guard: optional intervals are valid
+			if (interval == null)
+			{
+				return;
+			}
+
+			compileConditions(interval.conditions);
+
+			// all timings are unboxed when the interval is checked, so explicit NULL values would crash
+			if (interval.delayMs == null || interval.afterTriggerDelayMs == null || interval.repeatAmount == null || interval.triggerOnStart == null || interval.startDelayMs == null)
+			{
+				addError(path +" has empty timing values");
+			}
+		}
+
+		private void compileModelPlacement(EbsModelPlacement modelPlacement)
+		{
+			if (modelPlacement != null)
+			{
+				compileConditions(modelPlacement.followConditions);
+			}
+		}
+
+		private void compileConditions(List<EbsCondition> conditionCollection)
+		{
+
+			// guard: skip empty or already compiled conditions
+			if (conditionCollection == null || conditions.containsKey(conditionCollection))
+			{
+				return;
+			}
+
+			conditions.put(conditionCollection, ConditionCompiler.compileAll(conditionCollection));
+		}
+
+		private void addError(String problem)
+		{
+			problems.add(problem);
+			errorAmount += 1;
+		}
+
+		private void addWarning(String problem)
+		{
+			problems.add(problem);
+		}
+	}
+}
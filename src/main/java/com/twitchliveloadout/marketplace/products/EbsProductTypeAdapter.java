@@ -0,0 +1,822 @@
+package com.twitchliveloadout.marketplace.products;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+
+import static com.twitchliveloadout.marketplace.MarketplaceJsonReader.*;
+
+/**
+ * Streaming adapter for the products that are fetched from the EBS. Products are large trees of effects,
+ * spawns and conditions, which are decoded directly from the response stream instead of through a JSON tree.
+ * Properties that are missing keep the defaults of the product classes and null values clear them,
+ * just like the reflective Gson adapters did.
+ * NOTE: the loaded at moment of a product is set when it is decoded and is therefore not read.
+ */
+public class EbsProductTypeAdapter extends TypeAdapter<EbsProduct>
+{
+	@Override
+	public EbsProduct read(JsonReader reader) throws IOException
+	{
+		if (!beginObjectOrSkip(reader))
+		{
+			return null;
+		}
+
+		EbsProduct product = new EbsProduct();
+
+		while (reader.hasNext())
+		{
+			switch (reader.nextName())
+			{
+				case "id": product.id = nextString(reader); break;
+				case "version": product.version = nextIntegerOrNull(reader); break;
+				case "enabled": product.enabled = nextBooleanOrNull(reader); break;
+				case "dangerous": product.dangerous = nextBooleanOrNull(reader); break;
+				case "category": product.category = nextString(reader); break;
+				case "name": product.name = nextString(reader); break;
+				case "description": product.description = nextString(reader); break;
+				case "fixedDurationMs": product.fixedDurationMs = nextIntegerOrNull(reader); break;
+				case "behaviour": product.behaviour = readBehaviour(reader); break;
+				default: reader.skipValue();
+			}
+		}
+
+		reader.endObject();
+		return product;
+	}
+
+	private EbsBehaviour readBehaviour(JsonReader reader) throws IOException
+	{
+		if (!beginObjectOrSkip(reader))
+		{
+			return null;
+		}
+
+		EbsBehaviour behaviour = new EbsBehaviour();
+
+		while (reader.hasNext())
+		{
+			switch (reader.nextName())
+			{
+				case "startEffectsOptions": behaviour.startEffectsOptions = readEffectsOptions(reader); break;
+				case "stopEffectsOptions": behaviour.stopEffectsOptions = readEffectsOptions(reader); break;
+				case "effectsInterval": behaviour.effectsInterval = readInterval(reader); break;
+				case "effectsOptions": behaviour.effectsOptions = readEffectsOptions(reader); break;
+				case "startSpawnOptions": behaviour.startSpawnOptions = nextList(reader, this::readSpawnOption); break;
+				case "spawnInterval": behaviour.spawnInterval = readInterval(reader); break;
+				case "spawnOptions": behaviour.spawnOptions = nextList(reader, this::readSpawnOption); break;
+				case "requiredModelPlacement": behaviour.requiredModelPlacement = readModelPlacement(reader); break;
+				default: reader.skipValue();
+			}
+		}
+
+		reader.endObject();
+		return behaviour;
+	}
+
+	private ArrayList<ArrayList<EbsEffect>> readEffectsOptions(JsonReader reader) throws IOException
+	{
+		return nextList(reader, (optionReader) -> nextList(optionReader, this::readEffect));
+	}
+
+	private EbsEffect readEffect(JsonReader reader) throws IOException
+	{
+		if (!beginObjectOrSkip(reader))
+		{
+			return null;
+		}
+
+		EbsEffect effect = new EbsEffect();
+
+		while (reader.hasNext())
+		{
+			switch (reader.nextName())
+			{
+				case "conditions": effect.conditions = nextList(reader, this::readCondition); break;
+				case "blockingConditions": effect.blockingConditions = nextBooleanOrNull(reader); break;
+				case "breakOnInvalidConditions": effect.breakOnInvalidConditions = nextBooleanOrNull(reader); break;
+				case "breakOnValidConditions": effect.breakOnValidConditions = nextBooleanOrNull(reader); break;
+				case "durationMs": effect.durationMs = readRandomRange(reader); break;
+				case "spawnOptions": effect.spawnOptions = nextList(reader, this::readSpawnOption); break;
+				case "modelExpired": effect.modelExpired = nextBooleanOrNull(reader); break;
+				case "productExpired": effect.productExpired = nextBooleanOrNull(reader); break;
+				case "modelAnimation": effect.modelAnimation = readAnimationFrame(reader); break;
+				case "modelOverhead": effect.modelOverhead = readModelOverheadFrame(reader); break;
+				case "modelSet": effect.modelSet = readModelSet(reader); break;
+				case "playerAnimation": effect.playerAnimation = readAnimationFrame(reader); break;
+				case "playerMovement": effect.playerMovement = readMovementFrame(reader); break;
+				case "playerGraphic": effect.playerGraphic = readGraphicFrame(reader); break;
+				case "playerEquipment": effect.playerEquipment = readEquipmentFrame(reader); break;
+				case "menuOptions": effect.menuOptions = nextList(reader, this::readMenuOptionFrame); break;
+				case "interfaceWidgets": effect.interfaceWidgets = nextList(reader, this::readInterfaceWidgetFrame); break;
+				case "drawEffect": effect.drawEffect = readDrawFrame(reader); break;
+				case "soundEffect": effect.soundEffect = readSoundEffectFrame(reader); break;
+				case "stateChange": effect.stateChange = readStateFrame(reader); break;
+				case "notifications": effect.notifications = nextList(reader, this::readNotification); break;
+				case "projectiles": effect.projectiles = nextList(reader, this::readProjectileFrame); break;
+				case "effectsOptions": effect.effectsOptions = readEffectsOptions(reader); break;
+				default: reader.skipValue();
+			}
+		}
+
+		reader.endObject();
+		return effect;
+	}
+
+	private EbsCondition readCondition(JsonReader reader) throws IOException
+	{
+		if (!beginObjectOrSkip(reader))
+		{
+			return null;
+		}
+
+		EbsCondition condition = new EbsCondition();
+
+		while (reader.hasNext())
+		{
+			switch (reader.nextName())
+			{
+				case "varbitId": condition.varbitId = nextIntegerOrNull(reader); break;
+				case "varbitValue": condition.varbitValue = nextIntegerOrNull(reader); break;
+				case "minTimeMs": condition.minTimeMs = nextIntegerOrNull(reader); break;
+				case "maxTimeMs": condition.maxTimeMs = nextIntegerOrNull(reader); break;
+				case "minTimePercentage": condition.minTimePercentage = nextDoubleOrNull(reader); break;
+				case "maxTimePercentage": condition.maxTimePercentage = nextDoubleOrNull(reader); break;
+				case "maxSpawnsInView": condition.maxSpawnsInView = nextIntegerOrNull(reader); break;
+				case "maxSpawnsInViewRadius": condition.maxSpawnsInViewRadius = nextIntegerOrNull(reader); break;
+				case "minSpawnsInView": condition.minSpawnsInView = nextIntegerOrNull(reader); break;
+				case "minSpawnsInViewRadius": condition.minSpawnsInViewRadius = nextIntegerOrNull(reader); break;
+				case "spawnInViewRadius": condition.spawnInViewRadius = nextIntegerOrNull(reader); break;
+				case "stateType": condition.stateType = nextString(reader); break;
+				case "stateFormat": condition.stateFormat = nextString(reader); break;
+				case "stateComparator": condition.stateComparator = nextString(reader); break;
+				case "stateKey": condition.stateKey = nextString(reader); break;
+				case "stateValue": condition.stateValue = nextString(reader); break;
+				case "chance": condition.chance = nextDoubleOrNull(reader); break;
+				case "combatStyle": condition.combatStyle = nextString(reader); break;
+				case "regionId": condition.regionId = nextIntegerOrNull(reader); break;
+				case "genderId": condition.genderId = nextIntegerOrNull(reader); break;
+				case "or": condition.or = nextList(reader, this::readCondition); break;
+				case "and": condition.and = nextList(reader, this::readCondition); break;
+				case "not": condition.not = nextList(reader, this::readCondition); break;
+				default: reader.skipValue();
+			}
+		}
+
+		reader.endObject();
+		return condition;
+	}
+
+	private EbsInterval readInterval(JsonReader reader) throws IOException
+	{
+		if (!beginObjectOrSkip(reader))
+		{
+			return null;
+		}
+
+		EbsInterval interval = new EbsInterval();
+
+		while (reader.hasNext())
+		{
+			switch (reader.nextName())
+			{
+				case "chance": interval.chance = nextDoubleOrNull(reader); break;
+				case "delayMs": interval.delayMs = nextIntegerOrNull(reader); break;
+				case "afterTriggerDelayMs": interval.afterTriggerDelayMs = nextIntegerOrNull(reader); break;
+				case "repeatAmount": interval.repeatAmount = nextIntegerOrNull(reader); break;
+				case "triggerOnStart": interval.triggerOnStart = nextBooleanOrNull(reader); break;
+				case "startDelayMs": interval.startDelayMs = nextIntegerOrNull(reader); break;
+				case "conditions": interval.conditions = nextList(reader, this::readCondition); break;
+				default: reader.skipValue();
+			}
+		}
+
+		reader.endObject();
+		return interval;
+	}
+
+	private EbsSpawnOption readSpawnOption(JsonReader reader) throws IOException
+	{
+		if (!beginObjectOrSkip(reader))
+		{
+			return null;
+		}
+
+		EbsSpawnOption spawnOption = new EbsSpawnOption();
+
+		while (reader.hasNext())
+		{
+			switch (reader.nextName())
+			{
+				case "chance": spawnOption.chance = nextDoubleOrNull(reader); break;
+				case "conditions": spawnOption.conditions = nextList(reader, this::readCondition); break;
+				case "spawnAmount": spawnOption.spawnAmount = readRandomRange(reader); break;
+				case "spawnDelayMs": spawnOption.spawnDelayMs = readRandomRange(reader); break;
+				case "spawns": spawnOption.spawns = nextList(reader, this::readSpawn); break;
+				case "spawnPointType": spawnOption.spawnPointType = nextString(reader); break;
+				default: reader.skipValue();
+			}
+		}
+
+		reader.endObject();
+		return spawnOption;
+	}
+
+	private EbsSpawn readSpawn(JsonReader reader) throws IOException
+	{
+		if (!beginObjectOrSkip(reader))
+		{
+			return null;
+		}
+
+		EbsSpawn spawn = new EbsSpawn();
+
+		while (reader.hasNext())
+		{
+			switch (reader.nextName())
+			{
+				case "modelSetOptions": spawn.modelSetOptions = nextList(reader, this::readModelSet); break;
+				case "spawnAmount": spawn.spawnAmount = readRandomRange(reader); break;
+				case "modelPlacement": spawn.modelPlacement = readModelPlacement(reader); break;
+				case "modelRespawnPlacement": spawn.modelRespawnPlacement = readModelPlacement(reader); break;
+				case "movementAnimations": spawn.movementAnimations = readMovementFrame(reader); break;
+				case "hideEffects": spawn.hideEffects = nextList(reader, this::readEffect); break;
+				case "showEffects": spawn.showEffects = nextList(reader, this::readEffect); break;
+				case "randomEffectsOptions": spawn.randomEffectsOptions = readEffectsOptions(reader); break;
+				case "randomEffectsInterval": spawn.randomEffectsInterval = readInterval(reader); break;
+				case "durationMs": spawn.durationMs = readRandomRange(reader); break;
+				default: reader.skipValue();
+			}
+		}
+
+		reader.endObject();
+		return spawn;
+	}
+
+	private EbsModelSet readModelSet(JsonReader reader) throws IOException
+	{
+		if (!beginObjectOrSkip(reader))
+		{
+			return null;
+		}
+
+		EbsModelSet modelSet = new EbsModelSet();
+
+		while (reader.hasNext())
+		{
+			switch (reader.nextName())
+			{
+				case "ids": modelSet.ids = nextList(reader, (idReader) -> nextIntegerOrNull(idReader)); break;
+				case "scale": modelSet.scale = readRandomRange(reader); break;
+				case "scalePerOneTile": modelSet.scalePerOneTile = nextIntegerOrNull(reader); break;
+				case "recolors": modelSet.recolors = nextList(reader, this::readRecolor); break;
+				case "translation": modelSet.translation = readTranslation(reader); break;
+				case "menuEntries": modelSet.menuEntries = nextList(reader, this::readMenuEntry); break;
+				default: reader.skipValue();
+			}
+		}
+
+		reader.endObject();
+		return modelSet;
+	}
+
+	private EbsRecolor readRecolor(JsonReader reader) throws IOException
+	{
+		if (!beginObjectOrSkip(reader))
+		{
+			return null;
+		}
+
+		EbsRecolor recolor = new EbsRecolor();
+
+		while (reader.hasNext())
+		{
+			switch (reader.nextName())
+			{
+				case "sourceColorIndex": recolor.sourceColorIndex = nextIntegerOrNull(reader); break;
+				case "sourceColorHsl": recolor.sourceColorHsl = nextIntegerOrNull(reader); break;
+				case "targetColorHsl": recolor.targetColorHsl = nextIntegerOrNull(reader); break;
+				case "targetColorHex": recolor.targetColorHex = nextIntegerOrNull(reader); break;
+				default: reader.skipValue();
+			}
+		}
+
+		reader.endObject();
+		return recolor;
+	}
+
+	private EbsMenuEntry readMenuEntry(JsonReader reader) throws IOException
+	{
+		if (!beginObjectOrSkip(reader))
+		{
+			return null;
+		}
+
+		EbsMenuEntry menuEntry = new EbsMenuEntry();
+
+		while (reader.hasNext())
+		{
+			switch (reader.nextName())
+			{
+				case "option": menuEntry.option = nextString(reader); break;
+				case "target": menuEntry.target = nextString(reader); break;
+				case "onClickEffects": menuEntry.onClickEffects = nextList(reader, this::readEffect); break;
+				default: reader.skipValue();
+			}
+		}
+
+		reader.endObject();
+		return menuEntry;
+	}
+
+	private EbsModelPlacement readModelPlacement(JsonReader reader) throws IOException
+	{
+		if (!beginObjectOrSkip(reader))
+		{
+			return null;
+		}
+
+		EbsModelPlacement placement = new EbsModelPlacement();
+
+		while (reader.hasNext())
+		{
+			switch (reader.nextName())
+			{
+				case "locationType": placement.locationType = nextString(reader); break;
+				case "followType": placement.followType = nextString(reader); break;
+				case "followConditions": placement.followConditions = nextList(reader, this::readCondition); break;
+				case "radiusType": placement.radiusType = nextString(reader); break;
+				case "worldPointX": placement.worldPointX = nextIntegerOrNull(reader); break;
+				case "worldPointY": placement.worldPointY = nextIntegerOrNull(reader); break;
+				case "worldPointPlane": placement.worldPointPlane = nextIntegerOrNull(reader); break;
+				case "deltaPointX": placement.deltaPointX = nextIntegerOrNull(reader); break;
+				case "deltaPointY": placement.deltaPointY = nextIntegerOrNull(reader); break;
+				case "inLineOfSight": placement.inLineOfSight = nextBooleanOrNull(reader); break;
+				case "avoidExistingSpawns": placement.avoidExistingSpawns = nextBooleanOrNull(reader); break;
+				case "avoidPlayerLocation": placement.avoidPlayerLocation = nextBooleanOrNull(reader); break;
+				case "avoidInvalidOverlay": placement.avoidInvalidOverlay = nextBoolean(reader, placement.avoidInvalidOverlay); break;
+				case "radiusRange": placement.radiusRange = readRandomRange(reader); break;
+				case "followRadius": placement.followRadius = nextIntegerOrNull(reader); break;
+				case "radiusStepSize": placement.radiusStepSize = nextIntegerOrNull(reader); break;
+				case "rotationType": placement.rotationType = nextString(reader); break;
+				case "rotation": placement.rotation = readRandomRange(reader); break;
+				case "translation": placement.translation = readTranslation(reader); break;
+				default: reader.skipValue();
+			}
+		}
+
+		reader.endObject();
+		return placement;
+	}
+
+	private EbsMovementFrame readMovementFrame(JsonReader reader) throws IOException
+	{
+		if (!beginObjectOrSkip(reader))
+		{
+			return null;
+		}
+
+		EbsMovementFrame movement = new EbsMovementFrame();
+
+		while (reader.hasNext())
+		{
+			String name = reader.nextName();
+
+			switch (name)
+			{
+				case "idle": movement.idle = nextIntegerOrNull(reader); break;
+				case "idleRotateLeft": movement.idleRotateLeft = nextIntegerOrNull(reader); break;
+				case "idleRotateRight": movement.idleRotateRight = nextIntegerOrNull(reader); break;
+				case "walk": movement.walk = nextIntegerOrNull(reader); break;
+				case "walkRotate180": movement.walkRotate180 = nextIntegerOrNull(reader); break;
+				case "walkRotateLeft": movement.walkRotateLeft = nextIntegerOrNull(reader); break;
+				case "walkRotateRight": movement.walkRotateRight = nextIntegerOrNull(reader); break;
+				case "run": movement.run = nextIntegerOrNull(reader); break;
+				case "others": movement.others = nextList(reader, (otherReader) -> nextIntegerOrNull(otherReader)); break;
+				default: readEffectFrameProperty(reader, name, movement);
+			}
+		}
+
+		reader.endObject();
+		return movement;
+	}
+
+	private EbsEquipmentFrame readEquipmentFrame(JsonReader reader) throws IOException
+	{
+		if (!beginObjectOrSkip(reader))
+		{
+			return null;
+		}
+
+		EbsEquipmentFrame equipment = new EbsEquipmentFrame();
+
+		while (reader.hasNext())
+		{
+			String name = reader.nextName();
+
+			switch (name)
+			{
+				case "npcId": equipment.npcId = nextIntegerOrNull(reader); break;
+				case "head": equipment.head = nextIntegerOrNull(reader); break;
+				case "cape": equipment.cape = nextIntegerOrNull(reader); break;
+				case "amulet": equipment.amulet = nextIntegerOrNull(reader); break;
+				case "weapon": equipment.weapon = nextIntegerOrNull(reader); break;
+				case "torso": equipment.torso = nextIntegerOrNull(reader); break;
+				case "shield": equipment.shield = nextIntegerOrNull(reader); break;
+				case "arms": equipment.arms = nextIntegerOrNull(reader); break;
+				case "legs": equipment.legs = nextIntegerOrNull(reader); break;
+				case "hair": equipment.hair = nextIntegerOrNull(reader); break;
+				case "hands": equipment.hands = nextIntegerOrNull(reader); break;
+				case "boots": equipment.boots = nextIntegerOrNull(reader); break;
+				case "jaw": equipment.jaw = nextIntegerOrNull(reader); break;
+				default: readEffectFrameProperty(reader, name, equipment);
+			}
+		}
+
+		reader.endObject();
+		return equipment;
+	}
+
+	private EbsAnimationFrame readAnimationFrame(JsonReader reader) throws IOException
+	{
+		if (!beginObjectOrSkip(reader))
+		{
+			return null;
+		}
+
+		EbsAnimationFrame animation = new EbsAnimationFrame();
+
+		while (reader.hasNext())
+		{
+			String name = reader.nextName();
+
+			switch (name)
+			{
+				case "shouldLoop": animation.shouldLoop = nextBooleanOrNull(reader); break;
+				default: readEffectFrameProperty(reader, name, animation);
+			}
+		}
+
+		reader.endObject();
+		return animation;
+	}
+
+	private EbsGraphicFrame readGraphicFrame(JsonReader reader) throws IOException
+	{
+		if (!beginObjectOrSkip(reader))
+		{
+			return null;
+		}
+
+		EbsGraphicFrame graphic = new EbsGraphicFrame();
+
+		while (reader.hasNext())
+		{
+			String name = reader.nextName();
+
+			switch (name)
+			{
+				case "height": graphic.height = nextIntegerOrNull(reader); break;
+				default: readEffectFrameProperty(reader, name, graphic);
+			}
+		}
+
+		reader.endObject();
+		return graphic;
+	}
+
+	private EbsSoundEffectFrame readSoundEffectFrame(JsonReader reader) throws IOException
+	{
+		if (!beginObjectOrSkip(reader))
+		{
+			return null;
+		}
+
+		EbsSoundEffectFrame soundEffect = new EbsSoundEffectFrame();
+
+		while (reader.hasNext())
+		{
+			readEffectFrameProperty(reader, reader.nextName(), soundEffect);
+		}
+
+		reader.endObject();
+		return soundEffect;
+	}
+
+	private EbsMenuOptionFrame readMenuOptionFrame(JsonReader reader) throws IOException
+	{
+		if (!beginObjectOrSkip(reader))
+		{
+			return null;
+		}
+
+		EbsMenuOptionFrame menuOption = new EbsMenuOptionFrame();
+
+		while (reader.hasNext())
+		{
+			String name = reader.nextName();
+
+			switch (name)
+			{
+				case "type": menuOption.type = nextString(reader); break;
+				case "conditions": menuOption.conditions = nextList(reader, this::readCondition); break;
+				case "matchedOptions": menuOption.matchedOptions = nextList(reader, (optionReader) -> nextString(optionReader)); break;
+				case "matchedTargets": menuOption.matchedTargets = nextList(reader, (targetReader) -> nextString(targetReader)); break;
+				case "matchedEntityTypes": menuOption.matchedEntityTypes = nextList(reader, (typeReader) -> nextString(typeReader)); break;
+				case "onClickEffects": menuOption.onClickEffects = nextList(reader, this::readEffect); break;
+				case "minClickRange": menuOption.minClickRange = nextIntegerOrNull(reader); break;
+				case "maxClickRange": menuOption.maxClickRange = nextIntegerOrNull(reader); break;
+				default: readEffectFrameProperty(reader, name, menuOption);
+			}
+		}
+
+		reader.endObject();
+		return menuOption;
+	}
+
+	private EbsInterfaceWidgetFrame readInterfaceWidgetFrame(JsonReader reader) throws IOException
+	{
+		if (!beginObjectOrSkip(reader))
+		{
+			return null;
+		}
+
+		EbsInterfaceWidgetFrame widget = new EbsInterfaceWidgetFrame();
+
+		while (reader.hasNext())
+		{
+			String name = reader.nextName();
+
+			switch (name)
+			{
+				case "effectType": widget.effectType = nextString(reader); break;
+				case "parentId": widget.parentId = nextIntegerOrNull(reader); break;
+				case "childId": widget.childId = nextIntegerOrNull(reader); break;
+				case "listIndex": widget.listIndex = nextIntegerOrNull(reader); break;
+				case "widgetType": widget.widgetType = nextIntegerOrNull(reader); break;
+				case "contentType": widget.contentType = nextIntegerOrNull(reader); break;
+				case "text": widget.text = nextString(reader); break;
+				case "textColor": widget.textColor = nextIntegerOrNull(reader); break;
+				case "opacity": widget.opacity = nextIntegerOrNull(reader); break;
+				case "itemId": widget.itemId = nextIntegerOrNull(reader); break;
+				case "itemQuantity": widget.itemQuantity = nextIntegerOrNull(reader); break;
+				case "name": widget.name = nextString(reader); break;
+				case "spriteId": widget.spriteId = nextIntegerOrNull(reader); break;
+				case "modelId": widget.modelId = nextIntegerOrNull(reader); break;
+				case "modelZoom": widget.modelZoom = nextIntegerOrNull(reader); break;
+				case "animationId": widget.animationId = nextIntegerOrNull(reader); break;
+				default: readEffectFrameProperty(reader, name, widget);
+			}
+		}
+
+		reader.endObject();
+		return widget;
+	}
+
+	private EbsProjectileFrame readProjectileFrame(JsonReader reader) throws IOException
+	{
+		if (!beginObjectOrSkip(reader))
+		{
+			return null;
+		}
+
+		EbsProjectileFrame projectile = new EbsProjectileFrame();
+
+		while (reader.hasNext())
+		{
+			String name = reader.nextName();
+
+			switch (name)
+			{
+				case "startLocationType": projectile.startLocationType = nextString(reader); break;
+				case "endLocationType": projectile.endLocationType = nextString(reader); break;
+				case "startLocation": projectile.startLocation = readProjectileFrameLocation(reader); break;
+				case "endLocation": projectile.endLocation = readProjectileFrameLocation(reader); break;
+				case "followEndLocation": projectile.followEndLocation = nextBooleanOrNull(reader); break;
+				case "startLocationRadiusRange": projectile.startLocationRadiusRange = readRandomRange(reader); break;
+				case "endLocationRadiusRange": projectile.endLocationRadiusRange = readRandomRange(reader); break;
+				case "startSpawnOptions": projectile.startSpawnOptions = nextList(reader, this::readSpawnOption); break;
+				case "endSpawnOptions": projectile.endSpawnOptions = nextList(reader, this::readSpawnOption); break;
+				case "inLineOfSight": projectile.inLineOfSight = nextBooleanOrNull(reader); break;
+				case "avoidExistingSpawns": projectile.avoidExistingSpawns = nextBooleanOrNull(reader); break;
+				case "avoidPlayerLocation": projectile.avoidPlayerLocation = nextBooleanOrNull(reader); break;
+				case "avoidInvalidOverlay": projectile.avoidInvalidOverlay = nextBooleanOrNull(reader); break;
+				case "startZ": projectile.startZ = nextIntegerOrNull(reader); break;
+				case "slope": projectile.slope = nextIntegerOrNull(reader); break;
+				case "startHeight": projectile.startHeight = nextIntegerOrNull(reader); break;
+				case "endHeight": projectile.endHeight = nextIntegerOrNull(reader); break;
+				default: readEffectFrameProperty(reader, name, projectile);
+			}
+		}
+
+		reader.endObject();
+		return projectile;
+	}
+
+	private EbsProjectileFrameLocation readProjectileFrameLocation(JsonReader reader) throws IOException
+	{
+		if (!beginObjectOrSkip(reader))
+		{
+			return null;
+		}
+
+		EbsProjectileFrameLocation location = new EbsProjectileFrameLocation();
+
+		while (reader.hasNext())
+		{
+			switch (reader.nextName())
+			{
+				case "worldPointX": location.worldPointX = nextIntegerOrNull(reader); break;
+				case "worldPointY": location.worldPointY = nextIntegerOrNull(reader); break;
+				case "worldPointPlane": location.worldPointPlane = nextIntegerOrNull(reader); break;
+				case "deltaPointX": location.deltaPointX = nextIntegerOrNull(reader); break;
+				case "deltaPointY": location.deltaPointY = nextIntegerOrNull(reader); break;
+				default: reader.skipValue();
+			}
+		}
+
+		reader.endObject();
+		return location;
+	}
+
+	/**
+	 * Read a property that all effect frames have in common and skip any unknown property.
+	 */
+	private void readEffectFrameProperty(JsonReader reader, String name, EbsEffectFrame frame) throws IOException
+	{
+		switch (name)
+		{
+			case "id": frame.id = nextIntegerOrNull(reader); break;
+			case "durationMs": frame.durationMs = nextIntegerOrNull(reader); break;
+			case "durationPercentage": frame.durationPercentage = nextDoubleOrNull(reader); break;
+			case "delayMs": frame.delayMs = readRandomRange(reader); break;
+			default: reader.skipValue();
+		}
+	}
+
+	private EbsModelOverheadFrame readModelOverheadFrame(JsonReader reader) throws IOException
+	{
+		if (!beginObjectOrSkip(reader))
+		{
+			return null;
+		}
+
+		EbsModelOverheadFrame overhead = new EbsModelOverheadFrame();
+
+		while (reader.hasNext())
+		{
+			String name = reader.nextName();
+
+			switch (name)
+			{
+				case "text": overhead.text = nextString(reader); break;
+				case "textHeight": overhead.textHeight = nextIntegerOrNull(reader); break;
+				case "textColorHex": overhead.textColorHex = nextIntegerOrNull(reader); break;
+				default: readEffectFrameProperty(reader, name, overhead);
+			}
+		}
+
+		reader.endObject();
+		return overhead;
+	}
+
+	private EbsDrawFrame readDrawFrame(JsonReader reader) throws IOException
+	{
+		if (!beginObjectOrSkip(reader))
+		{
+			return null;
+		}
+
+		EbsDrawFrame draw = new EbsDrawFrame();
+
+		while (reader.hasNext())
+		{
+			String name = reader.nextName();
+
+			switch (name)
+			{
+				case "hideOthers": draw.hideOthers = nextBooleanOrNull(reader); break;
+				case "hideOthers2D": draw.hideOthers2D = nextBooleanOrNull(reader); break;
+				case "hideLocalPlayer": draw.hideLocalPlayer = nextBooleanOrNull(reader); break;
+				case "hideLocalPlayer2D": draw.hideLocalPlayer2D = nextBooleanOrNull(reader); break;
+				case "hideNPCs": draw.hideNPCs = nextBooleanOrNull(reader); break;
+				case "hideNPCs2D": draw.hideNPCs2D = nextBooleanOrNull(reader); break;
+				case "hideProjectiles": draw.hideProjectiles = nextBooleanOrNull(reader); break;
+				default: readEffectFrameProperty(reader, name, draw);
+			}
+		}
+
+		reader.endObject();
+		return draw;
+	}
+
+	private EbsStateFrame readStateFrame(JsonReader reader) throws IOException
+	{
+		if (!beginObjectOrSkip(reader))
+		{
+			return null;
+		}
+
+		EbsStateFrame state = new EbsStateFrame();
+
+		while (reader.hasNext())
+		{
+			switch (reader.nextName())
+			{
+				case "type": state.type = nextString(reader); break;
+				case "format": state.format = nextString(reader); break;
+				case "operation": state.operation = nextString(reader); break;
+				case "key": state.key = nextString(reader); break;
+				case "value": state.value = nextString(reader); break;
+				case "delayMs": state.delayMs = nextIntegerOrNull(reader); break;
+				default: reader.skipValue();
+			}
+		}
+
+		reader.endObject();
+		return state;
+	}
+
+	private EbsNotification readNotification(JsonReader reader) throws IOException
+	{
+		if (!beginObjectOrSkip(reader))
+		{
+			return null;
+		}
+
+		EbsNotification notification = new EbsNotification();
+
+		while (reader.hasNext())
+		{
+			switch (reader.nextName())
+			{
+				case "messageType": notification.messageType = nextString(reader); break;
+				case "message": notification.message = nextString(reader); break;
+				case "queue": notification.queue = nextBooleanOrNull(reader); break;
+				case "popupTitle": notification.popupTitle = nextString(reader); break;
+				default: reader.skipValue();
+			}
+		}
+
+		reader.endObject();
+		return notification;
+	}
+
+	private EbsTranslation readTranslation(JsonReader reader) throws IOException
+	{
+		if (!beginObjectOrSkip(reader))
+		{
+			return null;
+		}
+
+		EbsTranslation translation = new EbsTranslation();
+
+		while (reader.hasNext())
+		{
+			switch (reader.nextName())
+			{
+				case "x": translation.x = readRandomRange(reader); break;
+				case "y": translation.y = readRandomRange(reader); break;
+				case "z": translation.z = readRandomRange(reader); break;
+				default: reader.skipValue();
+			}
+		}
+
+		reader.endObject();
+		return translation;
+	}
+
+	private EbsRandomRange readRandomRange(JsonReader reader) throws IOException
+	{
+		if (!beginObjectOrSkip(reader))
+		{
+			return null;
+		}
+
+		EbsRandomRange range = new EbsRandomRange();
+
+		while (reader.hasNext())
+		{
+			switch (reader.nextName())
+			{
+				case "min": range.min = nextDoubleOrNull(reader); break;
+				case "max": range.max = nextDoubleOrNull(reader); break;
+				default: reader.skipValue();
+			}
+		}
+
+		reader.endObject();
+		return range;
+	}
+
+	@Override
+	public void write(JsonWriter writer, EbsProduct product) throws IOException
+	{
+		// NOTE: products are only received from the EBS and never sent back
+		throw new UnsupportedOperationException("EBS products cannot be written");
+	}
+}
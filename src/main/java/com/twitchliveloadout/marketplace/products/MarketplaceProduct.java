@@ -1,6 +1,6 @@
 package com.twitchliveloadout.marketplace.products;
 
-import com.twitchliveloadout.marketplace.LambdaIterator;
+import com.twitchliveloadout.TwitchLiveLoadoutPlugin;
 import com.twitchliveloadout.marketplace.MarketplaceEffect;
 import com.twitchliveloadout.marketplace.draws.DrawManager;
 import com.twitchliveloadout.marketplace.interfaces.MenuManager;
@@ -9,7 +9,9 @@ import com.twitchliveloadout.marketplace.spawns.SpawnOverheadManager;
 import com.twitchliveloadout.marketplace.transactions.TwitchTransaction;
 import com.twitchliveloadout.marketplace.MarketplaceRandomizers;
 import com.twitchliveloadout.marketplace.MarketplaceManager;
+import com.twitchliveloadout.marketplace.MarketplaceTimingWheel;
 import com.twitchliveloadout.marketplace.animations.AnimationManager;
+import com.twitchliveloadout.marketplace.conditions.MarketplaceCondition;
 import com.twitchliveloadout.marketplace.spawns.SpawnPoint;
 import com.twitchliveloadout.marketplace.spawns.SpawnedObject;
 import com.twitchliveloadout.marketplace.spawns.SpawnManager;
@@ -27,12 +29,12 @@ import java.time.Instant;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.ThreadLocalRandom;
 
 import static com.twitchliveloadout.marketplace.MarketplaceConstants.*;
 
 @Slf4j
-public class MarketplaceProduct
+public class MarketplaceProduct implements MarketplaceTimingWheel.Owner
 {
 
 	/**
@@ -52,6 +54,12 @@ public class MarketplaceProduct
 	@Getter
 	private final EbsProduct ebsProduct;
 
+	/**
+	 * The compiled execution plan of the EBS product
+	 */
+	@Getter
+	private final EbsProductPlan ebsProductPlan;
+
 	/**
 	 * The Twitch transaction attributed to this product
 	 */
@@ -72,6 +80,12 @@ public class MarketplaceProduct
 	@Getter
 	private boolean isPaused = false;
 
+	/**
+	 * Whether all scheduled effect frames should be skipped, which is the case after a forced stop
+	 */
+	@Getter
+	private volatile boolean isCancelled = false;
+
 	/**
 	 * Long-term interval trackers
 	 */
@@ -107,11 +121,12 @@ public class MarketplaceProduct
 	 */
 	private final ConcurrentHashMap<String, String> stateFrameValues = new ConcurrentHashMap<>();
 
-	public MarketplaceProduct(MarketplaceManager manager, TwitchTransaction transaction, EbsProduct ebsProduct, StreamerProduct streamerProduct, TwitchProduct twitchProduct)
+	public MarketplaceProduct(MarketplaceManager manager, TwitchTransaction transaction, EbsProductPlan ebsProductPlan, StreamerProduct streamerProduct, TwitchProduct twitchProduct)
 	{
 		this.manager = manager;
 		this.transaction = transaction;
-		this.ebsProduct = ebsProduct;
+		this.ebsProductPlan = ebsProductPlan;
+		this.ebsProduct = ebsProductPlan.getEbsProduct();
 		this.streamerProduct = streamerProduct;
 		this.twitchProduct = twitchProduct;
 
@@ -137,7 +152,7 @@ public class MarketplaceProduct
 	{
 		play();
 		triggerEffectsOptions(
-			ebsProduct.behaviour.startEffectsOptions,
+			ebsProductPlan.getStartEffectsOptions(),
 			null,
 			0
 		);
@@ -184,15 +199,17 @@ public class MarketplaceProduct
 		if (!force)
 		{
 			triggerEffectsOptions(
-				ebsProduct.behaviour.stopEffectsOptions,
+				ebsProductPlan.getStopEffectsOptions(),
 				null,
 				0
 			);
 		}
 
 		// start with disabling all behaviours
+		// NOTE: when forced the effect frames that are still scheduled are skipped as well
 		isPaused = false;
 		isActive = false;
+		isCancelled = isCancelled || force;
 
 		// force the expiry when not expired yet
 		// this allows us to prematurely clean up this product
@@ -204,16 +221,16 @@ public class MarketplaceProduct
 		// clean up all the spawned objects
 		handleSpawnedObjects(spawnedObjects, 0, (spawnedObject) -> {
 
-			// when forced hide instantly, otherwise trigger the hide effects
+			// when forced despawn instantly, otherwise trigger the hide effects
 			if (force) {
-				spawnedObject.hide();
+				manager.getSpawnManager().despawnSpawnedObject(spawnedObject);
 			} else {
 				hideSpawnedObject(spawnedObject, 0);
+				manager.getSpawnManager().deregisterSpawnedObjectPlacement(spawnedObject);
 			}
-
-			manager.getSpawnManager().deregisterSpawnedObjectPlacement(spawnedObject);
 		});
 		spawnedObjects.clear();
+		manager.getConditionContext().invalidateSpawnCounts(this);
 	}
 
 	/**
@@ -234,6 +251,7 @@ public class MarketplaceProduct
 			hideSpawnedObject(spawnedObject, 0);
 			manager.getSpawnManager().deregisterSpawnedObjectPlacement(spawnedObject);
 			spawnedObjects.remove(spawnedObject);
+			manager.getConditionContext().invalidateSpawnCounts(this);
 		});
 	}
 
@@ -531,8 +549,7 @@ public class MarketplaceProduct
 
 	private void handleNewEffects()
 	{
-		EbsBehaviour behaviour = ebsProduct.behaviour;
-		ArrayList<ArrayList<EbsEffect>> effectOptions = behaviour.effectsOptions;
+		ArrayList<ArrayList<EbsEffect>> effectOptions = ebsProductPlan.getEffectsOptions();
 
 		// guard: check if there are any effect options
 		if (effectOptions == null)
@@ -542,19 +559,9 @@ public class MarketplaceProduct
 
 		String transactionId = transaction.id;
 		String productId = ebsProduct.id;
-		EbsInterval effectsInterval = behaviour.effectsInterval;
-
-		// make sure the behaviour interval is valid
-		if (effectsInterval == null)
-		{
-			effectsInterval = new EbsInterval();
-
-			// when the spawn interval is not set it can only trigger once
-			// this makes the most sense in the JSON configuration of the product
-			// if no interval is set -> no repetition
-			effectsInterval.repeatAmount = 1;
-		}
 
+		// NOTE: the plan defaults to a single trigger when no interval is configured
+		EbsInterval effectsInterval = ebsProductPlan.getEffectsInterval();
 		ArrayList<EbsCondition> conditions = effectsInterval.conditions;
 		int afterTriggerDelayMs = effectsInterval.afterTriggerDelayMs;
 
@@ -600,10 +607,9 @@ public class MarketplaceProduct
 	private void handleNewSpawns()
 	{
 		Instant now = Instant.now();
-		EbsBehaviour behaviour = ebsProduct.behaviour;
-		ArrayList<EbsSpawnOption> startSpawnOptions = behaviour.startSpawnOptions;
-		ArrayList<EbsSpawnOption> spawnOptions = behaviour.spawnOptions;
-		EbsInterval spawnInterval = behaviour.spawnInterval;
+		ArrayList<EbsSpawnOption> startSpawnOptions = ebsProductPlan.getStartSpawnOptions();
+		ArrayList<EbsSpawnOption> spawnOptions = ebsProductPlan.getSpawnOptions();
+		EbsInterval spawnInterval = ebsProductPlan.getSpawnInterval();
 		boolean hasSpawnedAtLeastOnce = (lastSpawnBehaviourAt != null);
 
 		// override the spawn options with the initial ones when they are valid
@@ -619,17 +625,7 @@ public class MarketplaceProduct
 			return;
 		}
 
-		// make sure the behaviour interval is valid
-		if (spawnInterval == null)
-		{
-			spawnInterval = new EbsInterval();
-
-			// when the spawn interval is not set it can only trigger once
-			// this makes the most sense in the JSON configuration of the product
-			// if no interval is set -> no repetition
-			spawnInterval.repeatAmount = 1;
-		}
-
+		// NOTE: the plan defaults to a single trigger when no interval is configured
 		int afterTriggerDelayMs = spawnInterval.afterTriggerDelayMs;
 		ArrayList<EbsCondition> conditions = spawnInterval.conditions;
 
@@ -729,28 +725,77 @@ public class MarketplaceProduct
 		// make sure spawning is on client thread for e.g. using client instance
 		int finalSpawnGroupAmount = spawnGroupAmount;
 		manager.getPlugin().runOnClientThread(() -> {
+			boolean isIndividualSpawnPoint = INDIVIDUAL_SPAWN_POINT_TYPE.equals(spawnPointType);
+			int[][] spawnAmounts = new int[finalSpawnGroupAmount][spawns.size()];
+			IdentityHashMap<EbsModelPlacement, Integer> requiredSpawnPointAmounts = new IdentityHashMap<>();
 
-			// execute the spawn for the requested amount of times along with all spawn behaviours
+			// roll the amounts up front to know how many spawn points are needed for each placement
+			// spawn points can be shared between spawns depending on the settings
 			for (int spawnGroupIndex = 0; spawnGroupIndex < finalSpawnGroupAmount; spawnGroupIndex++)
 			{
+				boolean hasSpawnPoint = false;
+
+				for (int spawnIndex = 0; spawnIndex < spawns.size(); spawnIndex++)
+				{
+					EbsSpawn spawn = spawns.get(spawnIndex);
+					int spawnAmount = (int) MarketplaceRandomizers.getValidRandomNumberByRange(spawn.spawnAmount, 1, 1, 0, MAX_SPAWN_AMOUNT);
+					int requiredSpawnPointAmount = (isIndividualSpawnPoint ? spawnAmount : (!hasSpawnPoint && spawnAmount > 0 ? 1 : 0));
+
+					spawnAmounts[spawnGroupIndex][spawnIndex] = spawnAmount;
+					hasSpawnPoint = hasSpawnPoint || spawnAmount > 0;
+
+					if (requiredSpawnPointAmount > 0)
+					{
+						requiredSpawnPointAmounts.merge(spawn.modelPlacement, requiredSpawnPointAmount, Integer::sum);
+					}
+				}
+			}
+
+			// search the spawn points for each placement in one go instead of a search per spawn
+			IdentityHashMap<EbsModelPlacement, Iterator<SpawnPoint>> spawnPointsByPlacement = new IdentityHashMap<>();
+			HashSet<WorldPoint> drawnWorldPoints = new HashSet<>();
+			requiredSpawnPointAmounts.forEach((placement, requiredSpawnPointAmount) -> {
+				ArrayList<SpawnPoint> spawnPoints = spawnManager.getSpawnPoints(placement, modelWorldPoint, requiredSpawnPointAmount, ThreadLocalRandom.current(), drawnWorldPoints);
+				spawnPointsByPlacement.put(placement, spawnPoints.iterator());
+			});
 
-				// spawn points can be shared between spawns depending on the settings
+			// execute the spawn for the requested amount of times along with all spawn behaviours
+			for (int spawnGroupIndex = 0; spawnGroupIndex < finalSpawnGroupAmount; spawnGroupIndex++)
+			{
 				SpawnPoint spawnPoint = null;
+				boolean hasSpawnPoint = false;
 
-				for (EbsSpawn spawn : spawns)
+				for (int spawnIndex = 0; spawnIndex < spawns.size(); spawnIndex++)
 				{
-					int spawnAmount = (int) MarketplaceRandomizers.getValidRandomNumberByRange(spawn.spawnAmount, 1, 1, 0, MAX_SPAWN_AMOUNT);
+					EbsSpawn spawn = spawns.get(spawnIndex);
+					int spawnAmount = spawnAmounts[spawnGroupIndex][spawnIndex];
 
-					for (int spawnIndex = 0; spawnIndex < spawnAmount; spawnIndex++)
+					for (int spawnAmountIndex = 0; spawnAmountIndex < spawnAmount; spawnAmountIndex++)
 					{
 						int spawnDelayMs = (int) MarketplaceRandomizers.getValidRandomNumberByRange(spawnOption.spawnDelayMs, 0, 0);
-						EbsModelPlacement placement = spawn.modelPlacement;
 
 						// determine whether we re-use the same spawn-point we already got
-						// or if we should generate a new one
-						if (spawnPoint == null || INDIVIDUAL_SPAWN_POINT_TYPE.equals(spawnPointType))
+						// or if we should take the next one
+						if (!hasSpawnPoint || isIndividualSpawnPoint)
 						{
-							spawnPoint = spawnManager.getSpawnPoint(placement, modelWorldPoint);
+							Iterator<SpawnPoint> spawnPoints = spawnPointsByPlacement.get(spawn.modelPlacement);
+
+							if (spawnPoints != null && spawnPoints.hasNext())
+							{
+								spawnPoint = spawnPoints.next();
+							}
+							else if (!isIndividualSpawnPoint)
+							{
+								// NOTE: a shared spawn point is only searched up front for the first spawn of the group,
+								// when none was found there the next spawns keep searching for one themselves
+								spawnPoint = spawnManager.getSpawnPoint(spawn.modelPlacement, modelWorldPoint);
+							}
+							else
+							{
+								spawnPoint = null;
+							}
+
+							hasSpawnPoint = (spawnPoint != null);
 						}
 
 						triggerSpawn(spawn, spawnPoint, spawnDelayMs);
@@ -802,6 +847,8 @@ public class MarketplaceProduct
 		SpawnedObject spawnedObject = new SpawnedObject(
 			this,
 			client,
+			spawnManager.getModelDataCache(),
+			spawnManager.getObjectPool(),
 			spawnPoint,
 			spawn,
 			modelSet,
@@ -820,6 +867,7 @@ public class MarketplaceProduct
 
 		// register the objects to the product and manager to make the spawn point unavailable
 		spawnedObjects.add(spawnedObject);
+		manager.getConditionContext().invalidateSpawnCounts(this);
 		spawnAmount += 1;
 		spawnManager.registerSpawnedObjectPlacement(spawnedObject);
 	}
@@ -851,18 +899,19 @@ public class MarketplaceProduct
 		}
 
 		EbsEffect effect = effectIterator.next();
+		EbsProductPlan.EffectFrame effectFrame = ebsProductPlan.getEffectFrame(effect);
 		boolean isLast = !effectIterator.hasNext();
 		int durationMs = (int) MarketplaceRandomizers.getValidRandomNumberByRange(effect.durationMs, 0, 0);
 		ArrayList<EbsCondition> conditions = effect.conditions;
-		boolean blockingConditions = effect.blockingConditions; // TMP: for backwards compatibility, remove after full update
-		boolean breakOnInvalidConditions = effect.breakOnInvalidConditions || blockingConditions;
-		boolean breakOnValidConditions = effect.breakOnValidConditions;
+		boolean hasConditions = effectFrame.hasConditions();
+		boolean breakOnInvalidConditions = effectFrame.isBreakOnInvalidConditions();
+		boolean breakOnValidConditions = effectFrame.isBreakOnValidConditions();
 
 		// schedule all the individual effects
-		manager.getPlugin().scheduleOnClientThread(() -> {
+		scheduleOnClientThread(() -> {
 			int nextFrameDelayMs = durationMs;
 			int innerDelayMs = 0; // potentially handy in the future to delay a full effect
-			boolean conditionsVerified = verifyConditions(conditions, spawnedObject);
+			boolean conditionsVerified = !hasConditions || verifyConditions(conditions, spawnedObject);
 			boolean satisfiedInvalidBreak = conditionsVerified || !breakOnInvalidConditions;
 			boolean satisfiedValidBreak = !conditionsVerified || !breakOnValidConditions;
 
@@ -984,293 +1033,20 @@ public class MarketplaceProduct
 			return true;
 		}
 
-		Iterator<EbsCondition> iterator = conditions.iterator();
-
-		while (iterator.hasNext())
-		{
-			EbsCondition condition = iterator.next();
-			boolean conditionVerified = verifyCondition(condition, spawnedObject);
-
-			// guard: if one condition is not verified return false
-			// this means the top-level conditions are using AND logic
-			if (!conditionVerified)
-			{
-				return false;
-			}
-		}
+		// NOTE: the conditions are compiled in the plan where the top-level conditions are using AND logic
+		MarketplaceCondition condition = ebsProductPlan.getCondition(conditions);
 
-		return true;
+		return condition.verify(this, spawnedObject, manager.getConditionContext());
 	}
 
-	public boolean verifyCondition(EbsCondition condition, SpawnedObject spawnedObject)
+	public String getStateFrameValue(String stateKey)
 	{
-
-		// guard: check if collection is valid
-		if (condition == null)
-		{
-			return true;
-		}
-
-		Integer varbitId = condition.varbitId;
-		Integer varbitValue = condition.varbitValue;
-		Integer minTimeMs = condition.minTimeMs;
-		Integer maxTimeMs = condition.maxTimeMs;
-		Double minTimePercentage = condition.minTimePercentage;
-		Double maxTimePercentage = condition.maxTimePercentage;
-		Integer maxSpawnsInView = condition.maxSpawnsInView;
-		Integer maxSpawnsInViewRadius = condition.maxSpawnsInViewRadius;
-		Integer minSpawnsInView = condition.minSpawnsInView;
-		Integer minSpawnsInViewRadius = condition.minSpawnsInViewRadius;
-		Integer spawnInViewRadius = condition.spawnInViewRadius;
-		String stateType = condition.stateType;
-		String stateFormat = condition.stateFormat;
-		String stateComparator = condition.stateComparator;
-		String stateKey = condition.stateKey;
-		String stateValue = condition.stateValue;
-		Double chance = condition.chance;
-		String combatStyle = condition.combatStyle;
-		Integer regionId = condition.regionId;
-		Integer genderId = condition.genderId;
-		ArrayList<EbsCondition> orConditions = condition.or;
-		ArrayList<EbsCondition> andConditions = condition.and;
-		ArrayList<EbsCondition> notConditions = condition.not;
-		boolean orConditionsVerified = false;
-
-		Client client = manager.getClient();
-		Player localPlayer = client.getLocalPlayer();
-		PlayerComposition localPlayerComposition = (localPlayer == null ? null : localPlayer.getPlayerComposition());
-		int localGenderId = (localPlayerComposition == null ? MALE_GENDER_ID : localPlayerComposition.getGender()); // default to male gender?
-
-		// guard: check if the chance is passed
-		if (!MarketplaceRandomizers.rollChance(chance))
-		{
-			return false;
-		}
-
-		// guard: check if the required state is valid
-		if (!verifyStateValue(stateType, stateFormat, stateComparator, stateKey, stateValue, spawnedObject))
-		{
-			return false;
-		}
-
-		// guard: check if it is allowed within an absolute time-frame
-		if (!verifyTimePassedMs(minTimeMs, maxTimeMs))
-		{
-			return false;
-		}
-
-		// guard: check if it is allowed withing a relative time-frame
-		if (!verifyTimePassedPercentage(minTimePercentage, maxTimePercentage))
-		{
-			return false;
-		}
-
-		// guard: check if this condition should check a varbit
-		if (varbitId >= 0 && client.getVarbitValue(varbitId) != varbitValue)
-		{
-			return false;
-		}
-
-		// guard: check whether a specific combat style is requested
-		if (combatStyle != null && !manager.getFightStateManager().isCurrentCombatStyle(combatStyle))
-		{
-			return false;
-		}
-
-		// guard: check whether a specific region is requested
-		if (regionId != null && regionId != manager.getCurrentRegionId())
-		{
-			return false;
-		}
-
-		// guard: check whether a specific gender is requested
-		if (genderId != null && genderId != localGenderId)
-		{
-			return false;
-		}
-
-		// guard: check for max spawns in view
-		if (maxSpawnsInView > 0 && countSpawnedObjectsInView(maxSpawnsInViewRadius) > maxSpawnsInView)
-		{
-			return false;
-		}
-
-		// guard: check for min spawns in view
-		if (minSpawnsInView > 0 && countSpawnedObjectsInView(minSpawnsInViewRadius) < minSpawnsInView)
-		{
-			return false;
-		}
-
-		// guard: check for request to check the current spawn and if its in radius
-		if (spawnedObject != null && spawnInViewRadius >= 0 && !spawnedObject.isInView(spawnInViewRadius))
+		if (stateKey == null)
 		{
-			return false;
-		}
-
-		// check if one AND condition is not valid to set to false
-		if (andConditions != null)
-		{
-			for (EbsCondition andCondition : andConditions)
-			{
-				if (!verifyCondition(andCondition, spawnedObject))
-				{
-					return false;
-				}
-			}
-		}
-
-		// check if one NOT condition is not valid to set to false
-		// the collection is handled as an AND statement on the root-level of the NOT conditions
-		if (notConditions != null)
-		{
-			for (EbsCondition notCondition : notConditions)
-			{
-				// NOTE: when verified we will set to false
-				if (verifyCondition(notCondition, spawnedObject))
-				{
-					return false;
-				}
-			}
-		}
-
-		// check if one OR condition is valid to set the flag to true
-		if (orConditions != null)
-		{
-			for (EbsCondition orCondition : orConditions)
-			{
-				if (verifyCondition(orCondition, spawnedObject))
-				{
-					orConditionsVerified = true;
-					break;
-				}
-			}
-
-			// guard: check if the or conditions are valid
-			if (!orConditionsVerified)
-			{
-				return false;
-			}
-		}
-
-		return true;
-	}
-
-	private boolean verifyStateValue(String stateType, String stateFormat, String stateComparator, String stateKey, String comparedStateValue, SpawnedObject spawnedObject)
-	{
-
-		// guard: make sure the state check is valid
-		if (stateType == null || stateKey == null)
-		{
-			return true;
-		}
-
-		// default state is NULL
-		String currentStateValue = null;
-
-		if (PRODUCT_STATE_TYPE.equals(stateType)) {
-			currentStateValue = stateFrameValues.get(stateKey);
-		} else if (OBJECT_STATE_TYPE.equals(stateType) && spawnedObject != null) {
-			currentStateValue = spawnedObject.getStateFrameValue(stateKey);
-		}
-
-		// guard: compare with a simple if when the current state is NULL
-		// it might be possible a NULL state is requested, so it can still be verified
-		if (currentStateValue == null)
-		{
-			if (comparedStateValue == null) {
-				return true;
-			} else {
-				return false;
-			}
-		}
-
-		// guard: check for other formats
-		try {
-			if (INTEGER_STATE_FORMAT.equals(stateFormat)) {
-				int currentValue = (currentStateValue == null ? 0 : Integer.parseInt(currentStateValue));
-				int comparedValue = (comparedStateValue == null ? 0 : Integer.parseInt(comparedStateValue));
-
-				switch (stateComparator) {
-					case EQUAL_STATE_COMPARISON: return currentValue == comparedValue;
-					case LARGER_EQUAL_THAN_STATE_COMPARISON: return currentValue >= comparedValue;
-					case LARGER_THAN_STATE_COMPARISON: return currentValue > comparedValue;
-					case SMALLER_EQUAL_THAN_STATE_COMPARISON: return currentValue <= comparedValue;
-					case SMALLER_THAN_STATE_COMPARISON: return currentValue < comparedValue;
-				}
-			}
-		} catch (Exception exception) {
-			return false;
-		}
-
-		// make the null-safe comparison
-		return currentStateValue.equals(comparedStateValue);
-	}
-
-	/**
-	 * Check whether a certain time-frame absolute to the starting time is valid
-	 */
-	private boolean verifyTimePassedMs(int minMs, int maxMs)
-	{
-
-		// guard: make sure the time-frame is valid
-		if (minMs < 0 || maxMs < 0)
-		{
-			return true;
-		}
-
-		// guard: skip any passed time calculations when it is the full time-frame
-		if (minMs == 0 && maxMs == Integer.MAX_VALUE)
-		{
-			return true;
-		}
-
-		long passedMs = getDurationPassed().toMillis();
-
-		// guard: check whether the requested time-frame is outside of the current passed time
-		if (passedMs < minMs || passedMs > maxMs)
-		{
-			return false;
-		}
-
-		return true;
-	}
-
-	/**
-	 * Check whether a certain time-frame relative to the total duration with percentages is what we are now at
-	 */
-	private boolean verifyTimePassedPercentage(double minPercentage, double maxPercentage)
-	{
-
-		// guard: make sure the percentages are valid
-		if (minPercentage < 0 || maxPercentage < 0 || maxPercentage > 1 || minPercentage > 1)
-		{
-			return true;
-		}
-
-		// guard: skip any calculations when it is the full time-frame
-		if (minPercentage == 0 && maxPercentage == 1)
-		{
-			return true;
-		}
-
-		long durationMs = getDuration().toMillis();
-
-		// guard: make sure the duration is valid
-		if (durationMs <= 0)
-		{
-			return false;
-		}
-
-		long passedMs = getDurationPassed().toMillis();
-		double passedTimePercentage = (((double) passedMs) / ((double) durationMs));
-
-		// guard: check whether the current elapsed time is outside of the requested range
-		if (passedTimePercentage < minPercentage || passedTimePercentage > maxPercentage)
-		{
-			return false;
+			return null;
 		}
 
-		return true;
+		return stateFrameValues.get(stateKey);
 	}
 
 	private void triggerModelSetUpdate(SpawnedObject spawnedObject, EbsModelSet modelSet)
@@ -1384,7 +1160,7 @@ public class MarketplaceProduct
 
 		int delayMs = (int) MarketplaceRandomizers.getValidRandomNumberByRange(equipmentFrame.delayMs, 0, 0);
 
-		manager.getPlugin().scheduleOnClientThread(() -> {
+		scheduleOnClientThread(() -> {
 			transmogManager.addEffect(this, equipmentFrame,  null);
 		}, baseDelayMs + delayMs);
 	}
@@ -1401,7 +1177,7 @@ public class MarketplaceProduct
 
 		int delayMs = (int) MarketplaceRandomizers.getValidRandomNumberByRange(movementFrame.delayMs, 0, 0);
 
-		manager.getPlugin().scheduleOnClientThread(() -> {
+		scheduleOnClientThread(() -> {
 			animationManager.addEffect(this, movementFrame, null);
 		}, baseDelayMs + delayMs);
 	}
@@ -1418,7 +1194,7 @@ public class MarketplaceProduct
 
 		int delayMs = (int) MarketplaceRandomizers.getValidRandomNumberByRange(overheadFrame.delayMs, 0, 0);
 
-		manager.getPlugin().scheduleOnClientThread(() -> {
+		scheduleOnClientThread(() -> {
 			spawnOverheadManager.addEffect(this, overheadFrame, spawnedObject);
 		}, baseDelayMs + delayMs);
 	}
@@ -1434,7 +1210,7 @@ public class MarketplaceProduct
 		}
 
 		// TODO: allow delayMs of the effect frame to be included!
-		manager.getPlugin().scheduleOnClientThread(() -> {
+		scheduleOnClientThread(() -> {
 			Iterator<EbsInterfaceWidgetFrame> interfaceWidgetFrameIterator = interfaceWidgetFrames.iterator();
 
 			while (interfaceWidgetFrameIterator.hasNext())
@@ -1456,7 +1232,7 @@ public class MarketplaceProduct
 		}
 
 		// TODO: allow delayMs of the effect frame to be included!
-		manager.getPlugin().scheduleOnClientThread(() -> {
+		scheduleOnClientThread(() -> {
 			Iterator<EbsMenuOptionFrame> menuOptionFrameIterator = menuOptionFrames.iterator();
 
 			while (menuOptionFrameIterator.hasNext())
@@ -1479,7 +1255,7 @@ public class MarketplaceProduct
 
 		int delayMs = (int) MarketplaceRandomizers.getValidRandomNumberByRange(drawFrame.delayMs, 0, 0);
 
-		manager.getPlugin().scheduleOnClientThread(() -> {
+		scheduleOnClientThread(() -> {
 			drawManager.addEffect(this, drawFrame, null);
 		}, baseDelayMs + delayMs);
 	}
@@ -1501,7 +1277,7 @@ public class MarketplaceProduct
 			return;
 		}
 
-		manager.getPlugin().scheduleOnClientThread(() -> {
+		scheduleOnClientThread(() -> {
 			manager.getSoundManager().playSound(soundEffectId);
 		}, baseDelayMs + delayMs);
 	}
@@ -1525,7 +1301,7 @@ public class MarketplaceProduct
 			return;
 		}
 
-		manager.getPlugin().scheduleOnClientThread(() -> {
+		scheduleOnClientThread(() -> {
 			if (PRODUCT_STATE_TYPE.equals(stateType)) {
 				String currentStateValue = stateFrameValues.get(stateKey);
 				String newStateValue = calculateNewStateValue(currentStateValue, stateFrame);
@@ -1598,7 +1374,7 @@ public class MarketplaceProduct
 		}
 
 		// queue at the start of the effect
-		manager.getPlugin().scheduleOnClientThread(() -> {
+		scheduleOnClientThread(() -> {
 			boolean isExpired = ((!isActive && !isExpired()) || isExpired(-1 * END_NOTIFICATION_GRACE_PERIOD_MS));
 
 			// guard: make sure the product is active
@@ -1630,7 +1406,7 @@ public class MarketplaceProduct
 			EbsProjectileFrame projectileFrame = projectileFrameIterator.next();
 			int projectileDelayMs = (int) MarketplaceRandomizers.getValidRandomNumberByRange(projectileFrame.delayMs, 0, 0, 0, Integer.MAX_VALUE);
 
-			manager.getPlugin().scheduleOnClientThread(() -> {
+			scheduleOnClientThread(() -> {
 
 				// calculate most of the things here to make sure the delay is taken into account once the projectile is really fired
 				// for example an animation can still take place before the projectile is fired.
@@ -1710,7 +1486,7 @@ public class MarketplaceProduct
 				client.getProjectiles().addLast(projectile);
 
 				// trigger end spawns
-				manager.getPlugin().scheduleOnClientThread(() -> {
+				scheduleOnClientThread(() -> {
 					triggerSpawnOptionsAtWorldPoint(endWorldLocation, projectileFrame.endSpawnOptions);
 				}, durationMs);
 			}, delayMs + projectileDelayMs);
@@ -1923,8 +1699,7 @@ public class MarketplaceProduct
 			// guard: check if the hide animation is set
 			if (hideEffects == null || hideEffects.size() <= 0)
 			{
-				spawnedObject.hide();
-				manager.getSpawnManager().deregisterSpawnedObjectPlacement(spawnedObject);
+				manager.getSpawnManager().despawnSpawnedObject(spawnedObject);
 				return;
 			}
 
@@ -1937,8 +1712,7 @@ public class MarketplaceProduct
 				true,
 				(resetDelayMs) -> {
 					handleSpawnedObject(spawnedObject, resetDelayMs, () -> {
-						spawnedObject.hide();
-						manager.getSpawnManager().deregisterSpawnedObjectPlacement(spawnedObject);
+						manager.getSpawnManager().despawnSpawnedObject(spawnedObject);
 					});
 				}
 			);
@@ -1974,23 +1748,6 @@ public class MarketplaceProduct
 		});
 	}
 
-	/**
-	 * Count the amount of spawned objects that are in view of the player
-	 */
-	private int countSpawnedObjectsInView(int radius)
-	{
-		AtomicInteger inViewAmount = new AtomicInteger();
-
-		LambdaIterator.handleAll(spawnedObjects, (spawnedObject) -> {
-			if (spawnedObject.isInView(radius))
-			{
-				inViewAmount.addAndGet(1);
-			}
-		});
-
-		return inViewAmount.get();
-	}
-
 	/**
 	 * Shortcut to loop all the spawned objects and handle thhem with a delay on the client thread.
 	 */
@@ -2006,7 +1763,7 @@ public class MarketplaceProduct
 		// after calling this handlers are ignored, because a snapshot is made
 		Iterator<SpawnedObject> iterator = spawnedObjects.iterator();
 
-		manager.getPlugin().scheduleOnClientThread(() -> {
+		scheduleOnClientThread(() -> {
 			while(iterator.hasNext())
 			{
 				SpawnedObject spawnedObject = iterator.next();
@@ -2026,11 +1783,19 @@ public class MarketplaceProduct
 			return;
 		}
 
-		manager.getPlugin().scheduleOnClientThread(() -> {
+		scheduleOnClientThread(() -> {
 			handler.execute();
 		}, delayMs);
 	}
 
+	/**
+	 * Schedule an effect on the client thread of which the execution is skipped when this product is cancelled.
+	 */
+	private void scheduleOnClientThread(TwitchLiveLoadoutPlugin.ClientThreadAction action, long delayMs)
+	{
+		manager.scheduleEffect(this, action, delayMs);
+	}
+
 	/**
 	 * Calculate how long this product is going to be active
 	 */
@@ -1,10 +1,10 @@
 package com.twitchliveloadout.marketplace.sounds;
 
 import com.twitchliveloadout.TwitchLiveLoadoutConfig;
+import com.twitchliveloadout.marketplace.MarketplaceTimerRegistry;
 import lombok.extern.slf4j.Slf4j;
 import net.runelite.api.Client;
 
-import java.time.Instant;
 import java.util.concurrent.ConcurrentHashMap;
 
 import static com.twitchliveloadout.marketplace.MarketplaceConstants.*;
@@ -14,8 +14,14 @@ public class SoundManager {
 	private final Client client;
 	private final TwitchLiveLoadoutConfig config;
 
-	private Instant globalLastPlayedAt;
-	private ConcurrentHashMap<Integer, Instant> uniqueLastPlayedAtLookup = new ConcurrentHashMap<>();
+	private static final long NANOS_PER_MS = 1000 * 1000;
+
+	private final MarketplaceTimerRegistry<SoundThrottle> throttles = new MarketplaceTimerRegistry<>(SoundThrottle.class);
+	private final ConcurrentHashMap<Integer, Long> uniqueLastPlayedAtNanosLookup = new ConcurrentHashMap<>();
+
+	private enum SoundThrottle {
+		GLOBAL,
+	}
 
 	public SoundManager(Client client, TwitchLiveLoadoutConfig config)
 	{
@@ -38,10 +44,10 @@ public class SoundManager {
 			return;
 		}
 
-		Instant now = Instant.now();
-		Instant uniqueLastPlayedAt = uniqueLastPlayedAtLookup.get(soundId);
-		boolean hasUniqueBeenPlayedRecently = uniqueLastPlayedAt != null && now.minusMillis(UNIQUE_PLAY_SOUND_THROTTLE_MS).isBefore(uniqueLastPlayedAt);
-		boolean hasGlobalBeenPlayedRecently = globalLastPlayedAt != null && now.minusMillis(GLOBAL_PLAY_SOUND_THROTTLE_MS).isBefore(globalLastPlayedAt);
+		long nowNanos = throttles.getNanoTime();
+		Long uniqueLastPlayedAtNanos = uniqueLastPlayedAtNanosLookup.get(soundId);
+		boolean hasUniqueBeenPlayedRecently = uniqueLastPlayedAtNanos != null && nowNanos - uniqueLastPlayedAtNanos < UNIQUE_PLAY_SOUND_THROTTLE_MS * NANOS_PER_MS;
+		boolean hasGlobalBeenPlayedRecently = !throttles.isPassed(SoundThrottle.GLOBAL, nowNanos);
 
 		// guard: check if this sound is allowed to be played once again
 		// this is to prevent many of the same sounds to trigger at once
@@ -52,8 +58,8 @@ public class SoundManager {
 		}
 
 		// update the last played ats
-		globalLastPlayedAt = now;
-		uniqueLastPlayedAtLookup.put(soundId, now);
+		throttles.setDelay(SoundThrottle.GLOBAL, GLOBAL_PLAY_SOUND_THROTTLE_MS, nowNanos);
+		uniqueLastPlayedAtNanosLookup.put(soundId, nowNanos);
 
 		client.playSoundEffect(soundId);
 	}
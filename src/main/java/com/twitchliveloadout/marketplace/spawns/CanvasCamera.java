@@ -0,0 +1,65 @@
+package com.twitchliveloadout.marketplace.spawns;
+
+import net.runelite.api.Client;
+
+/**
+ * Snapshot of everything of the camera and viewport that determines where objects are projected on the canvas.
+ * Spawned objects cache their projected polygon for a snapshot, which means the same snapshot
+ * instance is reused as long as the camera does not change to allow comparing by identity.
+ */
+public class CanvasCamera
+{
+	private final int cameraX;
+	private final int cameraY;
+	private final int cameraZ;
+	private final int cameraYaw;
+	private final int cameraPitch;
+	private final int scale;
+	private final int viewportWidth;
+	private final int viewportHeight;
+	private final int viewportXOffset;
+	private final int viewportYOffset;
+
+	private CanvasCamera(Client client)
+	{
+		cameraX = client.getCameraX();
+		cameraY = client.getCameraY();
+		cameraZ = client.getCameraZ();
+		cameraYaw = client.getCameraYaw();
+		cameraPitch = client.getCameraPitch();
+		scale = client.getScale();
+		viewportWidth = client.getViewportWidth();
+		viewportHeight = client.getViewportHeight();
+		viewportXOffset = client.getViewportXOffset();
+		viewportYOffset = client.getViewportYOffset();
+	}
+
+	/**
+	 * Capture the current camera or get the previous snapshot when nothing has changed.
+	 */
+	public static CanvasCamera capture(Client client, CanvasCamera previousCamera)
+	{
+		CanvasCamera camera = new CanvasCamera(client);
+
+		if (previousCamera != null && previousCamera.isSameAs(camera))
+		{
+			return previousCamera;
+		}
+
+		return camera;
+	}
+
+	private boolean isSameAs(CanvasCamera camera)
+	{
+		return cameraX == camera.cameraX
+			&& cameraY == camera.cameraY
+			&& cameraZ == camera.cameraZ
+			&& cameraYaw == camera.cameraYaw
+			&& cameraPitch == camera.cameraPitch
+			&& scale == camera.scale
+			&& viewportWidth == camera.viewportWidth
+			&& viewportHeight == camera.viewportHeight
+			&& viewportXOffset == camera.viewportXOffset
+			&& viewportYOffset == camera.viewportYOffset;
+	}
+}
@@ -0,0 +1,135 @@
+package com.twitchliveloadout.marketplace.spawns;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import net.runelite.api.Constants;
+import net.runelite.api.Scene;
+import net.runelite.api.WorldView;
+import net.runelite.api.coords.WorldArea;
+import net.runelite.api.coords.WorldPoint;
+
+import java.util.BitSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Cache of the line of sight from origin tiles to the tiles in the scene. The results are the same
+ * as long as the origin does not move and the collision maps do not change, which means repeated
+ * spawning around a player that stands still does not have to trace the same lines over and over.
+ * NOTE: results are stored per origin as bitmaps over the scene tiles, only for the most recent origins.
+ */
+@Slf4j
+public class LineOfSightCache
+{
+	private static final int MAX_ORIGIN_AMOUNT = 16;
+	private static final int SCENE_TILE_STRIDE = Constants.EXTENDED_SCENE_SIZE;
+
+	private static class OriginSights
+	{
+		private final BitSet knownTiles = new BitSet();
+		private final BitSet visibleTiles = new BitSet();
+	}
+
+	private final LinkedHashMap<Long, OriginSights> originSights = new LinkedHashMap<Long, OriginSights>(MAX_ORIGIN_AMOUNT, 0.75f, true)
+	{
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<Long, OriginSights> eldest)
+		{
+			return size() > MAX_ORIGIN_AMOUNT;
+		}
+	};
+	private Scene cachedScene = null;
+	private int cachedPlane = -1;
+	private int cachedBaseX = -1;
+	private int cachedBaseY = -1;
+
+	@Getter
+	private long hitAmount = 0;
+	@Getter
+	private long missAmount = 0;
+
+	/**
+	 * Check whether the target tile is in line of sight of the origin area and cache the result.
+	 * The target is passed both in scene and world coordinates to prevent converting it again.
+	 */
+	public synchronized boolean hasLineOfSightTo(WorldView worldView, WorldArea originArea, int targetSceneX, int targetSceneY, WorldPoint targetWorldPoint)
+	{
+		prepareScene(worldView);
+
+		// guard: only cache the tiles that fit in the bitmaps
+		if (targetSceneX < 0 || targetSceneX >= SCENE_TILE_STRIDE || targetSceneY < 0 || targetSceneY >= SCENE_TILE_STRIDE)
+		{
+			missAmount += 1;
+			return originArea.hasLineOfSightTo(worldView, targetWorldPoint);
+		}
+
+		OriginSights sights = originSights.computeIfAbsent(getOriginKey(originArea), (key) -> new OriginSights());
+		int tileIndex = targetSceneX * SCENE_TILE_STRIDE + targetSceneY;
+
+		if (sights.knownTiles.get(tileIndex))
+		{
+			hitAmount += 1;
+			return sights.visibleTiles.get(tileIndex);
+		}
+
+		boolean hasLineOfSight = originArea.hasLineOfSightTo(worldView, targetWorldPoint);
+
+		missAmount += 1;
+		sights.knownTiles.set(tileIndex);
+		sights.visibleTiles.set(tileIndex, hasLineOfSight);
+
+		return hasLineOfSight;
+	}
+
+	/**
+	 * Forget all cached results, for example when the collision maps have changed.
+	 */
+	public synchronized void invalidate()
+	{
+
+		// only log when the cache was actually used to not spam the logs during scene loads
+		if (hitAmount > 0 || missAmount > 0)
+		{
+			log.debug("Invalidating line of sight cache after "+ hitAmount +" hits and "+ missAmount +" misses.");
+		}
+
+		originSights.clear();
+		hitAmount = 0;
+		missAmount = 0;
+	}
+
+	/**
+	 * Invalidate the cache when the scene or the plane has changed since the results were cached.
+	 */
+	private void prepareScene(WorldView worldView)
+	{
+		Scene scene = worldView.getScene();
+		int plane = worldView.getPlane();
+		int baseX = worldView.getBaseX();
+		int baseY = worldView.getBaseY();
+
+		// guard: skip when the cached results are still valid
+		if (scene == cachedScene && plane == cachedPlane && baseX == cachedBaseX && baseY == cachedBaseY)
+		{
+			return;
+		}
+
+		invalidate();
+		cachedScene = scene;
+		cachedPlane = plane;
+		cachedBaseX = baseX;
+		cachedBaseY = baseY;
+	}
+
+	private long getOriginKey(WorldArea originArea)
+	{
+		long key = originArea.getX();
+
+		key = (key << 16) | (originArea.getY() & 0xFFFF);
+		key = (key << 8) | (originArea.getPlane() & 0xFF);
+		key = (key << 8) | (originArea.getWidth() & 0xFF);
+		key = (key << 8) | (originArea.getHeight() & 0xFF);
+
+		return key;
+	}
+}
@@ -0,0 +1,164 @@
+package com.twitchliveloadout.marketplace.spawns;
+
+import com.twitchliveloadout.marketplace.products.EbsRecolor;
+import lombok.extern.slf4j.Slf4j;
+import net.runelite.api.ModelData;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Least recently used cache of model data that is merged, recolored, scaled and translated for spawned objects.
+ * Many spawned objects share the same model set, which means the loading and preparing of the model data
+ * only has to be done once. The cached model data is never handed out directly, only shallow copies of it,
+ * so spawned objects are required to clone the vertices or colors before changing them, which they already do.
+ */
+@Slf4j
+public class ModelDataCache
+{
+	public static final int MAX_SIZE = 64;
+	private static final int REPORT_LOOKUP_INTERVAL = 250;
+
+	/**
+	 * Everything that determines the prepared model data. The recolors are compared by identity,
+	 * because they are part of the products that are only replaced when the products are fetched again.
+	 */
+	public static class Key
+	{
+		private final List<Integer> modelIds;
+		private final ArrayList<EbsRecolor> recolors;
+		private final int scale;
+		private final int translateX;
+		private final int translateY;
+		private final int translateZ;
+		private final int hashCode;
+
+		public Key(List<Integer> modelIds, ArrayList<EbsRecolor> recolors, int scale, int translateX, int translateY, int translateZ)
+		{
+			this.modelIds = new ArrayList<>(modelIds);
+			this.recolors = recolors;
+			this.scale = scale;
+			this.translateX = translateX;
+			this.translateY = translateY;
+			this.translateZ = translateZ;
+			this.hashCode = Objects.hash(this.modelIds, System.identityHashCode(recolors), scale, translateX, translateY, translateZ);
+		}
+
+		@Override
+		public boolean equals(Object object)
+		{
+			if (this == object)
+			{
+				return true;
+			}
+
+			if (!(object instanceof Key))
+			{
+				return false;
+			}
+
+			Key key = (Key) object;
+
+			return recolors == key.recolors
+				&& scale == key.scale
+				&& translateX == key.translateX
+				&& translateY == key.translateY
+				&& translateZ == key.translateZ
+				&& modelIds.equals(key.modelIds);
+		}
+
+		@Override
+		public int hashCode()
+		{
+			return hashCode;
+		}
+	}
+
+	private final LinkedHashMap<Key, ModelData> modelDataByKey = new LinkedHashMap<Key, ModelData>(MAX_SIZE, 0.75f, true)
+	{
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<Key, ModelData> eldest)
+		{
+			return size() > MAX_SIZE;
+		}
+	};
+
+	/**
+	 * Statistics since the last report
+	 */
+	private long hitAmount = 0;
+	private long missAmount = 0;
+	private long preparationNanos = 0;
+
+	/**
+	 * Get a copy of the prepared model data or prepare it when it is not cached yet.
+	 * The preparation can return null when the model data cannot be loaded, which is not cached.
+	 */
+	public ModelData get(Key key, ModelDataPreparer preparer)
+	{
+		ModelData preparedModelData;
+
+		synchronized (this)
+		{
+			preparedModelData = modelDataByKey.get(key);
+
+			if (preparedModelData != null)
+			{
+				hitAmount += 1;
+				report();
+				return preparedModelData.shallowCopy();
+			}
+		}
+
+		long preparationStartedAt = System.nanoTime();
+		preparedModelData = preparer.prepare();
+
+		// guard: skip caching when nothing could be prepared
+		if (preparedModelData == null)
+		{
+			return null;
+		}
+
+		synchronized (this)
+		{
+			missAmount += 1;
+			preparationNanos += System.nanoTime() - preparationStartedAt;
+			modelDataByKey.put(key, preparedModelData);
+			report();
+		}
+
+		return preparedModelData.shallowCopy();
+	}
+
+	public synchronized void clear()
+	{
+		modelDataByKey.clear();
+	}
+
+	private void report()
+	{
+		long lookupAmount = hitAmount + missAmount;
+
+		// guard: skip when no report is due yet
+		if (lookupAmount < REPORT_LOOKUP_INTERVAL)
+		{
+			return;
+		}
+
+		long hitPercentage = hitAmount * 100 / lookupAmount;
+		long savedMicrosPerHit = (missAmount <= 0 ? 0 : preparationNanos / missAmount / 1000);
+
+		log.debug("Model data cache hit ratio is "+ hitPercentage +"% ("+ hitAmount +" hits, "+ missAmount +" misses), saving around "+ savedMicrosPerHit +"us per spawn on a hit.");
+
+		hitAmount = 0;
+		missAmount = 0;
+		preparationNanos = 0;
+	}
+
+	public interface ModelDataPreparer {
+		ModelData prepare();
+	}
+}
@@ -2,9 +2,7 @@ package com.twitchliveloadout.marketplace.spawns;
 
 import com.twitchliveloadout.marketplace.MarketplaceColors;
 import com.twitchliveloadout.marketplace.MarketplaceEffect;
-import com.twitchliveloadout.marketplace.MarketplaceMessages;
 import com.twitchliveloadout.marketplace.products.EbsModelOverheadFrame;
-import com.twitchliveloadout.marketplace.products.MarketplaceProduct;
 import lombok.extern.slf4j.Slf4j;
 import net.runelite.api.Client;
 import net.runelite.api.Perspective;
@@ -15,13 +13,19 @@ import net.runelite.client.ui.FontManager;
 import net.runelite.client.ui.overlay.*;
 
 import java.awt.*;
-import java.util.Iterator;
-import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.Arrays;
 
 @Slf4j
 public class OverheadTextOverlay extends Overlay {
+	private static final OverheadText[] NO_OVERHEAD_TEXTS = new OverheadText[0];
+
 	private final Client client;
-	private final CopyOnWriteArrayList<MarketplaceEffect<EbsModelOverheadFrame>> activeEffects = new CopyOnWriteArrayList<>();
+
+	/**
+	 * Snapshot of the overhead texts of all active effects that is replaced when an effect is added or removed,
+	 * which allows the rendering to iterate over it without copying or locking every frame.
+	 */
+	private volatile OverheadText[] overheadTexts = NO_OVERHEAD_TEXTS;
 
 	public OverheadTextOverlay(Client client)
 	{
@@ -36,17 +40,16 @@ public class OverheadTextOverlay extends Overlay {
 	@Override
 	public Dimension render(Graphics2D graphics)
 	{
-		Iterator<MarketplaceEffect<EbsModelOverheadFrame>> effectIterator = activeEffects.iterator();
+		final OverheadText[] currentOverheadTexts = overheadTexts;
 
-		while (effectIterator.hasNext())
+		for (OverheadText overheadText : currentOverheadTexts)
 		{
-			MarketplaceEffect<EbsModelOverheadFrame> effect = effectIterator.next();
+			MarketplaceEffect<EbsModelOverheadFrame> effect = overheadText.effect;
 			EbsModelOverheadFrame frame = effect.getFrame();
 			String text = frame.text;
 			Integer textHeight = frame.textHeight;
 			Integer textColorHex = frame.textColorHex;
 			SpawnedObject spawnedObject = effect.getSpawnedObject();
-			MarketplaceProduct marketplaceProduct = effect.getMarketplaceProduct();
 
 			// guard: ensure the effect is still active
 			if (!effect.isActive())
@@ -60,7 +63,6 @@ public class OverheadTextOverlay extends Overlay {
 				continue;
 			}
 
-			String formattedText = MarketplaceMessages.formatMessage(text, marketplaceProduct, effect);
 			LocalPoint localPoint = spawnedObject.getSpawnPoint().getLocalPoint(client);
 
 			// guard: check if the local point is still valid
@@ -73,7 +75,6 @@ public class OverheadTextOverlay extends Overlay {
 
 			WorldView worldView = client.getTopLevelWorldView();
 			Point textLocation = Perspective.localToCanvas(client, localPoint, worldView.getPlane(), textHeight);
-			Color textColor = MarketplaceColors.getColorByHex(textColorHex);
 
 			// guard: ensure a valid location for the text rendering
 			if (textLocation == null)
@@ -81,30 +82,93 @@ public class OverheadTextOverlay extends Overlay {
 				continue;
 			}
 
-			Font chatFont = FontManager.getRunescapeBoldFont();
-			FontMetrics metrics = graphics.getFontMetrics(chatFont);
-			Point centeredTextLocation = new Point(textLocation.getX() - (metrics.stringWidth(formattedText) >>> 1), textLocation.getY());
+			overheadText.update(graphics, text, textColorHex);
 
-			// guard: ensure a valid centered text location
-			if (centeredTextLocation == null)
+			// guard: skip when there is nothing to render after formatting
+			if (overheadText.formattedText.isEmpty())
 			{
 				continue;
 			}
 
-			graphics.setFont(chatFont);
-			OverlayUtil.renderTextLocation(graphics, centeredTextLocation, formattedText, textColor);
+			// same as rendering a text location, but without allocating a new centered point
+			int textX = textLocation.getX() - (overheadText.textWidth >>> 1);
+			int textY = textLocation.getY();
+
+			graphics.setFont(overheadText.font);
+			graphics.setColor(Color.BLACK);
+			graphics.drawString(overheadText.formattedText, textX + 1, textY + 1);
+			graphics.setColor(overheadText.textColor);
+			graphics.drawString(overheadText.formattedText, textX, textY);
 		}
 
 		return null;
 	}
 
-	public void addEffect(MarketplaceEffect<EbsModelOverheadFrame> effect)
+	public synchronized void addEffect(MarketplaceEffect<EbsModelOverheadFrame> effect)
+	{
+		OverheadText[] newOverheadTexts = Arrays.copyOf(overheadTexts, overheadTexts.length + 1);
+
+		newOverheadTexts[newOverheadTexts.length - 1] = new OverheadText(effect);
+		overheadTexts = newOverheadTexts;
+	}
+
+	public synchronized void removeEffect(MarketplaceEffect<EbsModelOverheadFrame> effect)
 	{
-		activeEffects.add(effect);
+		for (int overheadTextIndex = 0; overheadTextIndex < overheadTexts.length; overheadTextIndex++)
+		{
+			if (overheadTexts[overheadTextIndex].effect != effect)
+			{
+				continue;
+			}
+
+			OverheadText[] newOverheadTexts = new OverheadText[overheadTexts.length - 1];
+
+			System.arraycopy(overheadTexts, 0, newOverheadTexts, 0, overheadTextIndex);
+			System.arraycopy(overheadTexts, overheadTextIndex + 1, newOverheadTexts, overheadTextIndex, newOverheadTexts.length - overheadTextIndex);
+			overheadTexts = newOverheadTexts;
+			return;
+		}
 	}
 
-	public void removeEffect(MarketplaceEffect<EbsModelOverheadFrame> effect)
+	/**
+	 * Everything that is needed to render the text of an effect, which is only updated
+	 * when the formatted text, the color or the font have changed since the previous frame.
+	 */
+	private static class OverheadText
 	{
-		activeEffects.remove(effect);
+		private final MarketplaceEffect<EbsModelOverheadFrame> effect;
+		private String formattedText = "";
+		private int textColorHex = -1;
+		private Color textColor = null;
+		private Font font = null;
+		private int textWidth = 0;
+
+		private OverheadText(MarketplaceEffect<EbsModelOverheadFrame> effect)
+		{
+			this.effect = effect;
+		}
+
+		private void update(Graphics2D graphics, String text, int newTextColorHex)
+		{
+			String newFormattedText = effect.formatMessage(text);
+			Font newFont = FontManager.getRunescapeBoldFont();
+
+			if (textColor == null || newTextColorHex != textColorHex)
+			{
+				textColorHex = newTextColorHex;
+				textColor = MarketplaceColors.getColorByHex(newTextColorHex);
+			}
+
+			// guard: skip measuring when the text and font are the same
+			// NOTE: the formatted message is the same instance as long as it has not changed
+			if (newFormattedText == formattedText && newFont == font)
+			{
+				return;
+			}
+
+			formattedText = newFormattedText;
+			font = newFont;
+			textWidth = graphics.getFontMetrics(newFont).stringWidth(newFormattedText);
+		}
 	}
 }
@@ -0,0 +1,86 @@
+package com.twitchliveloadout.marketplace.spawns;
+
+import net.runelite.api.Client;
+import net.runelite.api.RuneLiteObject;
+
+import java.util.ArrayDeque;
+
+/**
+ * Pool of the objects that are rendered for spawned objects. Products with a lot of short-lived spawns
+ * would otherwise create new client objects for every spawn, while the ones of despawned objects are discarded.
+ * Objects are reset when they are returned to the pool and the amount of pooled objects is limited.
+ * NOTE: the objects are only handed out and returned on the client thread.
+ */
+public class RuneLiteObjectPool
+{
+	public static final int MAX_SIZE = 128;
+
+	private final Client client;
+	private final ArrayDeque<RuneLiteObject> pooledObjects = new ArrayDeque<>();
+	private int defaultRadius = -1;
+
+	public RuneLiteObjectPool(Client client)
+	{
+		this.client = client;
+	}
+
+	public synchronized RuneLiteObject acquire()
+	{
+		RuneLiteObject object = pooledObjects.pollFirst();
+
+		// guard: create a new object when none are pooled
+		if (object == null)
+		{
+			object = client.createRuneLiteObject();
+
+			// remember the radius of new objects to reset the pooled ones to
+			if (defaultRadius < 0)
+			{
+				defaultRadius = object.getRadius();
+			}
+		}
+
+		return object;
+	}
+
+	public synchronized void release(RuneLiteObject object)
+	{
+
+		// guard: make sure the object is valid
+		if (object == null)
+		{
+			return;
+		}
+
+		reset(object);
+
+		// guard: discard the object when the pool is full
+		if (pooledObjects.size() >= MAX_SIZE)
+		{
+			return;
+		}
+
+		pooledObjects.addFirst(object);
+	}
+
+	public synchronized void clear()
+	{
+		pooledObjects.clear();
+	}
+
+	/**
+	 * Reset everything a spawned object can change to make the object look like a new one.
+	 */
+	private void reset(RuneLiteObject object)
+	{
+		object.setActive(false);
+		object.setModel(null);
+		object.setAnimation(null);
+		object.setOrientation(0);
+
+		if (defaultRadius >= 0)
+		{
+			object.setRadius(defaultRadius);
+		}
+	}
+}
@@ -4,8 +4,10 @@ import com.google.common.collect.EvictingQueue;
 import com.twitchliveloadout.TwitchLiveLoadoutPlugin;
 import com.twitchliveloadout.marketplace.MarketplaceManager;
 import com.twitchliveloadout.marketplace.MarketplaceRandomizers;
+import com.twitchliveloadout.marketplace.products.MarketplaceProduct;
 import com.twitchliveloadout.marketplace.products.EbsModelPlacement;
 import com.twitchliveloadout.marketplace.products.EbsRandomRange;
+import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 import net.runelite.api.*;
 import net.runelite.api.coords.LocalPoint;
@@ -14,8 +16,7 @@ import net.runelite.api.coords.WorldPoint;
 import net.runelite.api.events.GameStateChanged;
 
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ThreadLocalRandom;
 
 import static com.twitchliveloadout.marketplace.MarketplaceConstants.*;
 
@@ -28,18 +29,41 @@ public class SpawnManager {
 	/**
 	 * Lookup to see which world points are taken for future spawns
 	 */
-	private final ConcurrentHashMap<WorldPoint, CopyOnWriteArrayList<SpawnedObject>> objectPlacements = new ConcurrentHashMap<>();
+	private final SpawnPlacementIndex objectPlacements = new SpawnPlacementIndex();
 
 	/**
 	 * History of all the previous player tiles used for spawning relative to previous locations
 	 */
 	private EvictingQueue<WorldPoint> playerLocationHistory = EvictingQueue.create(PLAYER_TILE_HISTORY_SIZE);
 
+	/**
+	 * Index of the tiles in the scene that can be spawned on
+	 */
+	private final SpawnTileIndex spawnTileIndex = new SpawnTileIndex();
+
+	/**
+	 * Cache of the line of sight checks from the player to the candidate tiles
+	 */
+	private final LineOfSightCache lineOfSightCache = new LineOfSightCache();
+
+	/**
+	 * Cache of the prepared model data shared between the spawned objects
+	 */
+	@Getter
+	private final ModelDataCache modelDataCache = new ModelDataCache();
+
+	/**
+	 * Pool of the objects to render spawned objects with
+	 */
+	@Getter
+	private final RuneLiteObjectPool objectPool;
+
 	public SpawnManager(TwitchLiveLoadoutPlugin plugin, Client client, MarketplaceManager manager)
 	{
 		this.plugin = plugin;
 		this.client = client;
 		this.manager = manager;
+		this.objectPool = new RuneLiteObjectPool(client);
 	}
 
 	/**
@@ -84,10 +108,21 @@ public class SpawnManager {
 		// and need to be queued for a respawn, this is done periodically
 		if (newGameState == GameState.LOADING)
 		{
+			spawnTileIndex.invalidate();
+			lineOfSightCache.invalidate();
 			registerDespawn();
 		}
 	}
 
+	/**
+	 * Rebuild the tile index and forget the line of sight results when objects in the scene have changed.
+	 */
+	public void onCollisionMapChanged()
+	{
+		spawnTileIndex.invalidate();
+		lineOfSightCache.invalidate();
+	}
+
 	/**
 	 * Register all spawned objects to require a respawn to show them again.
 	 */
@@ -112,6 +147,7 @@ public class SpawnManager {
 		}
 
 		playerLocationHistory.add(currentWorldPoint);
+		manager.onSpawnAreaChanged();
 	}
 
 	public WorldPoint getCurrentPlayerLocation()
@@ -154,17 +190,7 @@ public class SpawnManager {
 	 */
 	public void registerSpawnedObjectPlacement(SpawnedObject spawnedObject)
 	{
-		WorldPoint worldPoint = spawnedObject.getSpawnPoint().getWorldPoint();
-
-		// check whether this world point already has a spawned object to add to
-		if (objectPlacements.containsKey(worldPoint)) {
-			CopyOnWriteArrayList<SpawnedObject> existingObjects = objectPlacements.get(worldPoint);
-			existingObjects.add(spawnedObject);
-		} else {
-			CopyOnWriteArrayList<SpawnedObject> existingObjects = new CopyOnWriteArrayList<>();
-			existingObjects.add(spawnedObject);
-			objectPlacements.put(worldPoint, existingObjects);
-		}
+		objectPlacements.register(spawnedObject);
 	}
 
 	/**
@@ -172,23 +198,23 @@ public class SpawnManager {
 	 */
 	public void deregisterSpawnedObjectPlacement(SpawnedObject spawnedObject)
 	{
-		WorldPoint worldPoint = spawnedObject.getSpawnPoint().getWorldPoint();
+		boolean isTileFreed = objectPlacements.deregister(spawnedObject);
 
-		// guard: check if the placements are known
-		if (!objectPlacements.containsKey(worldPoint))
+		// notify when this world point is free again
+		if (isTileFreed)
 		{
-			return;
+			manager.onSpawnAreaChanged();
 		}
+	}
 
-		// remove from the existing spawned objects
-		CopyOnWriteArrayList<SpawnedObject> existingObjects = objectPlacements.get(worldPoint);
-		existingObjects.remove(spawnedObject);
-
-		// remove the placement if empty so this world point is free again
-		if (existingObjects.size() <= 0)
-		{
-			objectPlacements.remove(worldPoint);
-		}
+	/**
+	 * Hide a spawned object for good, free up its tile and hand its object back to the pool.
+	 */
+	public void despawnSpawnedObject(SpawnedObject spawnedObject)
+	{
+		spawnedObject.hide();
+		deregisterSpawnedObjectPlacement(spawnedObject);
+		spawnedObject.release(objectPool);
 	}
 
 	public void moveSpawnedObject(SpawnedObject spawnedObject, SpawnPoint newSpawnPoint)
@@ -219,36 +245,51 @@ public class SpawnManager {
 	 */
 	public void handleAllSpawnedObjects(MarketplaceManager.SpawnedObjectHandler handler)
 	{
-		for (CopyOnWriteArrayList<SpawnedObject> spawnedObjects : objectPlacements.values())
-		{
-			Iterator<SpawnedObject> spawnedObjectIterator = spawnedObjects.iterator();
-
-			while (spawnedObjectIterator.hasNext())
-			{
-				SpawnedObject spawnedObject = spawnedObjectIterator.next();
+		objectPlacements.handleAll(handler);
+	}
 
-				handler.execute(spawnedObject);
-			}
-		}
+	/**
+	 * Count the spawned objects of a product around a world point by only checking the nearby placements
+	 */
+	public int countSpawnedObjectsInRadius(MarketplaceProduct product, WorldPoint worldPoint, int radius)
+	{
+		return objectPlacements.countInRadius(worldPoint, radius, product);
 	}
 
 	public SpawnPoint getOutwardSpawnPoint(int minRadius, int maxRadius, int radiusStepSize, boolean inLineOfSight, boolean avoidExistingSpawns, boolean avoidPlayerLocation, boolean avoidInvalidOverlay, WorldPoint referenceWorldPoint)
 	{
-		for (int radius = minRadius; radius <= maxRadius; radius++)
+		return getFirstSpawnPoint(getOutwardSpawnPoints(1, minRadius, maxRadius, radiusStepSize, inLineOfSight, avoidExistingSpawns, avoidPlayerLocation, avoidInvalidOverlay, referenceWorldPoint, ThreadLocalRandom.current(), new HashSet<>()));
+	}
+
+	public ArrayList<SpawnPoint> getOutwardSpawnPoints(int amount, int minRadius, int maxRadius, int radiusStepSize, boolean inLineOfSight, boolean avoidExistingSpawns, boolean avoidPlayerLocation, boolean avoidInvalidOverlay, WorldPoint referenceWorldPoint, Random random, Set<WorldPoint> drawnWorldPoints)
+	{
+		final ArrayList<SpawnPoint> spawnPoints = new ArrayList<>();
+
+		for (int radius = minRadius; radius <= maxRadius && spawnPoints.size() < amount; radius++)
 		{
-			int randomizedRadius = radius + (int) Math.round(Math.random() * ((float) radiusStepSize));
+			int randomizedRadius = radius + (int) Math.round(random.nextDouble() * ((float) radiusStepSize));
 			int usedRadius = Math.min(randomizedRadius, maxRadius);
-			SpawnPoint candidateSpawnPoint = getSpawnPoint(usedRadius, usedRadius, inLineOfSight, avoidExistingSpawns, avoidPlayerLocation, avoidInvalidOverlay, referenceWorldPoint);
+			ArrayList<SpawnPoint> candidateSpawnPoints = drawSpawnPoints(amount - spawnPoints.size(), usedRadius, usedRadius, inLineOfSight, avoidExistingSpawns, avoidPlayerLocation, avoidInvalidOverlay, referenceWorldPoint, random, drawnWorldPoints);
 
-			if (candidateSpawnPoint != null) {
-				return candidateSpawnPoint;
-			}
+			spawnPoints.addAll(candidateSpawnPoints);
 		}
 
-		return null;
+		fillSharedSpawnPoints(spawnPoints, amount, avoidExistingSpawns, random);
+		return spawnPoints;
 	}
 
 	public SpawnPoint getSpawnPoint(EbsModelPlacement placement, WorldPoint modelWorldPoint)
+	{
+		return getFirstSpawnPoint(getSpawnPoints(placement, modelWorldPoint, 1, ThreadLocalRandom.current(), new HashSet<>()));
+	}
+
+	/**
+	 * Get multiple spawn points for the same placement at once, which means the candidate tiles only
+	 * have to be searched once for all of them. The spawn points are distinct when existing spawns should be avoided,
+	 * also from the drawn world points which allows multiple batches to not overlap before their objects are registered.
+	 * NOTE: there can be fewer spawn points than requested when not enough candidates are available.
+	 */
+	public ArrayList<SpawnPoint> getSpawnPoints(EbsModelPlacement placement, WorldPoint modelWorldPoint, int amount, Random random, Set<WorldPoint> drawnWorldPoints)
 	{
 
 		// make sure there are valid placement parameters
@@ -288,7 +329,7 @@ public class SpawnManager {
 
 			if (referenceWorldPoint == null)
 			{
-				return null;
+				return new ArrayList<>();
 			}
 		}
 
@@ -319,21 +360,51 @@ public class SpawnManager {
 
 		if (NO_RADIUS_TYPE.equals(radiusType))
 		{
-			return new SpawnPoint(referenceWorldPoint);
+			ArrayList<SpawnPoint> spawnPoints = new ArrayList<>();
+
+			for (int spawnPointIndex = 0; spawnPointIndex < amount; spawnPointIndex++)
+			{
+				spawnPoints.add(new SpawnPoint(referenceWorldPoint));
+			}
+
+			return spawnPoints;
 		}
 
 		if (OUTWARD_RADIUS_TYPE.equals(radiusType))
 		{
-			return getOutwardSpawnPoint(minRadius, maxRadius, radiusStepSize, inLineOfSight, avoidExistingSpawns, avoidPlayerLocation, avoidInvalidOverlay, referenceWorldPoint);
+			return getOutwardSpawnPoints(amount, minRadius, maxRadius, radiusStepSize, inLineOfSight, avoidExistingSpawns, avoidPlayerLocation, avoidInvalidOverlay, referenceWorldPoint, random, drawnWorldPoints);
 		}
 
-		return getSpawnPoint(minRadius, maxRadius, inLineOfSight, avoidExistingSpawns, avoidPlayerLocation, avoidInvalidOverlay, referenceWorldPoint);
+		return getSpawnPoints(amount, minRadius, maxRadius, inLineOfSight, avoidExistingSpawns, avoidPlayerLocation, avoidInvalidOverlay, referenceWorldPoint, random, drawnWorldPoints);
 	}
 
 	public SpawnPoint getSpawnPoint(int minRadius, int maxRadius, boolean inLineOfSight, boolean avoidExistingSpawns, boolean avoidPlayerLocation, boolean avoidInvalidOverlay, WorldPoint referenceWorldPoint)
 	{
-		final ArrayList<SpawnPoint> candidateSpawnPoints = new ArrayList<>();
-		final int[][] collisionFlags = getSceneCollisionFlags();
+		return getFirstSpawnPoint(getSpawnPoints(1, minRadius, maxRadius, inLineOfSight, avoidExistingSpawns, avoidPlayerLocation, avoidInvalidOverlay, referenceWorldPoint, ThreadLocalRandom.current(), new HashSet<>()));
+	}
+
+	public ArrayList<SpawnPoint> getSpawnPoints(int amount, int minRadius, int maxRadius, boolean inLineOfSight, boolean avoidExistingSpawns, boolean avoidPlayerLocation, boolean avoidInvalidOverlay, WorldPoint referenceWorldPoint, Random random, Set<WorldPoint> drawnWorldPoints)
+	{
+		final ArrayList<SpawnPoint> spawnPoints = drawSpawnPoints(amount, minRadius, maxRadius, inLineOfSight, avoidExistingSpawns, avoidPlayerLocation, avoidInvalidOverlay, referenceWorldPoint, random, drawnWorldPoints);
+
+		fillSharedSpawnPoints(spawnPoints, amount, avoidExistingSpawns, random);
+		return spawnPoints;
+	}
+
+	/**
+	 * Draw distinct spawn points from the candidate tiles within the radius range in one pass.
+	 * The world points that are drawn before are avoided as well when existing spawns should be avoided.
+	 */
+	private ArrayList<SpawnPoint> drawSpawnPoints(int amount, int minRadius, int maxRadius, boolean inLineOfSight, boolean avoidExistingSpawns, boolean avoidPlayerLocation, boolean avoidInvalidOverlay, WorldPoint referenceWorldPoint, Random random, Set<WorldPoint> drawnWorldPoints)
+	{
+		final ArrayList<SpawnPoint> spawnPoints = new ArrayList<>();
+
+		// guard: skip when no spawn points are requested
+		if (amount <= 0)
+		{
+			return spawnPoints;
+		}
+
 		final Player player = client.getLocalPlayer();
 		final WorldView worldView = client.getTopLevelWorldView();
 		final WorldArea playerArea = player.getWorldArea();
@@ -358,107 +429,77 @@ public class SpawnManager {
 		{
 			referenceLocalPoint = client.getLocalPlayer().getLocalLocation();
 		}
-		
+
 		final int plane = referenceWorldPoint.getPlane();
 		final Scene scene = worldView.getScene();
-		final short[][][] overlayIds = scene.getOverlayIds();
-		final short[][][] underlayIds = scene.getUnderlayIds();
 		final int sceneX = referenceLocalPoint.getSceneX();
 		final int sceneY = referenceLocalPoint.getSceneY();
 
-		// loop all the possible tiles for the requested radius and look for
-		// the candidate tiles to spawn the object on
-		for (int deltaX = -1 * maxRadius; deltaX <= maxRadius; deltaX++) {
-			for (int deltaY = -1 * maxRadius; deltaY <= maxRadius; deltaY++) {
-				int sceneAttemptX = sceneX + deltaX;
-				int sceneAttemptY = sceneY + deltaY;
-				double deltaDiagonal = Math.sqrt(Math.pow(deltaX, 2) + Math.pow(deltaY, 2));
-
-				// guard: skip all tiles that are not distant enough
-				if (Math.abs(deltaX) < minRadius && Math.abs(deltaY) < minRadius && deltaDiagonal < minRadius)
-				{
-					continue;
-				}
-
-				// guard: make sure the tile has collision flags
-				if (
-					sceneAttemptX < 0
-					|| sceneAttemptX >= collisionFlags.length
-					|| sceneAttemptY < 0
-					|| sceneAttemptY >= collisionFlags[sceneAttemptX].length
-				) {
-					continue;
-				}
-
-				int flagData = collisionFlags[sceneAttemptX][sceneAttemptY];
-				int blockedFlags = CollisionDataFlag.BLOCK_MOVEMENT_FULL;
-				boolean isWalkable = (flagData & blockedFlags) == 0;
-				int underlayOverlayIdOffset = (Constants.EXTENDED_SCENE_SIZE - Constants.SCENE_SIZE) / 2;
-				int underlayOverlayAttemptX = sceneAttemptX + underlayOverlayIdOffset;
-				int underlayOverlayAttemptY = sceneAttemptY + underlayOverlayIdOffset;
-				short underlayId = underlayIds[plane][underlayOverlayAttemptX][underlayOverlayAttemptY];
-				short overlayId = overlayIds[plane][underlayOverlayAttemptX][underlayOverlayAttemptY];
-				boolean isBlackOnMinimap = (avoidInvalidOverlay && underlayId == 0 && overlayId == 0);
-
-				// guard: make sure the tile is walkable
-				if (!isWalkable || isBlackOnMinimap)
-				{
-					continue;
-				}
-
-				LocalPoint localPoint = LocalPoint.fromScene(sceneAttemptX, sceneAttemptY, scene);
-				WorldPoint worldPoint = WorldPoint.fromLocal(client, localPoint);
-
-				// guard: check if this world point is already taken by another spawned object
-				if (avoidExistingSpawns && objectPlacements.containsKey(worldPoint))
-				{
-					continue;
-				}
-
-				// guard: skip candidates that are the current player location
-				// because when rendering the model it is always on top of the player
-				// which is almost always not looking very nice
-				if (avoidPlayerLocation && worldPoint.equals(playerWorldPoint))
-				{
-					continue;
-				}
-
-				// guard: make sure the tile is in line of sight
-				if (inLineOfSight && !playerArea.hasLineOfSightTo(client.getTopLevelWorldView(), worldPoint))
-				{
-					continue;
-				}
-
-				// we have found a walkable tile to spawn the object on
-				candidateSpawnPoints.add(new SpawnPoint(worldPoint));
+		// the walkable tiles within the radius come from the index, the checks that
+		// depend on the current state are only done for the tiles that are sampled
+		final int[] spawnTiles = new int[amount];
+		final int spawnTileAmount = spawnTileIndex.findSpawnTiles(worldView, sceneX, sceneY, plane, minRadius, maxRadius, avoidInvalidOverlay, random, (candidateSceneX, candidateSceneY) -> {
+			LocalPoint localPoint = LocalPoint.fromScene(candidateSceneX, candidateSceneY, scene);
+			WorldPoint worldPoint = WorldPoint.fromLocal(client, localPoint);
+
+			// guard: check if this world point is already taken by another spawned object
+			if (avoidExistingSpawns && (objectPlacements.isOccupied(worldPoint) || drawnWorldPoints.contains(worldPoint)))
+			{
+				return false;
+			}
+
+			// guard: skip candidates that are the current player location
+			// because when rendering the model it is always on top of the player
+			// which is almost always not looking very nice
+			if (avoidPlayerLocation && worldPoint.equals(playerWorldPoint))
+			{
+				return false;
 			}
-		}
 
-		// guard: make sure there are candidate spawn points to prevent the
-		// random selection of one to trigger errors
-		if (candidateSpawnPoints.size() <= 0)
+			// guard: make sure the tile is in line of sight
+			if (inLineOfSight && !lineOfSightCache.hasLineOfSightTo(worldView, playerArea, candidateSceneX, candidateSceneY, worldPoint))
+			{
+				return false;
+			}
+
+			return true;
+		}, spawnTiles);
+
+		for (int drawnIndex = 0; drawnIndex < spawnTileAmount; drawnIndex++)
 		{
-			return null;
-		}
+			int spawnTile = spawnTiles[drawnIndex];
+			LocalPoint spawnLocalPoint = LocalPoint.fromScene(SpawnTileIndex.getSceneX(spawnTile), SpawnTileIndex.getSceneY(spawnTile), scene);
+			WorldPoint spawnWorldPoint = WorldPoint.fromLocal(client, spawnLocalPoint);
 
-		final Random spawnPointSelector = new Random();
-		final int spawnPointIndex = spawnPointSelector.nextInt(candidateSpawnPoints.size());
-		final SpawnPoint spawnPoint = candidateSpawnPoints.get(spawnPointIndex);
+			drawnWorldPoints.add(spawnWorldPoint);
+			spawnPoints.add(new SpawnPoint(spawnWorldPoint));
+		}
 
-		return spawnPoint;
+		return spawnPoints;
 	}
 
-	private int[][] getSceneCollisionFlags() {
-		WorldView worldView = client.getTopLevelWorldView();
-		final CollisionData[] collisionMaps = worldView.getCollisionMaps();
-		int[][] collisionFlags = new int[Constants.SCENE_SIZE][Constants.SCENE_SIZE];
-		int plane = worldView.getPlane();
+	/**
+	 * Fill up the spawn points with already drawn ones when there were not enough distinct candidates.
+	 * This is only done when spawns are allowed to share their tile, like they could before spawning in batches.
+	 */
+	private void fillSharedSpawnPoints(ArrayList<SpawnPoint> spawnPoints, int amount, boolean avoidExistingSpawns, Random random)
+	{
+		final int drawnAmount = spawnPoints.size();
+
+		// guard: skip when no sharing is allowed or there is nothing to share
+		if (avoidExistingSpawns || drawnAmount <= 0)
+		{
+			return;
+		}
 
-		// if we have map collision flags we populate the starting point with them
-		if (collisionMaps != null) {
-			collisionFlags = collisionMaps[plane].getFlags();
+		while (spawnPoints.size() < amount)
+		{
+			spawnPoints.add(spawnPoints.get(random.nextInt(drawnAmount)));
 		}
+	}
 
-		return collisionFlags;
+	private SpawnPoint getFirstSpawnPoint(ArrayList<SpawnPoint> spawnPoints)
+	{
+		return (spawnPoints.isEmpty() ? null : spawnPoints.get(0));
 	}
 }
@@ -0,0 +1,265 @@
+package com.twitchliveloadout.marketplace.spawns;
+
+import com.twitchliveloadout.marketplace.MarketplaceManager;
+import com.twitchliveloadout.marketplace.products.MarketplaceProduct;
+import net.runelite.api.coords.WorldPoint;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+
+import static com.twitchliveloadout.marketplace.MarketplaceConstants.CHUNK_SIZE;
+
+/**
+ * Spatial index of the spawned objects by the world tile they are placed on. Tiles are bucketed into
+ * chunks keyed by their packed world coordinates, which keeps occupancy checks constant and makes radius
+ * queries only touch the chunks around the center instead of all spawned objects.
+ * NOTE: handlers are executed on a snapshot outside of the lock, so they can (de)register spawned objects.
+ */
+public class SpawnPlacementIndex
+{
+	private static final int CHUNK_TILE_AMOUNT = CHUNK_SIZE * CHUNK_SIZE;
+	private static final int CHUNK_COORDINATE_BITS = 20;
+	private static final int CHUNK_COORDINATE_MASK = (1 << CHUNK_COORDINATE_BITS) - 1;
+
+	private static class Chunk
+	{
+		private final int chunkX;
+		private final int chunkY;
+		private final int plane;
+		@SuppressWarnings("unchecked")
+		private final ArrayList<SpawnedObject>[] tiles = new ArrayList[CHUNK_TILE_AMOUNT];
+		private int objectAmount = 0;
+
+		private Chunk(int chunkX, int chunkY, int plane)
+		{
+			this.chunkX = chunkX;
+			this.chunkY = chunkY;
+			this.plane = plane;
+		}
+	}
+
+	private final HashMap<Long, Chunk> chunks = new HashMap<>();
+	private int objectAmount = 0;
+
+	/**
+	 * Add a spawned object to the tile of its current spawn point.
+	 * Returns whether the tile was free before.
+	 */
+	public synchronized boolean register(SpawnedObject spawnedObject)
+	{
+		final WorldPoint worldPoint = spawnedObject.getSpawnPoint().getWorldPoint();
+		final int x = worldPoint.getX();
+		final int y = worldPoint.getY();
+		final int plane = worldPoint.getPlane();
+		final long chunkKey = getChunkKey(toChunkCoordinate(x), toChunkCoordinate(y), plane);
+		Chunk chunk = chunks.get(chunkKey);
+
+		if (chunk == null)
+		{
+			chunk = new Chunk(toChunkCoordinate(x), toChunkCoordinate(y), plane);
+			chunks.put(chunkKey, chunk);
+		}
+
+		final int tileIndex = getTileIndex(x, y);
+		ArrayList<SpawnedObject> tileObjects = chunk.tiles[tileIndex];
+
+		if (tileObjects == null)
+		{
+			tileObjects = new ArrayList<>(1);
+			chunk.tiles[tileIndex] = tileObjects;
+		}
+
+		tileObjects.add(spawnedObject);
+		chunk.objectAmount += 1;
+		objectAmount += 1;
+
+		return tileObjects.size() == 1;
+	}
+
+	/**
+	 * Remove a spawned object from the tile of its current spawn point.
+	 * Returns whether the tile became free because of this.
+	 */
+	public synchronized boolean deregister(SpawnedObject spawnedObject)
+	{
+		final WorldPoint worldPoint = spawnedObject.getSpawnPoint().getWorldPoint();
+		final int x = worldPoint.getX();
+		final int y = worldPoint.getY();
+		final long chunkKey = getChunkKey(toChunkCoordinate(x), toChunkCoordinate(y), worldPoint.getPlane());
+		final Chunk chunk = chunks.get(chunkKey);
+
+		// guard: check if the placement is known
+		if (chunk == null)
+		{
+			return false;
+		}
+
+		final int tileIndex = getTileIndex(x, y);
+		final ArrayList<SpawnedObject> tileObjects = chunk.tiles[tileIndex];
+
+		// guard: check if the spawned object is placed here
+		if (tileObjects == null || !tileObjects.remove(spawnedObject))
+		{
+			return false;
+		}
+
+		chunk.objectAmount -= 1;
+		objectAmount -= 1;
+
+		// guard: skip when the tile is still taken
+		if (!tileObjects.isEmpty())
+		{
+			return false;
+		}
+
+		chunk.tiles[tileIndex] = null;
+
+		if (chunk.objectAmount <= 0)
+		{
+			chunks.remove(chunkKey);
+		}
+
+		return true;
+	}
+
+	public synchronized boolean isOccupied(WorldPoint worldPoint)
+	{
+		final int x = worldPoint.getX();
+		final int y = worldPoint.getY();
+		final Chunk chunk = chunks.get(getChunkKey(toChunkCoordinate(x), toChunkCoordinate(y), worldPoint.getPlane()));
+
+		return chunk != null && chunk.tiles[getTileIndex(x, y)] != null;
+	}
+
+	/**
+	 * Count the spawned objects of a product within the radius of the center, where the radius
+	 * is the maximum of the horizontal and vertical distance just like the world point distance.
+	 * When no product is passed the spawned objects of all products are counted.
+	 */
+	public synchronized int countInRadius(WorldPoint center, int radius, MarketplaceProduct product)
+	{
+		final int centerX = center.getX();
+		final int centerY = center.getY();
+		final int plane = center.getPlane();
+		final int minChunkX = toChunkCoordinate(centerX - radius);
+		final int maxChunkX = toChunkCoordinate(centerX + radius);
+		final int minChunkY = toChunkCoordinate(centerY - radius);
+		final int maxChunkY = toChunkCoordinate(centerY + radius);
+		final long chunkAmountInRadius = (long) (maxChunkX - minChunkX + 1) * (maxChunkY - minChunkY + 1);
+		int amount = 0;
+
+		// guard: skip when nothing is spawned or the radius is invalid
+		if (objectAmount <= 0 || radius < 0)
+		{
+			return 0;
+		}
+
+		// look up the chunks in the radius or check all chunks, whichever is less work
+		if (chunkAmountInRadius <= chunks.size())
+		{
+			for (int chunkX = minChunkX; chunkX <= maxChunkX; chunkX++)
+			{
+				for (int chunkY = minChunkY; chunkY <= maxChunkY; chunkY++)
+				{
+					Chunk chunk = chunks.get(getChunkKey(chunkX, chunkY, plane));
+
+					if (chunk != null)
+					{
+						amount += countInChunk(chunk, centerX, centerY, radius, product);
+					}
+				}
+			}
+		}
+		else
+		{
+			for (Chunk chunk : chunks.values())
+			{
+				if (chunk.plane == plane && chunk.chunkX >= minChunkX && chunk.chunkX <= maxChunkX && chunk.chunkY >= minChunkY && chunk.chunkY <= maxChunkY)
+				{
+					amount += countInChunk(chunk, centerX, centerY, radius, product);
+				}
+			}
+		}
+
+		return amount;
+	}
+
+	public void handleAll(MarketplaceManager.SpawnedObjectHandler handler)
+	{
+		final ArrayList<SpawnedObject> spawnedObjects = new ArrayList<>();
+
+		synchronized (this)
+		{
+			spawnedObjects.ensureCapacity(objectAmount);
+
+			for (Chunk chunk : chunks.values())
+			{
+				for (ArrayList<SpawnedObject> tileObjects : chunk.tiles)
+				{
+					if (tileObjects != null)
+					{
+						spawnedObjects.addAll(tileObjects);
+					}
+				}
+			}
+		}
+
+		for (SpawnedObject spawnedObject : spawnedObjects)
+		{
+			handler.execute(spawnedObject);
+		}
+	}
+
+	private int countInChunk(Chunk chunk, int centerX, int centerY, int radius, MarketplaceProduct product)
+	{
+		final int chunkBaseX = chunk.chunkX * CHUNK_SIZE;
+		final int chunkBaseY = chunk.chunkY * CHUNK_SIZE;
+		int amount = 0;
+
+		for (int tileIndex = 0; tileIndex < CHUNK_TILE_AMOUNT; tileIndex++)
+		{
+			ArrayList<SpawnedObject> tileObjects = chunk.tiles[tileIndex];
+
+			if (tileObjects == null)
+			{
+				continue;
+			}
+
+			int tileX = chunkBaseX + tileIndex / CHUNK_SIZE;
+			int tileY = chunkBaseY + tileIndex % CHUNK_SIZE;
+
+			// guard: skip tiles outside of the radius
+			if (Math.max(Math.abs(tileX - centerX), Math.abs(tileY - centerY)) > radius)
+			{
+				continue;
+			}
+
+			for (SpawnedObject spawnedObject : tileObjects)
+			{
+				if (product == null || spawnedObject.getProduct() == product)
+				{
+					amount += 1;
+				}
+			}
+		}
+
+		return amount;
+	}
+
+	private static int toChunkCoordinate(int coordinate)
+	{
+		return Math.floorDiv(coordinate, CHUNK_SIZE);
+	}
+
+	private static int getTileIndex(int x, int y)
+	{
+		return Math.floorMod(x, CHUNK_SIZE) * CHUNK_SIZE + Math.floorMod(y, CHUNK_SIZE);
+	}
+
+	private static long getChunkKey(int chunkX, int chunkY, int plane)
+	{
+		return ((long) plane << (CHUNK_COORDINATE_BITS * 2))
+			| ((long) (chunkX & CHUNK_COORDINATE_MASK) << CHUNK_COORDINATE_BITS)
+			| (chunkY & CHUNK_COORDINATE_MASK);
+	}
+}
@@ -0,0 +1,316 @@
+package com.twitchliveloadout.marketplace.spawns;
+
+import lombok.extern.slf4j.Slf4j;
+import net.runelite.api.*;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Random;
+
+/**
+ * Index of the tiles in the current scene objects can be spawned on. The index is built once per scene
+ * and plane, so the spawn point search can enumerate the candidate tiles around a reference tile
+ * without reading the collision flags or allocating points for every tile in the radius.
+ * NOTE: tiles are indexed by their scene coordinates and candidates are packed as (x << 16 | y).
+ */
+@Slf4j
+public class SpawnTileIndex
+{
+	private static final int UNDERLAY_OVERLAY_ID_OFFSET = (Constants.EXTENDED_SCENE_SIZE - Constants.SCENE_SIZE) / 2;
+	private static final int PACKED_COORDINATE_BITS = 16;
+	private static final int PACKED_COORDINATE_MASK = (1 << PACKED_COORDINATE_BITS) - 1;
+	private static final int MAX_SEARCH_RADIUS = Constants.EXTENDED_SCENE_SIZE;
+
+	/**
+	 * Walkable tiles of the plane of the world view and the tiles that are visible on the minimap per plane
+	 */
+	private final BitSet walkableTiles = new BitSet();
+	private final BitSet[] minimapTiles = new BitSet[Constants.MAX_Z];
+	private boolean isBuilt = false;
+	private Scene builtScene = null;
+	private int builtPlane = -1;
+	private int builtBaseX = -1;
+	private int builtBaseY = -1;
+	private int sizeX = 0;
+	private int sizeY = 0;
+
+	/**
+	 * Offsets of all tiles grouped per ring around the center, where a ring is the maximum of the
+	 * horizontal and vertical distance. Within a ring the offsets are sorted by their squared distance.
+	 */
+	private int[] ringOffsetsX = new int[0];
+	private int[] ringOffsetsY = new int[0];
+	private int[] ringOffsetDistancesSquared = new int[0];
+	private int[] ringStartIndexes = new int[] {0};
+	private int ringRadius = -1;
+
+	/**
+	 * Reused buffer of the candidate tiles of the last search
+	 */
+	private int[] candidateTiles = new int[0];
+	private int candidateAmount = 0;
+
+	/**
+	 * Mark the index to be rebuilt, for example when a new scene is loading.
+	 */
+	public synchronized void invalidate()
+	{
+		isBuilt = false;
+		builtScene = null;
+	}
+
+	/**
+	 * Find distinct random tiles around the scene tile that are walkable and allowed by the filter.
+	 * The candidates are collected once and drawn without replacement with a partial Fisher-Yates shuffle,
+	 * which means the filter is only checked for the drawn tiles and not for all candidates.
+	 * Returns the amount of packed scene tiles that are put in the spawn tiles.
+	 */
+	public synchronized int findSpawnTiles(WorldView worldView, int sceneX, int sceneY, int plane, int minRadius, int maxRadius, boolean avoidInvalidOverlay, Random random, TileFilter filter, int[] spawnTiles)
+	{
+		int foundAmount = 0;
+
+		collectCandidateTiles(worldView, sceneX, sceneY, plane, minRadius, maxRadius, avoidInvalidOverlay);
+
+		// draw candidates without replacement until enough are allowed
+		while (candidateAmount > 0 && foundAmount < spawnTiles.length)
+		{
+			int candidateIndex = random.nextInt(candidateAmount);
+			int candidateTile = candidateTiles[candidateIndex];
+
+			candidateAmount -= 1;
+			candidateTiles[candidateIndex] = candidateTiles[candidateAmount];
+
+			if (filter.isAllowed(getSceneX(candidateTile), getSceneY(candidateTile)))
+			{
+				spawnTiles[foundAmount++] = candidateTile;
+			}
+		}
+
+		return foundAmount;
+	}
+
+	public static int getSceneX(int packedTile)
+	{
+		return packedTile >>> PACKED_COORDINATE_BITS;
+	}
+
+	public static int getSceneY(int packedTile)
+	{
+		return packedTile & PACKED_COORDINATE_MASK;
+	}
+
+	/**
+	 * Fill the candidate buffer with all walkable tiles within the radius range around the scene tile.
+	 * A tile is in range when it is within the max radius horizontally and vertically and the distance
+	 * to the center is at least the min radius.
+	 */
+	private void collectCandidateTiles(WorldView worldView, int sceneX, int sceneY, int plane, int minRadius, int maxRadius, boolean avoidInvalidOverlay)
+	{
+		candidateAmount = 0;
+
+		// guard: skip when there is nothing to search
+		if (maxRadius < 0)
+		{
+			return;
+		}
+
+		// tiles further away than this are never in the scene
+		maxRadius = Math.min(maxRadius, MAX_SEARCH_RADIUS);
+
+		prepareScene(worldView);
+		prepareRings(maxRadius);
+
+		int minDistanceSquared = minRadius * minRadius;
+		int ringEndIndex = ringStartIndexes[maxRadius + 1];
+		BitSet planeMinimapTiles = (plane >= 0 && plane < minimapTiles.length ? minimapTiles[plane] : null);
+
+		if (candidateTiles.length < ringEndIndex)
+		{
+			candidateTiles = new int[ringEndIndex];
+		}
+
+		for (int ring = 0; ring <= maxRadius; ring++)
+		{
+			int offsetIndex = ringStartIndexes[ring];
+			int offsetEndIndex = ringStartIndexes[ring + 1];
+
+			// skip the offsets in the inner rings that are too close to the center
+			if (ring < minRadius)
+			{
+				while (offsetIndex < offsetEndIndex && ringOffsetDistancesSquared[offsetIndex] < minDistanceSquared)
+				{
+					offsetIndex++;
+				}
+			}
+
+			for (; offsetIndex < offsetEndIndex; offsetIndex++)
+			{
+				int candidateX = sceneX + ringOffsetsX[offsetIndex];
+				int candidateY = sceneY + ringOffsetsY[offsetIndex];
+
+				// guard: make sure the tile is in the scene
+				if (candidateX < 0 || candidateX >= sizeX || candidateY < 0 || candidateY >= sizeY)
+				{
+					continue;
+				}
+
+				int tileIndex = getTileIndex(candidateX, candidateY);
+
+				// guard: make sure the tile is walkable
+				if (!walkableTiles.get(tileIndex))
+				{
+					continue;
+				}
+
+				// guard: skip tiles that are black on the minimap when requested
+				if (avoidInvalidOverlay && (planeMinimapTiles == null || !planeMinimapTiles.get(tileIndex)))
+				{
+					continue;
+				}
+
+				candidateTiles[candidateAmount++] = (candidateX << PACKED_COORDINATE_BITS) | candidateY;
+			}
+		}
+	}
+
+	/**
+	 * Build the index when the scene or the plane has changed since it was last built.
+	 */
+	private void prepareScene(WorldView worldView)
+	{
+		Scene scene = worldView.getScene();
+		int plane = worldView.getPlane();
+		int baseX = worldView.getBaseX();
+		int baseY = worldView.getBaseY();
+
+		// guard: skip when the index is still valid
+		if (isBuilt && scene == builtScene && plane == builtPlane && baseX == builtBaseX && baseY == builtBaseY)
+		{
+			return;
+		}
+
+		buildIndex(worldView, scene, plane);
+
+		isBuilt = true;
+		builtScene = scene;
+		builtPlane = plane;
+		builtBaseX = baseX;
+		builtBaseY = baseY;
+	}
+
+	private void buildIndex(WorldView worldView, Scene scene, int plane)
+	{
+		final CollisionData[] collisionMaps = worldView.getCollisionMaps();
+		final int[][] collisionFlags = (collisionMaps == null ? null : collisionMaps[plane].getFlags());
+		final short[][][] overlayIds = scene.getOverlayIds();
+		final short[][][] underlayIds = scene.getUnderlayIds();
+		final int blockedFlags = CollisionDataFlag.BLOCK_MOVEMENT_FULL;
+
+		sizeX = (collisionFlags == null ? Constants.SCENE_SIZE : collisionFlags.length);
+		sizeY = (collisionFlags == null || sizeX <= 0 ? Constants.SCENE_SIZE : collisionFlags[0].length);
+		walkableTiles.clear();
+
+		for (int tileX = 0; tileX < sizeX; tileX++)
+		{
+			for (int tileY = 0; tileY < sizeY; tileY++)
+			{
+
+				// without collision maps all tiles are walkable, which is the same as having empty flags
+				if (collisionFlags == null || (collisionFlags[tileX][tileY] & blockedFlags) == 0)
+				{
+					walkableTiles.set(getTileIndex(tileX, tileY));
+				}
+			}
+		}
+
+		for (int minimapPlane = 0; minimapPlane < minimapTiles.length; minimapPlane++)
+		{
+			BitSet planeMinimapTiles = minimapTiles[minimapPlane];
+
+			if (planeMinimapTiles == null)
+			{
+				planeMinimapTiles = new BitSet();
+				minimapTiles[minimapPlane] = planeMinimapTiles;
+			}
+
+			planeMinimapTiles.clear();
+
+			for (int tileX = 0; tileX < sizeX; tileX++)
+			{
+				for (int tileY = 0; tileY < sizeY; tileY++)
+				{
+					int underlayOverlayX = tileX + UNDERLAY_OVERLAY_ID_OFFSET;
+					int underlayOverlayY = tileY + UNDERLAY_OVERLAY_ID_OFFSET;
+					short underlayId = underlayIds[minimapPlane][underlayOverlayX][underlayOverlayY];
+					short overlayId = overlayIds[minimapPlane][underlayOverlayX][underlayOverlayY];
+
+					if (underlayId != 0 || overlayId != 0)
+					{
+						planeMinimapTiles.set(getTileIndex(tileX, tileY));
+					}
+				}
+			}
+		}
+
+		log.debug("Rebuilt the spawn tile index for plane "+ plane +" with "+ walkableTiles.cardinality() +" walkable tiles.");
+	}
+
+	/**
+	 * Compute the ring offsets up until the requested radius when they are not available yet.
+	 */
+	private void prepareRings(int radius)
+	{
+
+		// guard: skip when the rings are already available
+		if (radius <= ringRadius)
+		{
+			return;
+		}
+
+		int diameter = radius * 2 + 1;
+		int offsetAmount = diameter * diameter;
+		long[] sortableOffsets = new long[offsetAmount];
+		int offsetIndex = 0;
+
+		for (int deltaX = -radius; deltaX <= radius; deltaX++)
+		{
+			for (int deltaY = -radius; deltaY <= radius; deltaY++)
+			{
+				long ring = Math.max(Math.abs(deltaX), Math.abs(deltaY));
+				long distanceSquared = deltaX * deltaX + deltaY * deltaY;
+
+				// sort by ring first and distance second while keeping the deltas in the lower bits
+				sortableOffsets[offsetIndex++] = (ring << 48) | (distanceSquared << 24) | ((deltaX + radius) << 12) | (deltaY + radius);
+			}
+		}
+
+		Arrays.sort(sortableOffsets);
+
+		ringOffsetsX = new int[offsetAmount];
+		ringOffsetsY = new int[offsetAmount];
+		ringOffsetDistancesSquared = new int[offsetAmount];
+		ringStartIndexes = new int[radius + 2];
+
+		for (int sortedIndex = 0; sortedIndex < offsetAmount; sortedIndex++)
+		{
+			long sortableOffset = sortableOffsets[sortedIndex];
+			int ring = (int) (sortableOffset >>> 48);
+
+			ringOffsetsX[sortedIndex] = (int) ((sortableOffset >>> 12) & 0xFFF) - radius;
+			ringOffsetsY[sortedIndex] = (int) (sortableOffset & 0xFFF) - radius;
+			ringOffsetDistancesSquared[sortedIndex] = (int) ((sortableOffset >>> 24) & 0xFFFFFF);
+			ringStartIndexes[ring + 1] = sortedIndex + 1;
+		}
+
+		ringRadius = radius;
+	}
+
+	private int getTileIndex(int tileX, int tileY)
+	{
+		return tileX * sizeY + tileY;
+	}
+
+	public interface TileFilter {
+		boolean isAllowed(int sceneX, int sceneY);
+	}
+}
@@ -22,6 +22,7 @@ import static net.runelite.api.Perspective.SINE;
 
 @Slf4j
 public class SpawnedObject {
+	private static final int CORNER_AMOUNT = 8;
 
 	@Getter
 	private final Instant spawnedAt;
@@ -29,8 +30,13 @@ public class SpawnedObject {
 	@Getter
 	private final Client client;
 
+	/**
+	 * The rendered object, which is handed back to the pool when this spawned object is released
+	 */
 	@Getter
-	private final RuneLiteObject object;
+	private RuneLiteObject object;
+
+	private final ModelDataCache modelDataCache;
 
 	@Getter
 	private final EbsSpawn spawn;
@@ -71,12 +77,30 @@ public class SpawnedObject {
 
 	private final ConcurrentHashMap<String, String> stateFrameValues = new ConcurrentHashMap<>();
 
-	public SpawnedObject(MarketplaceProduct product, Client client, SpawnPoint spawnPoint, EbsSpawn spawn, EbsModelSet modelSet, Instant expiredAt)
+	/**
+	 * Projection of the object on the canvas for the camera and placement it was calculated for
+	 */
+	private CanvasCamera canvasCamera = null;
+	private Model canvasModel = null;
+	private int canvasOrientation = -1;
+	private int canvasPlane = -1;
+	private int canvasLocalX = -1;
+	private int canvasLocalY = -1;
+	private final int[] canvasCornersX = new int[CORNER_AMOUNT];
+	private final int[] canvasCornersY = new int[CORNER_AMOUNT];
+	private int canvasMinX = 0;
+	private int canvasMinY = 0;
+	private int canvasMaxX = -1;
+	private int canvasMaxY = -1;
+	private SimplePolygon canvasPolygon = null;
+
+	public SpawnedObject(MarketplaceProduct product, Client client, ModelDataCache modelDataCache, RuneLiteObjectPool objectPool, SpawnPoint spawnPoint, EbsSpawn spawn, EbsModelSet modelSet, Instant expiredAt)
 	{
 		this.spawnedAt = Instant.now();
 		this.product = product;
 		this.client = client;
-		this.object = client.createRuneLiteObject();
+		this.modelDataCache = modelDataCache;
+		this.object = objectPool.acquire();
 		this.spawnPoint = spawnPoint;
 		this.spawn = spawn;
 		this.modelSet = modelSet;
@@ -134,20 +158,28 @@ public class SpawnedObject {
 		double modelScale = MarketplaceRandomizers.getValidRandomNumberByRange(modelSet.scale, 1, 1, 0, MAX_MODEL_SCALE);
 		double modelRotationDegrees = MarketplaceRandomizers.getValidRandomNumberByRange(modelPlacement.rotation, 0, 360, 0, 360);
 		ArrayList<EbsRecolor> recolors = modelSet.recolors;
-		ArrayList<ModelData> modelDataChunks = new ArrayList<>();
 		boolean shouldScaleModel = (modelSet.scale != null);
 		boolean shouldRotateModel = !NO_ROTATION_TYPE.equals(modelPlacement.rotationType);
 		boolean shouldTranslateModel = (translateX != 0 || translateY != 0 || translateZ != 0);
 
-		// load all the models if set
+		// determine which transforms change the vertices in the same way scaling and translating themselves do
+		// NOTE: don't include with preserve transform, because different model IDs might require a different scale
+		boolean isScaleApplied = (shouldScaleModel && (int) modelScale >= 0 && modelScale != currentScale);
+		boolean isTranslateApplied = (shouldTranslateModel && (translateX != currentTranslateX || translateY != currentTranslateY || translateZ != currentTranslateZ));
+		int appliedScale = (isScaleApplied ? (int) modelScale : -1);
+		int appliedTranslateX = (isTranslateApplied ? translateX : 0);
+		int appliedTranslateY = (isTranslateApplied ? translateY : 0);
+		int appliedTranslateZ = (isTranslateApplied ? translateZ : 0);
+
+		// load all the models if set, the prepared model data is shared between all spawned objects with the same models
+		// which means that only the lighting needs to be done for each spawned object
 		if (modelIds != null)
 		{
-			modelIds.forEach((modelId) -> {
-				modelDataChunks.add(client.loadModelData(modelId));
-			});
+			ModelDataCache.Key modelDataKey = new ModelDataCache.Key(modelIds, recolors, appliedScale, appliedTranslateX, appliedTranslateY, appliedTranslateZ);
 
-			// merge all models into one
-			modelData = client.mergeModels(modelDataChunks.toArray(new ModelData[modelDataChunks.size()]), modelDataChunks.size());
+			modelData = modelDataCache.get(modelDataKey, () -> {
+				return prepareModelData(modelIds, recolors, appliedScale, appliedTranslateX, appliedTranslateY, appliedTranslateZ);
+			});
 		}
 
 		// guard: make sure the model data is valid before doing anything else
@@ -156,21 +188,16 @@ public class SpawnedObject {
 			return;
 		}
 
-		// check for valid recolors
-		if (recolors != null)
-		{
-			modelData.cloneColors();
-
-			// apply recolors
-			LambdaIterator.handleAll(recolors, (recolor) -> {
-				recolor(recolor);
-			});
+		// update the scale and translation that are applied to the prepared model data
+		if (isScaleApplied) {
+			currentScale = modelScale;
+			updateRadius(modelScale);
 		}
 
-		// scale model
-		// NOTE: don't include with preserve transform, because different model IDs might require a different scale
-		if (shouldScaleModel) {
-			scale(modelScale, false);
+		if (isTranslateApplied) {
+			currentTranslateX = translateX;
+			currentTranslateY = translateY;
+			currentTranslateZ = translateZ;
 		}
 
 		// rotate model
@@ -180,16 +207,56 @@ public class SpawnedObject {
 			rotate(modelRotationDegrees, false);
 		}
 
-		// set the position
-		// NOTE: don't include with preserve transform, because different model IDs might require a different scale
-		if (shouldTranslateModel) {
-			translate(translateX, translateY, translateZ, false);
-		}
-
 		// re-render after changes
 		render();
 	}
 
+	/**
+	 * Load, merge and transform the models into new model data that can be shared.
+	 */
+	private ModelData prepareModelData(ArrayList<Integer> modelIds, ArrayList<EbsRecolor> recolors, int scale, int translateX, int translateY, int translateZ)
+	{
+		ArrayList<ModelData> modelDataChunks = new ArrayList<>();
+
+		modelIds.forEach((modelId) -> {
+			modelDataChunks.add(client.loadModelData(modelId));
+		});
+
+		// merge all models into one
+		ModelData preparedModelData = client.mergeModels(modelDataChunks.toArray(new ModelData[modelDataChunks.size()]), modelDataChunks.size());
+
+		// guard: make sure the model data is valid before doing anything else
+		if (preparedModelData == null)
+		{
+			return null;
+		}
+
+		// check for valid recolors
+		if (recolors != null)
+		{
+			preparedModelData.cloneColors();
+
+			// apply recolors
+			LambdaIterator.handleAll(recolors, (recolor) -> {
+				recolor(preparedModelData, recolor);
+			});
+		}
+
+		if (scale >= 0)
+		{
+			preparedModelData.cloneVertices();
+			preparedModelData.scale(scale, scale, scale);
+		}
+
+		if (translateX != 0 || translateY != 0 || translateZ != 0)
+		{
+			preparedModelData.cloneVertices();
+			preparedModelData.translate(translateX, translateY, translateZ);
+		}
+
+		return preparedModelData;
+	}
+
 	private int mergeTranslations(String translateAxis, EbsTranslation translationOne, EbsTranslation translationTwo)
 	{
 		EbsRandomRange rangeOne = getTranslationRandomRange(translateAxis, translationOne);
@@ -290,6 +357,13 @@ public class SpawnedObject {
 
 	public void setOrientation(int orientation)
 	{
+
+		// guard: skip when the object is released
+		if (object == null)
+		{
+			return;
+		}
+
 		object.setOrientation(orientation);
 	}
 
@@ -306,11 +380,16 @@ public class SpawnedObject {
 		currentScale = scale;
 		modelData.cloneVertices();
 		modelData.scale(roundedScale, roundedScale, roundedScale);
+		updateRadius(scale);
+	}
+
+	private void updateRadius(double scale)
+	{
 
 		// only set the radius when it is set, because some radius values
 		// can cause major frame drops, for this reason it needs to be tested
 		// and hard-coded in the config and never automatically set!
-		if (modelSet.scalePerOneTile != null)
+		if (modelSet.scalePerOneTile != null && object != null)
 		{
 			double scalePerOneTile = modelSet.scalePerOneTile;
 			double tileRadius = scale / scalePerOneTile;
@@ -324,7 +403,7 @@ public class SpawnedObject {
 	 * Recolor the model data through an EBS configured recolor.
 	 * Note that cloning the colors and re-rendering the object is needed manually outside of this method!
 	 */
-	private void recolor(EbsRecolor recolor)
+	private void recolor(ModelData modelData, EbsRecolor recolor)
 	{
 
 		// guard: make sure the model and recolor is valid
@@ -335,15 +414,7 @@ public class SpawnedObject {
 
 		Integer sourceColorIndex = recolor.sourceColorIndex;
 		Integer sourceColorHsl = recolor.sourceColorHsl;
-		Integer targetColorHsl = recolor.targetColorHsl;
-		Integer targetColorHex = recolor.targetColorHex;
-
-		// check if a hex target color is passed which needs to be converted
-		// NOTE: when also a HSL is padded the HSL takes priority
-		if (targetColorHsl == null && targetColorHex != null)
-		{
-			targetColorHsl = MarketplaceColors.getColorHsl(targetColorHex);
-		}
+		Integer targetColorHsl = product.getEbsProductPlan().getTargetColorHsl(recolor);
 
 		// guard: skip when target is not valid
 		if (targetColorHsl == null)
@@ -353,20 +424,20 @@ public class SpawnedObject {
 
 		// determine whether an index, specific color or everything is requested to be changed
 		if (sourceColorHsl != null) {
-			recolorByColor(sourceColorHsl, targetColorHsl);
-		} else if (isValidColorIndex(sourceColorIndex)) {
-			recolorByIndex(sourceColorIndex, targetColorHsl);
+			recolorByColor(modelData, sourceColorHsl, targetColorHsl);
+		} else if (isValidColorIndex(modelData, sourceColorIndex)) {
+			recolorByIndex(modelData, sourceColorIndex, targetColorHsl);
 		} else {
 
 			// recolor the whole model
 			for (short color : modelData.getFaceColors())
 			{
-				recolorByColor(color, targetColorHsl);
+				recolorByColor(modelData, color, targetColorHsl);
 			}
 		}
 	}
 
-	private void recolorByColor(int sourceColorHsl, int targetColorHsl)
+	private void recolorByColor(ModelData modelData, int sourceColorHsl, int targetColorHsl)
 	{
 
 		// guard: make sure the model is valid
@@ -378,11 +449,11 @@ public class SpawnedObject {
 		modelData.recolor((short) sourceColorHsl, (short) targetColorHsl);
 	}
 
-	private void recolorByIndex(int sourceColorIndex, int targetColorHsl)
+	private void recolorByIndex(ModelData modelData, int sourceColorIndex, int targetColorHsl)
 	{
 
 		// guard: make sure the index and color are valid
-		if (!isValidColorIndex(sourceColorIndex))
+		if (!isValidColorIndex(modelData, sourceColorIndex))
 		{
 			return;
 		}
@@ -393,7 +464,7 @@ public class SpawnedObject {
 		modelData.recolor(sourceColorHsl, (short) targetColorHsl);
 	}
 
-	private boolean isValidColorIndex(int colorIndex)
+	private boolean isValidColorIndex(ModelData modelData, int colorIndex)
 	{
 		// guard: make sure the model is valid
 		if (modelData == null)
@@ -408,8 +479,8 @@ public class SpawnedObject {
 	{
 		Animation animation = null;
 
-		// guard: skip when the current animation is the same
-		if  (animationId == currentAnimationId)
+		// guard: skip when the current animation is the same or the object is released
+		if  (animationId == currentAnimationId || object == null)
 		{
 			return;
 		}
@@ -484,16 +555,51 @@ public class SpawnedObject {
 
 	public void show()
 	{
+
+		// guard: skip when the object is released
+		if (object == null)
+		{
+			return;
+		}
+
 		object.setActive(true);
 		render();
 	}
 
 	public void hide()
 	{
+
+		// guard: skip when the object is released
+		if (object == null)
+		{
+			return;
+		}
+
 		object.setActive(false);
 		object.setModel(null);
 	}
 
+	/**
+	 * Hand the object back to the pool for future spawns. After this all changes to
+	 * the object are skipped, because it can already be in use by another spawned object.
+	 */
+	public void release(RuneLiteObjectPool objectPool)
+	{
+
+		// guard: skip when already released
+		if (object == null)
+		{
+			return;
+		}
+
+		RuneLiteObject releasedObject = object;
+		object = null;
+		canvasCamera = null;
+		canvasModel = null;
+		canvasPolygon = null;
+		objectPool.release(releasedObject);
+	}
+
 	public boolean isInRegion()
 	{
 		return isInView(REGION_SIZE);
@@ -517,8 +623,8 @@ public class SpawnedObject {
 	public void render()
 	{
 
-		// guard: make sure the model is valid
-		if (modelData == null)
+		// guard: make sure the model and object are valid
+		if (modelData == null || object == null)
 		{
 			return;
 		}
@@ -548,9 +654,9 @@ public class SpawnedObject {
 		final LocalPoint localPoint = spawnPoint.getLocalPoint(client);
 		final int plane = spawnPoint.getPlane();
 
-		// guard: check if the point is valid
-		// if not that means it is not in the current scene
-		if (localPoint == null)
+		// guard: check if the point and object are valid
+		// if not that means it is not in the current scene or released
+		if (localPoint == null || object == null)
 		{
 			return;
 		}
@@ -589,15 +695,67 @@ public class SpawnedObject {
 		return expiredAt != null && Instant.now().isAfter(expiredAt);
 	}
 
-	public SimplePolygon calculatePolygon()
+	/**
+	 * Check whether a point on the canvas is on this object, for example to check whether the mouse hovers it.
+	 * The projected corners and polygon are cached until the camera or the placement of the object changes.
+	 * The convex hull is only calculated when the point is within the bounding box of the projected corners.
+	 */
+	public boolean isOnCanvasPoint(CanvasCamera camera, int canvasX, int canvasY)
 	{
+
+		// guard: make sure the object is still rendered
+		if (object == null || object.getModel() == null)
+		{
+			return false;
+		}
+
 		LocalPoint localPoint = spawnPoint.getLocalPoint(client);
-		WorldView worldView = client.getTopLevelWorldView();
+
+		// guard: make sure the object is in the scene
+		if (localPoint == null)
+		{
+			return false;
+		}
+
 		Model model = object.getModel();
-		int jauOrient = object.getOrientation();
+		int orientation = object.getOrientation();
+		int plane = client.getTopLevelWorldView().getPlane();
+
+		if (camera != canvasCamera || model != canvasModel || orientation != canvasOrientation || plane != canvasPlane || localPoint.getX() != canvasLocalX || localPoint.getY() != canvasLocalY)
+		{
+			canvasCamera = camera;
+			canvasModel = model;
+			canvasOrientation = orientation;
+			canvasPlane = plane;
+			canvasLocalX = localPoint.getX();
+			canvasLocalY = localPoint.getY();
+			canvasPolygon = null;
+			projectCorners(localPoint, plane, model, orientation, canvasCornersX, canvasCornersY);
+			updateCanvasBounds();
+		}
+
+		// guard: skip the polygon when the point is outside of the bounding box
+		if (canvasX < canvasMinX || canvasX > canvasMaxX || canvasY < canvasMinY || canvasY > canvasMaxY)
+		{
+			return false;
+		}
+
+		if (canvasPolygon == null)
+		{
+			canvasPolygon = Jarvis.convexHull(canvasCornersX.clone(), canvasCornersY.clone());
+		}
+
+		return canvasPolygon != null && canvasPolygon.contains(canvasX, canvasY);
+	}
+
+	/**
+	 * Project the corners of the bounding box of the model to the canvas.
+	 */
+	private void projectCorners(LocalPoint localPoint, int plane, Model model, int jauOrient, int[] x2d, int[] y2d)
+	{
 		int x = localPoint.getX();
 		int y = localPoint.getY();
-		int z = worldView.getPlane();
+		int z = plane;
 		int zOff = Perspective.getTileHeight(client, localPoint, z);
 		AABB aabb = model.getAABB(jauOrient);
 
@@ -630,11 +788,39 @@ public class SpawnedObject {
 				z2, z2, z2, z2
 		};
 
-		int[] x2d = new int[8];
-		int[] y2d = new int[8];
+		modelToCanvasCpu(client, CORNER_AMOUNT, x, y, z, 0, xa, ya, za, x2d, y2d);
+	}
 
-		modelToCanvasCpu(client, 8, x, y, z, 0, xa, ya, za, x2d, y2d);
-		return Jarvis.convexHull(x2d, y2d);
+	/**
+	 * Update the bounding box of the projected corners. Corners behind the camera cannot be projected,
+	 * in which case the bounding box covers the whole canvas to leave the check to the polygon.
+	 */
+	private void updateCanvasBounds()
+	{
+		canvasMinX = Integer.MAX_VALUE;
+		canvasMinY = Integer.MAX_VALUE;
+		canvasMaxX = Integer.MIN_VALUE;
+		canvasMaxY = Integer.MIN_VALUE;
+
+		for (int cornerIndex = 0; cornerIndex < CORNER_AMOUNT; cornerIndex++)
+		{
+			int cornerX = canvasCornersX[cornerIndex];
+			int cornerY = canvasCornersY[cornerIndex];
+
+			if (cornerX == Integer.MIN_VALUE || cornerY == Integer.MIN_VALUE)
+			{
+				canvasMinX = Integer.MIN_VALUE;
+				canvasMinY = Integer.MIN_VALUE;
+				canvasMaxX = Integer.MAX_VALUE;
+				canvasMaxY = Integer.MAX_VALUE;
+				return;
+			}
+
+			canvasMinX = Math.min(canvasMinX, cornerX);
+			canvasMinY = Math.min(canvasMinY, cornerY);
+			canvasMaxX = Math.max(canvasMaxX, cornerX);
+			canvasMaxY = Math.max(canvasMaxY, cornerY);
+		}
 	}
 
 	private static void modelToCanvasCpu(Client client, int end, int x3dCenter, int y3dCenter, int z3dCenter, int rotate, float[] x3d, float[] y3d, float[] z3d, int[] x2d, int[] y2d) {
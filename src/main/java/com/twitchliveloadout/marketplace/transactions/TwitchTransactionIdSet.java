@@ -0,0 +1,124 @@
+package com.twitchliveloadout.marketplace.transactions;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParser;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Bounded set of transaction IDs that are already handled. The oldest IDs are evicted
+ * first when the maximum amount is exceeded, which keeps lookups constant time and the
+ * memory usage flat no matter how long the stream is running.
+ */
+public class TwitchTransactionIdSet
+{
+	private final int maxAmount;
+	private final LinkedHashMap<String, Boolean> transactionIds;
+
+	/**
+	 * Flag whether the set changed since it was last serialized
+	 */
+	private boolean isModified = false;
+
+	public TwitchTransactionIdSet(int maxAmount)
+	{
+		this.maxAmount = maxAmount;
+		this.transactionIds = new LinkedHashMap<String, Boolean>(maxAmount * 4 / 3 + 1) {
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest)
+			{
+				return size() > TwitchTransactionIdSet.this.maxAmount;
+			}
+		};
+	}
+
+	public synchronized boolean contains(String transactionId)
+	{
+		return transactionId != null && transactionIds.containsKey(transactionId);
+	}
+
+	/**
+	 * Add the ID and return whether it was not known yet.
+	 */
+	public synchronized boolean add(String transactionId)
+	{
+
+		// guard: skip invalid or already known IDs
+		if (transactionId == null || transactionIds.containsKey(transactionId))
+		{
+			return false;
+		}
+
+		transactionIds.put(transactionId, Boolean.TRUE);
+		isModified = true;
+		return true;
+	}
+
+	public synchronized boolean remove(String transactionId)
+	{
+		boolean isRemoved = transactionId != null && transactionIds.remove(transactionId) != null;
+
+		if (isRemoved)
+		{
+			isModified = true;
+		}
+
+		return isRemoved;
+	}
+
+	public synchronized void clear()
+	{
+		transactionIds.clear();
+		isModified = false;
+	}
+
+	public synchronized int size()
+	{
+		return transactionIds.size();
+	}
+
+	public synchronized boolean isModified()
+	{
+		return isModified;
+	}
+
+	/**
+	 * Serialize the IDs from old to new to a JSON array and mark the set as persisted.
+	 */
+	public synchronized String serialize()
+	{
+		JsonArray serializedTransactionIds = new JsonArray();
+
+		for (String transactionId : transactionIds.keySet())
+		{
+			serializedTransactionIds.add(transactionId);
+		}
+
+		isModified = false;
+		return serializedTransactionIds.toString();
+	}
+
+	/**
+	 * Replace all IDs with the ones from a serialized JSON array while keeping their order.
+	 */
+	public synchronized void deserialize(String rawTransactionIds)
+	{
+		transactionIds.clear();
+		isModified = false;
+
+		// guard: check if any data was found
+		if (rawTransactionIds == null || rawTransactionIds.trim().isEmpty())
+		{
+			return;
+		}
+
+		JsonArray parsedTransactionIds = new JsonParser().parse(rawTransactionIds).getAsJsonArray();
+
+		for (JsonElement transactionId : parsedTransactionIds)
+		{
+			transactionIds.put(transactionId.getAsString(), Boolean.TRUE);
+		}
+	}
+}
@@ -0,0 +1,131 @@
+package com.twitchliveloadout.marketplace.transactions;
+
+/**
+ * Handled transaction IDs of the current channel that are persisted per channel. Persisting is debounced,
+ * because every write goes through the config which is expensive when many transactions come in at once.
+ * The IDs are persisted when they have been modified for a while, when switching channels and on shutdown.
+ */
+public class TwitchTransactionIdStore
+{
+	public interface Storage
+	{
+		String load(String channelId);
+		void save(String channelId, String serializedTransactionIds);
+	}
+
+	private final TwitchTransactionIdSet transactionIds;
+	private final Storage storage;
+	private final long persistDelayMs;
+	private String channelId = null;
+
+	/**
+	 * Time the modifications since the last persist were first noticed, -1 when not noticed yet
+	 */
+	private long modifiedAtMs = -1;
+
+	public TwitchTransactionIdStore(int maxAmount, long persistDelayMs, Storage storage)
+	{
+		this.transactionIds = new TwitchTransactionIdSet(maxAmount);
+		this.persistDelayMs = persistDelayMs;
+		this.storage = storage;
+	}
+
+	/**
+	 * Persist the IDs of the previous channel and load the ones of the given channel when it changed.
+	 * Returns whether the channel changed. When loading fails the IDs are cleared and the error is thrown.
+	 */
+	public synchronized boolean switchChannel(String newChannelId)
+	{
+
+		// guard: skip when there is no channel or it is already loaded
+		if (newChannelId == null || newChannelId.equals(channelId))
+		{
+			return false;
+		}
+
+		persist();
+		channelId = newChannelId;
+
+		try {
+			transactionIds.deserialize(storage.load(newChannelId));
+		} catch (RuntimeException exception) {
+			transactionIds.clear();
+			throw exception;
+		}
+
+		return true;
+	}
+
+	public synchronized String getChannelId()
+	{
+		return channelId;
+	}
+
+	public boolean contains(String transactionId)
+	{
+		return transactionIds.contains(transactionId);
+	}
+
+	/**
+	 * Add the ID and return whether it was not known yet.
+	 */
+	public boolean add(String transactionId)
+	{
+		return transactionIds.add(transactionId);
+	}
+
+	public boolean remove(String transactionId)
+	{
+		return transactionIds.remove(transactionId);
+	}
+
+	public int size()
+	{
+		return transactionIds.size();
+	}
+
+	/**
+	 * Persist the IDs when they have been modified for longer than the persist delay.
+	 */
+	public synchronized void persistWhenDue(long nowMs)
+	{
+
+		// guard: skip when nothing changed
+		if (!transactionIds.isModified())
+		{
+			modifiedAtMs = -1;
+			return;
+		}
+
+		// NOTE: the modifications are timed from when they are first noticed
+		// to not have to look up the time for every added transaction
+		if (modifiedAtMs < 0)
+		{
+			modifiedAtMs = nowMs;
+		}
+
+		// guard: wait for more modifications
+		if (nowMs - modifiedAtMs < persistDelayMs)
+		{
+			return;
+		}
+
+		persist();
+	}
+
+	/**
+	 * Persist the IDs for the current channel when they changed.
+	 */
+	public synchronized void persist()
+	{
+		modifiedAtMs = -1;
+
+		// guard: skip when no channel is loaded or nothing changed
+		if (channelId == null || !transactionIds.isModified())
+		{
+			return;
+		}
+
+		storage.save(channelId, transactionIds.serialize());
+	}
+}
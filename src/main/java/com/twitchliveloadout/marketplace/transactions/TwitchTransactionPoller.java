@@ -0,0 +1,106 @@
+package com.twitchliveloadout.marketplace.transactions;
+
+import java.util.function.LongSupplier;
+
+/**
+ * Adaptive interval for fetching new transactions. Right after new transactions are found
+ * polling happens often, because more are likely to follow. When nothing happens the interval
+ * backs off to save requests. Other signals of viewer activity can wake up the poller immediately.
+ * NOTE: the clock is injectable to allow a deterministic clock.
+ */
+public class TwitchTransactionPoller
+{
+	public static final long MIN_INTERVAL_MS = 1000;
+	public static final long DEFAULT_INTERVAL_MS = 3000;
+	public static final long MAX_INTERVAL_MS = 12000;
+	public static final long ERROR_INTERVAL_MS = 10000;
+	public static final long ACTIVE_PERIOD_MS = 30 * 1000;
+	public static final long MAX_FETCH_DURATION_MS = 15 * 1000;
+	public static final LongSupplier SYSTEM_CLOCK = System::currentTimeMillis;
+	private static final double BACKOFF_MULTIPLIER = 1.5d;
+
+	private final LongSupplier clock;
+	private long intervalMs = DEFAULT_INTERVAL_MS;
+	private long lastActivityAtMs = 0;
+	private long nextFetchAtMs = 0;
+	private long fetchingUntilMs = 0;
+
+	public TwitchTransactionPoller(LongSupplier clock)
+	{
+		this.clock = clock;
+	}
+
+	public TwitchTransactionPoller()
+	{
+		this(SYSTEM_CLOCK);
+	}
+
+	/**
+	 * Check whether a new fetch should be done at the given time. No new fetch is due
+	 * while another one is still running, unless it did not respond in time.
+	 */
+	public synchronized boolean isFetchDue()
+	{
+		long nowMs = clock.getAsLong();
+
+		return nowMs >= nextFetchAtMs && nowMs >= fetchingUntilMs;
+	}
+
+	public synchronized void registerFetchStart()
+	{
+		fetchingUntilMs = clock.getAsLong() + MAX_FETCH_DURATION_MS;
+	}
+
+	/**
+	 * Register a successful fetch and schedule the next one based on the recent activity.
+	 */
+	public synchronized void registerFetch(boolean hasNewTransactions)
+	{
+		long nowMs = clock.getAsLong();
+
+		if (hasNewTransactions)
+		{
+			lastActivityAtMs = nowMs;
+		}
+
+		// poll fast while there was recent activity, otherwise back off gradually
+		if (nowMs - lastActivityAtMs <= ACTIVE_PERIOD_MS)
+		{
+			intervalMs = MIN_INTERVAL_MS;
+		}
+		else
+		{
+			intervalMs = Math.min(MAX_INTERVAL_MS, Math.max(DEFAULT_INTERVAL_MS, (long) (intervalMs * BACKOFF_MULTIPLIER)));
+		}
+
+		nextFetchAtMs = nowMs + intervalMs;
+		fetchingUntilMs = 0;
+	}
+
+	/**
+	 * Register a failed fetch to not hammer an unavailable server.
+	 */
+	public synchronized void registerError()
+	{
+		intervalMs = Math.max(intervalMs, ERROR_INTERVAL_MS);
+		nextFetchAtMs = clock.getAsLong() + intervalMs;
+		fetchingUntilMs = 0;
+	}
+
+	/**
+	 * Fetch as soon as possible, for example when other events suggest there is a new transaction.
+	 */
+	public synchronized void wakeUp()
+	{
+		long nowMs = clock.getAsLong();
+
+		lastActivityAtMs = nowMs;
+		intervalMs = MIN_INTERVAL_MS;
+		nextFetchAtMs = nowMs;
+	}
+
+	public synchronized long getIntervalMs()
+	{
+		return intervalMs;
+	}
+}
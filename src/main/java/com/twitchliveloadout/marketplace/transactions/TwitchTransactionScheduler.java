@@ -0,0 +1,233 @@
+package com.twitchliveloadout.marketplace.transactions;
+
+import java.util.*;
+import java.util.function.Consumer;
+
+/**
+ * Queue of transactions that still need to be started. Transactions that can be tried are kept
+ * in a ready queue ordered by arrival, while blocked transactions are parked by the reason they are
+ * waiting for. Parked transactions are only tried again when they are woken up because the condition
+ * they wait for has changed or when their wake up time has passed.
+ */
+public class TwitchTransactionScheduler
+{
+	public enum ParkReason {
+		PRODUCT,
+		COOLDOWN,
+		SPAWN_POINT,
+	}
+
+	private static class Entry
+	{
+		private final TwitchTransaction transaction;
+		private final long sequence;
+		private ParkReason parkedReason = null;
+		private long parkCounter = 0;
+		private boolean isPolled = false;
+
+		private Entry(TwitchTransaction transaction, long sequence)
+		{
+			this.transaction = transaction;
+			this.sequence = sequence;
+		}
+	}
+
+	private static class TimedWake
+	{
+		private final Entry entry;
+		private final long wakeAtMs;
+		private final long parkCounter;
+
+		private TimedWake(Entry entry, long wakeAtMs)
+		{
+			this.entry = entry;
+			this.wakeAtMs = wakeAtMs;
+			this.parkCounter = entry.parkCounter;
+		}
+	}
+
+	/**
+	 * All transactions that are queued in order of arrival, including the parked ones
+	 */
+	private final LinkedHashMap<TwitchTransaction, Entry> entries = new LinkedHashMap<>();
+	private final PriorityQueue<Entry> readyEntries = new PriorityQueue<>(Comparator.comparingLong((Entry entry) -> entry.sequence));
+	private final PriorityQueue<TimedWake> timedWakes = new PriorityQueue<>(Comparator.comparingLong((TimedWake timedWake) -> timedWake.wakeAtMs));
+	private final EnumMap<ParkReason, LinkedHashSet<Entry>> parkedEntries = new EnumMap<>(ParkReason.class);
+	private long sequenceCounter = 0;
+
+	public TwitchTransactionScheduler()
+	{
+		for (ParkReason reason : ParkReason.values())
+		{
+			parkedEntries.put(reason, new LinkedHashSet<>());
+		}
+	}
+
+	/**
+	 * Add a transaction at the end of the queue and return whether it was not queued yet.
+	 */
+	public synchronized boolean add(TwitchTransaction transaction)
+	{
+
+		// guard: skip invalid or already queued transactions
+		if (transaction == null || entries.containsKey(transaction))
+		{
+			return false;
+		}
+
+		Entry entry = new Entry(transaction, sequenceCounter++);
+		entries.put(transaction, entry);
+		readyEntries.add(entry);
+		return true;
+	}
+
+	public synchronized void addAll(Collection<TwitchTransaction> transactions)
+	{
+		for (TwitchTransaction transaction : transactions)
+		{
+			add(transaction);
+		}
+	}
+
+	/**
+	 * Get the oldest transaction that is ready to be tried after waking up the parked ones
+	 * that are due. The transaction stays queued until it is either parked or finished.
+	 */
+	public synchronized TwitchTransaction poll(long nowMs)
+	{
+		wakeDue(nowMs);
+
+		Entry entry = readyEntries.poll();
+
+		if (entry == null)
+		{
+			return null;
+		}
+
+		entry.isPolled = true;
+		return entry.transaction;
+	}
+
+	/**
+	 * Park a polled transaction until the condition is changed. An optional wake up time
+	 * can be given to try the transaction again when no change is signalled in time.
+	 */
+	public synchronized void park(TwitchTransaction transaction, ParkReason reason, Long wakeAtMs)
+	{
+		Entry entry = entries.get(transaction);
+
+		// guard: only park transactions that are being tried
+		if (entry == null || !entry.isPolled)
+		{
+			return;
+		}
+
+		entry.isPolled = false;
+		entry.parkedReason = reason;
+		entry.parkCounter++;
+		parkedEntries.get(reason).add(entry);
+
+		if (wakeAtMs != null)
+		{
+			timedWakes.add(new TimedWake(entry, wakeAtMs));
+		}
+	}
+
+	/**
+	 * Move all transactions that are parked for the given reason back to the ready queue.
+	 */
+	public synchronized void wake(ParkReason reason)
+	{
+		LinkedHashSet<Entry> reasonEntries = parkedEntries.get(reason);
+
+		for (Entry entry : reasonEntries)
+		{
+			makeReady(entry);
+		}
+
+		reasonEntries.clear();
+	}
+
+	/**
+	 * Remove a transaction from the queue wherever it is and return whether it was queued.
+	 */
+	public synchronized boolean remove(TwitchTransaction transaction)
+	{
+		Entry entry = entries.remove(transaction);
+
+		if (entry == null)
+		{
+			return false;
+		}
+
+		if (entry.parkedReason != null)
+		{
+			parkedEntries.get(entry.parkedReason).remove(entry);
+			entry.parkedReason = null;
+		}
+		else if (!entry.isPolled)
+		{
+			readyEntries.remove(entry);
+		}
+
+		// invalidate any pending timed wakes
+		entry.parkCounter++;
+		return true;
+	}
+
+	public synchronized boolean contains(TwitchTransaction transaction)
+	{
+		return entries.containsKey(transaction);
+	}
+
+	public synchronized int size()
+	{
+		return entries.size();
+	}
+
+	public synchronized void clear()
+	{
+		entries.clear();
+		readyEntries.clear();
+		timedWakes.clear();
+		parkedEntries.values().forEach(LinkedHashSet::clear);
+	}
+
+	/**
+	 * Get a copy of all the queued transactions in order of arrival.
+	 */
+	public synchronized ArrayList<TwitchTransaction> getTransactions()
+	{
+		return new ArrayList<>(entries.keySet());
+	}
+
+	public synchronized void handleAll(Consumer<TwitchTransaction> handler)
+	{
+		entries.keySet().forEach(handler);
+	}
+
+	private void wakeDue(long nowMs)
+	{
+		while (!timedWakes.isEmpty() && timedWakes.peek().wakeAtMs <= nowMs)
+		{
+			TimedWake timedWake = timedWakes.poll();
+			Entry entry = timedWake.entry;
+
+			// guard: skip when the transaction was woken up or removed in the meantime
+			if (entry.parkedReason == null || entry.parkCounter != timedWake.parkCounter)
+			{
+				continue;
+			}
+
+			parkedEntries.get(entry.parkedReason).remove(entry);
+			makeReady(entry);
+		}
+	}
+
+	private void makeReady(Entry entry)
+	{
+		entry.parkedReason = null;
+		entry.parkCounter++;
+		readyEntries.add(entry);
+	}
+}
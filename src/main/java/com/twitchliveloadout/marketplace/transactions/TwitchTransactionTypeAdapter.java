@@ -0,0 +1,183 @@
+package com.twitchliveloadout.marketplace.transactions;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import com.twitchliveloadout.marketplace.products.TwitchProduct;
+import com.twitchliveloadout.marketplace.products.TwitchProductCost;
+import com.twitchliveloadout.twitch.eventsub.TwitchEventSubType;
+import com.twitchliveloadout.utilities.GameEventType;
+
+import java.io.IOException;
+
+import static com.twitchliveloadout.marketplace.MarketplaceJsonReader.*;
+
+/**
+ * Streaming adapter for the transactions that are polled from the EBS. This is on the hot path
+ * of the marketplace, which is why it is written by hand instead of relying on reflection.
+ * NOTE: the EventSub message is never part of the EBS transactions and is therefore not decoded.
+ */
+public class TwitchTransactionTypeAdapter extends TypeAdapter<TwitchTransaction>
+{
+	@Override
+	public TwitchTransaction read(JsonReader reader) throws IOException
+	{
+
+		// guard: skip anything that is not a transaction object
+		if (reader.peek() != JsonToken.BEGIN_OBJECT)
+		{
+			reader.skipValue();
+			return null;
+		}
+
+		TwitchTransaction transaction = new TwitchTransaction();
+		reader.beginObject();
+
+		while (reader.hasNext())
+		{
+			switch (reader.nextName())
+			{
+				case "id": transaction.id = nextString(reader); break;
+				case "timestamp": transaction.timestamp = nextString(reader); break;
+				case "broadcaster_id": transaction.broadcaster_id = nextString(reader); break;
+				case "broadcaster_login": transaction.broadcaster_login = nextString(reader); break;
+				case "broadcaster_name": transaction.broadcaster_name = nextString(reader); break;
+				case "user_id": transaction.user_id = nextString(reader); break;
+				case "user_login": transaction.user_login = nextString(reader); break;
+				case "user_name": transaction.user_name = nextString(reader); break;
+				case "product_type": transaction.product_type = nextString(reader); break;
+				case "product_data": transaction.product_data = readProduct(reader); break;
+				case "ebs_product_id": transaction.ebs_product_id = nextString(reader); break;
+				case "handled_at": transaction.handled_at = nextString(reader); break;
+				case "origin": transaction.origin = nextEnum(reader, TwitchTransactionOrigin.class, TwitchTransactionOrigin.EBS); break;
+				case "eventSubType": transaction.eventSubType = nextEnum(reader, TwitchEventSubType.class, null); break;
+				case "gameEventType": transaction.gameEventType = nextEnum(reader, GameEventType.class, null); break;
+				default: reader.skipValue();
+			}
+		}
+
+		reader.endObject();
+		return transaction;
+	}
+
+	private TwitchProduct readProduct(JsonReader reader) throws IOException
+	{
+
+		// guard: skip anything that is not a product object
+		if (reader.peek() != JsonToken.BEGIN_OBJECT)
+		{
+			reader.skipValue();
+			return null;
+		}
+
+		TwitchProduct product = new TwitchProduct();
+		reader.beginObject();
+
+		while (reader.hasNext())
+		{
+			switch (reader.nextName())
+			{
+				case "sku": product.sku = nextString(reader); break;
+				case "domain": product.domain = nextString(reader); break;
+				case "cost": product.cost = readProductCost(reader); break;
+				case "inDevelopment": product.inDevelopment = nextBooleanOrNull(reader); break;
+				case "displayName": product.displayName = nextString(reader); break;
+				case "expiration": product.expiration = nextString(reader); break;
+				case "broadcast": product.broadcast = nextBooleanOrNull(reader); break;
+				default: reader.skipValue();
+			}
+		}
+
+		reader.endObject();
+		return product;
+	}
+
+	private TwitchProductCost readProductCost(JsonReader reader) throws IOException
+	{
+
+		// guard: skip anything that is not a cost object
+		if (reader.peek() != JsonToken.BEGIN_OBJECT)
+		{
+			reader.skipValue();
+			return null;
+		}
+
+		TwitchProductCost cost = new TwitchProductCost();
+		reader.beginObject();
+
+		while (reader.hasNext())
+		{
+			switch (reader.nextName())
+			{
+				case "amount": cost.amount = nextDoubleOrNull(reader); break;
+				case "type": cost.type = nextString(reader); break;
+				default: reader.skipValue();
+			}
+		}
+
+		reader.endObject();
+		return cost;
+	}
+
+	@Override
+	public void write(JsonWriter writer, TwitchTransaction transaction) throws IOException
+	{
+		if (transaction == null)
+		{
+			writer.nullValue();
+			return;
+		}
+
+		writer.beginObject();
+		writer.name("id").value(transaction.id);
+		writer.name("timestamp").value(transaction.timestamp);
+		writer.name("broadcaster_id").value(transaction.broadcaster_id);
+		writer.name("broadcaster_login").value(transaction.broadcaster_login);
+		writer.name("broadcaster_name").value(transaction.broadcaster_name);
+		writer.name("user_id").value(transaction.user_id);
+		writer.name("user_login").value(transaction.user_login);
+		writer.name("user_name").value(transaction.user_name);
+		writer.name("product_type").value(transaction.product_type);
+		writeProduct(writer.name("product_data"), transaction.product_data);
+		writer.name("ebs_product_id").value(transaction.ebs_product_id);
+		writer.name("handled_at").value(transaction.handled_at);
+		writer.name("loaded_at").value(transaction.loaded_at);
+		writer.name("origin").value(transaction.origin == null ? null : transaction.origin.name());
+		writer.name("eventSubType").value(transaction.eventSubType == null ? null : transaction.eventSubType.name());
+		writer.name("gameEventType").value(transaction.gameEventType == null ? null : transaction.gameEventType.name());
+		writer.endObject();
+	}
+
+	private void writeProduct(JsonWriter writer, TwitchProduct product) throws IOException
+	{
+		if (product == null)
+		{
+			writer.nullValue();
+			return;
+		}
+
+		writer.beginObject();
+		writer.name("sku").value(product.sku);
+		writer.name("domain").value(product.domain);
+		writer.name("cost");
+
+		if (product.cost == null)
+		{
+			writer.nullValue();
+		}
+		else
+		{
+			writer.beginObject();
+			writer.name("amount").value(product.cost.amount);
+			writer.name("type").value(product.cost.type);
+			writer.endObject();
+		}
+
+		writer.name("inDevelopment").value(product.inDevelopment);
+		writer.name("displayName").value(product.displayName);
+		writer.name("expiration").value(product.expiration);
+		writer.name("broadcast").value(product.broadcast);
+		writer.endObject();
+	}
+}
@@ -672,6 +672,35 @@ public class TwitchApi
 		return null;
 	}
 
+	/**
+	 * Store configuration that belongs to a Twitch channel rather than an OSRS account.
+	 */
+	public void setChannelConfiguration(String channelId, String configKey, String payload)
+	{
+		try {
+			configManager.setConfiguration(PLUGIN_CONFIG_PROFILE_GROUP, getChannelConfigKey(channelId, configKey), payload);
+		} catch (Exception exception) {
+			plugin.logSupport("Could not set the channel configuration due to the following error: ", exception);
+		}
+	}
+
+	@Nullable
+	public String getChannelConfiguration(String channelId, String configKey)
+	{
+		try {
+			return configManager.getConfiguration(PLUGIN_CONFIG_PROFILE_GROUP, getChannelConfigKey(channelId, configKey));
+		} catch (Exception exception) {
+			plugin.logSupport("Could not get the channel configuration due to the following error: ", exception);
+		}
+
+		return null;
+	}
+
+	private String getChannelConfigKey(String channelId, String configKey)
+	{
+		return "channel-"+ channelId +"-"+ configKey;
+	}
+
 	public JsonObject getDecodedToken() throws Exception
 	{
 		String[] parts = splitToken(getToken());
@@ -14,8 +14,8 @@ import net.runelite.api.*;
 
 import java.time.Instant;
 import java.util.Arrays;
+import java.util.List;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import static com.twitchliveloadout.TwitchLiveLoadoutConfig.*;
@@ -603,7 +603,7 @@ public class TwitchState {
 		{
 			// add all channel point rewards in one go with data filtered from them
 			JsonArray simpleChannelPointRewards = new JsonArray();
-			CopyOnWriteArrayList<ChannelPointReward> channelPointRewards =  plugin.getMarketplaceManager().getChannelPointRewards();
+			List<ChannelPointReward> channelPointRewards = plugin.getMarketplaceManager().getChannelPointRewards();
 
 			for (ChannelPointReward channelPointReward : channelPointRewards)
 			{
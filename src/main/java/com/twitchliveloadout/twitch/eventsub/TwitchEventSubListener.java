@@ -74,6 +74,14 @@ public class TwitchEventSubListener {
     {
         BaseMessage message = gson.fromJson(payload, type.getMessageClass());
         TwitchTransaction twitchTransaction = createTransactionFromEventMessage(messageId, type, message);
+        MarketplaceManager marketplaceManager = plugin.getMarketplaceManager();
+
+        // spending Bits on the channel makes it likely a new extension transaction is coming in as well
+        // NOTE: other events and keepalives don't wake up the poller to not fetch more than needed
+        if (marketplaceManager != null && type.canSignalTransaction())
+        {
+            marketplaceManager.requestTransactionFetch();
+        }
 
         // guard: check whether the settings for handling events are disabled
         if (!config.marketplaceChannelEventsEnabled())
@@ -103,6 +103,23 @@ public enum TwitchEventSubType {
         return null;
     }
 
+    /**
+     * Whether this event can come with a new extension transaction, which makes it worth to fetch them right away.
+     * This is the case for events where viewers spend Bits, because Bits spent in the extension also count towards them.
+     */
+    public boolean canSignalTransaction()
+    {
+        switch (this)
+        {
+            case EXTENSION_BITS_TRANSACTION:
+            case HYPE_TRAIN_BEGIN:
+            case HYPE_TRAIN_PROGRESS:
+                return true;
+        }
+
+        return false;
+    }
+
     public interface StringConfigValueGetter {
         String execute(TwitchLiveLoadoutConfig config);
     }
@@ -18,6 +18,7 @@ import javax.swing.*;
 import javax.swing.border.EmptyBorder;
 import java.awt.*;
 import java.util.Collections;
+import java.util.List;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.atomic.AtomicInteger;
 
@@ -434,7 +435,7 @@ public class MarketplacePanel extends JPanel
 	public void rebuildCustomProductPanels()
 	{
 		AtomicInteger atomicIndex = new AtomicInteger();
-		CopyOnWriteArrayList<EbsProduct> customEbsProducts = marketplaceManager.getCustomEbsProducts();
+		List<EbsProduct> customEbsProducts = marketplaceManager.getCustomEbsProducts();
 
 		LambdaIterator.handleAll(customProductPanels, (customProductPanel) -> {
 			int index = atomicIndex.get();
@@ -455,8 +456,8 @@ public class MarketplacePanel extends JPanel
 	public void updateTexts()
 	{
 		final CopyOnWriteArrayList<MarketplaceProduct> activeProducts = marketplaceManager.getActiveProducts();
-		final CopyOnWriteArrayList<StreamerProduct> streamerProducts = marketplaceManager.getStreamerProducts();
-		final CopyOnWriteArrayList<ChannelPointReward> channelPointRewards = marketplaceManager.getChannelPointRewards();
+		final List<StreamerProduct> streamerProducts = marketplaceManager.getStreamerProducts();
+		final List<ChannelPointReward> channelPointRewards = marketplaceManager.getChannelPointRewards();
 		final CopyOnWriteArrayList<TwitchTransaction> queuedTransactions = marketplaceManager.getQueuedTransactions();
 		final CopyOnWriteArrayList<TwitchTransaction> archivedTransactions = marketplaceManager.getArchivedTransactions();
 
@@ -0,0 +1,140 @@
+package com.twitchliveloadout;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Stubs of client interfaces for headless tests. Every method returns the value that is registered
+ * for its name. When nothing is registered default methods are invoked, for example to get the
+ * default values of a config, and all other methods return the default value of their return type.
+ */
+public class TestStubs
+{
+	public interface MethodHandler
+	{
+		Object handle(Object[] arguments);
+	}
+
+	public static class Stub<T>
+	{
+		private final Class<T> type;
+		private final HashMap<String, MethodHandler> handlers = new HashMap<>();
+
+		private Stub(Class<T> type)
+		{
+			this.type = type;
+		}
+
+		public Stub<T> with(String methodName, Object value)
+		{
+			handlers.put(methodName, (arguments) -> value);
+			return this;
+		}
+
+		public Stub<T> with(String methodName, MethodHandler handler)
+		{
+			handlers.put(methodName, handler);
+			return this;
+		}
+
+		public T build()
+		{
+			return create(type, handlers);
+		}
+	}
+
+	public static <T> Stub<T> stub(Class<T> type)
+	{
+		return new Stub<>(type);
+	}
+
+	public static <T> T create(Class<T> type)
+	{
+		return create(type, new HashMap<>());
+	}
+
+	@SuppressWarnings("unchecked")
+	private static <T> T create(Class<T> type, Map<String, MethodHandler> handlers)
+	{
+		return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (proxy, method, arguments) -> {
+			final MethodHandler handler = handlers.get(method.getName());
+
+			if (handler != null)
+			{
+				return handler.handle(arguments);
+			}
+
+			switch (method.getName())
+			{
+				case "equals":
+					return proxy == arguments[0];
+				case "hashCode":
+					return System.identityHashCode(proxy);
+				case "toString":
+					return type.getSimpleName() +"@"+ Integer.toHexString(System.identityHashCode(proxy));
+			}
+
+			if (method.isDefault())
+			{
+				final Class<?> declaringType = method.getDeclaringClass();
+
+				return MethodHandles.privateLookupIn(declaringType, MethodHandles.lookup())
+					.unreflectSpecial(method, declaringType)
+					.bindTo(proxy)
+					.invokeWithArguments(arguments == null ? new Object[0] : arguments);
+			}
+
+			return getDefaultValue(method);
+		});
+	}
+
+	private static Object getDefaultValue(Method method)
+	{
+		final Class<?> returnType = method.getReturnType();
+
+		if (!returnType.isPrimitive() || returnType == void.class)
+		{
+			return null;
+		}
+
+		if (returnType == boolean.class)
+		{
+			return false;
+		}
+
+		if (returnType == char.class)
+		{
+			return (char) 0;
+		}
+
+		if (returnType == long.class)
+		{
+			return 0L;
+		}
+
+		if (returnType == float.class)
+		{
+			return 0f;
+		}
+
+		if (returnType == double.class)
+		{
+			return 0d;
+		}
+
+		if (returnType == byte.class)
+		{
+			return (byte) 0;
+		}
+
+		if (returnType == short.class)
+		{
+			return (short) 0;
+		}
+
+		return 0;
+	}
+}
@@ -0,0 +1,264 @@
+package com.twitchliveloadout.fights;
+
+import com.twitchliveloadout.TestStubs;
+import net.runelite.api.Actor;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class FightHitsplatQueueTest
+{
+	private static final int CAPACITY = 1024;
+	private static final int HITSPLAT_TYPE = 12;
+	private static final int PRODUCER_AMOUNT = 4;
+	private static final int PRODUCER_HITSPLAT_AMOUNT = 50000;
+
+	private FightHitsplatQueue queue;
+	private Actor actor;
+
+	@Before
+	public void setUp()
+	{
+		queue = new FightHitsplatQueue(CAPACITY);
+		actor = TestStubs.create(Actor.class);
+	}
+
+	@Test
+	public void drainsInTheOrderOffered()
+	{
+		for (int amount = 0; amount < 10; amount++)
+		{
+			assertTrue(offer(amount));
+		}
+
+		assertArrayEquals(range(0, 10), drainAmounts());
+		assertEquals(10, queue.getHandledCounter());
+		assertEquals(0, drainAmounts().length);
+	}
+
+	@Test
+	public void copiesAllHitsplatFields()
+	{
+		final ArrayList<String> handled = new ArrayList<>();
+
+		queue.offer(actor, HITSPLAT_TYPE, 7, true, false, 1000);
+		queue.offer(actor, HITSPLAT_TYPE + 1, 8, false, true, 2000);
+		queue.drain((hitsplat) -> {
+			assertSame(actor, hitsplat.getActor());
+			handled.add(hitsplat.getHitsplatType() +" "+ hitsplat.getAmount() +" "+ hitsplat.isMine() +" "+ hitsplat.isSmiting() +" "+ hitsplat.getCapturedAtMs());
+		});
+
+		assertEquals(2, handled.size());
+		assertEquals(HITSPLAT_TYPE +" 7 true false 1000", handled.get(0));
+		assertEquals((HITSPLAT_TYPE + 1) +" 8 false true 2000", handled.get(1));
+	}
+
+	@Test
+	public void releasesActorsAfterHandling()
+	{
+		final FightQueuedHitsplat[] handledHitsplat = new FightQueuedHitsplat[1];
+
+		offer(1);
+		queue.drain((hitsplat) -> handledHitsplat[0] = hitsplat);
+
+		assertNull(handledHitsplat[0].getActor());
+	}
+
+	@Test
+	public void dropsHitsplatsWhenFull()
+	{
+		for (int amount = 0; amount < CAPACITY; amount++)
+		{
+			assertTrue(offer(amount));
+		}
+
+		assertFalse(offer(CAPACITY));
+		assertFalse(offer(CAPACITY + 1));
+		assertEquals(2, queue.getDroppedCounter());
+
+		// the dropped hitsplats are not part of the drain
+		assertArrayEquals(range(0, CAPACITY), drainAmounts());
+
+		// and the freed slots can be used again
+		assertTrue(offer(CAPACITY + 2));
+		assertArrayEquals(new int[] { CAPACITY + 2 }, drainAmounts());
+		assertEquals(2, queue.getDroppedCounter());
+		assertEquals(CAPACITY + 1, queue.getHandledCounter());
+	}
+
+	@Test
+	public void keepsOrderWhenWrappingAround()
+	{
+		int nextAmount = 0;
+
+		for (int cycle = 0; cycle < 5; cycle++)
+		{
+			final int firstAmount = nextAmount;
+
+			// not a multiple of the capacity to make every cycle start at another slot
+			for (int index = 0; index < 700; index++)
+			{
+				assertTrue(offer(nextAmount++));
+			}
+
+			assertArrayEquals(range(firstAmount, nextAmount), drainAmounts());
+		}
+
+		assertEquals(0, queue.getDroppedCounter());
+	}
+
+	@Test
+	public void handlesHitsplatsOfConcurrentProducers() throws Exception
+	{
+		final CountDownLatch startLatch = new CountDownLatch(1);
+		final ArrayList<Thread> producers = new ArrayList<>();
+		final AtomicInteger droppedAmount = new AtomicInteger(0);
+
+		for (int producerIndex = 0; producerIndex < PRODUCER_AMOUNT; producerIndex++)
+		{
+			final int producerOffset = producerIndex * PRODUCER_HITSPLAT_AMOUNT;
+			final Thread producer = new Thread(() -> {
+				awaitQuietly(startLatch);
+
+				for (int index = 0; index < PRODUCER_HITSPLAT_AMOUNT; index++)
+				{
+					if (!offer(producerOffset + index))
+					{
+						droppedAmount.incrementAndGet();
+					}
+				}
+			});
+
+			producer.start();
+			producers.add(producer);
+		}
+
+		final int totalAmount = PRODUCER_AMOUNT * PRODUCER_HITSPLAT_AMOUNT;
+		final int[] lastAmounts = new int[PRODUCER_AMOUNT];
+		final boolean[] outOfOrder = new boolean[1];
+		int handledAmount = 0;
+
+		for (int producerIndex = 0; producerIndex < PRODUCER_AMOUNT; producerIndex++)
+		{
+			lastAmounts[producerIndex] = -1;
+		}
+
+		startLatch.countDown();
+
+		// a single consumer drains while the producers are offering
+		while (handledAmount + droppedAmount.get() < totalAmount)
+		{
+			handledAmount += queue.drain((hitsplat) -> {
+				final int producerIndex = hitsplat.getAmount() / PRODUCER_HITSPLAT_AMOUNT;
+
+				// the hitsplats of a single producer are handled in the order they were offered
+				if (hitsplat.getAmount() <= lastAmounts[producerIndex])
+				{
+					outOfOrder[0] = true;
+				}
+
+				lastAmounts[producerIndex] = hitsplat.getAmount();
+			});
+		}
+
+		for (Thread producer : producers)
+		{
+			producer.join();
+		}
+
+		assertFalse(outOfOrder[0]);
+		assertEquals(0, drainAmounts().length);
+		assertEquals(totalAmount, handledAmount + droppedAmount.get());
+		assertEquals(handledAmount, queue.getHandledCounter());
+		assertEquals(droppedAmount.get(), queue.getDroppedCounter());
+	}
+
+	@Test
+	public void doesNotLoseHitsplatsOfConcurrentProducersWithinTheCapacity() throws Exception
+	{
+		final CountDownLatch startLatch = new CountDownLatch(1);
+		final ArrayList<Thread> producers = new ArrayList<>();
+		final int producerHitsplatAmount = CAPACITY / PRODUCER_AMOUNT;
+
+		for (int producerIndex = 0; producerIndex < PRODUCER_AMOUNT; producerIndex++)
+		{
+			final int producerOffset = producerIndex * producerHitsplatAmount;
+			final Thread producer = new Thread(() -> {
+				awaitQuietly(startLatch);
+
+				for (int index = 0; index < producerHitsplatAmount; index++)
+				{
+					offer(producerOffset + index);
+				}
+			});
+
+			producer.start();
+			producers.add(producer);
+		}
+
+		startLatch.countDown();
+
+		for (Thread producer : producers)
+		{
+			producer.join();
+		}
+
+		final int[] amounts = drainAmounts();
+		Arrays.sort(amounts);
+
+		assertEquals(0, queue.getDroppedCounter());
+		assertArrayEquals(range(0, CAPACITY), amounts);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void requiresAPowerOfTwoCapacity()
+	{
+		new FightHitsplatQueue(1000);
+	}
+
+	private boolean offer(int amount)
+	{
+		return queue.offer(actor, HITSPLAT_TYPE, amount, true, false, amount);
+	}
+
+	private int[] drainAmounts()
+	{
+		final ArrayList<Integer> amounts = new ArrayList<>();
+
+		queue.drain((hitsplat) -> amounts.add(hitsplat.getAmount()));
+
+		return amounts.stream().mapToInt(Integer::intValue).toArray();
+	}
+
+	private static int[] range(int fromAmount, int toAmount)
+	{
+		final int[] amounts = new int[toAmount - fromAmount];
+
+		for (int index = 0; index < amounts.length; index++)
+		{
+			amounts[index] = fromAmount + index;
+		}
+
+		return amounts;
+	}
+
+	private static void awaitQuietly(CountDownLatch latch)
+	{
+		try {
+			latch.await();
+		} catch (InterruptedException exception) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}
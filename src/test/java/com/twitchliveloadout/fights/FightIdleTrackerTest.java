@@ -0,0 +1,119 @@
+package com.twitchliveloadout.fights;
+
+import com.twitchliveloadout.TestStubs;
+import net.runelite.api.Actor;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class FightIdleTrackerTest
+{
+	private static final int CHECK_DELAY = 5;
+	private static final int DESPAWN_CHECK_DELAY = 1;
+
+	private FightIdleTracker idleTracker;
+	private Fight fight;
+	private boolean actorPresent;
+
+	@Before
+	public void setUp()
+	{
+		idleTracker = new FightIdleTracker();
+		fight = new Fight(TestStubs.create(Actor.class), "goblin", false, null);
+		actorPresent = true;
+	}
+
+	@Test
+	public void startsIdlingOnTheFirstGameTickAfterADespawn()
+	{
+		idleTracker.registerActivity(fight, CHECK_DELAY);
+		advance(1);
+
+		actorPresent = false;
+		idleTracker.scheduleCheck(fight, DESPAWN_CHECK_DELAY);
+		advance(1);
+
+		assertTrue(fight.isIdling());
+	}
+
+	@Test
+	public void activityDoesNotPostponeADespawnCheck()
+	{
+		idleTracker.registerActivity(fight, CHECK_DELAY);
+
+		actorPresent = false;
+		idleTracker.scheduleCheck(fight, DESPAWN_CHECK_DELAY);
+
+		// for example the last hitsplats on the actor that are handled after it despawned
+		idleTracker.registerActivity(fight, CHECK_DELAY);
+		advance(1);
+
+		assertTrue(fight.isIdling());
+	}
+
+	@Test
+	public void keepsActiveWhileTheActorIsPresent()
+	{
+		idleTracker.registerActivity(fight, CHECK_DELAY);
+		idleTracker.scheduleCheck(fight, DESPAWN_CHECK_DELAY);
+		advance(CHECK_DELAY * 4);
+
+		assertFalse(fight.isIdling());
+	}
+
+	@Test
+	public void countsEveryGameTickTheActorIsAbsent()
+	{
+		final int absentTickAmount = 7;
+
+		idleTracker.registerActivity(fight, CHECK_DELAY);
+		advance(2);
+
+		actorPresent = false;
+		idleTracker.scheduleCheck(fight, DESPAWN_CHECK_DELAY);
+		advance(absentTickAmount);
+
+		// the actor spawns again right before the next game tick
+		actorPresent = true;
+		idleTracker.registerActivity(fight, CHECK_DELAY);
+		advance(1);
+
+		assertFalse(fight.isIdling());
+		assertEquals(absentTickAmount, getIdleTicks());
+	}
+
+	@Test
+	public void countsEveryGameTickWhileLoggedOut()
+	{
+		final int loggedOutTickAmount = 3;
+
+		idleTracker.registerActivity(fight, CHECK_DELAY);
+		advance(2);
+
+		idleTracker.idleAll(Collections.singletonList(fight));
+		advance(loggedOutTickAmount);
+
+		idleTracker.registerActivity(fight, CHECK_DELAY);
+
+		assertEquals(loggedOutTickAmount, getIdleTicks());
+	}
+
+	private void advance(int tickAmount)
+	{
+		for (int tickIndex = 0; tickIndex < tickAmount; tickIndex++)
+		{
+			idleTracker.advance((fight) -> actorPresent, CHECK_DELAY);
+		}
+	}
+
+	private long getIdleTicks()
+	{
+		fight.registerQueuedIdleTicks();
+		return fight.getIdleTickCounter();
+	}
+}
@@ -0,0 +1,293 @@
+package com.twitchliveloadout.fights;
+
+import com.twitchliveloadout.TestStubs;
+import net.runelite.api.Actor;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class FightSessionArchiveTest
+{
+	private static final String ACCOUNT_IDENTIFIER = "test";
+	private static final long TIMEOUT_MS = 5000;
+
+	@Rule
+	public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+	private File directory;
+	private Fight fight;
+	private FightSessionArchive archive;
+
+	@Before
+	public void setUp() throws Exception
+	{
+		directory = temporaryFolder.newFolder();
+		fight = new Fight(TestStubs.create(Actor.class), "goblin", false, null);
+		archive = openArchive(10);
+	}
+
+	@After
+	public void tearDown() throws Exception
+	{
+		closeArchive();
+	}
+
+	@Test
+	public void readsAppendedSessionsBySequence() throws Exception
+	{
+		final long[] sequences = appendSessions(fight, 1, 3);
+
+		assertEquals(listOf(1L, 2L, 3L), readHitDamages(sequences));
+		assertEquals(listOf(3L, 1L), readHitDamages(new long[]{sequences[2], sequences[0]}));
+	}
+
+	@Test
+	public void skipsSessionsOfOtherFights() throws Exception
+	{
+		final Fight otherFight = new Fight(TestStubs.create(Actor.class), "imp", false, null);
+		final long[] sequences = appendSessions(fight, 1, 2);
+		final long[] otherSequences = appendSessions(otherFight, 3, 4);
+
+		assertEquals(listOf(1L, 2L), readHitDamages(concat(sequences, otherSequences)));
+	}
+
+	@Test
+	public void sumsSessions() throws Exception
+	{
+		final long[] sequences = appendSessions(fight, 1, 4);
+		final FightSession totalSession = archive.sumSessions(fight, sequences).get(TIMEOUT_MS, TimeUnit.MILLISECONDS);
+
+		assertEquals(10, totalSession.getStatistic(FightStatisticEntry.TOTAL).getHitDamage());
+		assertEquals(4, totalSession.getStatistic(FightStatisticEntry.TOTAL).getHitCounter());
+	}
+
+	@Test
+	public void failsReadingWhenShutDown() throws Exception
+	{
+		final long[] sequences = appendSessions(fight, 1, 1);
+		final FightSessionArchive shutDownArchive = archive;
+
+		closeArchive();
+
+		assertFalse(shutDownArchive.isAvailable());
+		assertTrue(shutDownArchive.readSessions(fight, sequences, (session) -> {}).isCompletedExceptionally());
+	}
+
+	@Test(expected = ExecutionException.class)
+	public void failsReadingWhenNotOpened() throws Exception
+	{
+		final FightSessionArchive unopenedArchive = new FightSessionArchive(directory, 10);
+
+		try {
+			assertFalse(unopenedArchive.isAvailable());
+			unopenedArchive.readSessions(fight, new long[]{0}, (session) -> {}).get(TIMEOUT_MS, TimeUnit.MILLISECONDS);
+		} finally {
+			unopenedArchive.shutDown();
+		}
+	}
+
+	@Test
+	public void skipsTruncatedRecordAfterCrash() throws Exception
+	{
+		appendSessions(fight, 1, 3);
+		closeArchive();
+
+		// simulate a crash while the fourth record was being written
+		try (RandomAccessFile file = new RandomAccessFile(getArchiveFile(), "rw"))
+		{
+			file.seek(file.length());
+			file.write(new byte[FightSessionArchive.RECORD_SIZE / 2]);
+		}
+
+		archive = openArchive(10);
+
+		assertEquals(listOf(1L, 2L, 3L), readExistingHitDamages(3));
+		assertEquals(getFileSize(3), getArchiveFile().length());
+
+		// new sessions are appended after the last valid record
+		assertEquals(listOf(4L), readHitDamages(appendSessions(fight, 4, 4)));
+		assertEquals(getFileSize(4), getArchiveFile().length());
+	}
+
+	@Test
+	public void skipsRecordWithInvalidChecksum() throws Exception
+	{
+		appendSessions(fight, 1, 3);
+		closeArchive();
+		corruptRecord(1);
+
+		archive = openArchive(10);
+
+		assertEquals(listOf(1L, 3L), readExistingHitDamages(3));
+	}
+
+	@Test
+	public void truncatesTrailingRecordWithInvalidChecksum() throws Exception
+	{
+		appendSessions(fight, 1, 3);
+		closeArchive();
+		corruptRecord(2);
+
+		archive = openArchive(10);
+
+		assertEquals(listOf(1L, 2L), readExistingHitDamages(2));
+		assertEquals(getFileSize(2), getArchiveFile().length());
+	}
+
+	@Test
+	public void boundsSizeByCompacting() throws Exception
+	{
+		final int maxSessionAmount = 10;
+		final ArrayList<Long> sequences = new ArrayList<>();
+
+		for (int sessionIndex = 1; sessionIndex <= 25; sessionIndex++)
+		{
+			sequences.add(appendSessions(fight, sessionIndex, sessionIndex)[0]);
+			archive.awaitPending(TIMEOUT_MS);
+
+			assertTrue(getArchiveFile().length() <= getFileSize(maxSessionAmount));
+		}
+
+		final long[] allSequences = sequences.stream().mapToLong(Long::longValue).toArray();
+		final ArrayList<Long> hitDamages = readHitDamages(allSequences);
+
+		// the newest sessions are kept and can still be read by their sequence
+		assertTrue(hitDamages.size() <= maxSessionAmount);
+		assertEquals(Long.valueOf(25), hitDamages.get(hitDamages.size() - 1));
+
+		for (int hitDamageIndex = 0; hitDamageIndex < hitDamages.size(); hitDamageIndex++)
+		{
+			assertEquals(Long.valueOf(25 - hitDamages.size() + 1 + hitDamageIndex), hitDamages.get(hitDamageIndex));
+		}
+
+		// the compacted archive is still valid after a restart
+		closeArchive();
+		archive = openArchive(maxSessionAmount);
+
+		assertEquals(hitDamages, readExistingHitDamages(hitDamages.size()));
+	}
+
+	private FightSessionArchive openArchive(int maxSessionAmount)
+	{
+		final FightSessionArchive newArchive = new FightSessionArchive(directory, maxSessionAmount);
+
+		newArchive.open(ACCOUNT_IDENTIFIER);
+
+		return newArchive;
+	}
+
+	private void closeArchive() throws InterruptedException
+	{
+		if (archive == null)
+		{
+			return;
+		}
+
+		archive.shutDown();
+		assertTrue(archive.awaitShutDown(TIMEOUT_MS));
+		archive = null;
+	}
+
+	private long[] appendSessions(Fight targetFight, int firstHitDamage, int lastHitDamage)
+	{
+		final long[] sequences = new long[lastHitDamage - firstHitDamage + 1];
+
+		for (int hitDamage = firstHitDamage; hitDamage <= lastHitDamage; hitDamage++)
+		{
+			final FightSession session = new FightSession(targetFight);
+
+			session.getStatistic(FightStatisticEntry.TOTAL).restore(hitDamage, 0, 1, 0, null, null);
+			session.finish();
+			sequences[hitDamage - firstHitDamage] = archive.append(FightSessionArchive.serialize(targetFight, session));
+		}
+
+		return sequences;
+	}
+
+	/**
+	 * Read the hit damage of the archived sessions, which also waits for all pending appends.
+	 */
+	private ArrayList<Long> readHitDamages(long[] sequences) throws Exception
+	{
+		final ArrayList<Long> hitDamages = new ArrayList<>();
+
+		archive.readSessions(fight, sequences, (session) -> {
+			hitDamages.add(session.getStatistic(FightStatisticEntry.TOTAL).getHitDamage());
+		}).get(TIMEOUT_MS, TimeUnit.MILLISECONDS);
+
+		return hitDamages;
+	}
+
+	/**
+	 * Read the hit damage of the sessions that were archived before the archive was opened,
+	 * where the records that were already in the file come right before the first new sequence.
+	 */
+	private ArrayList<Long> readExistingHitDamages(int recordAmount) throws Exception
+	{
+		final long[] sequences = new long[recordAmount];
+
+		for (int recordIndex = 0; recordIndex < recordAmount; recordIndex++)
+		{
+			sequences[recordIndex] = recordIndex - recordAmount;
+		}
+
+		return readHitDamages(sequences);
+	}
+
+	private void corruptRecord(int recordIndex) throws Exception
+	{
+		try (RandomAccessFile file = new RandomAccessFile(getArchiveFile(), "rw"))
+		{
+			final long position = getFileSize(recordIndex) + FightSessionArchive.RECORD_SIZE / 2;
+
+			file.seek(position);
+			final int value = file.read();
+			file.seek(position);
+			file.write(value ^ 0xFF);
+		}
+	}
+
+	private File getArchiveFile()
+	{
+		return FightSessionArchive.getArchiveFile(directory, ACCOUNT_IDENTIFIER);
+	}
+
+	private static long getFileSize(int recordAmount)
+	{
+		return FightSessionArchive.HEADER_SIZE + (long) recordAmount * FightSessionArchive.RECORD_SIZE;
+	}
+
+	private static long[] concat(long[] first, long[] second)
+	{
+		final long[] values = Arrays.copyOf(first, first.length + second.length);
+
+		System.arraycopy(second, 0, values, first.length, second.length);
+
+		return values;
+	}
+
+	private static ArrayList<Long> listOf(Long... values)
+	{
+		final ArrayList<Long> list = new ArrayList<>();
+
+		for (Long value : values)
+		{
+			list.add(value);
+		}
+
+		return list;
+	}
+}
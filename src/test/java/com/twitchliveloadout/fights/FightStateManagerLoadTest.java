@@ -0,0 +1,133 @@
+package com.twitchliveloadout.fights;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Replays traces of busy and quiet fights to make sure the fight state manager keeps up with them.
+ * The thresholds are far above what a regular run takes to keep them stable on shared machines,
+ * they are meant to catch changes that make the handling scale badly with the amount of events.
+ */
+public class FightStateManagerLoadTest
+{
+	private static final int WARM_UP_REPLAY_AMOUNT = 3;
+	private static final long MAX_P99_EVENT_LATENCY_NS = 1_000_000;
+	private static final long MAX_P99_TICK_LATENCY_NS = 5_000_000;
+	private static final long MAX_AVERAGE_TICK_ALLOCATED_BYTES = 256 * 1024;
+	private static final long MAX_RETAINED_HEAP_GROWTH_BYTES = 1024 * 1024;
+
+	@Test
+	public void handlesRaidRoom() throws Exception
+	{
+		assertReplay("raid-room");
+	}
+
+	@Test
+	public void handlesMultiNpcBarrage() throws Exception
+	{
+		assertReplay("barrage");
+	}
+
+	@Test
+	public void handlesAfkFight() throws Exception
+	{
+		assertReplay("afk");
+	}
+
+	private static void assertReplay(String traceName) throws Exception
+	{
+		final FightTraceReplayer replayer = FightTraceReplayer.load(traceName);
+
+		// warm up the JIT to measure the regular handling instead of the first calls
+		for (int replayIndex = 0; replayIndex < WARM_UP_REPLAY_AMOUNT; replayIndex++)
+		{
+			replayer.replay();
+		}
+
+		final FightTraceReplayer.Replay replay = replayer.replay();
+
+		assertHitDamages(replay);
+		assertGraphicHitDamages(replay);
+		assertRetainedHeapGrowth(replay);
+		assertThreshold(replay, "p99 event latency (ns)", replay.getEventLatencyPercentile(0.99), MAX_P99_EVENT_LATENCY_NS);
+		assertThreshold(replay, "p99 game tick latency (ns)", replay.getTickLatencyPercentile(0.99), MAX_P99_TICK_LATENCY_NS);
+
+		final long averageTickAllocatedBytes = replay.getAverageTickAllocatedBytes();
+
+		// guard: not all JVMs support measuring allocations
+		if (averageTickAllocatedBytes < 0)
+		{
+			return;
+		}
+
+		assertThreshold(replay, "average allocated bytes per game tick", averageTickAllocatedBytes, MAX_AVERAGE_TICK_ALLOCATED_BYTES);
+	}
+
+	private static void assertHitDamages(FightTraceReplayer.Replay replay)
+	{
+		final FightStateManager fightStateManager = replay.getFightStateManager();
+
+		for (Map.Entry<String, Long> expectedHitDamage : replay.getExpectedHitDamages().entrySet())
+		{
+			final Fight fight = fightStateManager.getFights().get(expectedHitDamage.getKey());
+
+			assertNotNull("No fight against "+ expectedHitDamage.getKey() +" in trace "+ replay.getTraceName(), fight);
+
+			final long hitDamage = fight.calculateTotalSession().getStatistic(FightStatisticEntry.TOTAL).getHitDamage();
+
+			assertEquals("Hit damage against "+ expectedHitDamage.getKey() +" in trace "+ replay.getTraceName(), (long) expectedHitDamage.getValue(), hitDamage);
+		}
+	}
+
+	private static void assertGraphicHitDamages(FightTraceReplayer.Replay replay)
+	{
+		final FightStateManager fightStateManager = replay.getFightStateManager();
+
+		for (Map.Entry<String, HashMap<FightStatisticEntry, Long>> expectedActorDamages : replay.getExpectedGraphicHitDamages().entrySet())
+		{
+			final Fight fight = fightStateManager.getFights().get(expectedActorDamages.getKey());
+
+			assertNotNull("No fight against "+ expectedActorDamages.getKey() +" in trace "+ replay.getTraceName(), fight);
+
+			final FightSession totalSession = fight.calculateTotalSession();
+
+			for (Map.Entry<FightStatisticEntry, Long> expectedDamage : expectedActorDamages.getValue().entrySet())
+			{
+				final FightStatistic statistic = totalSession.getStatistic(expectedDamage.getKey());
+
+				assertNotNull("No "+ expectedDamage.getKey().getKey() +" statistic against "+ expectedActorDamages.getKey() +" in trace "+ replay.getTraceName(), statistic);
+				assertEquals("The "+ expectedDamage.getKey().getKey() +" damage against "+ expectedActorDamages.getKey() +" in trace "+ replay.getTraceName(), (long) expectedDamage.getValue(), statistic.getHitDamage());
+			}
+		}
+	}
+
+	/**
+	 * Compare the retained heap of the first and last measurement to make sure that idling does not keep state around.
+	 */
+	private static void assertRetainedHeapGrowth(FightTraceReplayer.Replay replay)
+	{
+		final ArrayList<Long> retainedHeapBytes = replay.getRetainedHeapBytes();
+
+		// guard: only traces with at least two measurements can grow
+		if (retainedHeapBytes.size() < 2)
+		{
+			return;
+		}
+
+		final long retainedHeapGrowth = retainedHeapBytes.get(retainedHeapBytes.size() - 1) - retainedHeapBytes.get(0);
+
+		assertThreshold(replay, "retained heap growth (bytes)", retainedHeapGrowth, MAX_RETAINED_HEAP_GROWTH_BYTES);
+	}
+
+	private static void assertThreshold(FightTraceReplayer.Replay replay, String measurement, long value, long threshold)
+	{
+		assertTrue("The "+ measurement +" of "+ value +" exceeds the threshold of "+ threshold +" in trace "+ replay.getTraceName(), value <= threshold);
+	}
+}
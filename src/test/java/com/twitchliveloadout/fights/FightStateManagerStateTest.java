@@ -0,0 +1,221 @@
+package com.twitchliveloadout.fights;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.twitchliveloadout.TestStubs;
+import com.twitchliveloadout.TwitchLiveLoadoutConfig;
+import com.twitchliveloadout.TwitchLiveLoadoutPlugin;
+import net.runelite.api.Client;
+import net.runelite.api.NPC;
+import net.runelite.api.Player;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.HashSet;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * The fight statistics state is cached as a whole and per fight, these tests make sure
+ * the cache is rebuilt whenever something changed that is part of the state.
+ */
+public class FightStateManagerStateTest
+{
+	private static final String LOCAL_PLAYER_NAME = "Streamer";
+
+	private FightStateManager fightStateManager;
+	private Player localPlayer;
+	private boolean playerInfoEnabled;
+	private int maxFightAmount;
+
+	@Before
+	public void setUp()
+	{
+		playerInfoEnabled = true;
+		maxFightAmount = FightStateManager.MAX_FIGHT_AMOUNT;
+		localPlayer = TestStubs.stub(Player.class)
+			.with("getName", LOCAL_PLAYER_NAME)
+			.build();
+
+		final Client client = TestStubs.stub(Client.class)
+			.with("getLocalPlayer", localPlayer)
+			.build();
+		final TwitchLiveLoadoutConfig config = TestStubs.stub(TwitchLiveLoadoutConfig.class)
+			.with("playerInfoEnabled", (arguments) -> playerInfoEnabled)
+			.with("fightStatisticsMaxFightAmount", (arguments) -> maxFightAmount)
+			.build();
+
+		fightStateManager = new FightStateManager(new TwitchLiveLoadoutPlugin(), config, client);
+	}
+
+	@After
+	public void tearDown()
+	{
+		fightStateManager.shutDown();
+	}
+
+	@Test
+	public void reusesTheStateWhenNothingChanged()
+	{
+		createFight("Goblin");
+
+		final JsonObject state = fightStateManager.getFightStatisticsState();
+
+		assertSame(state, fightStateManager.getFightStatisticsState());
+	}
+
+	@Test
+	public void rebuildsTheStateWhenAFightChanges()
+	{
+		final NPC goblin = createNpc("Goblin");
+		final Fight fight = fightStateManager.ensureValidFight(goblin);
+		final JsonObject state = fightStateManager.getFightStatisticsState();
+
+		fight.ensureStatistic(goblin, FightStatisticEntry.TOTAL).registerHit(12);
+
+		final JsonObject changedState = fightStateManager.getFightStatisticsState();
+
+		assertNotSame(state, changedState);
+		assertEquals(12, getTotalHitDamage(changedState, 0));
+	}
+
+	@Test
+	public void onlyRebuildsTheFragmentsOfChangedFights()
+	{
+		final Fight unchangedFight = createFight("Goblin");
+		final NPC guard = createNpc("Guard");
+		final Fight changedFight = fightStateManager.ensureValidFight(guard);
+
+		fightStateManager.getFightStatisticsState();
+
+		final FightStateFragment unchangedFragment = unchangedFight.getStateFragment();
+		final FightStateFragment changedFragment = changedFight.getStateFragment();
+
+		changedFight.ensureStatistic(guard, FightStatisticEntry.TOTAL).registerHit(3);
+		fightStateManager.getFightStatisticsState();
+
+		assertSame(unchangedFragment, unchangedFight.getStateFragment());
+		assertNotSame(changedFragment, changedFight.getStateFragment());
+	}
+
+	@Test
+	public void rebuildsTheStateWhenPlayerInfoIsToggled()
+	{
+		fightStateManager.ensureValidFight(localPlayer);
+
+		final JsonObject state = fightStateManager.getFightStatisticsState();
+
+		assertTrue(getActorNames(state).contains(LOCAL_PLAYER_NAME));
+
+		playerInfoEnabled = false;
+		final JsonObject hiddenState = fightStateManager.getFightStatisticsState();
+
+		assertNotSame(state, hiddenState);
+		assertFalse(getActorNames(hiddenState).contains(LOCAL_PLAYER_NAME));
+		assertTrue(getActorNames(hiddenState).contains(FightStateManager.HIDDEN_PLAYER_ACTOR_NAME));
+
+		playerInfoEnabled = true;
+
+		assertTrue(getActorNames(fightStateManager.getFightStatisticsState()).contains(LOCAL_PLAYER_NAME));
+	}
+
+	@Test
+	public void rebuildsTheStateWhenTheMaxFightAmountChanges()
+	{
+		createFight("Goblin");
+		createFight("Guard");
+		createFight("Cow");
+
+		assertEquals(3, getActorNames(fightStateManager.getFightStatisticsState()).size());
+
+		maxFightAmount = 2;
+		assertEquals(2, getActorNames(fightStateManager.getFightStatisticsState()).size());
+
+		maxFightAmount = 3;
+		assertEquals(3, getActorNames(fightStateManager.getFightStatisticsState()).size());
+	}
+
+	@Test
+	public void rebuildsTheStateWhenAFightIsRemoved()
+	{
+		createFight("Goblin");
+		final Fight removedFight = createFight("Guard");
+
+		assertTrue(getActorNames(fightStateManager.getFightStatisticsState()).contains("Guard"));
+
+		fightStateManager.deleteFight(removedFight);
+		final HashSet<String> actorNames = getActorNames(fightStateManager.getFightStatisticsState());
+
+		assertFalse(actorNames.contains("Guard"));
+		assertTrue(actorNames.contains("Goblin"));
+	}
+
+	@Test
+	public void rebuildsTheStateWhenAFightIsReplacedByOneWithTheSameVersion()
+	{
+		createFight("Goblin");
+		final Fight removedFight = createFight("Guard");
+
+		fightStateManager.getFightStatisticsState();
+
+		// the sum of the fight versions stays the same as both fights are unchanged
+		fightStateManager.deleteFight(removedFight);
+		final Fight replacingFight = createFight("Cow");
+		final HashSet<String> actorNames = getActorNames(fightStateManager.getFightStatisticsState());
+
+		assertEquals(removedFight.getVersion(), replacingFight.getVersion());
+		assertFalse(actorNames.contains("Guard"));
+		assertTrue(actorNames.contains("Cow"));
+	}
+
+	@Test
+	public void rebuildsTheStateWhenAllFightsAreRemoved()
+	{
+		createFight("Goblin");
+		fightStateManager.getFightStatisticsState();
+
+		fightStateManager.deleteAllFights();
+
+		assertTrue(getActorNames(fightStateManager.getFightStatisticsState()).isEmpty());
+	}
+
+	private Fight createFight(String actorName)
+	{
+		return fightStateManager.ensureValidFight(createNpc(actorName));
+	}
+
+	private static NPC createNpc(String actorName)
+	{
+		return TestStubs.stub(NPC.class)
+			.with("getName", actorName)
+			.build();
+	}
+
+	private static HashSet<String> getActorNames(JsonObject state)
+	{
+		final HashSet<String> actorNames = new HashSet<>();
+
+		for (JsonElement actorName : state.getAsJsonArray("actorNames"))
+		{
+			actorNames.add(actorName.getAsString());
+		}
+
+		return actorNames;
+	}
+
+	private static long getTotalHitDamage(JsonObject state, int fightIndex)
+	{
+		final JsonArray hitDamages = state.getAsJsonObject("statistics")
+			.getAsJsonObject(FightStatisticEntry.TOTAL.getKey())
+			.getAsJsonArray(FightStatisticProperty.HIT_DAMAGES.getKey());
+
+		// every value is a pair of the total and the last session
+		return hitDamages.get(fightIndex).getAsJsonArray().get(0).getAsLong();
+	}
+}
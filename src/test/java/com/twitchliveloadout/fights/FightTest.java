@@ -0,0 +1,157 @@
+package com.twitchliveloadout.fights;
+
+import com.twitchliveloadout.TestStubs;
+import net.runelite.api.Actor;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.time.Instant;
+
+import static com.twitchliveloadout.fights.FightStateManager.MAX_FINISHED_FIGHT_SESSION_AMOUNT;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class FightTest
+{
+	private static final int EXTRA_SESSION_AMOUNT = 5;
+	private static final long TIMEOUT_MS = 5000;
+
+	@Rule
+	public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+	private FightSessionArchive archive;
+
+	@Before
+	public void setUp() throws Exception
+	{
+		archive = new FightSessionArchive(temporaryFolder.newFolder(), FightSessionArchive.MAX_ARCHIVED_SESSION_AMOUNT);
+		archive.open("test");
+		archive.awaitPending(TIMEOUT_MS);
+	}
+
+	@After
+	public void tearDown() throws Exception
+	{
+		archive.shutDown();
+		assertTrue(archive.awaitShutDown(TIMEOUT_MS));
+	}
+
+	@Test
+	public void totalsOnlyCountTheNewestFinishedSessions()
+	{
+		final Fight fight = createFight(null);
+
+		finishSessions(fight, MAX_FINISHED_FIGHT_SESSION_AMOUNT + EXTRA_SESSION_AMOUNT, -1);
+
+		assertEquals(getExpectedHitDamage(), getTotalHitDamage(fight));
+	}
+
+	@Test
+	public void archivingKeepsTheTotalsTheSame() throws Exception
+	{
+		final Fight fight = createFight(archive);
+
+		finishSessions(fight, MAX_FINISHED_FIGHT_SESSION_AMOUNT + EXTRA_SESSION_AMOUNT, 100);
+		awaitArchivedTotals(fight);
+
+		assertEquals(getExpectedHitDamage(), getTotalHitDamage(fight));
+	}
+
+	@Test
+	public void archivingAllSessionsKeepsTheTotalsTheSame() throws Exception
+	{
+		final Fight fight = createFight(archive);
+
+		finishSessions(fight, MAX_FINISHED_FIGHT_SESSION_AMOUNT + EXTRA_SESSION_AMOUNT, 1);
+		awaitArchivedTotals(fight);
+
+		assertEquals(getExpectedHitDamage(), getTotalHitDamage(fight));
+	}
+
+	@Test
+	public void archivingKeepsOnlyTheTotalsInMemory() throws Exception
+	{
+		final Fight fight = createFight(archive);
+
+		finishSessions(fight, 100, 1);
+		awaitArchivedTotals(fight);
+
+		// the archived sessions are represented by one session with their totals
+		// next to the ongoing session of the actor the fight was created with
+		assertEquals(2, fight.getAllSessions().size());
+		assertEquals(getHitDamageSum(1, 100), getTotalHitDamage(fight));
+	}
+
+	@Test
+	public void keepsSessionsInMemoryWithoutArchive()
+	{
+		final Fight fight = createFight(null);
+
+		finishSessions(fight, 100, 1);
+
+		assertEquals(102, fight.getAllSessions().size());
+		assertEquals(getHitDamageSum(1, 100), getTotalHitDamage(fight));
+	}
+
+	private static Fight createFight(FightSessionArchive archive)
+	{
+		return new Fight(TestStubs.create(Actor.class), "goblin", false, archive);
+	}
+
+	/**
+	 * Finish sessions where the hit damage is the number of the session and
+	 * archive all finished sessions every given amount of sessions.
+	 */
+	private static void finishSessions(Fight fight, int sessionAmount, int archiveInterval)
+	{
+		for (int sessionNumber = 1; sessionNumber <= sessionAmount; sessionNumber++)
+		{
+			final Actor actor = TestStubs.create(Actor.class);
+
+			fight.ensureStatistic(actor, FightStatisticEntry.TOTAL).restore(sessionNumber, 0, 1, 0, null, null);
+			fight.finishSession(actor);
+
+			if (archiveInterval > 0 && sessionNumber % archiveInterval == 0)
+			{
+				fight.archiveFinishedSessions(Instant.now().plusSeconds(1));
+			}
+		}
+	}
+
+	/**
+	 * Wait until the totals of the archived sessions are summed again from the archive.
+	 */
+	private void awaitArchivedTotals(Fight fight) throws Exception
+	{
+		do
+		{
+			archive.awaitPending(TIMEOUT_MS);
+		}
+		while (fight.isSummingArchivedSessions());
+	}
+
+	private static long getTotalHitDamage(Fight fight)
+	{
+		return fight.calculateTotalSession().getStatistic(FightStatisticEntry.TOTAL).getHitDamage();
+	}
+
+	private static long getExpectedHitDamage()
+	{
+		return getHitDamageSum(EXTRA_SESSION_AMOUNT + 1, MAX_FINISHED_FIGHT_SESSION_AMOUNT + EXTRA_SESSION_AMOUNT);
+	}
+
+	private static long getHitDamageSum(int firstSessionNumber, int lastSessionNumber)
+	{
+		long hitDamageSum = 0;
+
+		for (int sessionNumber = firstSessionNumber; sessionNumber <= lastSessionNumber; sessionNumber++)
+		{
+			hitDamageSum += sessionNumber;
+		}
+
+		return hitDamageSum;
+	}
+}
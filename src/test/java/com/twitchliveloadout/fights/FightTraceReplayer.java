@@ -0,0 +1,632 @@
+package com.twitchliveloadout.fights;
+
+import com.twitchliveloadout.TestStubs;
+import com.twitchliveloadout.TwitchLiveLoadoutConfig;
+import com.twitchliveloadout.TwitchLiveLoadoutPlugin;
+import net.runelite.api.*;
+import net.runelite.api.coords.WorldPoint;
+import net.runelite.api.events.*;
+import net.runelite.api.gameval.VarbitID;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.ThreadMXBean;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+
+/**
+ * Replays a trace of combat events on a fight state manager without a running client.
+ * The client and all actors are stubs, which only know about the actors that are in the scene according to the trace.
+ * Every event and every game tick is timed and the allocations of the replay are measured.
+ * The retained heap is measured at the ticks the trace asks for, which is done outside of the timings.
+ */
+public class FightTraceReplayer
+{
+	private static final String TRACE_DIRECTORY = "traces/";
+	private static final String TRACE_EXTENSION = ".trace";
+	private static final int LOCAL_PLAYER_ID = 0;
+	private static final int ALIVE_HEALTH_RATIO = 30;
+	private static final int HITSPLAT_DURATION = 60; // game cycles
+	private static final int GAME_CYCLES_PER_TICK = 30;
+	private static final int HEAP_MEASUREMENT_GC_AMOUNT = 3;
+	private static final WorldPoint ACTOR_LOCATION = new WorldPoint(3200, 3200, 0);
+
+	private final String traceName;
+	private final ArrayList<String[]> actorLines = new ArrayList<>();
+	private final ArrayList<String[]> eventLines = new ArrayList<>();
+	private boolean isMultiCombatArea = false;
+
+	private FightTraceReplayer(String traceName)
+	{
+		this.traceName = traceName;
+	}
+
+	public static FightTraceReplayer load(String traceName) throws IOException
+	{
+		final FightTraceReplayer replayer = new FightTraceReplayer(traceName);
+		final InputStream stream = FightTraceReplayer.class.getResourceAsStream(TRACE_DIRECTORY + traceName + TRACE_EXTENSION);
+
+		if (stream == null)
+		{
+			throw new IOException("Could not find the fight trace: "+ traceName);
+		}
+
+		try (BufferedReader reader = new BufferedReader(new InputStreamReader(stream, StandardCharsets.UTF_8)))
+		{
+			String line;
+
+			while ((line = reader.readLine()) != null)
+			{
+				line = line.trim();
+
+				// guard: skip comments and empty lines
+				if (line.isEmpty() || line.startsWith("#"))
+				{
+					continue;
+				}
+
+				final String[] parts = line.split(" ");
+
+				if (parts[0].equals("actor"))
+				{
+					replayer.actorLines.add(parts);
+					continue;
+				}
+
+				if (parts[0].equals("area"))
+				{
+					replayer.isMultiCombatArea = parts[1].equals("multi");
+					continue;
+				}
+
+				replayer.eventLines.add(parts);
+			}
+		}
+
+		return replayer;
+	}
+
+	/**
+	 * Replay the trace on a new fight state manager, which is shut down afterwards.
+	 */
+	public Replay replay()
+	{
+		final Scene scene = new Scene();
+		final Client client = createClient(scene);
+		final TwitchLiveLoadoutConfig config = TestStubs.create(TwitchLiveLoadoutConfig.class);
+		final FightStateManager fightStateManager = new FightStateManager(new TwitchLiveLoadoutPlugin(), config, client);
+		final Replay replay = new Replay(traceName, fightStateManager);
+
+		for (String[] parts : actorLines)
+		{
+			final Actor actor = scene.createActor(Integer.parseInt(parts[1]), parts[2], joinName(parts, 3));
+
+			scene.enter(actor);
+		}
+
+		// NOTE: all events are created before replaying to only measure the handling of them
+		final Ticks ticks = createTicks(scene, fightStateManager, client, replay);
+		final long[] eventLatencies = new long[ticks.eventAmount];
+		final long[] tickLatencies = new long[ticks.events.size()];
+		final long allocatedBytesBefore = getAllocatedBytes();
+		long measurementAllocatedBytes = 0;
+		int eventIndex = 0;
+
+		try {
+			for (int tick = 0; tick < ticks.events.size(); tick++)
+			{
+				for (Runnable event : ticks.events.get(tick))
+				{
+					final long startedAt = System.nanoTime();
+					event.run();
+					eventLatencies[eventIndex++] = System.nanoTime() - startedAt;
+				}
+
+				// delayed events are handled after all other events of the tick, just like they are scheduled by the manager
+				for (Runnable event : ticks.delayedEvents.get(tick))
+				{
+					final long startedAt = System.nanoTime();
+					event.run();
+					eventLatencies[eventIndex++] = System.nanoTime() - startedAt;
+				}
+
+				final long startedAt = System.nanoTime();
+				fightStateManager.onGameTick();
+				tickLatencies[tick] = System.nanoTime() - startedAt;
+
+				if (ticks.heapMeasurementTicks.contains(tick))
+				{
+					final long measurementStartedBytes = getAllocatedBytes();
+					replay.retainedHeapBytes.add(measureRetainedHeapBytes());
+					measurementAllocatedBytes += getAllocatedBytes() - measurementStartedBytes;
+				}
+			}
+		} finally {
+			fightStateManager.shutDown();
+		}
+
+		final long allocatedBytesAfter = getAllocatedBytes() - measurementAllocatedBytes;
+
+		replay.eventLatencies = eventLatencies;
+		replay.tickLatencies = tickLatencies;
+		replay.allocatedBytes = (allocatedBytesBefore < 0 ? -1 : allocatedBytesAfter - allocatedBytesBefore);
+
+		return replay;
+	}
+
+	private Ticks createTicks(Scene scene, FightStateManager fightStateManager, Client client, Replay replay)
+	{
+		final Ticks ticks = new Ticks();
+
+		// graphics that still wait for the next hitsplat of the local player to register their statistic
+		final HashMap<Actor, FightGraphic> queuedGraphics = new HashMap<>();
+
+		for (String[] parts : eventLines)
+		{
+			final int tick = Integer.parseInt(parts[0]);
+			final String eventType = parts[1];
+
+			while (ticks.events.size() <= tick)
+			{
+				ticks.events.add(new ArrayList<>());
+				ticks.delayedEvents.add(new ArrayList<>());
+			}
+
+			final ArrayList<Runnable> events = ticks.events.get(tick);
+
+			// events without an actor
+			switch (eventType)
+			{
+				case "heap":
+				{
+					ticks.heapMeasurementTicks.add(tick);
+					continue;
+				}
+				case "xp":
+				{
+					final Skill skill = Skill.valueOf(parts[2].toUpperCase());
+
+					events.add(() -> fightStateManager.onStatChanged(new StatChanged(skill, scene.gainExperience(skill), 1, 1)));
+					ticks.eventAmount++;
+					continue;
+				}
+			}
+
+			final int actorId = Integer.parseInt(parts[2]);
+			ticks.eventAmount++;
+
+			switch (eventType)
+			{
+				case "spawn":
+				{
+					final Actor actor = scene.createActor(actorId, parts[3], joinName(parts, 4));
+
+					events.add(() -> {
+						scene.enter(actor);
+
+						if (actor instanceof NPC)
+						{
+							fightStateManager.onNpcSpawned(new NpcSpawned((NPC) actor));
+							return;
+						}
+
+						fightStateManager.onPlayerSpawned(new PlayerSpawned((Player) actor));
+					});
+					break;
+				}
+				case "despawn":
+				{
+					final Actor actor = scene.getActor(actorId);
+					final boolean isDead = parts[3].equals("dead");
+
+					events.add(() -> {
+						scene.leave(actor, isDead);
+
+						if (actor instanceof NPC)
+						{
+							fightStateManager.onNpcDespawned(new NpcDespawned((NPC) actor));
+							return;
+						}
+
+						fightStateManager.onPlayerDespawned(new PlayerDespawned((Player) actor));
+					});
+					break;
+				}
+				case "interact":
+				{
+					final InteractingChanged interactingChanged = new InteractingChanged(scene.getActor(LOCAL_PLAYER_ID), scene.getActor(actorId));
+
+					events.add(() -> fightStateManager.onInteractingChanged(interactingChanged));
+					break;
+				}
+				case "hit":
+				{
+					final Actor actor = scene.getActor(actorId);
+					final int amount = Integer.parseInt(parts[4]);
+					final HitsplatApplied hitsplatApplied = new HitsplatApplied();
+
+					hitsplatApplied.setActor(actor);
+					hitsplatApplied.setHitsplat(new Hitsplat(getHitsplatType(parts[3]), amount, tick * GAME_CYCLES_PER_TICK + HITSPLAT_DURATION));
+					events.add(() -> fightStateManager.onHitsplatApplied(hitsplatApplied));
+
+					if (parts[3].equals("me"))
+					{
+						replay.expectedHitDamages.merge(actor.getName(), (long) amount, Long::sum);
+					}
+
+					// the first hitsplat of the local player after a graphic registers the damage of the graphic
+					if (!parts[3].equals("other") && queuedGraphics.containsKey(actor))
+					{
+						final FightGraphic graphic = queuedGraphics.remove(actor);
+
+						replay.expectedGraphicHitDamages.computeIfAbsent(actor.getName(), (name) -> new HashMap<>())
+							.merge(graphic.getEntry(), (long) amount, Long::sum);
+					}
+					break;
+				}
+				case "animation":
+				{
+					final Actor actor = scene.getActor(actorId);
+					final int animationId = Integer.parseInt(parts[3]);
+					final AnimationChanged animationChanged = new AnimationChanged();
+
+					animationChanged.setActor(actor);
+					events.add(() -> {
+						scene.animate(actor, animationId);
+						fightStateManager.onAnimationChanged(animationChanged);
+					});
+					break;
+				}
+				case "graphic":
+				{
+					final Actor actor = scene.getActor(actorId);
+					final int graphicId = Integer.parseInt(parts[3]);
+					final FightGraphic graphic = getFightGraphic(graphicId);
+					final GraphicChanged graphicChanged = new GraphicChanged();
+					final ArrayList<Integer> graphicIds = new ArrayList<>();
+
+					graphicChanged.setActor(actor);
+					graphicIds.add(graphicId);
+
+					// NOTE: the manager schedules the delayed handler on the client thread, which does not exist here,
+					// so the scheduled handler is cleared and replayed after the other events of the tick instead
+					events.add(() -> {
+						scene.showGraphic(actor, graphicId);
+						fightStateManager.onGraphicChanged(graphicChanged);
+						fightStateManager.clearScheduledUpdates();
+					});
+					ticks.delayedEvents.get(tick).add(() -> fightStateManager.onGraphicChangedDelayed(
+						actor,
+						graphicIds,
+						fightStateManager.isInMultiCombatArea(),
+						fightStateManager.otherPlayersPresent(actor)
+					));
+					ticks.eventAmount++;
+					queuedGraphics.put(actor, graphic);
+					break;
+				}
+				default:
+					throw new IllegalArgumentException("Unknown event type in fight trace "+ traceName +": "+ eventType);
+			}
+		}
+
+		return ticks;
+	}
+
+	private Client createClient(Scene scene)
+	{
+		final IndexedObjectSet<?> npcs = TestStubs.stub(IndexedObjectSet.class)
+			.with("iterator", (arguments) -> scene.npcs.iterator())
+			.build();
+		final IndexedObjectSet<?> players = TestStubs.stub(IndexedObjectSet.class)
+			.with("iterator", (arguments) -> scene.players.iterator())
+			.build();
+		final WorldView worldView = TestStubs.stub(WorldView.class)
+			.with("npcs", npcs)
+			.with("players", players)
+			.build();
+
+		return TestStubs.stub(Client.class)
+			.with("getLocalPlayer", (arguments) -> scene.getActor(LOCAL_PLAYER_ID))
+			.with("getGameState", GameState.LOGGED_IN)
+			.with("getTopLevelWorldView", worldView)
+			.with("getVarbitValue", (arguments) -> ((int) arguments[0] == VarbitID.MULTIWAY_INDICATOR && isMultiCombatArea) ? 1 : 0)
+			.with("getSkillExperience", (arguments) -> scene.getExperience((Skill) arguments[0]))
+			.build();
+	}
+
+	/**
+	 * Get the fight graphic of the trace, where only graphics that register hit damages are supported
+	 * as the expected statistics are based on the hitsplats that follow the graphic.
+	 */
+	private FightGraphic getFightGraphic(int graphicId)
+	{
+		for (FightGraphic graphic : FightGraphic.values())
+		{
+			if (graphic.getGraphicId() == graphicId && graphic.getProperty() == FightStatisticProperty.HIT_DAMAGES)
+			{
+				return graphic;
+			}
+		}
+
+		throw new IllegalArgumentException("Unsupported graphic in fight trace "+ traceName +": "+ graphicId);
+	}
+
+	private static int getHitsplatType(String source)
+	{
+		switch (source)
+		{
+			case "me":
+				return HitsplatTypeID.DAMAGE_ME;
+			case "other":
+				return HitsplatTypeID.DAMAGE_OTHER;
+			case "block":
+				return HitsplatTypeID.BLOCK_ME;
+		}
+
+		throw new IllegalArgumentException("Unknown hitsplat source in fight trace: "+ source);
+	}
+
+	private static String joinName(String[] parts, int fromIndex)
+	{
+		return String.join(" ", Arrays.copyOfRange(parts, fromIndex, parts.length));
+	}
+
+	/**
+	 * The heap that is still used after collecting all garbage, which is collected several times
+	 * to also clean up objects that are only unreachable after an earlier collection.
+	 */
+	private static long measureRetainedHeapBytes()
+	{
+		final MemoryMXBean memoryBean = ManagementFactory.getMemoryMXBean();
+
+		for (int gcIndex = 0; gcIndex < HEAP_MEASUREMENT_GC_AMOUNT; gcIndex++)
+		{
+			System.gc();
+		}
+
+		return memoryBean.getHeapMemoryUsage().getUsed();
+	}
+
+	private static long getAllocatedBytes()
+	{
+		final ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+
+		// guard: not all JVMs support measuring allocations per thread
+		if (!(threadBean instanceof com.sun.management.ThreadMXBean))
+		{
+			return -1;
+		}
+
+		return ((com.sun.management.ThreadMXBean) threadBean).getThreadAllocatedBytes(Thread.currentThread().getId());
+	}
+
+	/**
+	 * The actors of the trace and which of them are currently in the scene.
+	 */
+	private static class Scene
+	{
+		private final HashMap<Integer, Actor> actors = new HashMap<>();
+		private final HashSet<Integer> deadActorIds = new HashSet<>();
+		private final ArrayList<NPC> npcs = new ArrayList<>();
+		private final ArrayList<Player> players = new ArrayList<>();
+		private final HashMap<Actor, Integer> animationIds = new HashMap<>();
+		private final HashMap<Actor, List<ActorSpotAnim>> spotAnims = new HashMap<>();
+		private final HashMap<Skill, Integer> experiences = new HashMap<>();
+
+		private Actor createActor(int actorId, String actorType, String actorName)
+		{
+			final Actor actor;
+
+			// NOTE: the stubs look up their own state, which is keyed by the actor that does not exist yet
+			final Actor[] self = new Actor[1];
+			final IterableHashTable<?> actorSpotAnims = TestStubs.stub(IterableHashTable.class)
+				.with("iterator", (arguments) -> spotAnims.getOrDefault(self[0], new ArrayList<>()).iterator())
+				.build();
+
+			if (actorType.equals("npc"))
+			{
+				actor = TestStubs.stub(NPC.class)
+					.with("getName", actorName)
+					.with("isDead", (arguments) -> deadActorIds.contains(actorId))
+					.with("getWorldLocation", ACTOR_LOCATION)
+					.with("getAnimation", (arguments) -> animationIds.getOrDefault(self[0], FightStateManager.NO_ANIMATION_ID))
+					.with("getSpotAnims", actorSpotAnims)
+					.build();
+			}
+			else
+			{
+				actor = TestStubs.stub(Player.class)
+					.with("getName", actorName)
+					.with("getHealthRatio", (arguments) -> deadActorIds.contains(actorId) ? 0 : ALIVE_HEALTH_RATIO)
+					.with("getWorldLocation", ACTOR_LOCATION)
+					.with("getAnimation", (arguments) -> animationIds.getOrDefault(self[0], FightStateManager.NO_ANIMATION_ID))
+					.with("getSpotAnims", actorSpotAnims)
+					.build();
+			}
+
+			self[0] = actor;
+			actors.put(actorId, actor);
+
+			return actor;
+		}
+
+		private Actor getActor(int actorId)
+		{
+			final Actor actor = actors.get(actorId);
+
+			if (actor == null)
+			{
+				throw new IllegalArgumentException("Unknown actor in fight trace: "+ actorId);
+			}
+
+			return actor;
+		}
+
+		private void animate(Actor actor, int animationId)
+		{
+			animationIds.put(actor, animationId);
+		}
+
+		/**
+		 * Show a single graphic on the actor, replacing the graphics that were shown before.
+		 */
+		private void showGraphic(Actor actor, int graphicId)
+		{
+			final ArrayList<ActorSpotAnim> actorSpotAnims = new ArrayList<>();
+
+			actorSpotAnims.add(TestStubs.stub(ActorSpotAnim.class).with("getId", graphicId).build());
+			spotAnims.put(actor, actorSpotAnims);
+		}
+
+		private int gainExperience(Skill skill)
+		{
+			return experiences.merge(skill, 1, Integer::sum);
+		}
+
+		private int getExperience(Skill skill)
+		{
+			return experiences.getOrDefault(skill, 0);
+		}
+
+		private void enter(Actor actor)
+		{
+			if (actor instanceof NPC)
+			{
+				npcs.add((NPC) actor);
+				return;
+			}
+
+			players.add((Player) actor);
+		}
+
+		private void leave(Actor actor, boolean isDead)
+		{
+			if (isDead)
+			{
+				for (Integer actorId : actors.keySet())
+				{
+					if (actors.get(actorId) == actor)
+					{
+						deadActorIds.add(actorId);
+					}
+				}
+			}
+
+			npcs.remove(actor);
+			players.remove(actor);
+		}
+	}
+
+	/**
+	 * The events of every tick that are created before replaying.
+	 */
+	private static class Ticks
+	{
+		private final ArrayList<ArrayList<Runnable>> events = new ArrayList<>();
+		private final ArrayList<ArrayList<Runnable>> delayedEvents = new ArrayList<>();
+		private final HashSet<Integer> heapMeasurementTicks = new HashSet<>();
+		private int eventAmount = 0;
+	}
+
+	/**
+	 * The measurements of a single replay and the state of the fights afterwards.
+	 */
+	public static class Replay
+	{
+		private final String traceName;
+		private final FightStateManager fightStateManager;
+		private final HashMap<String, Long> expectedHitDamages = new HashMap<>();
+		private final HashMap<String, HashMap<FightStatisticEntry, Long>> expectedGraphicHitDamages = new HashMap<>();
+		private final ArrayList<Long> retainedHeapBytes = new ArrayList<>();
+		private long[] eventLatencies;
+		private long[] tickLatencies;
+		private long allocatedBytes;
+
+		private Replay(String traceName, FightStateManager fightStateManager)
+		{
+			this.traceName = traceName;
+			this.fightStateManager = fightStateManager;
+		}
+
+		public String getTraceName()
+		{
+			return traceName;
+		}
+
+		public FightStateManager getFightStateManager()
+		{
+			return fightStateManager;
+		}
+
+		/**
+		 * The hit damage of the local player on all actors with the same name according to the trace.
+		 */
+		public HashMap<String, Long> getExpectedHitDamages()
+		{
+			return expectedHitDamages;
+		}
+
+		/**
+		 * The hit damage that is registered by graphics on all actors with the same name per statistic according to the trace.
+		 */
+		public HashMap<String, HashMap<FightStatisticEntry, Long>> getExpectedGraphicHitDamages()
+		{
+			return expectedGraphicHitDamages;
+		}
+
+		/**
+		 * The retained heap at the ticks the trace asked for in the order of the ticks.
+		 */
+		public ArrayList<Long> getRetainedHeapBytes()
+		{
+			return retainedHeapBytes;
+		}
+
+		public long getEventLatencyPercentile(double percentile)
+		{
+			return getPercentile(eventLatencies, percentile);
+		}
+
+		public long getTickLatencyPercentile(double percentile)
+		{
+			return getPercentile(tickLatencies, percentile);
+		}
+
+		/**
+		 * The average amount of bytes that are allocated per game tick, or -1 when it could not be measured.
+		 */
+		public long getAverageTickAllocatedBytes()
+		{
+			if (allocatedBytes < 0 || tickLatencies.length <= 0)
+			{
+				return -1;
+			}
+
+			return allocatedBytes / tickLatencies.length;
+		}
+
+		private static long getPercentile(long[] samples, double percentile)
+		{
+			if (samples.length <= 0)
+			{
+				return 0;
+			}
+
+			final long[] sortedSamples = Arrays.copyOf(samples, samples.length);
+			Arrays.sort(sortedSamples);
+
+			final int index = (int) Math.ceil(percentile * sortedSamples.length) - 1;
+
+			return sortedSamples[Math.max(0, Math.min(index, sortedSamples.length - 1))];
+		}
+	}
+}
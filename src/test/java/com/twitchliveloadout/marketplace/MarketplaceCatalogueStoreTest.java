@@ -0,0 +1,268 @@
+package com.twitchliveloadout.marketplace;
+
+import com.twitchliveloadout.marketplace.products.EbsBehaviour;
+import com.twitchliveloadout.marketplace.products.EbsProduct;
+import com.twitchliveloadout.marketplace.products.StreamerProduct;
+import com.twitchliveloadout.marketplace.transactions.TwitchTransaction;
+import com.twitchliveloadout.marketplace.transactions.TwitchTransactionScheduler;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class MarketplaceCatalogueStoreTest
+{
+	private static final int GENERATION_AMOUNT = 2000;
+	private static final int PRODUCT_AMOUNT = 5;
+	private static final int READER_AMOUNT = 4;
+	private static final int WRITER_AMOUNT = 4;
+	private static final int WRITER_PRODUCT_AMOUNT = 250;
+
+	private TwitchTransactionScheduler scheduler;
+	private MarketplaceCatalogueStore store;
+
+	@Before
+	public void setUp()
+	{
+		scheduler = new TwitchTransactionScheduler();
+		store = new MarketplaceCatalogueStore(scheduler);
+	}
+
+	@Test
+	public void startsEmpty()
+	{
+		assertSame(MarketplaceCatalogue.EMPTY, store.get());
+	}
+
+	@Test
+	public void wakesTransactionsWaitingForProducts()
+	{
+		final TwitchTransaction transaction = parkTransaction(TwitchTransactionScheduler.ParkReason.PRODUCT);
+		final TwitchTransaction cooldownTransaction = parkTransaction(TwitchTransactionScheduler.ParkReason.COOLDOWN);
+
+		assertNull(scheduler.poll(0));
+
+		store.update((catalogue) -> catalogue.withStreamerProducts(createStreamerProducts(1)));
+
+		assertSame(transaction, scheduler.poll(0));
+
+		// only the transactions waiting for products are woken up
+		assertNull(scheduler.poll(0));
+		assertTrue(scheduler.contains(cooldownTransaction));
+	}
+
+	@Test
+	public void readersNeverSeeAMixedSnapshot() throws Exception
+	{
+		final CountDownLatch startLatch = new CountDownLatch(1);
+		final AtomicBoolean isWriting = new AtomicBoolean(true);
+		final CopyOnWriteArrayList<String> errors = new CopyOnWriteArrayList<>();
+		final ArrayList<Thread> readers = new ArrayList<>();
+		final TwitchTransaction transaction = parkTransaction(TwitchTransactionScheduler.ParkReason.PRODUCT);
+
+		for (int readerIndex = 0; readerIndex < READER_AMOUNT; readerIndex++)
+		{
+			final Thread reader = new Thread(() -> {
+				int lastGeneration = -1;
+
+				awaitQuietly(startLatch);
+
+				while (isWriting.get())
+				{
+					final int generation = verifySnapshot(store.get(), errors);
+
+					// snapshots are only replaced by newer ones
+					if (generation < lastGeneration)
+					{
+						errors.add("Generation "+ generation +" was read after generation "+ lastGeneration);
+					}
+
+					lastGeneration = generation;
+				}
+			});
+
+			reader.start();
+			readers.add(reader);
+		}
+
+		startLatch.countDown();
+
+		for (int generation = 0; generation < GENERATION_AMOUNT; generation++)
+		{
+			final List<StreamerProduct> streamerProducts = createStreamerProducts(generation);
+			final List<EbsProduct> ebsProducts = createEbsProducts(generation);
+
+			// both lists are replaced in a single update which should be published at once
+			store.update((catalogue) -> catalogue
+				.withStreamerProducts(streamerProducts)
+				.withEbsProducts(ebsProducts));
+		}
+
+		isWriting.set(false);
+
+		for (Thread reader : readers)
+		{
+			reader.join();
+		}
+
+		assertEquals("[]", errors.toString());
+		assertEquals(GENERATION_AMOUNT - 1, verifySnapshot(store.get(), errors));
+		assertSame(transaction, scheduler.poll(0));
+	}
+
+	@Test
+	public void doesNotLoseConcurrentUpdates() throws Exception
+	{
+		final CountDownLatch startLatch = new CountDownLatch(1);
+		final ArrayList<Thread> writers = new ArrayList<>();
+
+		for (int writerIndex = 0; writerIndex < WRITER_AMOUNT; writerIndex++)
+		{
+			final int writerOffset = writerIndex * WRITER_PRODUCT_AMOUNT;
+			final Thread writer = new Thread(() -> {
+				awaitQuietly(startLatch);
+
+				for (int productIndex = 0; productIndex < WRITER_PRODUCT_AMOUNT; productIndex++)
+				{
+					final EbsProduct customEbsProduct = createEbsProduct("custom-"+ (writerOffset + productIndex), "Custom");
+
+					store.update((catalogue) -> catalogue.withCustomEbsProduct(customEbsProduct));
+				}
+			});
+
+			writer.start();
+			writers.add(writer);
+		}
+
+		startLatch.countDown();
+
+		for (Thread writer : writers)
+		{
+			writer.join();
+		}
+
+		final MarketplaceCatalogue catalogue = store.get();
+
+		assertEquals(WRITER_AMOUNT * WRITER_PRODUCT_AMOUNT, catalogue.getCustomEbsProducts().size());
+
+		for (int productIndex = 0; productIndex < WRITER_AMOUNT * WRITER_PRODUCT_AMOUNT; productIndex++)
+		{
+			assertSame(catalogue.getEbsProductById("custom-"+ productIndex), catalogue.getEbsProductPlanById("custom-"+ productIndex).getEbsProduct());
+		}
+	}
+
+	/**
+	 * Check that all lists and lookups of a snapshot are of the same generation and return that generation.
+	 */
+	private static int verifySnapshot(MarketplaceCatalogue catalogue, List<String> errors)
+	{
+		final List<StreamerProduct> streamerProducts = catalogue.getStreamerProducts();
+		final List<EbsProduct> ebsProducts = catalogue.getEbsProducts();
+
+		// guard: nothing is published yet
+		if (streamerProducts.isEmpty() && ebsProducts.isEmpty())
+		{
+			return -1;
+		}
+
+		final String generation = streamerProducts.get(0).id;
+
+		if (streamerProducts.size() != PRODUCT_AMOUNT || ebsProducts.size() != PRODUCT_AMOUNT)
+		{
+			errors.add("Generation "+ generation +" has "+ streamerProducts.size() +" streamer and "+ ebsProducts.size() +" EBS products");
+			return Integer.parseInt(generation);
+		}
+
+		for (int productIndex = 0; productIndex < PRODUCT_AMOUNT; productIndex++)
+		{
+			final StreamerProduct streamerProduct = streamerProducts.get(productIndex);
+			final EbsProduct ebsProduct = ebsProducts.get(productIndex);
+
+			if (!generation.equals(streamerProduct.id) || !generation.equals(ebsProduct.name))
+			{
+				errors.add("Generation "+ generation +" contains products of generation "+ streamerProduct.id +" and "+ ebsProduct.name);
+			}
+
+			if (catalogue.getStreamerProductBySku(streamerProduct.twitchProductSku) != streamerProduct)
+			{
+				errors.add("Generation "+ generation +" has a streamer product lookup of another generation");
+			}
+
+			if (catalogue.getEbsProductById(ebsProduct.id) != ebsProduct || catalogue.getEbsProductPlanById(ebsProduct.id).getEbsProduct() != ebsProduct)
+			{
+				errors.add("Generation "+ generation +" has an EBS product lookup or plan of another generation");
+			}
+		}
+
+		return Integer.parseInt(generation);
+	}
+
+	private TwitchTransaction parkTransaction(TwitchTransactionScheduler.ParkReason reason)
+	{
+		final TwitchTransaction transaction = new TwitchTransaction();
+
+		scheduler.add(transaction);
+		scheduler.poll(0);
+		scheduler.park(transaction, reason, null);
+
+		return transaction;
+	}
+
+	private static List<StreamerProduct> createStreamerProducts(int generation)
+	{
+		final ArrayList<StreamerProduct> streamerProducts = new ArrayList<>();
+
+		for (int productIndex = 0; productIndex < PRODUCT_AMOUNT; productIndex++)
+		{
+			final StreamerProduct streamerProduct = new StreamerProduct();
+
+			streamerProduct.id = String.valueOf(generation);
+			streamerProduct.twitchProductSku = "sku-"+ productIndex;
+			streamerProduct.ebsProductId = "ebs-"+ productIndex;
+			streamerProducts.add(streamerProduct);
+		}
+
+		return streamerProducts;
+	}
+
+	private static List<EbsProduct> createEbsProducts(int generation)
+	{
+		final ArrayList<EbsProduct> ebsProducts = new ArrayList<>();
+
+		for (int productIndex = 0; productIndex < PRODUCT_AMOUNT; productIndex++)
+		{
+			ebsProducts.add(createEbsProduct("ebs-"+ productIndex, String.valueOf(generation)));
+		}
+
+		return ebsProducts;
+	}
+
+	private static EbsProduct createEbsProduct(String id, String name)
+	{
+		final EbsProduct ebsProduct = new EbsProduct();
+
+		ebsProduct.id = id;
+		ebsProduct.name = name;
+		ebsProduct.behaviour = new EbsBehaviour();
+
+		return ebsProduct;
+	}
+
+	private static void awaitQuietly(CountDownLatch latch)
+	{
+		try {
+			latch.await();
+		} catch (InterruptedException exception) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}
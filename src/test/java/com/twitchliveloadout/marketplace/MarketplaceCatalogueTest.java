@@ -0,0 +1,87 @@
+package com.twitchliveloadout.marketplace;
+
+import com.twitchliveloadout.marketplace.products.EbsBehaviour;
+import com.twitchliveloadout.marketplace.products.EbsProduct;
+import com.twitchliveloadout.marketplace.products.EbsProductPlan;
+import com.twitchliveloadout.marketplace.products.StreamerProduct;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class MarketplaceCatalogueTest
+{
+	@Test
+	public void compilesEditedProductsOfANewFetch()
+	{
+		final EbsProduct ebsProduct = createEbsProduct("a", "Before");
+		final EbsProduct editedEbsProduct = createEbsProduct("a", "After");
+
+		// NOTE: edited products keep the same ID and version
+		final MarketplaceCatalogue catalogue = MarketplaceCatalogue.EMPTY.withEbsProducts(Collections.singletonList(ebsProduct));
+		final EbsProductPlan plan = catalogue.getEbsProductPlanById("a");
+		final MarketplaceCatalogue refetchedCatalogue = catalogue.withEbsProducts(Collections.singletonList(editedEbsProduct));
+		final EbsProductPlan refetchedPlan = refetchedCatalogue.getEbsProductPlanById("a");
+
+		assertSame(ebsProduct, plan.getEbsProduct());
+		assertNotSame(plan, refetchedPlan);
+		assertSame(editedEbsProduct, refetchedPlan.getEbsProduct());
+		assertSame(editedEbsProduct, refetchedCatalogue.getEbsProductById("a"));
+	}
+
+	@Test
+	public void reusesPlansWhenOtherListsChange()
+	{
+		final EbsProduct ebsProduct = createEbsProduct("a", "Product");
+		final MarketplaceCatalogue catalogue = MarketplaceCatalogue.EMPTY.withEbsProducts(Collections.singletonList(ebsProduct));
+		final MarketplaceCatalogue updatedCatalogue = catalogue
+			.withStreamerProducts(Collections.singletonList(new StreamerProduct()))
+			.withChannelPointRewards(Collections.emptyList());
+
+		assertSame(catalogue.getEbsProductPlanById("a"), updatedCatalogue.getEbsProductPlanById("a"));
+	}
+
+	@Test
+	public void prioritizesEditedCustomProducts()
+	{
+		final EbsProduct ebsProduct = createEbsProduct("a", "Fetched");
+		final EbsProduct customEbsProduct = createEbsProduct("a", "Custom");
+		final EbsProduct editedCustomEbsProduct = createEbsProduct("a", "Edited");
+		final MarketplaceCatalogue catalogue = MarketplaceCatalogue.EMPTY
+			.withEbsProducts(Collections.singletonList(ebsProduct))
+			.withCustomEbsProduct(customEbsProduct);
+		final MarketplaceCatalogue editedCatalogue = catalogue.withCustomEbsProduct(editedCustomEbsProduct);
+
+		assertSame(customEbsProduct, catalogue.getEbsProductPlanById("a").getEbsProduct());
+		assertSame(editedCustomEbsProduct, editedCatalogue.getEbsProductPlanById("a").getEbsProduct());
+		assertSame(editedCustomEbsProduct, editedCatalogue.getEbsProductById("a"));
+	}
+
+	@Test
+	public void dropsPlansOfRemovedProducts()
+	{
+		final MarketplaceCatalogue catalogue = MarketplaceCatalogue.EMPTY.withEbsProducts(Arrays.asList(
+			createEbsProduct("a", "First"),
+			createEbsProduct("b", "Second")
+		));
+		final MarketplaceCatalogue refetchedCatalogue = catalogue.withEbsProducts(Collections.singletonList(createEbsProduct("b", "Second")));
+
+		assertNull(refetchedCatalogue.getEbsProductPlanById("a"));
+		assertNull(refetchedCatalogue.getEbsProductById("a"));
+	}
+
+	private static EbsProduct createEbsProduct(String id, String name)
+	{
+		final EbsProduct ebsProduct = new EbsProduct();
+
+		ebsProduct.id = id;
+		ebsProduct.name = name;
+		ebsProduct.behaviour = new EbsBehaviour();
+
+		return ebsProduct;
+	}
+}
@@ -0,0 +1,178 @@
+package com.twitchliveloadout.marketplace;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static com.twitchliveloadout.marketplace.MarketplaceFrameBudget.MAX_DEFERRED_FRAMES;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class MarketplaceFrameBudgetTest
+{
+	private static final int BUDGET_MS = 2;
+	private static final long NANOS_PER_MS = 1000 * 1000;
+	private static final long REPORT_INTERVAL_MS = 60 * 1000;
+	private static final MarketplaceTimer DEFERRABLE_TIMER = MarketplaceTimer.PRODUCT_BEHAVIOURS;
+	private static final MarketplaceTimer OTHER_DEFERRABLE_TIMER = MarketplaceTimer.RESPAWNS;
+	private static final MarketplaceTimer REQUIRED_TIMER = MarketplaceTimer.DRAWS;
+
+	private long nowNanos;
+	private MarketplaceFrameBudget frameBudget;
+
+	@Before
+	public void setUp()
+	{
+		// NOTE: start close to an overflow of the nano clock to make sure only differences are used
+		nowNanos = Long.MAX_VALUE - 5 * NANOS_PER_MS;
+		frameBudget = new MarketplaceFrameBudget(() -> nowNanos);
+	}
+
+	@Test
+	public void allowsTimersWithinTheBudget()
+	{
+		frameBudget.startFrame(BUDGET_MS);
+		advanceMs(BUDGET_MS - 1);
+
+		assertTrue(frameBudget.allows(DEFERRABLE_TIMER));
+		assertTrue(frameBudget.allows(REQUIRED_TIMER));
+	}
+
+	@Test
+	public void defersOnlyDeferrableTimersOnceTheBudgetIsSpent()
+	{
+		frameBudget.startFrame(BUDGET_MS);
+		advanceMs(BUDGET_MS);
+
+		assertFalse(frameBudget.allows(DEFERRABLE_TIMER));
+		assertFalse(frameBudget.allows(OTHER_DEFERRABLE_TIMER));
+		assertTrue(frameBudget.allows(REQUIRED_TIMER));
+	}
+
+	@Test
+	public void forcesTimersThatAreDeferredTooOften()
+	{
+		for (int frameIndex = 0; frameIndex < MAX_DEFERRED_FRAMES; frameIndex++)
+		{
+			assertFalse("Allowed in frame "+ frameIndex, allowsInSpentFrame(DEFERRABLE_TIMER));
+		}
+
+		assertTrue(allowsInSpentFrame(DEFERRABLE_TIMER));
+
+		// the deferrals are counted from the start again after the timer is forced
+		assertFalse(allowsInSpentFrame(DEFERRABLE_TIMER));
+	}
+
+	@Test
+	public void countsDeferralsPerTimer()
+	{
+		for (int frameIndex = 0; frameIndex < MAX_DEFERRED_FRAMES; frameIndex++)
+		{
+			allowsInSpentFrame(DEFERRABLE_TIMER);
+		}
+
+		assertFalse(allowsInSpentFrame(OTHER_DEFERRABLE_TIMER));
+		assertTrue(allowsInSpentFrame(DEFERRABLE_TIMER));
+	}
+
+	@Test
+	public void restartsCountingDeferralsWhenAllowed()
+	{
+		for (int frameIndex = 0; frameIndex < MAX_DEFERRED_FRAMES - 1; frameIndex++)
+		{
+			allowsInSpentFrame(DEFERRABLE_TIMER);
+		}
+
+		frameBudget.startFrame(BUDGET_MS);
+		assertTrue(frameBudget.allows(DEFERRABLE_TIMER));
+		frameBudget.endFrame();
+
+		assertFalse(allowsInSpentFrame(DEFERRABLE_TIMER));
+	}
+
+	@Test
+	public void reportsExceededBudgetsOncePerInterval()
+	{
+		frameBudget.startFrame(BUDGET_MS);
+		advanceMs(3);
+		frameBudget.allows(DEFERRABLE_TIMER);
+		assertNull(frameBudget.endFrame());
+
+		for (int frameIndex = 0; frameIndex < MAX_DEFERRED_FRAMES; frameIndex++)
+		{
+			allowsInSpentFrame(OTHER_DEFERRABLE_TIMER);
+		}
+
+		frameBudget.startFrame(BUDGET_MS);
+		advanceMs(1);
+		frameBudget.allows(DEFERRABLE_TIMER);
+		advanceMs(REPORT_INTERVAL_MS);
+
+		assertEquals(
+			"Marketplace frame budget of 2ms was exceeded in "+ (MAX_DEFERRED_FRAMES + 2) +" of "+ (MAX_DEFERRED_FRAMES + 2) +" frames"
+				+" (max frame: "+ (REPORT_INTERVAL_MS + 1) * 1000 +"us), deferred work "+ (MAX_DEFERRED_FRAMES + 1) +" time(s) and forced deferred work 0 time(s).",
+			frameBudget.endFrame()
+		);
+
+		// the statistics are cleared after a report
+		advanceMs(REPORT_INTERVAL_MS);
+		frameBudget.startFrame(BUDGET_MS);
+		assertNull(frameBudget.endFrame());
+	}
+
+	@Test
+	public void reportsForcedTimers()
+	{
+		for (int frameIndex = 0; frameIndex <= MAX_DEFERRED_FRAMES; frameIndex++)
+		{
+			allowsInSpentFrame(DEFERRABLE_TIMER);
+		}
+
+		frameBudget.startFrame(BUDGET_MS);
+		advanceMs(REPORT_INTERVAL_MS);
+
+		assertTrue(frameBudget.endFrame().endsWith("deferred work "+ MAX_DEFERRED_FRAMES +" time(s) and forced deferred work 1 time(s)."));
+	}
+
+	@Test
+	public void doesNotReportWithinTheBudget()
+	{
+		for (int frameIndex = 0; frameIndex < 10; frameIndex++)
+		{
+			runFrame(BUDGET_MS);
+		}
+
+		// the time between frames does not count towards the budget
+		advanceMs(REPORT_INTERVAL_MS);
+		frameBudget.startFrame(BUDGET_MS);
+		advanceMs(BUDGET_MS);
+
+		assertNull(frameBudget.endFrame());
+	}
+
+	/**
+	 * Start a frame, spend the whole budget and check whether the timer is allowed.
+	 */
+	private boolean allowsInSpentFrame(MarketplaceTimer timer)
+	{
+		frameBudget.startFrame(BUDGET_MS);
+		advanceMs(BUDGET_MS + 1);
+		boolean isAllowed = frameBudget.allows(timer);
+		frameBudget.endFrame();
+
+		return isAllowed;
+	}
+
+	private void runFrame(int spentMs)
+	{
+		frameBudget.startFrame(BUDGET_MS);
+		advanceMs(spentMs);
+		frameBudget.endFrame();
+	}
+
+	private void advanceMs(long deltaMs)
+	{
+		nowNanos += deltaMs * NANOS_PER_MS;
+	}
+}
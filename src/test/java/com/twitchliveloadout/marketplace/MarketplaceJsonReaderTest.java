@@ -0,0 +1,96 @@
+package com.twitchliveloadout.marketplace;
+
+import com.google.gson.stream.JsonReader;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class MarketplaceJsonReaderTest
+{
+
+	/**
+	 * Reads the ID of an entry and fails halfway when the entry has a broken property.
+	 */
+	private static final MarketplaceJsonReader.EntryReader<String> ID_READER = (reader) -> {
+		String id = null;
+		reader.beginObject();
+
+		while (reader.hasNext())
+		{
+			switch (reader.nextName())
+			{
+				case "id": id = MarketplaceJsonReader.nextString(reader); break;
+				case "broken":
+					reader.beginObject();
+					reader.nextName();
+					reader.beginArray();
+					throw new IllegalStateException("Broken entry");
+				default: reader.skipValue();
+			}
+		}
+
+		reader.endObject();
+		return id;
+	};
+
+	@Test
+	public void skipsTheRemainderOfABrokenEntry() throws IOException
+	{
+		final MarketplaceJsonReader.Response<String> response = read("{\"data\": ["
+			+ "{\"id\": \"a\"},"
+			+ "{\"id\": \"b\", \"broken\": {\"list\": [1, [2, 3], {\"id\": \"nested\"}], \"after\": {\"id\": \"nested\"}}, \"id\": \"after\"},"
+			+ "{\"id\": \"c\"}"
+			+ "], \"status\": true, \"message\": \"done\"}");
+
+		assertEquals(Arrays.asList("a", "c"), response.getEntries());
+		assertEquals(1, response.getInvalidEntryAmount());
+		assertTrue(response.isStatus());
+		assertEquals("done", response.getMessage());
+	}
+
+	@Test
+	public void skipsAnEntryThatFailedBeforeItWasRead() throws IOException
+	{
+		final MarketplaceJsonReader.Response<String> response = read("{\"data\": [{\"id\": \"a\"}, \"b\", {\"id\": \"c\"}], \"status\": true}");
+
+		assertEquals(Arrays.asList("a", "c"), response.getEntries());
+		assertEquals(1, response.getInvalidEntryAmount());
+		assertTrue(response.isStatus());
+	}
+
+	@Test
+	public void countsEntriesThatAreNull() throws IOException
+	{
+		final MarketplaceJsonReader.Response<String> response = read("{\"data\": [{}, {\"id\": \"a\"}], \"status\": true}");
+
+		assertEquals(Arrays.asList("a"), response.getEntries());
+		assertEquals(1, response.getInvalidEntryAmount());
+	}
+
+	@Test(expected = IOException.class)
+	public void abortsOnATruncatedBrokenEntry() throws IOException
+	{
+		read("{\"data\": [{\"id\": \"a\"}, {\"broken\": {\"list\": [1, 2");
+	}
+
+	@Test
+	public void readsNestedLists() throws IOException
+	{
+		final JsonReader reader = new JsonReader(new StringReader("[[1, 2], null, [], \"skipped\"]"));
+
+		assertEquals(
+			Arrays.asList(Arrays.asList(1, 2), null, Arrays.asList(), null),
+			MarketplaceJsonReader.nextList(reader, (listReader) -> MarketplaceJsonReader.nextList(listReader, MarketplaceJsonReader::nextIntegerOrNull))
+		);
+	}
+
+	private static MarketplaceJsonReader.Response<String> read(String json) throws IOException
+	{
+		return MarketplaceJsonReader.readResponse(new StringReader(json), "data", ID_READER);
+	}
+}
@@ -0,0 +1,517 @@
+package com.twitchliveloadout.marketplace;
+
+import com.twitchliveloadout.marketplace.MarketplaceMessages.MarketplaceMessageTemplate;
+import com.twitchliveloadout.marketplace.products.EbsBehaviour;
+import com.twitchliveloadout.marketplace.products.EbsProduct;
+import com.twitchliveloadout.marketplace.products.EbsProductPlan;
+import com.twitchliveloadout.marketplace.products.MarketplaceProduct;
+import com.twitchliveloadout.marketplace.products.StreamerProduct;
+import com.twitchliveloadout.marketplace.products.TwitchProduct;
+import com.twitchliveloadout.marketplace.products.TwitchProductCost;
+import com.twitchliveloadout.marketplace.transactions.TwitchTransaction;
+import com.twitchliveloadout.twitch.eventsub.messages.*;
+import org.junit.Test;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+/**
+ * The messages used to be formatted by replacing every template with a regular expression,
+ * these tests compare the current formatting with a copy of that original implementation.
+ */
+public class MarketplaceMessagesTest
+{
+	private static final String TRANSACTION_AT = "2024-01-01T12:00:00Z";
+	private static final long EFFECT_DURATION_S = 90;
+	private static final String[] UNKNOWN_TEMPLATE_MESSAGES = {
+		"",
+		"   ",
+		"No templates at all",
+		"  Trimmed without templates  ",
+		"{unknown}",
+		"{viewername}",
+		"{ viewerName }",
+		"{}",
+		"{{viewerName}",
+		"{viewerName}}",
+		"{{viewerName}}",
+		"{viewerName",
+		"viewerName}",
+		"}{viewerName}{",
+		"{unknown{viewerName}",
+		"{viewerName{productName}}",
+		"{viewerName}{viewerName} and {viewerName}",
+		"  {viewerName} bought {productName} for {currencyAmount} {currencyType}!  ",
+		"Unknown {unknown} next to {channelName}",
+		"<b color='yellow'>{viewerName}</b>",
+		"Costs $5 or \\5 for {viewerName}",
+	};
+
+	@Test
+	public void formatsEveryTemplateLikeReplaceAll()
+	{
+		final ArrayList<String> messages = new ArrayList<>();
+		final StringBuilder allTemplatesMessage = new StringBuilder(" ");
+
+		for (MarketplaceMessageTemplate template : MarketplaceMessageTemplate.values())
+		{
+			messages.add("{"+ template.getName() +"}");
+			messages.add("Before {"+ template.getName() +"} after");
+			allTemplatesMessage.append(template.name()).append(": {").append(template.getName()).append("} ");
+		}
+
+		messages.add(allTemplatesMessage.toString());
+
+		assertFormatsLikeReplaceAll(messages);
+	}
+
+	@Test
+	public void keepsUnknownTemplatesLikeReplaceAll()
+	{
+		final ArrayList<String> messages = new ArrayList<>();
+
+		for (String message : UNKNOWN_TEMPLATE_MESSAGES)
+		{
+			messages.add(message);
+		}
+
+		assertFormatsLikeReplaceAll(messages);
+	}
+
+	@Test
+	public void insertsDollarsAndBackslashesLiterally()
+	{
+		final String[] viewerNames = { "$", "$1", "Cash$$", "\\", "Back\\slash", "\\$0\\" };
+
+		for (String viewerName : viewerNames)
+		{
+			final MarketplaceProduct product = createProduct(createTransaction(viewerName, null), createStreamerProduct("Product"), null);
+			final String message = "Thanks {viewerName}!";
+
+			assertEquals("Thanks "+ viewerName +"!", MarketplaceMessages.formatMessage(message, product, null));
+			assertEquals("Thanks "+ viewerName +"!", new MarketplaceMessages.FormattedMessage().format(message, product, null));
+
+			// NOTE: the replacement of the original implementation interpreted these characters
+			try {
+				assertNotEquals("Thanks "+ viewerName +"!", formatMessageWithReplaceAll(message, product, null));
+			} catch (IllegalArgumentException | IndexOutOfBoundsException exception) {
+				// a group reference or trailing backslash that could not be replaced at all
+			}
+		}
+	}
+
+	@Test
+	public void doesNotFormatTemplatesInValues()
+	{
+		final MarketplaceProduct product = createProduct(createTransaction("{productName}", null), createStreamerProduct("{viewerName}"), null);
+
+		// the original implementation replaced the templates in the order of the enum, also in the inserted values
+		assertEquals("{productName} bought {viewerName}", MarketplaceMessages.formatMessage("{viewerName} bought {productName}", product, null));
+	}
+
+	@Test
+	public void reusesTheFormattedMessageWhenNothingChanged()
+	{
+		final TwitchTransaction transaction = createTransaction("Viewer", null);
+		final MarketplaceProduct product = createProduct(transaction, createStreamerProduct("Product"), null);
+		final MarketplaceMessages.FormattedMessage formattedMessage = new MarketplaceMessages.FormattedMessage();
+		final String message = " {viewerName} bought {productName} ";
+		final String formatted = formattedMessage.format(message, product, null);
+
+		assertEquals("Viewer bought Product", formatted);
+		assertSame(formatted, formattedMessage.format(message, product, null));
+
+		// a copy of the message with the same content is the same message
+		assertSame(formatted, formattedMessage.format(new String(message), product, null));
+	}
+
+	@Test
+	public void formatsAgainWhenAValueChanged()
+	{
+		final TwitchTransaction transaction = createTransaction("Viewer", null);
+		final MarketplaceProduct product = createProduct(transaction, createStreamerProduct("Product"), null);
+		final MarketplaceMessages.FormattedMessage formattedMessage = new MarketplaceMessages.FormattedMessage();
+		final String message = "{viewerName} bought {productName}";
+		final String formatted = formattedMessage.format(message, product, null);
+
+		transaction.user_name = "Other viewer";
+		final String changedFormatted = formattedMessage.format(message, product, null);
+
+		assertNotSame(formatted, changedFormatted);
+		assertEquals("Other viewer bought Product", changedFormatted);
+		assertSame(changedFormatted, formattedMessage.format(message, product, null));
+
+		// a value that is no longer available is removed
+		transaction.user_name = null;
+		assertEquals("bought Product", formattedMessage.format(message, product, null));
+
+		transaction.user_name = "Viewer";
+		assertEquals(formatted, formattedMessage.format(message, product, null));
+	}
+
+	@Test
+	public void formatsAgainWhenTheSourceChanged()
+	{
+		final MarketplaceProduct product = createProduct(createTransaction("Viewer", null), createStreamerProduct("Product"), null);
+		final MarketplaceProduct otherProduct = createProduct(createTransaction("Other viewer", null), createStreamerProduct("Other product"), null);
+		final MarketplaceMessages.FormattedMessage formattedMessage = new MarketplaceMessages.FormattedMessage();
+		final String message = "{viewerName} bought {productName}";
+
+		assertEquals("Viewer bought Product", formattedMessage.format(message, product, null));
+		assertEquals("Other viewer bought Other product", formattedMessage.format(message, otherProduct, null));
+		assertEquals("viewer bought Random Event", formattedMessage.format(message, null, null));
+	}
+
+	@Test
+	public void formatsAgainWhenTheMessageChanged()
+	{
+		final MarketplaceProduct product = createProduct(createTransaction("Viewer", null), createStreamerProduct("Product"), null);
+		final MarketplaceMessages.FormattedMessage formattedMessage = new MarketplaceMessages.FormattedMessage();
+
+		assertEquals("Viewer bought Product", formattedMessage.format("{viewerName} bought {productName}", product, null));
+		assertEquals("Product by Viewer", formattedMessage.format("{productName} by {viewerName}", product, null));
+		assertEquals("Without templates", formattedMessage.format(" Without templates ", product, null));
+		assertEquals("Viewer", formattedMessage.format("{viewerName}", product, null));
+		assertEquals("{unknown} Viewer", formattedMessage.format("{unknown} {viewerName}", product, null));
+	}
+
+	@Test
+	public void formatsAgainAfterTheCompiledMessagesAreCleared()
+	{
+		final TwitchTransaction transaction = createTransaction("Viewer", null);
+		final MarketplaceProduct product = createProduct(transaction, createStreamerProduct("Product"), null);
+		final MarketplaceMessages.FormattedMessage formattedMessage = new MarketplaceMessages.FormattedMessage();
+		final String message = "{viewerName} bought {productName}";
+
+		assertEquals("Viewer bought Product", formattedMessage.format(message, product, null));
+
+		// more unique messages than are kept compiled
+		for (int messageIndex = 0; messageIndex < 1000; messageIndex++)
+		{
+			assertEquals("Message "+ messageIndex +" by Viewer", MarketplaceMessages.formatMessage("Message "+ messageIndex +" by {viewerName}", product, null));
+		}
+
+		transaction.user_name = "Other viewer";
+
+		assertEquals("Other viewer bought Product", formattedMessage.format(message, product, null));
+		assertEquals("Other viewer bought Product", MarketplaceMessages.formatMessage(message, product, null));
+	}
+
+	private void assertFormatsLikeReplaceAll(ArrayList<String> messages)
+	{
+		for (Map.Entry<String, Source> source : createSources().entrySet())
+		{
+			final MarketplaceProduct product = source.getValue().product;
+			final MarketplaceEffect<?> effect = source.getValue().effect;
+			final MarketplaceMessages.FormattedMessage formattedMessage = new MarketplaceMessages.FormattedMessage();
+
+			for (String message : messages)
+			{
+				final String description = "'"+ message +"' with "+ source.getKey();
+
+				// NOTE: the durations that are left are computed twice, which can differ when a second passed in between
+				final String expectedBefore = formatMessageWithReplaceAll(message, product, effect);
+				final String formatted = MarketplaceMessages.formatMessage(message, product, effect);
+				final String formattedAgain = formattedMessage.format(message, product, effect);
+				final String expectedAfter = formatMessageWithReplaceAll(message, product, effect);
+
+				assertEqualsEither(description, expectedBefore, expectedAfter, formatted);
+				assertEqualsEither(description +" formatted again", expectedBefore, expectedAfter, formattedAgain);
+			}
+		}
+	}
+
+	private static void assertEqualsEither(String description, String expected, String otherExpected, String actual)
+	{
+		if (!actual.equals(expected) && !actual.equals(otherExpected))
+		{
+			fail(description +" expected: <"+ expected +"> but was: <"+ actual +">");
+		}
+	}
+
+	private static class Source
+	{
+		private final MarketplaceProduct product;
+		private final MarketplaceEffect<?> effect;
+
+		private Source(MarketplaceProduct product, MarketplaceEffect<?> effect)
+		{
+			this.product = product;
+			this.effect = effect;
+		}
+	}
+
+	private static LinkedHashMap<String, Source> createSources()
+	{
+		final LinkedHashMap<String, Source> sources = new LinkedHashMap<>();
+		final LinkedHashMap<String, BaseMessage> eventSubMessages = new LinkedHashMap<>();
+
+		final ChannelFollow follow = fillUserInfo(new ChannelFollow());
+		eventSubMessages.put("follow", follow);
+
+		final ChannelContinueSubscription subscription = fillUserInfo(new ChannelContinueSubscription());
+		subscription.duration_months = 3;
+		subscription.cumulative_months = 14;
+		eventSubMessages.put("subscription", subscription);
+
+		final ChannelGiftSubscription giftSubscription = fillUserInfo(new ChannelGiftSubscription());
+		giftSubscription.total = 5;
+		giftSubscription.cumulative_total = 25;
+		eventSubMessages.put("gift subscription", giftSubscription);
+
+		final ChannelRaid raid = new ChannelRaid();
+		raid.from_broadcaster_user_name = "Raider";
+		raid.to_broadcaster_user_name = "Raided";
+		raid.viewers = 120;
+		eventSubMessages.put("raid", raid);
+
+		final CharityCampaignProgress charityProgress = fillUserInfo(new CharityCampaignProgress());
+		charityProgress.charity_name = "Charity";
+		charityProgress.current_amount = createCharityAmount(12345, 2, "USD");
+		charityProgress.target_amount = createCharityAmount(500, 0, "EUR");
+		eventSubMessages.put("charity progress", charityProgress);
+
+		final CharityCampaignDonate charityDonation = fillUserInfo(new CharityCampaignDonate());
+		charityDonation.charity_name = "Other charity";
+		eventSubMessages.put("charity donation", charityDonation);
+
+		final HypeTrainProgress hypeTrainProgress = new HypeTrainProgress();
+		hypeTrainProgress.broadcaster_user_name = "Hyped channel";
+		hypeTrainProgress.level = 2;
+		hypeTrainProgress.total = 700;
+		hypeTrainProgress.goal = 1000;
+		hypeTrainProgress.progress = 300;
+		eventSubMessages.put("hype train progress", hypeTrainProgress);
+
+		final HypeTrainEnd hypeTrainEnd = new HypeTrainEnd();
+		hypeTrainEnd.level = 4;
+		hypeTrainEnd.total = 4000;
+		eventSubMessages.put("hype train end", hypeTrainEnd);
+
+		final ChannelFollow followWithoutNames = new ChannelFollow();
+		eventSubMessages.put("follow without names", followWithoutNames);
+
+		eventSubMessages.put("unknown message", new BaseMessage());
+
+		sources.put("nothing", new Source(null, null));
+
+		final MarketplaceProduct product = createProduct(createTransaction("Viewer", createTwitchProduct(150d, "bits")), createStreamerProduct("Product"), createTwitchProduct(150d, "bits"));
+		sources.put("transaction", new Source(product, null));
+		sources.put("transaction and effect", new Source(product, createEffect(product)));
+		sources.put("decimal currency", new Source(createProduct(createTransaction("Viewer", null), createStreamerProduct("Product"), createTwitchProduct(2.5d, "USD")), null));
+		sources.put("missing names", new Source(createProduct(createTransaction(null, null), createStreamerProduct(null), null), null));
+
+		for (Map.Entry<String, BaseMessage> eventSubMessage : eventSubMessages.entrySet())
+		{
+			final TwitchTransaction transaction = createTransaction("Viewer", null);
+			transaction.eventSubMessage = eventSubMessage.getValue();
+			final MarketplaceProduct eventSubProduct = createProduct(transaction, createStreamerProduct("Event product"), null);
+
+			sources.put(eventSubMessage.getKey(), new Source(eventSubProduct, createEffect(eventSubProduct)));
+		}
+
+		return sources;
+	}
+
+	private static <T extends BaseUserInfo> T fillUserInfo(T userInfo)
+	{
+		userInfo.user_name = "Event viewer";
+		userInfo.broadcaster_user_name = "Event channel";
+
+		return userInfo;
+	}
+
+	private static CharityCampaignAmount createCharityAmount(int value, int decimalPlaces, String currency)
+	{
+		final CharityCampaignAmount amount = new CharityCampaignAmount();
+
+		amount.value = value;
+		amount.decimal_places = decimalPlaces;
+		amount.currency = currency;
+
+		return amount;
+	}
+
+	/**
+	 * Create a product where the transaction was loaded too late to start on loading, so no manager is needed.
+	 */
+	private static MarketplaceProduct createProduct(TwitchTransaction transaction, StreamerProduct streamerProduct, TwitchProduct twitchProduct)
+	{
+		final EbsProduct ebsProduct = new EbsProduct();
+
+		ebsProduct.id = "ebs-product";
+		ebsProduct.behaviour = new EbsBehaviour();
+
+		return new MarketplaceProduct(null, transaction, EbsProductPlan.compile(ebsProduct), streamerProduct, twitchProduct);
+	}
+
+	private static MarketplaceEffect<?> createEffect(MarketplaceProduct product)
+	{
+		return new MarketplaceEffect<>(product, null, null, Instant.now().plusSeconds(EFFECT_DURATION_S));
+	}
+
+	private static TwitchTransaction createTransaction(String viewerName, TwitchProduct twitchProduct)
+	{
+		final TwitchTransaction transaction = new TwitchTransaction();
+
+		transaction.id = "transaction";
+		transaction.timestamp = TRANSACTION_AT;
+		transaction.user_name = viewerName;
+		transaction.broadcaster_name = "Channel";
+		transaction.product_data = twitchProduct;
+
+		return transaction;
+	}
+
+	private static StreamerProduct createStreamerProduct(String name)
+	{
+		final StreamerProduct streamerProduct = new StreamerProduct();
+
+		streamerProduct.name = name;
+		streamerProduct.duration = 60;
+
+		return streamerProduct;
+	}
+
+	private static TwitchProduct createTwitchProduct(double amount, String type)
+	{
+		final TwitchProduct twitchProduct = new TwitchProduct();
+
+		twitchProduct.cost = new TwitchProductCost();
+		twitchProduct.cost.amount = amount;
+		twitchProduct.cost.type = type;
+
+		return twitchProduct;
+	}
+
+	/**
+	 * Copy of the original implementation that replaced all templates with a regular expression.
+	 */
+	private static String formatMessageWithReplaceAll(String message, MarketplaceProduct marketplaceProduct, MarketplaceEffect<?> marketplaceEffect)
+	{
+		TwitchTransaction transaction = null;
+		TwitchProduct twitchProduct = null;
+		StreamerProduct streamerProduct = null;
+		BaseMessage eventSubMessage = null;
+		HashMap<MarketplaceMessageTemplate, String> templateLookup = new HashMap<>();
+
+		if (marketplaceProduct != null) {
+			transaction = marketplaceProduct.getTransaction();
+			twitchProduct = marketplaceProduct.getTwitchProduct();
+			streamerProduct = marketplaceProduct.getStreamerProduct();
+		}
+
+		// add defaults
+		templateLookup.put(MarketplaceMessageTemplate.VIEWER_NAME, "viewer");
+		templateLookup.put(MarketplaceMessageTemplate.CHANNEL_NAME, "streamer");
+		templateLookup.put(MarketplaceMessageTemplate.PRODUCT_NAME, "Random Event");
+
+		if (transaction != null) {
+			templateLookup.put(MarketplaceMessageTemplate.VIEWER_NAME, transaction.user_name);
+			templateLookup.put(MarketplaceMessageTemplate.CHANNEL_NAME, transaction.broadcaster_name);
+			eventSubMessage = transaction.eventSubMessage;
+		}
+
+		if (streamerProduct != null) {
+			templateLookup.put(MarketplaceMessageTemplate.PRODUCT_NAME, streamerProduct.name);
+		}
+
+		if (twitchProduct != null) {
+
+			// make sure things such as '150.0' are displayed as '150'
+			Double rawCurrencyAmount = twitchProduct.cost.amount;
+			boolean hasDecimalPlaces = (rawCurrencyAmount % 1 != 0);
+			String formattedCurrencyAmount = hasDecimalPlaces ? rawCurrencyAmount.toString() : Integer.toString(rawCurrencyAmount.intValue());
+
+			templateLookup.put(MarketplaceMessageTemplate.CURRENCY_AMOUNT, formattedCurrencyAmount);
+			templateLookup.put(MarketplaceMessageTemplate.CURRENCY_TYPE, twitchProduct.cost.type);
+		}
+
+		if (marketplaceEffect != null) {
+			templateLookup.put(MarketplaceMessageTemplate.EFFECT_DURATION, MarketplaceDuration.humanizeDurationRounded(marketplaceEffect.getDuration()));
+			templateLookup.put(MarketplaceMessageTemplate.EFFECT_DURATION_LEFT, MarketplaceDuration.humanizeDurationRounded(marketplaceEffect.getDurationLeft()));
+		}
+
+		if (marketplaceProduct != null) {
+			templateLookup.put(MarketplaceMessageTemplate.PRODUCT_DURATION, MarketplaceDuration.humanizeDurationRounded(marketplaceProduct.getDuration()));
+			templateLookup.put(MarketplaceMessageTemplate.PRODUCT_DURATION_LEFT, MarketplaceDuration.humanizeDurationRounded(marketplaceProduct.getDurationLeft()));
+		}
+
+		if (eventSubMessage instanceof BaseUserInfo) {
+			BaseUserInfo baseUserInfo = (BaseUserInfo) eventSubMessage;
+			templateLookup.put(MarketplaceMessageTemplate.VIEWER_NAME, baseUserInfo.user_name);
+			templateLookup.put(MarketplaceMessageTemplate.CHANNEL_NAME, baseUserInfo.broadcaster_user_name);
+		}
+
+		if (eventSubMessage instanceof ChannelContinueSubscription) {
+			ChannelContinueSubscription channelContinueSubscription = (ChannelContinueSubscription) eventSubMessage;
+			templateLookup.put(MarketplaceMessageTemplate.SUB_MONTHS, channelContinueSubscription.duration_months.toString());
+			templateLookup.put(MarketplaceMessageTemplate.SUB_TOTAL_MONTHS, channelContinueSubscription.cumulative_months.toString());
+		}
+
+		if (eventSubMessage instanceof ChannelGiftSubscription) {
+			ChannelGiftSubscription channelGiftSubscription = (ChannelGiftSubscription) eventSubMessage;
+			templateLookup.put(MarketplaceMessageTemplate.GIFTED_AMOUNT, channelGiftSubscription.total.toString());
+			templateLookup.put(MarketplaceMessageTemplate.GIFTED_TOTAL_AMOUNT, channelGiftSubscription.cumulative_total.toString());
+		}
+
+		if (eventSubMessage instanceof ChannelRaid) {
+			ChannelRaid channelRaid = (ChannelRaid) eventSubMessage;
+			templateLookup.put(MarketplaceMessageTemplate.VIEWER_NAME, channelRaid.from_broadcaster_user_name);
+			templateLookup.put(MarketplaceMessageTemplate.RAID_VIEWER_AMOUNT, channelRaid.viewers.toString());
+			templateLookup.put(MarketplaceMessageTemplate.RAIDER_CHANNEL_NAME, channelRaid.from_broadcaster_user_name);
+			templateLookup.put(MarketplaceMessageTemplate.RAIDED_CHANNEL_NAME, channelRaid.to_broadcaster_user_name);
+		}
+
+		if (eventSubMessage instanceof BaseCharityCampaignInfo) {
+			BaseCharityCampaignInfo baseCharityCampaignInfo = (BaseCharityCampaignInfo) eventSubMessage;
+			templateLookup.put(MarketplaceMessageTemplate.CHARITY_NAME, baseCharityCampaignInfo.charity_name);
+		}
+
+		if (eventSubMessage instanceof CharityCampaignAmountInfo) {
+			CharityCampaignAmountInfo charityCampaignAmountInfo = (CharityCampaignAmountInfo) eventSubMessage;
+			templateLookup.put(MarketplaceMessageTemplate.CHARITY_CURRENT_AMOUNT, charityCampaignAmountInfo.current_amount.getCurrencyAmount().toString());
+			templateLookup.put(MarketplaceMessageTemplate.CHARITY_TARGET_AMOUNT, charityCampaignAmountInfo.target_amount.getCurrencyAmount().toString());
+			templateLookup.put(MarketplaceMessageTemplate.CHARITY_CURRENT_CURRENCY, charityCampaignAmountInfo.current_amount.currency);
+			templateLookup.put(MarketplaceMessageTemplate.CHARITY_TARGET_CURRENCY, charityCampaignAmountInfo.target_amount.currency);
+		}
+
+		if (eventSubMessage instanceof BaseHypeTrain) {
+			BaseHypeTrain baseHypeTrain = (BaseHypeTrain) eventSubMessage;
+			templateLookup.put(MarketplaceMessageTemplate.HYPE_TRAIN_TOTAL, baseHypeTrain.total.toString());
+			templateLookup.put(MarketplaceMessageTemplate.HYPE_TRAIN_LEVEL, baseHypeTrain.level.toString());
+		}
+
+		if (eventSubMessage instanceof BaseHypeTrainWithGoal) {
+			BaseHypeTrainWithGoal baseHypeTrainWithGoal = (BaseHypeTrainWithGoal) eventSubMessage;
+			templateLookup.put(MarketplaceMessageTemplate.HYPE_TRAIN_GOAL, baseHypeTrainWithGoal.goal.toString());
+			templateLookup.put(MarketplaceMessageTemplate.HYPE_TRAIN_PROGRESS, baseHypeTrainWithGoal.progress.toString());
+		}
+
+		// replace all the known template strings with their respective values
+		for (MarketplaceMessageTemplate template : MarketplaceMessageTemplate.values())
+		{
+			String newContent = templateLookup.get(template);
+
+			if (newContent == null)
+			{
+				newContent = "";
+			}
+
+			message = message.replaceAll("\\{" + template.getName() + "\\}", newContent);
+		}
+
+		message = message.trim();
+
+		return message;
+	}
+}
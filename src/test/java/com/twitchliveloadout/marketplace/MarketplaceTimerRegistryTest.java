@@ -0,0 +1,106 @@
+package com.twitchliveloadout.marketplace;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class MarketplaceTimerRegistryTest
+{
+	private static final long NANOS_PER_MS = 1000 * 1000;
+	private static final long DELAY_MS = 200;
+
+	private long nowNanos;
+	private MarketplaceTimerRegistry<MarketplaceTimer> timers;
+
+	@Before
+	public void setUp()
+	{
+		nowNanos = 0;
+		timers = new MarketplaceTimerRegistry<>(MarketplaceTimer.class, () -> nowNanos);
+	}
+
+	@Test
+	public void isPassedWhenNeverSet()
+	{
+		for (MarketplaceTimer timer : MarketplaceTimer.values())
+		{
+			assertTrue(timers.isPassed(timer));
+		}
+	}
+
+	@Test
+	public void isPassedOnceTheDelayHasPassed()
+	{
+		timers.setDelay(MarketplaceTimer.DRAWS, DELAY_MS);
+
+		advanceNanos(DELAY_MS * NANOS_PER_MS - 1);
+		assertFalse(timers.isPassed(MarketplaceTimer.DRAWS));
+
+		advanceNanos(1);
+		assertTrue(timers.isPassed(MarketplaceTimer.DRAWS));
+	}
+
+	@Test
+	public void keepsTheTimersSeparate()
+	{
+		timers.setDelay(MarketplaceTimer.DRAWS, DELAY_MS);
+
+		assertFalse(timers.isPassed(MarketplaceTimer.DRAWS));
+		assertTrue(timers.isPassed(MarketplaceTimer.RESPAWNS));
+	}
+
+	@Test
+	public void passesOncePerDelay()
+	{
+		assertTrue(timers.passOnce(MarketplaceTimer.RESPAWNS, DELAY_MS, nowNanos));
+		assertFalse(timers.passOnce(MarketplaceTimer.RESPAWNS, DELAY_MS, nowNanos));
+
+		advanceNanos(DELAY_MS * NANOS_PER_MS - 1);
+		assertFalse(timers.passOnce(MarketplaceTimer.RESPAWNS, DELAY_MS, nowNanos));
+
+		advanceNanos(1);
+		assertTrue(timers.passOnce(MarketplaceTimer.RESPAWNS, DELAY_MS, nowNanos));
+		assertFalse(timers.passOnce(MarketplaceTimer.RESPAWNS, DELAY_MS, nowNanos));
+	}
+
+	@Test
+	public void handlesOverflowsOfTheNanoClock()
+	{
+		nowNanos = Long.MAX_VALUE - NANOS_PER_MS;
+		assertTrue(timers.passOnce(MarketplaceTimer.DRAWS, DELAY_MS, nowNanos));
+
+		// the deadline overflows to a negative value, which is still in the future
+		advanceNanos(NANOS_PER_MS + 1);
+		assertTrue(nowNanos < 0);
+		assertFalse(timers.isPassed(MarketplaceTimer.DRAWS));
+
+		advanceNanos((DELAY_MS - 1) * NANOS_PER_MS - 1);
+		assertTrue(timers.isPassed(MarketplaceTimer.DRAWS));
+	}
+
+	@Test
+	public void isPassedAfterAReset()
+	{
+		timers.setDelay(MarketplaceTimer.DRAWS, DELAY_MS);
+		timers.reset();
+
+		assertTrue(timers.isPassed(MarketplaceTimer.DRAWS));
+	}
+
+	@Test
+	public void usesTheSystemClockByDefault()
+	{
+		final MarketplaceTimerRegistry<MarketplaceTimer> systemTimers = new MarketplaceTimerRegistry<>(MarketplaceTimer.class);
+		final long beforeNanos = System.nanoTime();
+
+		assertTrue(systemTimers.getNanoTime() - beforeNanos >= 0);
+		assertTrue(MarketplaceTimerRegistry.SYSTEM_NANO_CLOCK.getAsLong() - beforeNanos >= 0);
+	}
+
+	private void advanceNanos(long deltaNanos)
+	{
+		nowNanos += deltaNanos;
+	}
+}
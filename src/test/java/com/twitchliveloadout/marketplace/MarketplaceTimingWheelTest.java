@@ -0,0 +1,177 @@
+package com.twitchliveloadout.marketplace;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static com.twitchliveloadout.marketplace.MarketplaceTimingWheel.TICK_MS;
+import static com.twitchliveloadout.marketplace.MarketplaceTimingWheel.WHEEL_SIZE;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class MarketplaceTimingWheelTest
+{
+	private static final long START_MS = 1_000_000;
+	private static final long ROTATION_MS = (long) WHEEL_SIZE * TICK_MS;
+
+	private MarketplaceTimingWheel timingWheel;
+	private ArrayList<String> executed;
+	private ArrayList<Long> executedAtMs;
+	private TestOwner owner;
+
+	@Before
+	public void setUp()
+	{
+		timingWheel = new MarketplaceTimingWheel();
+		executed = new ArrayList<>();
+		executedAtMs = new ArrayList<>();
+		owner = new TestOwner();
+	}
+
+	@Test
+	public void executesInOrderOfDueTime()
+	{
+		schedule("a", 100, START_MS);
+		schedule("b", 30, START_MS);
+		schedule("c", 30, START_MS);
+		schedule("d", 65, START_MS);
+		schedule("e", 0, START_MS);
+
+		drain(START_MS + 200);
+
+		assertEquals(Arrays.asList("e", "b", "c", "d", "a"), executed);
+		assertEquals(0, timingWheel.size());
+	}
+
+	@Test
+	public void neverExecutesBeforeItIsDue()
+	{
+		final long[] delaysMs = {1, 19, 20, 21, 45, 333};
+
+		// schedule in the middle of a tick to not align the due times with the ticks
+		for (long delayMs : delaysMs)
+		{
+			schedule(Long.toString(delayMs), delayMs, START_MS + 7);
+		}
+
+		drainEveryMs(START_MS, START_MS + 400);
+
+		assertEquals(delaysMs.length, executed.size());
+
+		for (int actionIndex = 0; actionIndex < delaysMs.length; actionIndex++)
+		{
+			final long dueAtMs = START_MS + 7 + delaysMs[actionIndex];
+			final long executedAt = executedAtMs.get(actionIndex);
+
+			assertTrue("Executed "+ (dueAtMs - executedAt) +"ms early", executedAt >= dueAtMs);
+			assertTrue("Executed "+ (executedAt - dueAtMs) +"ms late", executedAt - dueAtMs <= TICK_MS);
+		}
+	}
+
+	@Test
+	public void waitsForAllRotationsOfLongDelays()
+	{
+		final long longDelayMs = ROTATION_MS * 2 + 35;
+
+		schedule("long", longDelayMs, START_MS);
+
+		// in the same slot as the long delay, but without any rotations
+		schedule("short", 35, START_MS);
+
+		drainEveryMs(START_MS, START_MS + longDelayMs - 1);
+		assertEquals(Collections.singletonList("short"), executed);
+		assertEquals(1, timingWheel.size());
+
+		drain(START_MS + longDelayMs);
+		assertEquals(Arrays.asList("short", "long"), executed);
+	}
+
+	@Test
+	public void waitsForRotationsWhenDrainedRarely()
+	{
+		final long longDelayMs = ROTATION_MS * 3 + 5;
+
+		schedule("long", longDelayMs, START_MS);
+
+		for (long nowMs = START_MS; nowMs < START_MS + longDelayMs; nowMs += ROTATION_MS / 3)
+		{
+			drain(nowMs);
+		}
+
+		assertTrue(executed.isEmpty());
+
+		drain(START_MS + longDelayMs);
+		assertEquals(Collections.singletonList("long"), executed);
+	}
+
+	@Test
+	public void skipsActionsOfCancelledOwners()
+	{
+		final TestOwner cancelledOwner = new TestOwner();
+
+		timingWheel.schedule(cancelledOwner, () -> executed.add("cancelled"), 50, START_MS);
+		timingWheel.schedule(null, () -> executed.add("without owner"), 50, START_MS);
+		schedule("active", 50, START_MS);
+
+		cancelledOwner.isCancelled = true;
+		drain(START_MS + 50);
+
+		assertEquals(Arrays.asList("without owner", "active"), executed);
+		assertEquals(0, timingWheel.size());
+	}
+
+	@Test
+	public void executesActionsScheduledWhileDraining()
+	{
+		timingWheel.schedule(owner, () -> {
+			executed.add("first");
+			schedule("second", 10, START_MS + 20);
+		}, 20, START_MS);
+
+		drain(START_MS + 20);
+		drain(START_MS + 29);
+		assertEquals(Collections.singletonList("first"), executed);
+
+		drain(START_MS + 30);
+		assertEquals(Arrays.asList("first", "second"), executed);
+	}
+
+	private void schedule(String name, long delayMs, long nowMs)
+	{
+		timingWheel.schedule(owner, () -> executed.add(name), delayMs, nowMs);
+	}
+
+	private void drain(long nowMs)
+	{
+		timingWheel.drain(nowMs, (action) -> {
+			action.run();
+
+			while (executedAtMs.size() < executed.size())
+			{
+				executedAtMs.add(nowMs);
+			}
+		});
+	}
+
+	private void drainEveryMs(long fromMs, long toMs)
+	{
+		for (long nowMs = fromMs; nowMs <= toMs; nowMs++)
+		{
+			drain(nowMs);
+		}
+	}
+
+	private static class TestOwner implements MarketplaceTimingWheel.Owner
+	{
+		private boolean isCancelled = false;
+
+		@Override
+		public boolean isCancelled()
+		{
+			return isCancelled;
+		}
+	}
+}
@@ -0,0 +1,517 @@
+package com.twitchliveloadout.marketplace.conditions;
+
+import com.twitchliveloadout.TestStubs;
+import com.twitchliveloadout.marketplace.MarketplaceRandomizers;
+import com.twitchliveloadout.marketplace.products.EbsCondition;
+import net.runelite.api.Client;
+import net.runelite.api.Player;
+import net.runelite.api.PlayerComposition;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static com.twitchliveloadout.marketplace.MarketplaceConstants.*;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * The compiled conditions replaced the interpreted verification of the product, these tests compare
+ * both for a table of conditions. The interpreted verification is a copy of the original one, limited
+ * to the checks that don't need an active product: varbits, genders, chances and object states.
+ */
+public class ConditionCompilerTest
+{
+	private static final int VARBIT_ID = 4070;
+	private static final int FEMALE_GENDER_ID = 1;
+	private static final int[] VARBIT_VALUES = { 0, 1, 2 };
+	private static final int[] GENDER_IDS = { MALE_GENDER_ID, FEMALE_GENDER_ID };
+	private static final String[] STATE_FORMATS = { STRING_STATE_FORMAT, INTEGER_STATE_FORMAT, null, "unknown" };
+	private static final String[] STATE_COMPARATORS = {
+		EQUAL_STATE_COMPARISON,
+		LARGER_THAN_STATE_COMPARISON,
+		LARGER_EQUAL_THAN_STATE_COMPARISON,
+		SMALLER_THAN_STATE_COMPARISON,
+		SMALLER_EQUAL_THAN_STATE_COMPARISON,
+		null,
+		"unknown",
+	};
+	private static final String[] CURRENT_STATE_VALUES = { "0", "1", "5", "10", "-3", "05", "abc", "", "99999999999" };
+	private static final String[] COMPARED_STATE_VALUES = { "5", "10", "abc", "", "3.5", null };
+
+	private int varbitValue;
+	private int genderId;
+	private Client client;
+	private ConditionContext context;
+
+	@Before
+	public void setUp()
+	{
+		final PlayerComposition playerComposition = TestStubs.stub(PlayerComposition.class)
+			.with("getGender", (arguments) -> genderId)
+			.build();
+		final Player localPlayer = TestStubs.stub(Player.class)
+			.with("getPlayerComposition", playerComposition)
+			.build();
+
+		// NOTE: not on the client thread so nothing is memoized between the scenarios
+		client = TestStubs.stub(Client.class)
+			.with("getVarbitValue", (arguments) -> ((int) arguments[0]) == VARBIT_ID ? varbitValue : 0)
+			.with("getLocalPlayer", localPlayer)
+			.with("isClientThread", false)
+			.build();
+		context = new ConditionContext(null, client);
+	}
+
+	@Test
+	public void verifiesLikeTheInterpretedConditions()
+	{
+		for (Map.Entry<String, ArrayList<EbsCondition>> row : createConditionTable().entrySet())
+		{
+			final MarketplaceCondition compiledCondition = ConditionCompiler.compileAll(row.getValue());
+
+			forEachScenario((scenario) -> assertEquals(
+				row.getKey() +" with "+ scenario,
+				verifyConditionsInterpreted(row.getValue()),
+				compiledCondition.verify(null, null, context)
+			));
+		}
+	}
+
+	@Test
+	public void usesTheDefaultsOfMissingValues()
+	{
+		for (Map.Entry<String, ArrayList<EbsCondition>> row : createConditionTable().entrySet())
+		{
+			final MarketplaceCondition compiledCondition = ConditionCompiler.compileAll(withoutDefaults(row.getValue()));
+
+			// the interpreted conditions can't handle missing numbers, so they get the defaults
+			forEachScenario((scenario) -> assertEquals(
+				row.getKey() +" without defaults with "+ scenario,
+				verifyConditionsInterpreted(row.getValue()),
+				compiledCondition.verify(null, null, context)
+			));
+		}
+	}
+
+	@Test
+	public void verifiesMissingConditionsAlways()
+	{
+		final ArrayList<EbsCondition> conditions = new ArrayList<>();
+		conditions.add(null);
+
+		assertEquals(true, ConditionCompiler.compileAll(null).verify(null, null, context));
+		assertEquals(true, ConditionCompiler.compileAll(new ArrayList<>()).verify(null, null, context));
+		assertEquals(true, ConditionCompiler.compileAll(conditions).verify(null, null, context));
+		assertEquals(true, ConditionCompiler.compile(null).verify(null, null, context));
+	}
+
+	@Test
+	public void comparesStatesLikeTheInterpretedConditions()
+	{
+		for (String stateFormat : STATE_FORMATS)
+		{
+			for (String stateComparator : STATE_COMPARATORS)
+			{
+				for (String comparedStateValue : COMPARED_STATE_VALUES)
+				{
+					final ConditionCompiler.StateComparison comparison = ConditionCompiler.compileStateComparison(stateFormat, stateComparator, comparedStateValue);
+
+					for (String currentStateValue : CURRENT_STATE_VALUES)
+					{
+						assertEquals(
+							"'"+ currentStateValue +"' "+ stateComparator +" '"+ comparedStateValue +"' as "+ stateFormat,
+							compareStateValuesInterpreted(stateFormat, stateComparator, currentStateValue, comparedStateValue),
+							comparison.compare(currentStateValue)
+						);
+					}
+				}
+			}
+		}
+	}
+
+	@Test
+	public void verifiesMissingStatesLikeTheInterpretedConditions()
+	{
+		for (String comparedStateValue : COMPARED_STATE_VALUES)
+		{
+			for (String stateType : new String[] { OBJECT_STATE_TYPE, "unknown" })
+			{
+				final ArrayList<EbsCondition> conditions = list(state(stateType, INTEGER_STATE_FORMAT, LARGER_THAN_STATE_COMPARISON, comparedStateValue));
+
+				// a missing object state is NULL, which only equals a NULL value
+				assertEquals(
+					stateType +" state compared with '"+ comparedStateValue +"'",
+					verifyConditionsInterpreted(conditions),
+					ConditionCompiler.compileAll(conditions).verify(null, null, context)
+				);
+			}
+		}
+	}
+
+	private LinkedHashMap<String, ArrayList<EbsCondition>> createConditionTable()
+	{
+		final LinkedHashMap<String, ArrayList<EbsCondition>> table = new LinkedHashMap<>();
+
+		table.put("varbit", list(varbit(1)));
+		table.put("gender", list(gender(FEMALE_GENDER_ID)));
+		table.put("top-level AND", list(varbit(1), gender(MALE_GENDER_ID)));
+		table.put("combined checks", list(combine(varbit(2), gender(FEMALE_GENDER_ID))));
+		table.put("AND", list(and(varbit(1), gender(FEMALE_GENDER_ID))));
+		table.put("OR", list(or(varbit(1), varbit(2))));
+		table.put("NOT", list(not(varbit(1))));
+		table.put("multiple NOT", list(not(varbit(1), gender(MALE_GENDER_ID))));
+		table.put("NOT of AND", list(not(and(varbit(1), gender(FEMALE_GENDER_ID)))));
+		table.put("NOT of OR", list(not(or(varbit(0), gender(FEMALE_GENDER_ID)))));
+		table.put("OR of NOT and AND", list(or(not(varbit(1)), and(gender(FEMALE_GENDER_ID), varbit(2)))));
+		table.put("AND of OR", list(and(or(varbit(0), varbit(1)), or(gender(MALE_GENDER_ID), varbit(2)))));
+		table.put("deep nesting", list(and(or(varbit(1), not(or(gender(MALE_GENDER_ID), varbit(2)))), not(chance(0d)))));
+		table.put("checks with nested conditions", list(combine(gender(FEMALE_GENDER_ID), or(varbit(0), not(varbit(2))), and(not(varbit(1))))));
+		table.put("empty OR", list(or()));
+		table.put("empty AND and NOT", list(and(), not()));
+		table.put("NULL in OR", list(or(varbit(1), null)));
+		table.put("NULL in NOT", list(not((EbsCondition) null)));
+		table.put("full chance", list(chance(1d), varbit(1)));
+		table.put("missing chance", list(chance(null)));
+		table.put("no chance", list(or(chance(0d), varbit(2))));
+		table.put("NOT no chance", list(not(chance(0d)), gender(MALE_GENDER_ID)));
+		table.put("NULL object state", list(state(OBJECT_STATE_TYPE, STRING_STATE_FORMAT, EQUAL_STATE_COMPARISON, null)));
+		table.put("object state", list(or(state(OBJECT_STATE_TYPE, STRING_STATE_FORMAT, EQUAL_STATE_COMPARISON, "1"), varbit(0))));
+		table.put("NOT object state", list(not(state(OBJECT_STATE_TYPE, INTEGER_STATE_FORMAT, SMALLER_THAN_STATE_COMPARISON, "abc"))));
+		table.put("state without type", list(or(state(null, STRING_STATE_FORMAT, EQUAL_STATE_COMPARISON, "1"), varbit(1))));
+		table.put("empty condition", list(new EbsCondition()));
+
+		return table;
+	}
+
+	private interface Scenario
+	{
+		void verify(String scenario);
+	}
+
+	private void forEachScenario(Scenario scenario)
+	{
+		for (int scenarioVarbitValue : VARBIT_VALUES)
+		{
+			for (int scenarioGenderId : GENDER_IDS)
+			{
+				varbitValue = scenarioVarbitValue;
+				genderId = scenarioGenderId;
+				scenario.verify("varbit "+ varbitValue +" and gender "+ genderId);
+			}
+		}
+	}
+
+	/**
+	 * Copy of the interpreted verification of the product, see the class comment for the checks that are left out.
+	 */
+	private boolean verifyConditionsInterpreted(ArrayList<EbsCondition> conditions)
+	{
+
+		// guard: check if collection is valid
+		if (conditions == null)
+		{
+			return true;
+		}
+
+		for (EbsCondition condition : conditions)
+		{
+			if (!verifyConditionInterpreted(condition))
+			{
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	private boolean verifyConditionInterpreted(EbsCondition condition)
+	{
+
+		// guard: check if collection is valid
+		if (condition == null)
+		{
+			return true;
+		}
+
+		Player localPlayer = client.getLocalPlayer();
+		PlayerComposition localPlayerComposition = (localPlayer == null ? null : localPlayer.getPlayerComposition());
+		int localGenderId = (localPlayerComposition == null ? MALE_GENDER_ID : localPlayerComposition.getGender());
+
+		if (!MarketplaceRandomizers.rollChance(condition.chance))
+		{
+			return false;
+		}
+
+		if (!verifyStateValueInterpreted(condition.stateType, condition.stateFormat, condition.stateComparator, condition.stateKey, condition.stateValue))
+		{
+			return false;
+		}
+
+		if (condition.varbitId >= 0 && client.getVarbitValue(condition.varbitId) != condition.varbitValue)
+		{
+			return false;
+		}
+
+		if (condition.genderId != null && condition.genderId != localGenderId)
+		{
+			return false;
+		}
+
+		if (condition.and != null)
+		{
+			for (EbsCondition andCondition : condition.and)
+			{
+				if (!verifyConditionInterpreted(andCondition))
+				{
+					return false;
+				}
+			}
+		}
+
+		if (condition.not != null)
+		{
+			for (EbsCondition notCondition : condition.not)
+			{
+				if (verifyConditionInterpreted(notCondition))
+				{
+					return false;
+				}
+			}
+		}
+
+		if (condition.or != null)
+		{
+			boolean orConditionsVerified = false;
+
+			for (EbsCondition orCondition : condition.or)
+			{
+				if (verifyConditionInterpreted(orCondition))
+				{
+					orConditionsVerified = true;
+					break;
+				}
+			}
+
+			if (!orConditionsVerified)
+			{
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	private static boolean verifyStateValueInterpreted(String stateType, String stateFormat, String stateComparator, String stateKey, String comparedStateValue)
+	{
+
+		// guard: make sure the state check is valid
+		if (stateType == null || stateKey == null)
+		{
+			return true;
+		}
+
+		// NOTE: there is no product or spawned object, so the current state is always NULL
+		return comparedStateValue == null;
+	}
+
+	private static boolean compareStateValuesInterpreted(String stateFormat, String stateComparator, String currentStateValue, String comparedStateValue)
+	{
+		try {
+			if (INTEGER_STATE_FORMAT.equals(stateFormat)) {
+				int currentValue = Integer.parseInt(currentStateValue);
+				int comparedValue = (comparedStateValue == null ? 0 : Integer.parseInt(comparedStateValue));
+
+				switch (stateComparator) {
+					case EQUAL_STATE_COMPARISON: return currentValue == comparedValue;
+					case LARGER_EQUAL_THAN_STATE_COMPARISON: return currentValue >= comparedValue;
+					case LARGER_THAN_STATE_COMPARISON: return currentValue > comparedValue;
+					case SMALLER_EQUAL_THAN_STATE_COMPARISON: return currentValue <= comparedValue;
+					case SMALLER_THAN_STATE_COMPARISON: return currentValue < comparedValue;
+				}
+			}
+		} catch (Exception exception) {
+			return false;
+		}
+
+		return currentStateValue.equals(comparedStateValue);
+	}
+
+	/**
+	 * Copy the conditions where all numbers that have their default value are missing.
+	 */
+	private static ArrayList<EbsCondition> withoutDefaults(ArrayList<EbsCondition> conditions)
+	{
+
+		// guard: nothing to copy
+		if (conditions == null)
+		{
+			return null;
+		}
+
+		final ArrayList<EbsCondition> copiedConditions = new ArrayList<>();
+		final EbsCondition defaults = new EbsCondition();
+
+		for (EbsCondition condition : conditions)
+		{
+
+			// guard: keep empty conditions
+			if (condition == null)
+			{
+				copiedConditions.add(null);
+				continue;
+			}
+
+			final EbsCondition copiedCondition = new EbsCondition();
+
+			copiedCondition.varbitId = withoutDefault(condition.varbitId, defaults.varbitId);
+			copiedCondition.varbitValue = withoutDefault(condition.varbitValue, defaults.varbitValue);
+			copiedCondition.minTimeMs = withoutDefault(condition.minTimeMs, defaults.minTimeMs);
+			copiedCondition.maxTimeMs = withoutDefault(condition.maxTimeMs, defaults.maxTimeMs);
+			copiedCondition.minTimePercentage = withoutDefault(condition.minTimePercentage, defaults.minTimePercentage);
+			copiedCondition.maxTimePercentage = withoutDefault(condition.maxTimePercentage, defaults.maxTimePercentage);
+			copiedCondition.maxSpawnsInView = withoutDefault(condition.maxSpawnsInView, defaults.maxSpawnsInView);
+			copiedCondition.maxSpawnsInViewRadius = withoutDefault(condition.maxSpawnsInViewRadius, defaults.maxSpawnsInViewRadius);
+			copiedCondition.minSpawnsInView = withoutDefault(condition.minSpawnsInView, defaults.minSpawnsInView);
+			copiedCondition.minSpawnsInViewRadius = withoutDefault(condition.minSpawnsInViewRadius, defaults.minSpawnsInViewRadius);
+			copiedCondition.spawnInViewRadius = withoutDefault(condition.spawnInViewRadius, defaults.spawnInViewRadius);
+			copiedCondition.chance = withoutDefault(condition.chance, defaults.chance);
+			copiedCondition.stateType = condition.stateType;
+			copiedCondition.stateFormat = condition.stateFormat;
+			copiedCondition.stateComparator = condition.stateComparator;
+			copiedCondition.stateKey = condition.stateKey;
+			copiedCondition.stateValue = condition.stateValue;
+			copiedCondition.combatStyle = condition.combatStyle;
+			copiedCondition.regionId = condition.regionId;
+			copiedCondition.genderId = condition.genderId;
+			copiedCondition.and = withoutDefaults(condition.and);
+			copiedCondition.or = withoutDefaults(condition.or);
+			copiedCondition.not = withoutDefaults(condition.not);
+			copiedConditions.add(copiedCondition);
+		}
+
+		return copiedConditions;
+	}
+
+	private static <T> T withoutDefault(T value, T defaultValue)
+	{
+		return defaultValue.equals(value) ? null : value;
+	}
+
+	private static ArrayList<EbsCondition> list(EbsCondition... conditions)
+	{
+		return new ArrayList<>(Arrays.asList(conditions));
+	}
+
+	private static EbsCondition varbit(int value)
+	{
+		final EbsCondition condition = new EbsCondition();
+
+		condition.varbitId = VARBIT_ID;
+		condition.varbitValue = value;
+
+		return condition;
+	}
+
+	private static EbsCondition gender(int genderId)
+	{
+		final EbsCondition condition = new EbsCondition();
+
+		condition.genderId = genderId;
+
+		return condition;
+	}
+
+	/**
+	 * NOTE: only chances of zero and one are used, because other ones would make the outcome random.
+	 */
+	private static EbsCondition chance(Double chance)
+	{
+		final EbsCondition condition = new EbsCondition();
+
+		condition.chance = chance;
+
+		return condition;
+	}
+
+	private static EbsCondition state(String stateType, String stateFormat, String stateComparator, String stateValue)
+	{
+		final EbsCondition condition = new EbsCondition();
+
+		condition.stateType = stateType;
+		condition.stateFormat = stateFormat;
+		condition.stateComparator = stateComparator;
+		condition.stateKey = "hits";
+		condition.stateValue = stateValue;
+
+		return condition;
+	}
+
+	/**
+	 * Combine the checks and nested conditions of multiple conditions into a single one.
+	 */
+	private static EbsCondition combine(EbsCondition... conditions)
+	{
+		final EbsCondition combinedCondition = new EbsCondition();
+
+		for (EbsCondition condition : conditions)
+		{
+			if (condition.varbitId >= 0)
+			{
+				combinedCondition.varbitId = condition.varbitId;
+				combinedCondition.varbitValue = condition.varbitValue;
+			}
+
+			if (condition.genderId != null)
+			{
+				combinedCondition.genderId = condition.genderId;
+			}
+
+			if (condition.and != null)
+			{
+				combinedCondition.and = condition.and;
+			}
+
+			if (condition.or != null)
+			{
+				combinedCondition.or = condition.or;
+			}
+
+			if (condition.not != null)
+			{
+				combinedCondition.not = condition.not;
+			}
+		}
+
+		return combinedCondition;
+	}
+
+	private static EbsCondition and(EbsCondition... conditions)
+	{
+		final EbsCondition condition = new EbsCondition();
+
+		condition.and = list(conditions);
+
+		return condition;
+	}
+
+	private static EbsCondition or(EbsCondition... conditions)
+	{
+		final EbsCondition condition = new EbsCondition();
+
+		condition.or = list(conditions);
+
+		return condition;
+	}
+
+	private static EbsCondition not(EbsCondition... conditions)
+	{
+		final EbsCondition condition = new EbsCondition();
+
+		condition.not = list(conditions);
+
+		return condition;
+	}
+}
@@ -0,0 +1,373 @@
+package com.twitchliveloadout.marketplace.interfaces;
+
+import com.twitchliveloadout.TestStubs;
+import com.twitchliveloadout.TwitchLiveLoadoutPlugin;
+import com.twitchliveloadout.marketplace.MarketplaceEffect;
+import com.twitchliveloadout.marketplace.products.EbsInterfaceWidgetFrame;
+import net.runelite.api.Client;
+import net.runelite.api.events.WidgetClosed;
+import net.runelite.api.events.WidgetLoaded;
+import net.runelite.api.widgets.Widget;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+
+import static com.twitchliveloadout.marketplace.MarketplaceConstants.ALTER_INTERFACE_WIDGET_TYPE;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+/**
+ * Widget effects are applied every frame, these tests make sure the widgets are only looked up
+ * when their interface changed and that only the properties that differ are written.
+ */
+public class WidgetManagerTest
+{
+	private static final int GROUP_ID = 149;
+	private static final int OTHER_GROUP_ID = 387;
+	private static final int CHILD_ID = 2;
+	private static final int LIST_INDEX = 1;
+	private static final String[] FRAME_PROPERTIES = {
+		"type", "contentType", "text", "textColor", "opacity", "itemId", "itemQuantity",
+		"name", "spriteId", "modelId", "modelZoom", "animationId",
+	};
+
+	private final HashMap<Integer, StubWidget> loadedWidgets = new HashMap<>();
+	private final ArrayList<Integer> lookedUpGroupIds = new ArrayList<>();
+	private WidgetManager widgetManager;
+
+	@Before
+	public void setUp()
+	{
+		final Client client = TestStubs.stub(Client.class)
+			.with("isClientThread", true)
+			.with("getWidget", (arguments) -> {
+				final int groupId = (int) arguments[0];
+				final StubWidget widget = loadedWidgets.get(getComponentId(groupId, (int) arguments[1]));
+
+				lookedUpGroupIds.add(groupId);
+
+				return widget == null ? null : widget.widget;
+			})
+			.build();
+
+		widgetManager = new WidgetManager(new TwitchLiveLoadoutPlugin(), client);
+	}
+
+	@Test
+	public void writesAllPropertiesOfTheFrame()
+	{
+		final StubWidget widget = loadWidget(GROUP_ID);
+
+		widgetManager.applyEffect(createEffect(createFrame(GROUP_ID)));
+
+		assertEquals(Arrays.asList(FRAME_PROPERTIES), widget.writes);
+		assertEquals(5, widget.properties.get("type"));
+		assertEquals("Changed", widget.properties.get("text"));
+		assertEquals(1042, widget.properties.get("animationId"));
+	}
+
+	@Test
+	public void doesNotWriteUnchangedProperties()
+	{
+		final StubWidget widget = loadWidget(GROUP_ID);
+		final MarketplaceEffect<EbsInterfaceWidgetFrame> effect = createEffect(createFrame(GROUP_ID));
+
+		widgetManager.applyEffect(effect);
+		widget.writes.clear();
+
+		for (int frameIndex = 0; frameIndex < 10; frameIndex++)
+		{
+			widgetManager.applyEffect(effect);
+		}
+
+		assertEquals(Collections.emptyList(), widget.writes);
+	}
+
+	@Test
+	public void doesNotWritePropertiesThatAlreadyHaveTheValue()
+	{
+		final StubWidget widget = loadWidget(GROUP_ID);
+		final EbsInterfaceWidgetFrame frame = createFrame(GROUP_ID);
+
+		widget.properties.put("text", frame.text);
+		widget.properties.put("opacity", frame.opacity);
+		widgetManager.applyEffect(createEffect(frame));
+
+		assertEquals(FRAME_PROPERTIES.length - 2, widget.writes.size());
+		assertFalse(widget.writes.contains("text"));
+		assertFalse(widget.writes.contains("opacity"));
+	}
+
+	@Test
+	public void doesNotWritePropertiesThatAreNotInTheFrame()
+	{
+		final StubWidget widget = loadWidget(GROUP_ID);
+		final EbsInterfaceWidgetFrame frame = createFrame(GROUP_ID);
+
+		frame.widgetType = null;
+		frame.contentType = null;
+		frame.itemId = null;
+		widgetManager.applyEffect(createEffect(frame));
+
+		assertFalse(widget.writes.contains("type"));
+		assertFalse(widget.writes.contains("contentType"));
+		assertFalse(widget.writes.contains("itemId"));
+		assertEquals(0, widget.properties.get("type"));
+	}
+
+	@Test
+	public void rewritesPropertiesAfterAScriptReset()
+	{
+		final StubWidget widget = loadWidget(GROUP_ID);
+		final MarketplaceEffect<EbsInterfaceWidgetFrame> effect = createEffect(createFrame(GROUP_ID));
+
+		widgetManager.applyEffect(effect);
+		widget.writes.clear();
+
+		// NOTE: a script of the game changes the widget without the effect knowing about it
+		widget.properties.put("text", "Reset by a script");
+		widget.properties.put("spriteId", -1);
+		widgetManager.applyEffect(effect);
+
+		assertEquals(Arrays.asList("text", "spriteId"), widget.writes);
+		assertEquals("Changed", widget.properties.get("text"));
+		assertEquals(1337, widget.properties.get("spriteId"));
+
+		widget.writes.clear();
+		widgetManager.applyEffect(effect);
+
+		assertEquals(Collections.emptyList(), widget.writes);
+	}
+
+	@Test
+	public void looksUpTheWidgetOnce()
+	{
+		loadWidget(GROUP_ID);
+		final MarketplaceEffect<EbsInterfaceWidgetFrame> effect = createEffect(createFrame(GROUP_ID));
+
+		for (int frameIndex = 0; frameIndex < 10; frameIndex++)
+		{
+			widgetManager.applyEffect(effect);
+		}
+
+		assertEquals(Collections.singletonList(GROUP_ID), lookedUpGroupIds);
+	}
+
+	@Test
+	public void looksUpTheWidgetAgainWhenTheInterfaceIsLoaded()
+	{
+		final StubWidget widget = loadWidget(GROUP_ID);
+		final MarketplaceEffect<EbsInterfaceWidgetFrame> effect = createEffect(createFrame(GROUP_ID));
+
+		widgetManager.applyEffect(effect);
+
+		// the interface is recreated with a new widget
+		final StubWidget reloadedWidget = loadWidget(GROUP_ID);
+		widgetManager.onWidgetLoaded(createWidgetLoaded(GROUP_ID));
+		widget.writes.clear();
+		widgetManager.applyEffect(effect);
+
+		assertEquals(Arrays.asList(GROUP_ID, GROUP_ID), lookedUpGroupIds);
+		assertEquals(Collections.emptyList(), widget.writes);
+		assertEquals(Arrays.asList(FRAME_PROPERTIES), reloadedWidget.writes);
+	}
+
+	@Test
+	public void looksUpTheWidgetAgainWhenTheInterfaceIsClosed()
+	{
+		final StubWidget widget = loadWidget(GROUP_ID);
+		final MarketplaceEffect<EbsInterfaceWidgetFrame> effect = createEffect(createFrame(GROUP_ID));
+
+		widgetManager.applyEffect(effect);
+
+		loadedWidgets.clear();
+		widgetManager.onWidgetClosed(new WidgetClosed(GROUP_ID, 0, true));
+		widget.writes.clear();
+		widget.properties.put("text", "Reset by a script");
+
+		// the closed interface is looked up once and not written to
+		widgetManager.applyEffect(effect);
+		widgetManager.applyEffect(effect);
+
+		assertEquals(Arrays.asList(GROUP_ID, GROUP_ID), lookedUpGroupIds);
+		assertEquals(Collections.emptyList(), widget.writes);
+
+		// until it is loaded again
+		final StubWidget reloadedWidget = loadWidget(GROUP_ID);
+		widgetManager.onWidgetLoaded(createWidgetLoaded(GROUP_ID));
+		widgetManager.applyEffect(effect);
+
+		assertEquals(Arrays.asList(GROUP_ID, GROUP_ID, GROUP_ID), lookedUpGroupIds);
+		assertEquals(Arrays.asList(FRAME_PROPERTIES), reloadedWidget.writes);
+	}
+
+	@Test
+	public void onlyLooksUpTheWidgetsOfTheChangedInterface()
+	{
+		loadWidget(GROUP_ID);
+		loadWidget(OTHER_GROUP_ID);
+		final MarketplaceEffect<EbsInterfaceWidgetFrame> effect = createEffect(createFrame(GROUP_ID));
+		final MarketplaceEffect<EbsInterfaceWidgetFrame> otherEffect = createEffect(createFrame(OTHER_GROUP_ID));
+
+		widgetManager.applyEffect(effect);
+		widgetManager.applyEffect(otherEffect);
+
+		widgetManager.onWidgetLoaded(createWidgetLoaded(OTHER_GROUP_ID));
+		widgetManager.onWidgetClosed(new WidgetClosed(OTHER_GROUP_ID + 1, 0, true));
+		widgetManager.applyEffect(effect);
+		widgetManager.applyEffect(otherEffect);
+
+		assertEquals(Arrays.asList(GROUP_ID, OTHER_GROUP_ID, OTHER_GROUP_ID), lookedUpGroupIds);
+	}
+
+	@Test
+	public void looksUpTheChildrenOfAListEveryTime()
+	{
+		final StubWidget parent = loadWidget(GROUP_ID);
+		final StubWidget child = new StubWidget();
+		final StubWidget recreatedChild = new StubWidget();
+		final EbsInterfaceWidgetFrame frame = createFrame(GROUP_ID);
+
+		frame.listIndex = LIST_INDEX;
+		parent.children.put(LIST_INDEX, child);
+		final MarketplaceEffect<EbsInterfaceWidgetFrame> effect = createEffect(frame);
+
+		widgetManager.applyEffect(effect);
+
+		// NOTE: scripts can recreate the children of a list without reloading the interface
+		parent.children.put(LIST_INDEX, recreatedChild);
+		widgetManager.applyEffect(effect);
+
+		assertEquals(Collections.singletonList(GROUP_ID), lookedUpGroupIds);
+		assertEquals(Arrays.asList(FRAME_PROPERTIES), child.writes);
+		assertEquals(Arrays.asList(FRAME_PROPERTIES), recreatedChild.writes);
+		assertEquals(Collections.emptyList(), parent.writes);
+	}
+
+	@Test
+	public void skipsWidgetsThatAreNotLoaded()
+	{
+		final MarketplaceEffect<EbsInterfaceWidgetFrame> effect = createEffect(createFrame(GROUP_ID));
+
+		widgetManager.applyEffect(effect);
+		widgetManager.applyEffect(effect);
+
+		// the missing widget is remembered until the interface is loaded
+		assertEquals(Collections.singletonList(GROUP_ID), lookedUpGroupIds);
+	}
+
+	@Test
+	public void restoresTheOriginalProperties()
+	{
+		final StubWidget widget = loadWidget(GROUP_ID);
+		final MarketplaceEffect<EbsInterfaceWidgetFrame> effect = createEffect(createFrame(GROUP_ID));
+
+		widget.properties.put("text", "Original");
+		widgetManager.applyEffect(effect);
+		widgetManager.restoreEffect(effect);
+
+		assertEquals("Original", widget.properties.get("text"));
+		assertEquals(0, widget.properties.get("type"));
+	}
+
+	private StubWidget loadWidget(int groupId)
+	{
+		final StubWidget widget = new StubWidget();
+
+		loadedWidgets.put(getComponentId(groupId, CHILD_ID), widget);
+
+		return widget;
+	}
+
+	private static int getComponentId(int groupId, int childId)
+	{
+		return (groupId << 16) | childId;
+	}
+
+	private static WidgetLoaded createWidgetLoaded(int groupId)
+	{
+		final WidgetLoaded widgetLoaded = new WidgetLoaded();
+
+		widgetLoaded.setGroupId(groupId);
+
+		return widgetLoaded;
+	}
+
+	private static EbsInterfaceWidgetFrame createFrame(int groupId)
+	{
+		final EbsInterfaceWidgetFrame frame = new EbsInterfaceWidgetFrame();
+
+		frame.effectType = ALTER_INTERFACE_WIDGET_TYPE;
+		frame.parentId = groupId;
+		frame.childId = CHILD_ID;
+		frame.widgetType = 5;
+		frame.contentType = 7;
+		frame.text = "Changed";
+		frame.textColor = 0xff0000;
+		frame.opacity = 100;
+		frame.itemId = 4151;
+		frame.itemQuantity = 3;
+		frame.name = "Name";
+		frame.spriteId = 1337;
+		frame.modelId = 2500;
+		frame.modelZoom = 600;
+		frame.animationId = 1042;
+
+		return frame;
+	}
+
+	private static MarketplaceEffect<EbsInterfaceWidgetFrame> createEffect(EbsInterfaceWidgetFrame frame)
+	{
+		return new MarketplaceEffect<>(null, frame, null, Instant.now().plusSeconds(60));
+	}
+
+	/**
+	 * Widget of which the properties can be changed without being registered as a write of the manager.
+	 */
+	private static class StubWidget
+	{
+		private final HashMap<String, Object> properties = new HashMap<>();
+		private final HashMap<Integer, StubWidget> children = new HashMap<>();
+		private final ArrayList<String> writes = new ArrayList<>();
+		private final Widget widget;
+
+		private StubWidget()
+		{
+			final TestStubs.Stub<Widget> stub = TestStubs.stub(Widget.class)
+				.with("isSelfHidden", (arguments) -> properties.get("hidden"))
+				.with("setHidden", (arguments) -> write("hidden", arguments[0]))
+				.with("getChild", (arguments) -> {
+					final StubWidget child = children.get((int) arguments[0]);
+
+					return child == null ? null : child.widget;
+				});
+
+			properties.put("hidden", false);
+
+			for (String property : FRAME_PROPERTIES)
+			{
+				final String capitalizedProperty = Character.toUpperCase(property.charAt(0)) + property.substring(1);
+				final boolean isText = property.equals("text") || property.equals("name");
+
+				properties.put(property, isText ? "" : 0);
+				stub.with("get"+ capitalizedProperty, (arguments) -> properties.get(property));
+				stub.with("set"+ capitalizedProperty, (arguments) -> write(property, arguments[0]));
+			}
+
+			widget = stub.build();
+		}
+
+		private Widget write(String property, Object value)
+		{
+			properties.put(property, value);
+			writes.add(property);
+
+			return widget;
+		}
+	}
+}
@@ -0,0 +1,136 @@
+package com.twitchliveloadout.marketplace.products;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class EbsProductPlanTest
+{
+	@Test
+	public void acceptsCompleteProducts()
+	{
+		final EbsProduct ebsProduct = createEbsProduct();
+
+		ebsProduct.behaviour.effectsOptions = createEffectsOptions(new EbsEffect());
+		ebsProduct.behaviour.effectsInterval = new EbsInterval();
+
+		final EbsProductPlan plan = EbsProductPlan.compile(ebsProduct);
+
+		assertTrue(plan.isValid());
+		assertTrue(plan.getProblems().isEmpty());
+	}
+
+	@Test
+	public void rejectsProductsWithoutBehaviour()
+	{
+		final EbsProduct ebsProduct = createEbsProduct();
+
+		ebsProduct.behaviour = null;
+
+		assertFalse(EbsProductPlan.compile(ebsProduct).isValid());
+	}
+
+	@Test
+	public void rejectsEmptyEffectFrames()
+	{
+		final EbsProduct ebsProduct = createEbsProduct();
+
+		ebsProduct.behaviour.effectsOptions = createEffectsOptions(new EbsEffect(), null);
+
+		final EbsProductPlan plan = EbsProductPlan.compile(ebsProduct);
+
+		assertFalse(plan.isValid());
+		assertEquals(1, plan.getProblems().size());
+	}
+
+	@Test
+	public void rejectsEmptyNestedEffectFrames()
+	{
+		final EbsProduct ebsProduct = createEbsProduct();
+		final EbsEffect effect = new EbsEffect();
+
+		effect.effectsOptions = createEffectsOptions((EbsEffect) null);
+		ebsProduct.behaviour.startEffectsOptions = createEffectsOptions(effect);
+
+		assertFalse(EbsProductPlan.compile(ebsProduct).isValid());
+	}
+
+	@Test
+	public void rejectsEmptyTimings()
+	{
+		final EbsProduct ebsProduct = createEbsProduct();
+		final EbsInterval interval = new EbsInterval();
+
+		interval.delayMs = null;
+		ebsProduct.behaviour.spawnInterval = interval;
+
+		final EbsProductPlan plan = EbsProductPlan.compile(ebsProduct);
+
+		assertFalse(plan.isValid());
+		assertEquals(1, plan.getProblems().size());
+	}
+
+	@Test
+	public void rejectsEmptyTimingsOfSpawns()
+	{
+		final EbsProduct ebsProduct = createEbsProduct();
+		final EbsSpawnOption spawnOption = new EbsSpawnOption();
+		final EbsSpawn spawn = new EbsSpawn();
+
+		spawn.modelSetOptions = new ArrayList<>(Collections.singletonList(new EbsModelSet()));
+		spawn.randomEffectsInterval = new EbsInterval();
+		spawn.randomEffectsInterval.repeatAmount = null;
+		spawnOption.spawns = new ArrayList<>(Collections.singletonList(spawn));
+		ebsProduct.behaviour.spawnOptions = new ArrayList<>(Collections.singletonList(spawnOption));
+
+		assertFalse(EbsProductPlan.compile(ebsProduct).isValid());
+	}
+
+	@Test
+	public void onlyWarnsAboutEmptyOptions()
+	{
+		final EbsProduct ebsProduct = createEbsProduct();
+
+		ebsProduct.behaviour.effectsOptions = new ArrayList<>();
+		ebsProduct.behaviour.spawnOptions = new ArrayList<>(Collections.singletonList(new EbsSpawnOption()));
+
+		final EbsProductPlan plan = EbsProductPlan.compile(ebsProduct);
+
+		assertTrue(plan.isValid());
+		assertEquals(2, plan.getProblems().size());
+	}
+
+	@Test
+	public void resolvesDefaultIntervals()
+	{
+		final EbsProductPlan plan = EbsProductPlan.compile(createEbsProduct());
+
+		assertEquals(Integer.valueOf(1), plan.getEffectsInterval().repeatAmount);
+		assertEquals(Integer.valueOf(1), plan.getSpawnInterval().repeatAmount);
+	}
+
+	private static EbsProduct createEbsProduct()
+	{
+		final EbsProduct ebsProduct = new EbsProduct();
+
+		ebsProduct.id = "product";
+		ebsProduct.behaviour = new EbsBehaviour();
+
+		return ebsProduct;
+	}
+
+	private static ArrayList<ArrayList<EbsEffect>> createEffectsOptions(EbsEffect... effects)
+	{
+		final ArrayList<ArrayList<EbsEffect>> effectsOptions = new ArrayList<>();
+
+		effectsOptions.add(new ArrayList<>(Arrays.asList(effects)));
+
+		return effectsOptions;
+	}
+}
@@ -0,0 +1,228 @@
+package com.twitchliveloadout.marketplace.products;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonNull;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonPrimitive;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.TreeSet;
+
+import static com.twitchliveloadout.marketplace.MarketplaceConstants.DEFAULT_MAX_RADIUS;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class EbsProductTypeAdapterTest
+{
+	private final Gson gson = new Gson();
+	private final EbsProductTypeAdapter adapter = new EbsProductTypeAdapter();
+	private int nextValue = 1000;
+
+	@Test
+	public void decodesLikeTheReflectiveAdapter() throws IOException
+	{
+		final String rawProduct = readResource("product.json");
+		final EbsProduct reflectiveProduct = gson.fromJson(rawProduct, EbsProduct.class);
+		final EbsProduct streamedProduct = adapter.fromJson(rawProduct);
+
+		assertEquals(toComparableTree(reflectiveProduct), toComparableTree(streamedProduct));
+	}
+
+	@Test
+	public void decodesEveryFieldOfTheModel() throws IOException, ReflectiveOperationException
+	{
+
+		// NOTE: every field gets a value that differs from its default, which makes sure
+		// a field that is added to the model but not to the adapter is reported here
+		final JsonObject rawProduct = createTree(EbsProduct.class, new HashSet<>());
+		final EbsProduct reflectiveProduct = gson.fromJson(rawProduct, EbsProduct.class);
+		final EbsProduct streamedProduct = adapter.fromJson(rawProduct.toString());
+
+		assertSameTree("product", toComparableTree(reflectiveProduct), toComparableTree(streamedProduct));
+	}
+
+	@Test
+	public void keepsDefaultsOfMissingProperties() throws IOException
+	{
+		final EbsProduct product = adapter.fromJson("{\"id\": \"a\", \"behaviour\": {\"spawnOptions\": [{\"spawns\": [{}]}]}}");
+		final EbsSpawn spawn = product.behaviour.spawnOptions.get(0).spawns.get(0);
+
+		assertEquals("a", product.id);
+		assertEquals(Integer.valueOf(1), product.version);
+		assertTrue(product.enabled);
+		assertFalse(product.dangerous);
+		assertTrue(spawn.modelPlacement.avoidInvalidOverlay);
+		assertEquals(Double.valueOf(DEFAULT_MAX_RADIUS), spawn.modelPlacement.radiusRange.max);
+	}
+
+	@Test
+	public void skipsValuesOfAnUnexpectedType() throws IOException
+	{
+		final EbsProduct product = adapter.fromJson("{\"id\": \"a\", \"behaviour\": [1, 2], \"name\": {\"nested\": true}, \"description\": \"b\"}");
+
+		assertNull(product.behaviour);
+		assertNull(product.name);
+		assertEquals("b", product.description);
+	}
+
+	@Test
+	public void skipsProductsThatAreNoObject() throws IOException
+	{
+		assertNull(adapter.fromJson("[]"));
+		assertNull(adapter.fromJson("null"));
+	}
+
+	private JsonElement toComparableTree(EbsProduct product)
+	{
+		final JsonElement tree = gson.toJsonTree(product);
+
+		// NOTE: the loaded at moment differs per decoded product
+		tree.getAsJsonObject().remove("loaded_at");
+
+		return tree;
+	}
+
+	/**
+	 * Create a JSON tree setting all public fields of the given model class and the classes nested in it.
+	 * Model classes nested in themselves are left empty to end the recursion.
+	 */
+	private JsonObject createTree(Class<?> type, Set<Class<?>> parentTypes) throws ReflectiveOperationException
+	{
+		final JsonObject tree = new JsonObject();
+
+		// guard: skip the fields when this type is already being created higher up in the tree
+		if (!parentTypes.add(type))
+		{
+			return tree;
+		}
+
+		final Object defaults = type.getConstructor().newInstance();
+
+		for (Field field : type.getFields())
+		{
+			final int modifiers = field.getModifiers();
+
+			// guard: skip constants and values that are set on construction, like the loaded at moment
+			if (Modifier.isStatic(modifiers) || Modifier.isFinal(modifiers))
+			{
+				continue;
+			}
+
+			tree.add(field.getName(), createValue(field.getGenericType(), field.get(defaults), parentTypes));
+		}
+
+		parentTypes.remove(type);
+		return tree;
+	}
+
+	private JsonElement createValue(Type type, Object defaultValue, Set<Class<?>> parentTypes) throws ReflectiveOperationException
+	{
+		if (type == String.class)
+		{
+			return new JsonPrimitive("value"+ nextValue++);
+		}
+
+		if (type == Integer.class || type == int.class)
+		{
+			return new JsonPrimitive(nextValue++);
+		}
+
+		if (type == Double.class || type == double.class)
+		{
+			return new JsonPrimitive(nextValue++ + 0.5d);
+		}
+
+		if (type == Boolean.class || type == boolean.class)
+		{
+			return new JsonPrimitive(!Boolean.TRUE.equals(defaultValue));
+		}
+
+		if (type instanceof ParameterizedType && ((ParameterizedType) type).getRawType() == ArrayList.class)
+		{
+			final JsonArray array = new JsonArray();
+
+			array.add(createValue(((ParameterizedType) type).getActualTypeArguments()[0], null, parentTypes));
+			return array;
+		}
+
+		if (type instanceof Class && ((Class<?>) type).getPackage() == EbsProduct.class.getPackage())
+		{
+			return createTree((Class<?>) type, parentTypes);
+		}
+
+		throw new AssertionError("Could not create a value for a product field of the type: "+ type);
+	}
+
+	private static void assertSameTree(String path, JsonElement expected, JsonElement actual)
+	{
+		if (expected.isJsonObject() && actual.isJsonObject())
+		{
+			final Set<String> names = new TreeSet<>(expected.getAsJsonObject().keySet());
+			names.addAll(actual.getAsJsonObject().keySet());
+
+			for (String name : names)
+			{
+				assertSameTree(path +"."+ name, getOrNull(expected.getAsJsonObject(), name), getOrNull(actual.getAsJsonObject(), name));
+			}
+			return;
+		}
+
+		if (expected.isJsonArray() && actual.isJsonArray() && expected.getAsJsonArray().size() == actual.getAsJsonArray().size())
+		{
+			for (int index = 0; index < expected.getAsJsonArray().size(); index++)
+			{
+				assertSameTree(path +"["+ index +"]", expected.getAsJsonArray().get(index), actual.getAsJsonArray().get(index));
+			}
+			return;
+		}
+
+		assertEquals("Not decoded like the reflective adapter: "+ path, expected, actual);
+	}
+
+	private static JsonElement getOrNull(JsonObject tree, String name)
+	{
+		final JsonElement element = tree.get(name);
+
+		return (element == null ? JsonNull.INSTANCE : element);
+	}
+
+	private static String readResource(String name) throws IOException
+	{
+		final InputStream stream = EbsProductTypeAdapterTest.class.getResourceAsStream(name);
+
+		if (stream == null)
+		{
+			throw new IOException("Could not find the resource: "+ name);
+		}
+
+		try (Reader reader = new InputStreamReader(stream, StandardCharsets.UTF_8))
+		{
+			final StringBuilder builder = new StringBuilder();
+			final char[] buffer = new char[1024];
+			int length;
+
+			while ((length = reader.read(buffer)) != -1)
+			{
+				builder.append(buffer, 0, length);
+			}
+
+			return builder.toString();
+		}
+	}
+}
@@ -0,0 +1,170 @@
+package com.twitchliveloadout.marketplace.spawns;
+
+import com.twitchliveloadout.TestStubs;
+import net.runelite.api.CollisionData;
+import net.runelite.api.CollisionDataFlag;
+import net.runelite.api.Constants;
+import net.runelite.api.Scene;
+import net.runelite.api.WorldView;
+import net.runelite.api.coords.WorldArea;
+import net.runelite.api.coords.WorldPoint;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class LineOfSightCacheTest
+{
+	private static final int SIZE = Constants.SCENE_SIZE;
+	private static final int CENTER = SIZE / 2;
+	private static final int RADIUS = 8;
+	private static final int BASE_X = 3200;
+	private static final int BASE_Y = 3200;
+
+	private LineOfSightCache lineOfSightCache;
+	private int[][] collisionFlags;
+	private Scene scene;
+	private int plane;
+	private int baseX;
+	private int baseY;
+	private WorldView worldView;
+	private WorldArea originArea;
+
+	@Before
+	public void setUp()
+	{
+		lineOfSightCache = new LineOfSightCache();
+		collisionFlags = new int[SIZE][SIZE];
+		scene = TestStubs.create(Scene.class);
+		plane = 0;
+		baseX = BASE_X;
+		baseY = BASE_Y;
+		worldView = createWorldView();
+		originArea = new WorldArea(BASE_X + CENTER, BASE_Y + CENTER, 1, 1, 0);
+
+		// a wall with a gap and a single pillar next to the origin
+		for (int sceneY = CENTER - RADIUS; sceneY <= CENTER + RADIUS; sceneY++)
+		{
+			if (sceneY != CENTER + 2)
+			{
+				collisionFlags[CENTER + 3][sceneY] = CollisionDataFlag.BLOCK_LINE_OF_SIGHT_FULL;
+			}
+		}
+
+		collisionFlags[CENTER - 2][CENTER - 1] = CollisionDataFlag.BLOCK_LINE_OF_SIGHT_FULL;
+	}
+
+	@Test
+	public void matchesTheUncachedLineOfSight()
+	{
+		final WorldArea largeOriginArea = new WorldArea(BASE_X + CENTER - 4, BASE_Y + CENTER + 1, 2, 2, 0);
+		int targetAmount = 0;
+
+		// NOTE: the second pass gets the results from the cache
+		for (int pass = 0; pass < 2; pass++)
+		{
+			for (int sceneX = CENTER - RADIUS; sceneX <= CENTER + RADIUS; sceneX++)
+			{
+				for (int sceneY = CENTER - RADIUS; sceneY <= CENTER + RADIUS; sceneY++)
+				{
+					assertEquals("Line of sight to "+ sceneX +", "+ sceneY, hasUncachedLineOfSight(originArea, sceneX, sceneY), hasCachedLineOfSight(originArea, sceneX, sceneY));
+					assertEquals("Line of sight of large area to "+ sceneX +", "+ sceneY, hasUncachedLineOfSight(largeOriginArea, sceneX, sceneY), hasCachedLineOfSight(largeOriginArea, sceneX, sceneY));
+					targetAmount += (pass == 0 ? 2 : 0);
+				}
+			}
+		}
+
+		assertEquals(targetAmount, lineOfSightCache.getMissAmount());
+		assertEquals(targetAmount, lineOfSightCache.getHitAmount());
+	}
+
+	@Test
+	public void keepsResultsUntilInvalidated()
+	{
+		final int targetSceneX = CENTER + 5;
+		final boolean hadLineOfSight = hasCachedLineOfSight(originArea, targetSceneX, CENTER);
+
+		toggleLineOfSightBlocker(targetSceneX, CENTER);
+		assertEquals(hadLineOfSight, hasCachedLineOfSight(originArea, targetSceneX, CENTER));
+
+		lineOfSightCache.invalidate();
+		assertCachedMatchesUncached(targetSceneX, CENTER);
+	}
+
+	@Test
+	public void invalidatesWhenTheSceneChanges()
+	{
+		hasCachedLineOfSight(originArea, CENTER, CENTER + 4);
+		toggleLineOfSightBlocker(CENTER, CENTER + 4);
+
+		scene = TestStubs.create(Scene.class);
+		assertCachedMatchesUncached(CENTER, CENTER + 4);
+	}
+
+	@Test
+	public void invalidatesWhenThePlaneChanges()
+	{
+		hasCachedLineOfSight(originArea, CENTER, CENTER + 4);
+		toggleLineOfSightBlocker(CENTER, CENTER + 4);
+
+		plane = 1;
+		assertCachedMatchesUncached(CENTER, CENTER + 4);
+	}
+
+	@Test
+	public void invalidatesWhenTheBaseChanges()
+	{
+		hasCachedLineOfSight(originArea, CENTER, CENTER + 4);
+		toggleLineOfSightBlocker(CENTER, CENTER + 4);
+
+		// the origin stays at the same world location, but it is at another tile in the new scene
+		baseX = BASE_X + Constants.CHUNK_SIZE;
+		assertCachedMatchesUncached(CENTER, CENTER + 4);
+	}
+
+	/**
+	 * Check the line of sight is determined again, where a hit would mean a stale result was returned.
+	 */
+	private void assertCachedMatchesUncached(int targetSceneX, int targetSceneY)
+	{
+		assertEquals(hasUncachedLineOfSight(originArea, targetSceneX, targetSceneY), hasCachedLineOfSight(originArea, targetSceneX, targetSceneY));
+		assertEquals("Result was taken from the cache", 0, lineOfSightCache.getHitAmount());
+	}
+
+	private void toggleLineOfSightBlocker(int sceneX, int sceneY)
+	{
+		collisionFlags[sceneX][sceneY] ^= CollisionDataFlag.BLOCK_LINE_OF_SIGHT_FULL;
+	}
+
+	private boolean hasCachedLineOfSight(WorldArea area, int targetSceneX, int targetSceneY)
+	{
+		return lineOfSightCache.hasLineOfSightTo(worldView, area, targetSceneX, targetSceneY, getWorldPoint(targetSceneX, targetSceneY));
+	}
+
+	private boolean hasUncachedLineOfSight(WorldArea area, int targetSceneX, int targetSceneY)
+	{
+		return area.hasLineOfSightTo(worldView, getWorldPoint(targetSceneX, targetSceneY));
+	}
+
+	private WorldPoint getWorldPoint(int sceneX, int sceneY)
+	{
+		return new WorldPoint(baseX + sceneX, baseY + sceneY, 0);
+	}
+
+	private WorldView createWorldView()
+	{
+		final CollisionData collisionData = TestStubs.stub(CollisionData.class)
+			.with("getFlags", (arguments) -> collisionFlags)
+			.build();
+
+		return TestStubs.stub(WorldView.class)
+			.with("getScene", (arguments) -> scene)
+			.with("getPlane", (arguments) -> plane)
+			.with("getBaseX", (arguments) -> baseX)
+			.with("getBaseY", (arguments) -> baseY)
+			.with("getSizeX", SIZE)
+			.with("getSizeY", SIZE)
+			.with("getCollisionMaps", new CollisionData[] {collisionData, collisionData, collisionData, collisionData})
+			.build();
+	}
+}
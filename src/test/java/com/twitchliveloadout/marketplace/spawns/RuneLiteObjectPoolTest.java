@@ -0,0 +1,158 @@
+package com.twitchliveloadout.marketplace.spawns;
+
+import com.twitchliveloadout.TestStubs;
+import net.runelite.api.Animation;
+import net.runelite.api.Client;
+import net.runelite.api.Model;
+import net.runelite.api.RuneLiteObject;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.HashSet;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class RuneLiteObjectPoolTest
+{
+	private static final int DEFAULT_RADIUS = 60;
+
+	private RuneLiteObjectPool objectPool;
+	private int createdAmount;
+
+	@Before
+	public void setUp()
+	{
+		final Client client = TestStubs.stub(Client.class)
+			.with("createRuneLiteObject", (arguments) -> createObject())
+			.build();
+
+		objectPool = new RuneLiteObjectPool(client);
+		createdAmount = 0;
+	}
+
+	@Test
+	public void createsObjectsWhenNonePooled()
+	{
+		final RuneLiteObject object = objectPool.acquire();
+		final RuneLiteObject otherObject = objectPool.acquire();
+
+		assertNotSame(object, otherObject);
+		assertEquals(2, createdAmount);
+	}
+
+	@Test
+	public void reusesReleasedObjects()
+	{
+		final RuneLiteObject object = objectPool.acquire();
+
+		objectPool.release(object);
+
+		assertSame(object, objectPool.acquire());
+		assertEquals(1, createdAmount);
+
+		// the pool is empty again after handing out the released object
+		assertNotSame(object, objectPool.acquire());
+		assertEquals(2, createdAmount);
+	}
+
+	@Test
+	public void resetsReleasedObjects()
+	{
+		final RuneLiteObject object = objectPool.acquire();
+
+		object.setActive(true);
+		object.setModel(TestStubs.create(Model.class));
+		object.setAnimation(TestStubs.create(Animation.class));
+		object.setOrientation(512);
+		object.setRadius(300);
+		objectPool.release(object);
+
+		final RuneLiteObject reusedObject = objectPool.acquire();
+
+		assertSame(object, reusedObject);
+		assertFalse(reusedObject.isActive());
+		assertNull(reusedObject.getModel());
+		assertNull(reusedObject.getAnimation());
+		assertEquals(0, reusedObject.getOrientation());
+		assertEquals(DEFAULT_RADIUS, reusedObject.getRadius());
+	}
+
+	@Test
+	public void discardsObjectsWhenFull()
+	{
+		final HashSet<RuneLiteObject> releasedObjects = new HashSet<>();
+
+		for (int objectIndex = 0; objectIndex < RuneLiteObjectPool.MAX_SIZE + 10; objectIndex++)
+		{
+			releasedObjects.add(objectPool.acquire());
+		}
+
+		for (RuneLiteObject object : releasedObjects)
+		{
+			objectPool.release(object);
+		}
+
+		final int createdAmountBefore = createdAmount;
+
+		for (int objectIndex = 0; objectIndex < RuneLiteObjectPool.MAX_SIZE; objectIndex++)
+		{
+			assertTrue(releasedObjects.contains(objectPool.acquire()));
+		}
+
+		assertEquals(createdAmountBefore, createdAmount);
+
+		// the objects beyond the maximum size were discarded
+		assertFalse(releasedObjects.contains(objectPool.acquire()));
+		assertEquals(createdAmountBefore + 1, createdAmount);
+	}
+
+	@Test
+	public void ignoresReleasingNothing()
+	{
+		objectPool.release(null);
+		objectPool.acquire();
+
+		assertEquals(1, createdAmount);
+	}
+
+	@Test
+	public void createsObjectsAfterClearing()
+	{
+		final RuneLiteObject object = objectPool.acquire();
+
+		objectPool.release(object);
+		objectPool.clear();
+
+		assertNotSame(object, objectPool.acquire());
+		assertEquals(2, createdAmount);
+	}
+
+	private RuneLiteObject createObject()
+	{
+		final HashMap<String, Object> state = new HashMap<>();
+
+		state.put("active", false);
+		state.put("orientation", 0);
+		state.put("radius", DEFAULT_RADIUS);
+		createdAmount++;
+
+		return TestStubs.stub(RuneLiteObject.class)
+			.with("setActive", (arguments) -> state.put("active", arguments[0]))
+			.with("isActive", (arguments) -> state.get("active"))
+			.with("setModel", (arguments) -> state.put("model", arguments[0]))
+			.with("getModel", (arguments) -> state.get("model"))
+			.with("setAnimation", (arguments) -> state.put("animation", arguments[0]))
+			.with("getAnimation", (arguments) -> state.get("animation"))
+			.with("setOrientation", (arguments) -> state.put("orientation", arguments[0]))
+			.with("getOrientation", (arguments) -> state.get("orientation"))
+			.with("setRadius", (arguments) -> state.put("radius", arguments[0]))
+			.with("getRadius", (arguments) -> state.get("radius"))
+			.build();
+	}
+}
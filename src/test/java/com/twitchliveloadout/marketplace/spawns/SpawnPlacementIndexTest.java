@@ -0,0 +1,175 @@
+package com.twitchliveloadout.marketplace.spawns;
+
+import com.twitchliveloadout.TestStubs;
+import com.twitchliveloadout.marketplace.products.EbsSpawn;
+import net.runelite.api.Client;
+import net.runelite.api.RuneLiteObject;
+import net.runelite.api.WorldView;
+import net.runelite.api.coords.WorldPoint;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Random;
+
+import static com.twitchliveloadout.marketplace.MarketplaceConstants.CHUNK_SIZE;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class SpawnPlacementIndexTest
+{
+	private SpawnPlacementIndex placementIndex;
+	private Client client;
+	private RuneLiteObjectPool objectPool;
+
+	@Before
+	public void setUp()
+	{
+		placementIndex = new SpawnPlacementIndex();
+		client = TestStubs.stub(Client.class)
+			.with("createRuneLiteObject", (arguments) -> TestStubs.create(RuneLiteObject.class))
+			.with("getTopLevelWorldView", TestStubs.create(WorldView.class))
+			.build();
+		objectPool = new RuneLiteObjectPool(client);
+	}
+
+	@Test
+	public void registersAndDeregistersPerTile()
+	{
+		final WorldPoint tile = new WorldPoint(3200, 3200, 0);
+		final SpawnedObject spawnedObject = createSpawnedObject(tile);
+		final SpawnedObject otherSpawnedObject = createSpawnedObject(tile);
+
+		assertFalse(placementIndex.isOccupied(tile));
+		assertTrue(placementIndex.register(spawnedObject));
+		assertFalse(placementIndex.register(otherSpawnedObject));
+		assertTrue(placementIndex.isOccupied(tile));
+
+		assertFalse(placementIndex.deregister(spawnedObject));
+		assertTrue(placementIndex.isOccupied(tile));
+
+		assertTrue(placementIndex.deregister(otherSpawnedObject));
+		assertFalse(placementIndex.isOccupied(tile));
+		assertEquals(0, placementIndex.countInRadius(tile, 10, null));
+	}
+
+	@Test
+	public void ignoresUnknownSpawnedObjectsWhenDeregistering()
+	{
+		final WorldPoint tile = new WorldPoint(3200, 3200, 0);
+
+		placementIndex.register(createSpawnedObject(tile));
+
+		assertFalse(placementIndex.deregister(createSpawnedObject(tile)));
+		assertFalse(placementIndex.deregister(createSpawnedObject(new WorldPoint(0, 0, 0))));
+		assertTrue(placementIndex.isOccupied(tile));
+	}
+
+	@Test
+	public void keepsTilesSeparatePerPlane()
+	{
+		placementIndex.register(createSpawnedObject(new WorldPoint(3200, 3200, 1)));
+
+		assertFalse(placementIndex.isOccupied(new WorldPoint(3200, 3200, 0)));
+		assertTrue(placementIndex.isOccupied(new WorldPoint(3200, 3200, 1)));
+		assertEquals(0, placementIndex.countInRadius(new WorldPoint(3200, 3200, 0), 5, null));
+		assertEquals(1, placementIndex.countInRadius(new WorldPoint(3200, 3200, 1), 5, null));
+	}
+
+	@Test
+	public void countsAcrossChunkBoundaries()
+	{
+		final int chunkEdge = 400 * CHUNK_SIZE;
+
+		placementIndex.register(createSpawnedObject(new WorldPoint(chunkEdge - 1, chunkEdge - 1, 0)));
+		placementIndex.register(createSpawnedObject(new WorldPoint(chunkEdge, chunkEdge, 0)));
+		placementIndex.register(createSpawnedObject(new WorldPoint(chunkEdge - 1, chunkEdge, 0)));
+		placementIndex.register(createSpawnedObject(new WorldPoint(chunkEdge + 2, chunkEdge - 2, 0)));
+
+		assertEquals(3, placementIndex.countInRadius(new WorldPoint(chunkEdge, chunkEdge, 0), 1, null));
+		assertEquals(4, placementIndex.countInRadius(new WorldPoint(chunkEdge, chunkEdge, 0), 2, null));
+		assertEquals(1, placementIndex.countInRadius(new WorldPoint(chunkEdge - 1, chunkEdge - 1, 0), 0, null));
+		assertEquals(0, placementIndex.countInRadius(new WorldPoint(chunkEdge + 1, chunkEdge - 1, 0), 0, null));
+	}
+
+	@Test
+	public void countsAroundNegativeCoordinates()
+	{
+		placementIndex.register(createSpawnedObject(new WorldPoint(-1, -1, 0)));
+		placementIndex.register(createSpawnedObject(new WorldPoint(0, 0, 0)));
+		placementIndex.register(createSpawnedObject(new WorldPoint(-CHUNK_SIZE, -CHUNK_SIZE, 0)));
+		placementIndex.register(createSpawnedObject(new WorldPoint(-CHUNK_SIZE - 1, 3, 0)));
+
+		assertEquals(2, placementIndex.countInRadius(new WorldPoint(0, 0, 0), 1, null));
+		assertEquals(1, placementIndex.countInRadius(new WorldPoint(-CHUNK_SIZE, -CHUNK_SIZE, 0), 0, null));
+		assertEquals(1, placementIndex.countInRadius(new WorldPoint(-CHUNK_SIZE - 1, 3, 0), 0, null));
+		assertEquals(4, placementIndex.countInRadius(new WorldPoint(-4, -4, 0), CHUNK_SIZE, null));
+		assertTrue(placementIndex.isOccupied(new WorldPoint(-1, -1, 0)));
+		assertFalse(placementIndex.isOccupied(new WorldPoint(CHUNK_SIZE - 1, CHUNK_SIZE - 1, 0)));
+	}
+
+	@Test
+	public void countsTheSameAsCheckingAllSpawnedObjects()
+	{
+		final Random random = new Random(42);
+		final ArrayList<WorldPoint> tiles = new ArrayList<>();
+
+		for (int spawnIndex = 0; spawnIndex < 300; spawnIndex++)
+		{
+			final WorldPoint tile = new WorldPoint(random.nextInt(61) - 30, random.nextInt(61) - 30, random.nextInt(2));
+
+			placementIndex.register(createSpawnedObject(tile));
+			tiles.add(tile);
+		}
+
+		for (int queryIndex = 0; queryIndex < 200; queryIndex++)
+		{
+			final WorldPoint center = new WorldPoint(random.nextInt(81) - 40, random.nextInt(81) - 40, random.nextInt(2));
+
+			// NOTE: large radiuses check all chunks instead of looking up the chunks in the radius
+			final int radius = (queryIndex % 10 == 0 ? 100 + random.nextInt(100) : random.nextInt(20));
+			int expectedAmount = 0;
+
+			for (WorldPoint tile : tiles)
+			{
+				if (tile.getPlane() == center.getPlane() && Math.max(Math.abs(tile.getX() - center.getX()), Math.abs(tile.getY() - center.getY())) <= radius)
+				{
+					expectedAmount++;
+				}
+			}
+
+			assertEquals("Amount around "+ center.getX() +", "+ center.getY() +" within "+ radius, expectedAmount, placementIndex.countInRadius(center, radius, null));
+		}
+	}
+
+	@Test
+	public void handlesAllRegisteredSpawnedObjects()
+	{
+		final SpawnedObject spawnedObject = createSpawnedObject(new WorldPoint(-3, 5, 0));
+		final SpawnedObject otherSpawnedObject = createSpawnedObject(new WorldPoint(20, 5, 0));
+		final SpawnedObject deregisteredObject = createSpawnedObject(new WorldPoint(20, 5, 0));
+		final ArrayList<SpawnedObject> handledObjects = new ArrayList<>();
+
+		placementIndex.register(spawnedObject);
+		placementIndex.register(otherSpawnedObject);
+		placementIndex.register(deregisteredObject);
+		placementIndex.deregister(deregisteredObject);
+
+		// handlers are allowed to deregister while handling all
+		placementIndex.handleAll((handledObject) -> {
+			handledObjects.add(handledObject);
+			placementIndex.deregister(handledObject);
+		});
+
+		assertEquals(2, handledObjects.size());
+		assertTrue(handledObjects.contains(spawnedObject));
+		assertTrue(handledObjects.contains(otherSpawnedObject));
+		assertEquals(0, placementIndex.countInRadius(new WorldPoint(0, 0, 0), 100, null));
+	}
+
+	private SpawnedObject createSpawnedObject(WorldPoint worldPoint)
+	{
+		return new SpawnedObject(null, client, null, objectPool, new SpawnPoint(worldPoint), new EbsSpawn(), null, null);
+	}
+}
@@ -0,0 +1,354 @@
+package com.twitchliveloadout.marketplace.spawns;
+
+import com.twitchliveloadout.TestStubs;
+import net.runelite.api.CollisionData;
+import net.runelite.api.CollisionDataFlag;
+import net.runelite.api.Constants;
+import net.runelite.api.Scene;
+import net.runelite.api.WorldView;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class SpawnTileIndexTest
+{
+	private static final int SIZE = Constants.SCENE_SIZE;
+	private static final int CENTER = SIZE / 2;
+	private static final SpawnTileIndex.TileFilter ALLOW_ALL = (sceneX, sceneY) -> true;
+	private static final long[] SEEDS = {1, 42, 1337, 987654321};
+
+	private SpawnTileIndex spawnTileIndex;
+	private int[][] collisionFlags;
+	private short[][][] underlayIds;
+	private WorldView worldView;
+
+	@Before
+	public void setUp()
+	{
+		spawnTileIndex = new SpawnTileIndex();
+		collisionFlags = new int[SIZE][SIZE];
+		underlayIds = new short[Constants.MAX_Z][Constants.EXTENDED_SCENE_SIZE][Constants.EXTENDED_SCENE_SIZE];
+		worldView = createWorldView();
+	}
+
+	@Test
+	public void enumeratesTheCandidatesRingByRing()
+	{
+		final int maxRadius = 6;
+		final int[] tiles = findCandidatesInOrder(CENTER, CENTER, 0, maxRadius);
+
+		assertEquals((maxRadius * 2 + 1) * (maxRadius * 2 + 1), tiles.length);
+		assertEquals(CENTER, SpawnTileIndex.getSceneX(tiles[0]));
+		assertEquals(CENTER, SpawnTileIndex.getSceneY(tiles[0]));
+
+		for (int tileIndex = 1; tileIndex < tiles.length; tileIndex++)
+		{
+			final int previousRing = getRing(tiles[tileIndex - 1], CENTER, CENTER);
+			final int ring = getRing(tiles[tileIndex], CENTER, CENTER);
+
+			assertTrue("Ring "+ ring +" after ring "+ previousRing, ring >= previousRing);
+
+			// within a ring the tiles are sorted by distance
+			if (ring == previousRing)
+			{
+				assertTrue(getDistanceSquared(tiles[tileIndex], CENTER, CENTER) >= getDistanceSquared(tiles[tileIndex - 1], CENTER, CENTER));
+			}
+		}
+
+		assertDistinct(tiles);
+	}
+
+	@Test
+	public void excludesTilesWithinTheMinRadius()
+	{
+		final int minRadius = 3;
+		final int maxRadius = 5;
+		final int[] tiles = findCandidatesInOrder(CENTER, CENTER, minRadius, maxRadius);
+
+		for (int tile : tiles)
+		{
+			assertTrue(getDistanceSquared(tile, CENTER, CENTER) >= minRadius * minRadius);
+			assertTrue(getRing(tile, CENTER, CENTER) <= maxRadius);
+		}
+
+		assertEquals(countTilesInRange(CENTER, CENTER, minRadius, maxRadius), tiles.length);
+	}
+
+	@Test
+	public void excludesTheCornersOfTheRingAtTheMinRadius()
+	{
+
+		// the corner of the second ring is closer than a radius of three, while the side of the third ring is not
+		final int[] tiles = findCandidatesInOrder(CENTER, CENTER, 3, 3);
+
+		assertEquals(countTilesInRange(CENTER, CENTER, 3, 3), tiles.length);
+		assertEquals(24, tiles.length);
+	}
+
+	@Test
+	public void reusesTheRingsOfALargerRadius()
+	{
+		findCandidatesInOrder(CENTER, CENTER, 0, 8);
+
+		final int[] tiles = findCandidatesInOrder(CENTER, CENTER, 1, 2);
+
+		assertEquals(countTilesInRange(CENTER, CENTER, 1, 2), tiles.length);
+
+		for (int tile : tiles)
+		{
+			assertTrue(getRing(tile, CENTER, CENTER) <= 2);
+		}
+	}
+
+	@Test
+	public void skipsCandidatesOutsideOfTheScene()
+	{
+		final int[] tiles = findCandidatesInOrder(1, SIZE - 1, 0, 3);
+
+		assertEquals(countTilesInRange(1, SIZE - 1, 0, 3), tiles.length);
+
+		for (int tile : tiles)
+		{
+			assertTrue(isInScene(SpawnTileIndex.getSceneX(tile), SpawnTileIndex.getSceneY(tile)));
+		}
+	}
+
+	@Test
+	public void skipsTilesThatAreNotWalkable()
+	{
+		collisionFlags[CENTER + 1][CENTER] = CollisionDataFlag.BLOCK_MOVEMENT_FULL;
+		collisionFlags[CENTER][CENTER - 2] = CollisionDataFlag.BLOCK_MOVEMENT_FULL;
+
+		final int[] tiles = findCandidatesInOrder(CENTER, CENTER, 0, 2);
+
+		assertEquals(25 - 2, tiles.length);
+	}
+
+	@Test
+	public void findsDistinctTilesWithinTheRadiusRange()
+	{
+		final int minRadius = 2;
+		final int maxRadius = 7;
+
+		blockEveryFifthTile();
+
+		for (long seed : SEEDS)
+		{
+			final int[] spawnTiles = new int[40];
+			final int foundAmount = spawnTileIndex.findSpawnTiles(worldView, CENTER, CENTER, 0, minRadius, maxRadius, false, new Random(seed), ALLOW_ALL, spawnTiles);
+
+			assertEquals("Found amount with seed "+ seed, spawnTiles.length, foundAmount);
+			assertDistinct(spawnTiles);
+
+			for (int tile : spawnTiles)
+			{
+				final int sceneX = SpawnTileIndex.getSceneX(tile);
+				final int sceneY = SpawnTileIndex.getSceneY(tile);
+
+				assertTrue("Too close with seed "+ seed, getDistanceSquared(tile, CENTER, CENTER) >= minRadius * minRadius);
+				assertTrue("Too far with seed "+ seed, getRing(tile, CENTER, CENTER) <= maxRadius);
+				assertEquals("Not walkable with seed "+ seed, 0, collisionFlags[sceneX][sceneY]);
+			}
+		}
+	}
+
+	@Test
+	public void onlyFindsTilesAllowedByTheFilter()
+	{
+		final SpawnTileIndex.TileFilter evenTilesFilter = (sceneX, sceneY) -> (sceneX + sceneY) % 2 == 0;
+
+		for (long seed : SEEDS)
+		{
+			final int[] spawnTiles = new int[30];
+			final int foundAmount = spawnTileIndex.findSpawnTiles(worldView, CENTER, CENTER, 0, 0, 5, false, new Random(seed), evenTilesFilter, spawnTiles);
+
+			assertEquals(spawnTiles.length, foundAmount);
+
+			for (int tile : spawnTiles)
+			{
+				assertTrue(evenTilesFilter.isAllowed(SpawnTileIndex.getSceneX(tile), SpawnTileIndex.getSceneY(tile)));
+			}
+		}
+	}
+
+	@Test
+	public void findsAllAllowedTilesWhenThereAreNotEnough()
+	{
+		final SpawnTileIndex.TileFilter evenTilesFilter = (sceneX, sceneY) -> (sceneX + sceneY) % 2 == 0;
+
+		blockEveryFifthTile();
+
+		for (long seed : SEEDS)
+		{
+			final int[] spawnTiles = new int[SIZE * SIZE];
+			final int foundAmount = spawnTileIndex.findSpawnTiles(worldView, CENTER, CENTER, 0, 1, 4, false, new Random(seed), evenTilesFilter, spawnTiles);
+			int allowedAmount = 0;
+
+			for (int deltaX = -4; deltaX <= 4; deltaX++)
+			{
+				for (int deltaY = -4; deltaY <= 4; deltaY++)
+				{
+					final int sceneX = CENTER + deltaX;
+					final int sceneY = CENTER + deltaY;
+
+					if ((deltaX != 0 || deltaY != 0) && collisionFlags[sceneX][sceneY] == 0 && evenTilesFilter.isAllowed(sceneX, sceneY))
+					{
+						allowedAmount++;
+					}
+				}
+			}
+
+			assertEquals(allowedAmount, foundAmount);
+		}
+	}
+
+	@Test
+	public void findsTheSameTilesForTheSameSeed()
+	{
+		final int[] spawnTiles = new int[10];
+		final int[] otherSpawnTiles = new int[10];
+
+		spawnTileIndex.findSpawnTiles(worldView, CENTER, CENTER, 0, 1, 6, false, new Random(SEEDS[0]), ALLOW_ALL, spawnTiles);
+		spawnTileIndex.findSpawnTiles(worldView, CENTER, CENTER, 0, 1, 6, false, new Random(SEEDS[0]), ALLOW_ALL, otherSpawnTiles);
+
+		assertArrayEquals(spawnTiles, otherSpawnTiles);
+	}
+
+	@Test
+	public void avoidsTilesThatAreBlackOnTheMinimap()
+	{
+		final int offset = (Constants.EXTENDED_SCENE_SIZE - Constants.SCENE_SIZE) / 2;
+
+		// only the tiles east of the center have an underlay
+		for (int sceneX = CENTER + 1; sceneX < SIZE; sceneX++)
+		{
+			for (int sceneY = 0; sceneY < SIZE; sceneY++)
+			{
+				underlayIds[0][sceneX + offset][sceneY + offset] = 1;
+			}
+		}
+
+		for (long seed : SEEDS)
+		{
+			final int[] spawnTiles = new int[SIZE * SIZE];
+			final int foundAmount = spawnTileIndex.findSpawnTiles(worldView, CENTER, CENTER, 0, 0, 3, true, new Random(seed), ALLOW_ALL, spawnTiles);
+
+			assertEquals(3 * 7, foundAmount);
+
+			for (int tileIndex = 0; tileIndex < foundAmount; tileIndex++)
+			{
+				assertTrue(SpawnTileIndex.getSceneX(spawnTiles[tileIndex]) > CENTER);
+			}
+		}
+	}
+
+	private void blockEveryFifthTile()
+	{
+		for (int sceneX = 0; sceneX < SIZE; sceneX++)
+		{
+			for (int sceneY = 0; sceneY < SIZE; sceneY++)
+			{
+				if ((sceneX * 7 + sceneY * 3) % 5 == 0)
+				{
+					collisionFlags[sceneX][sceneY] = CollisionDataFlag.BLOCK_MOVEMENT_FULL;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Find all candidates around the tile in the order they are enumerated by always drawing the last candidate.
+	 */
+	private int[] findCandidatesInOrder(int sceneX, int sceneY, int minRadius, int maxRadius)
+	{
+		final int[] spawnTiles = new int[SIZE * SIZE];
+		final Random lastCandidateRandom = new Random()
+		{
+			@Override
+			public int nextInt(int bound)
+			{
+				return bound - 1;
+			}
+		};
+		final int foundAmount = spawnTileIndex.findSpawnTiles(worldView, sceneX, sceneY, 0, minRadius, maxRadius, false, lastCandidateRandom, ALLOW_ALL, spawnTiles);
+		final int[] tiles = new int[foundAmount];
+
+		// the last candidate is drawn first, so reverse them to get the order of enumeration
+		for (int tileIndex = 0; tileIndex < foundAmount; tileIndex++)
+		{
+			tiles[tileIndex] = spawnTiles[foundAmount - 1 - tileIndex];
+		}
+
+		return tiles;
+	}
+
+	private int countTilesInRange(int sceneX, int sceneY, int minRadius, int maxRadius)
+	{
+		int tileAmount = 0;
+
+		for (int deltaX = -maxRadius; deltaX <= maxRadius; deltaX++)
+		{
+			for (int deltaY = -maxRadius; deltaY <= maxRadius; deltaY++)
+			{
+				if (isInScene(sceneX + deltaX, sceneY + deltaY) && deltaX * deltaX + deltaY * deltaY >= minRadius * minRadius)
+				{
+					tileAmount++;
+				}
+			}
+		}
+
+		return tileAmount;
+	}
+
+	private static void assertDistinct(int[] tiles)
+	{
+		for (int tileIndex = 0; tileIndex < tiles.length; tileIndex++)
+		{
+			for (int otherTileIndex = tileIndex + 1; otherTileIndex < tiles.length; otherTileIndex++)
+			{
+				assertTrue("Duplicate tile", tiles[tileIndex] != tiles[otherTileIndex]);
+			}
+		}
+	}
+
+	private static int getRing(int tile, int centerX, int centerY)
+	{
+		return Math.max(Math.abs(SpawnTileIndex.getSceneX(tile) - centerX), Math.abs(SpawnTileIndex.getSceneY(tile) - centerY));
+	}
+
+	private static int getDistanceSquared(int tile, int centerX, int centerY)
+	{
+		final int deltaX = SpawnTileIndex.getSceneX(tile) - centerX;
+		final int deltaY = SpawnTileIndex.getSceneY(tile) - centerY;
+
+		return deltaX * deltaX + deltaY * deltaY;
+	}
+
+	private static boolean isInScene(int sceneX, int sceneY)
+	{
+		return sceneX >= 0 && sceneX < SIZE && sceneY >= 0 && sceneY < SIZE;
+	}
+
+	private WorldView createWorldView()
+	{
+		final short[][][] overlayIds = new short[Constants.MAX_Z][Constants.EXTENDED_SCENE_SIZE][Constants.EXTENDED_SCENE_SIZE];
+		final Scene scene = TestStubs.stub(Scene.class)
+			.with("getUnderlayIds", underlayIds)
+			.with("getOverlayIds", overlayIds)
+			.build();
+		final CollisionData collisionData = TestStubs.stub(CollisionData.class)
+			.with("getFlags", (arguments) -> collisionFlags)
+			.build();
+
+		return TestStubs.stub(WorldView.class)
+			.with("getScene", scene)
+			.with("getPlane", 0)
+			.with("getCollisionMaps", new CollisionData[] {collisionData, collisionData, collisionData, collisionData})
+			.build();
+	}
+}
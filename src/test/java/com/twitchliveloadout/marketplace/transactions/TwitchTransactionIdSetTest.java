@@ -0,0 +1,102 @@
+package com.twitchliveloadout.marketplace.transactions;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class TwitchTransactionIdSetTest
+{
+	private static final int MAX_AMOUNT = 3;
+
+	@Test
+	public void evictsTheOldestIdsFirst()
+	{
+		final TwitchTransactionIdSet transactionIds = new TwitchTransactionIdSet(MAX_AMOUNT);
+
+		transactionIds.add("1");
+		transactionIds.add("2");
+		transactionIds.add("3");
+		transactionIds.add("4");
+		transactionIds.add("5");
+
+		assertEquals(MAX_AMOUNT, transactionIds.size());
+		assertFalse(transactionIds.contains("1"));
+		assertFalse(transactionIds.contains("2"));
+		assertTrue(transactionIds.contains("3"));
+		assertTrue(transactionIds.contains("5"));
+	}
+
+	@Test
+	public void knownIdsDoNotBecomeNewer()
+	{
+		final TwitchTransactionIdSet transactionIds = new TwitchTransactionIdSet(MAX_AMOUNT);
+
+		transactionIds.add("1");
+		transactionIds.add("2");
+		transactionIds.add("3");
+
+		assertFalse(transactionIds.add("1"));
+
+		transactionIds.add("4");
+
+		assertFalse(transactionIds.contains("1"));
+		assertTrue(transactionIds.contains("2"));
+	}
+
+	@Test
+	public void readdedIdsBecomeTheNewest()
+	{
+		final TwitchTransactionIdSet transactionIds = new TwitchTransactionIdSet(MAX_AMOUNT);
+
+		transactionIds.add("1");
+		transactionIds.add("2");
+		transactionIds.add("3");
+		transactionIds.remove("1");
+
+		assertTrue(transactionIds.add("1"));
+
+		transactionIds.add("4");
+
+		assertFalse(transactionIds.contains("2"));
+		assertTrue(transactionIds.contains("1"));
+	}
+
+	@Test
+	public void keepsTheEvictionOrderAfterSerializing()
+	{
+		final TwitchTransactionIdSet transactionIds = new TwitchTransactionIdSet(MAX_AMOUNT);
+
+		transactionIds.add("1");
+		transactionIds.add("2");
+		transactionIds.add("3");
+
+		final TwitchTransactionIdSet restoredTransactionIds = new TwitchTransactionIdSet(MAX_AMOUNT);
+		restoredTransactionIds.deserialize(transactionIds.serialize());
+		restoredTransactionIds.add("4");
+
+		assertEquals("[\"2\",\"3\",\"4\"]", restoredTransactionIds.serialize());
+	}
+
+	@Test
+	public void tracksModificationsSinceSerializing()
+	{
+		final TwitchTransactionIdSet transactionIds = new TwitchTransactionIdSet(MAX_AMOUNT);
+
+		assertFalse(transactionIds.isModified());
+
+		transactionIds.add("1");
+		assertTrue(transactionIds.isModified());
+
+		transactionIds.serialize();
+		assertFalse(transactionIds.isModified());
+
+		transactionIds.add("1");
+		transactionIds.remove("2");
+		assertFalse(transactionIds.isModified());
+
+		transactionIds.remove("1");
+		assertTrue(transactionIds.isModified());
+	}
+}
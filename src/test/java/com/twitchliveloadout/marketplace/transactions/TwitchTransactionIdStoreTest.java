@@ -0,0 +1,144 @@
+package com.twitchliveloadout.marketplace.transactions;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.HashMap;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class TwitchTransactionIdStoreTest
+{
+	private static final int MAX_AMOUNT = 10;
+	private static final long PERSIST_DELAY_MS = 1000;
+
+	private final HashMap<String, String> storedTransactionIds = new HashMap<>();
+	private int saveAmount;
+	private TwitchTransactionIdStore store;
+
+	@Before
+	public void setUp()
+	{
+		storedTransactionIds.clear();
+		saveAmount = 0;
+		store = createStore();
+	}
+
+	@Test
+	public void persistsPerChannel()
+	{
+		store.switchChannel("a");
+		store.add("a1");
+		store.add("a2");
+
+		store.switchChannel("b");
+		assertFalse(store.contains("a1"));
+		store.add("b1");
+		store.persist();
+
+		final TwitchTransactionIdStore restoredStore = createStore();
+
+		restoredStore.switchChannel("a");
+		assertTrue(restoredStore.contains("a1"));
+		assertTrue(restoredStore.contains("a2"));
+		assertFalse(restoredStore.contains("b1"));
+
+		restoredStore.switchChannel("b");
+		assertTrue(restoredStore.contains("b1"));
+		assertFalse(restoredStore.contains("a1"));
+	}
+
+	@Test
+	public void onlyLoadsWhenTheChannelChanged()
+	{
+		assertFalse(store.switchChannel(null));
+		assertTrue(store.switchChannel("a"));
+		store.add("a1");
+
+		assertFalse(store.switchChannel("a"));
+		assertTrue(store.contains("a1"));
+		assertEquals("a", store.getChannelId());
+	}
+
+	@Test
+	public void debouncesPersisting()
+	{
+		store.switchChannel("a");
+		store.add("a1");
+
+		store.persistWhenDue(0);
+		store.add("a2");
+		store.persistWhenDue(PERSIST_DELAY_MS - 1);
+
+		assertEquals(0, saveAmount);
+		assertNull(storedTransactionIds.get("a"));
+
+		store.persistWhenDue(PERSIST_DELAY_MS);
+
+		assertEquals(1, saveAmount);
+		assertEquals("[\"a1\",\"a2\"]", storedTransactionIds.get("a"));
+
+		// nothing changed since the last persist
+		store.persistWhenDue(PERSIST_DELAY_MS * 3);
+
+		assertEquals(1, saveAmount);
+	}
+
+	@Test
+	public void restartsTheDelayAfterPersisting()
+	{
+		store.switchChannel("a");
+		store.add("a1");
+		store.persist();
+
+		store.add("a2");
+		store.persistWhenDue(PERSIST_DELAY_MS * 5);
+		store.persistWhenDue(PERSIST_DELAY_MS * 6 - 1);
+
+		assertEquals(1, saveAmount);
+
+		store.persistWhenDue(PERSIST_DELAY_MS * 6);
+
+		assertEquals(2, saveAmount);
+	}
+
+	@Test
+	public void clearsTheIdsWhenLoadingFails()
+	{
+		storedTransactionIds.put("b", "not a json array");
+		store.switchChannel("a");
+		store.add("a1");
+
+		try {
+			store.switchChannel("b");
+		} catch (RuntimeException exception) {
+			// expected as the stored IDs are invalid
+		}
+
+		assertEquals("b", store.getChannelId());
+		assertEquals(0, store.size());
+		assertEquals("[\"a1\"]", storedTransactionIds.get("a"));
+	}
+
+	private TwitchTransactionIdStore createStore()
+	{
+		return new TwitchTransactionIdStore(MAX_AMOUNT, PERSIST_DELAY_MS, new TwitchTransactionIdStore.Storage()
+		{
+			@Override
+			public String load(String channelId)
+			{
+				return storedTransactionIds.get(channelId);
+			}
+
+			@Override
+			public void save(String channelId, String serializedTransactionIds)
+			{
+				saveAmount++;
+				storedTransactionIds.put(channelId, serializedTransactionIds);
+			}
+		});
+	}
+}
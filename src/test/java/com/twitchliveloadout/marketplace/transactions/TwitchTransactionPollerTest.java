@@ -0,0 +1,200 @@
+package com.twitchliveloadout.marketplace.transactions;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static com.twitchliveloadout.marketplace.transactions.TwitchTransactionPoller.*;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class TwitchTransactionPollerTest
+{
+	private static final long[] BACKOFF_INTERVALS_MS = { 3000, 4500, 6750, 10125, 12000, 12000 };
+
+	private long nowMs;
+	private TwitchTransactionPoller poller;
+
+	@Before
+	public void setUp()
+	{
+		nowMs = 1000 * 1000;
+		poller = new TwitchTransactionPoller(() -> nowMs);
+	}
+
+	@Test
+	public void fetchesRightAway()
+	{
+		assertTrue(poller.isFetchDue());
+		assertEquals(DEFAULT_INTERVAL_MS, poller.getIntervalMs());
+	}
+
+	@Test
+	public void fetchesEverySecondWhileActive()
+	{
+		fetch(true);
+
+		// the active period starts at the last fetch with new transactions
+		for (long passedMs = MIN_INTERVAL_MS; passedMs <= ACTIVE_PERIOD_MS; passedMs += MIN_INTERVAL_MS)
+		{
+			assertFetchDueAfter(MIN_INTERVAL_MS);
+			fetch(false);
+			assertEquals("Interval after "+ passedMs +"ms", MIN_INTERVAL_MS, poller.getIntervalMs());
+		}
+
+		// new transactions extend the active period
+		assertFetchDueAfter(MIN_INTERVAL_MS);
+		fetch(true);
+
+		for (long passedMs = MIN_INTERVAL_MS; passedMs <= ACTIVE_PERIOD_MS; passedMs += MIN_INTERVAL_MS)
+		{
+			assertFetchDueAfter(MIN_INTERVAL_MS);
+			fetch(false);
+			assertEquals(MIN_INTERVAL_MS, poller.getIntervalMs());
+		}
+	}
+
+	@Test
+	public void backsOffWhenNothingHappens()
+	{
+		fetch(true);
+		nowMs += ACTIVE_PERIOD_MS + 1;
+
+		for (long intervalMs : BACKOFF_INTERVALS_MS)
+		{
+			fetch(false);
+			assertEquals(intervalMs, poller.getIntervalMs());
+			assertFetchDueAfter(intervalMs);
+		}
+	}
+
+	@Test
+	public void backsOffFromTheDefaultIntervalWithoutActivity()
+	{
+		fetch(false);
+
+		assertEquals(DEFAULT_INTERVAL_MS * 1.5d, poller.getIntervalMs(), 0);
+		assertFetchDueAfter((long) (DEFAULT_INTERVAL_MS * 1.5d));
+	}
+
+	@Test
+	public void speedsUpWhenNewTransactionsAreFoundWhileBackingOff()
+	{
+		for (int fetchIndex = 0; fetchIndex < BACKOFF_INTERVALS_MS.length; fetchIndex++)
+		{
+			fetch(false);
+			nowMs += poller.getIntervalMs();
+		}
+
+		assertEquals(MAX_INTERVAL_MS, poller.getIntervalMs());
+
+		fetch(true);
+
+		assertEquals(MIN_INTERVAL_MS, poller.getIntervalMs());
+		assertFetchDueAfter(MIN_INTERVAL_MS);
+	}
+
+	@Test
+	public void waitsAfterAnError()
+	{
+		fetch(true);
+		poller.registerFetchStart();
+		poller.registerError();
+
+		assertEquals(ERROR_INTERVAL_MS, poller.getIntervalMs());
+		assertFetchDueAfter(ERROR_INTERVAL_MS);
+
+		// the maximum interval is not shortened by an error
+		nowMs += ACTIVE_PERIOD_MS;
+		fetch(false);
+		fetch(false);
+		assertEquals(MAX_INTERVAL_MS, poller.getIntervalMs());
+
+		poller.registerError();
+		assertEquals(MAX_INTERVAL_MS, poller.getIntervalMs());
+		assertFetchDueAfter(MAX_INTERVAL_MS);
+	}
+
+	@Test
+	public void recoversFromAnErrorWhenNewTransactionsAreFound()
+	{
+		poller.registerError();
+		nowMs += ERROR_INTERVAL_MS;
+
+		fetch(true);
+
+		assertEquals(MIN_INTERVAL_MS, poller.getIntervalMs());
+		assertFetchDueAfter(MIN_INTERVAL_MS);
+	}
+
+	@Test
+	public void doesNotFetchWhileFetching()
+	{
+		poller.registerFetchStart();
+
+		// a new fetch is allowed when the previous one did not respond in time
+		assertFetchDueAfter(MAX_FETCH_DURATION_MS);
+
+		// the interval only starts once the fetch responded
+		poller.registerFetchStart();
+		nowMs += MAX_FETCH_DURATION_MS - 1;
+		poller.registerFetch(false);
+
+		assertFalse(poller.isFetchDue());
+		assertFetchDueAfter(poller.getIntervalMs());
+	}
+
+	@Test
+	public void wakesUpOnOtherSignalsOfActivity()
+	{
+		fetch(true);
+		nowMs += ACTIVE_PERIOD_MS + 1;
+		fetch(false);
+		fetch(false);
+
+		// NOTE: this is what happens when an EventSub event is received where Bits are spent
+		assertFalse(poller.isFetchDue());
+		poller.wakeUp();
+
+		assertTrue(poller.isFetchDue());
+		assertEquals(MIN_INTERVAL_MS, poller.getIntervalMs());
+
+		// the wake up starts a new active period, also when no new transactions are found
+		fetch(false);
+		assertEquals(MIN_INTERVAL_MS, poller.getIntervalMs());
+		assertFetchDueAfter(MIN_INTERVAL_MS);
+
+		nowMs += ACTIVE_PERIOD_MS;
+		fetch(false);
+		assertEquals(DEFAULT_INTERVAL_MS, poller.getIntervalMs());
+	}
+
+	@Test
+	public void wakesUpWhileWaitingAfterAnError()
+	{
+		poller.registerError();
+		assertFalse(poller.isFetchDue());
+
+		poller.wakeUp();
+
+		assertTrue(poller.isFetchDue());
+	}
+
+	private void fetch(boolean hasNewTransactions)
+	{
+		poller.registerFetchStart();
+		poller.registerFetch(hasNewTransactions);
+	}
+
+	/**
+	 * Check that the next fetch is due after exactly the given time and move the clock to that moment.
+	 */
+	private void assertFetchDueAfter(long intervalMs)
+	{
+		nowMs += intervalMs - 1;
+		assertFalse("Due before "+ intervalMs +"ms", poller.isFetchDue());
+
+		nowMs += 1;
+		assertTrue("Not due after "+ intervalMs +"ms", poller.isFetchDue());
+	}
+}
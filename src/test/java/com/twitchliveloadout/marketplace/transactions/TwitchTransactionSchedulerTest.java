@@ -0,0 +1,269 @@
+package com.twitchliveloadout.marketplace.transactions;
+
+import com.twitchliveloadout.marketplace.MarketplaceCatalogueStore;
+import com.twitchliveloadout.marketplace.transactions.TwitchTransactionScheduler.ParkReason;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class TwitchTransactionSchedulerTest
+{
+	private static final int BURST_AMOUNT = 1000;
+	private static final long COOLDOWN_WAKE_AT_MS = 5000;
+	private static final long SPAWN_POINT_WAKE_AT_MS = 2000;
+
+	private TwitchTransactionScheduler scheduler;
+	private MarketplaceCatalogueStore catalogueStore;
+
+	@Before
+	public void setUp()
+	{
+		scheduler = new TwitchTransactionScheduler();
+		catalogueStore = new MarketplaceCatalogueStore(scheduler);
+	}
+
+	@Test
+	public void pollsInOrderOfArrival()
+	{
+		final TwitchTransaction first = createTransaction("first");
+		final TwitchTransaction second = createTransaction("second");
+		final TwitchTransaction third = createTransaction("third");
+
+		scheduler.add(first);
+		scheduler.addAll(Arrays.asList(second, third));
+
+		assertSame(first, scheduler.poll(0));
+		assertSame(second, scheduler.poll(0));
+		assertSame(third, scheduler.poll(0));
+		assertNull(scheduler.poll(0));
+
+		// polled transactions stay queued until they are removed
+		assertEquals(3, scheduler.size());
+	}
+
+	@Test
+	public void ignoresInvalidAndQueuedTransactions()
+	{
+		final TwitchTransaction transaction = createTransaction("a");
+
+		assertTrue(scheduler.add(transaction));
+		assertFalse(scheduler.add(transaction));
+		assertFalse(scheduler.add(null));
+		assertEquals(1, scheduler.size());
+	}
+
+	@Test
+	public void wakesTransactionsWaitingForProductsOnCatalogueUpdates()
+	{
+		final TwitchTransaction transaction = addAndPoll("a");
+
+		scheduler.park(transaction, ParkReason.PRODUCT, null);
+
+		assertNull(scheduler.poll(Long.MAX_VALUE));
+
+		// other reasons don't wake it up
+		scheduler.wake(ParkReason.SPAWN_POINT);
+		scheduler.wake(ParkReason.COOLDOWN);
+		assertNull(scheduler.poll(Long.MAX_VALUE));
+
+		catalogueStore.update((catalogue) -> catalogue.withStreamerProducts(Collections.emptyList()));
+		assertSame(transaction, scheduler.poll(0));
+	}
+
+	@Test
+	public void wakesCooledDownTransactionsAtTheirWakeTime()
+	{
+		final TwitchTransaction transaction = addAndPoll("a");
+
+		scheduler.park(transaction, ParkReason.COOLDOWN, COOLDOWN_WAKE_AT_MS);
+
+		// a product update does not end a cooldown
+		catalogueStore.update((catalogue) -> catalogue.withStreamerProducts(Collections.emptyList()));
+
+		assertNull(scheduler.poll(COOLDOWN_WAKE_AT_MS - 1));
+		assertSame(transaction, scheduler.poll(COOLDOWN_WAKE_AT_MS));
+	}
+
+	@Test
+	public void wakesTransactionsWaitingForASpawnPointOnSpawnAreaChanges()
+	{
+		final TwitchTransaction transaction = addAndPoll("a");
+
+		scheduler.park(transaction, ParkReason.SPAWN_POINT, SPAWN_POINT_WAKE_AT_MS);
+
+		assertNull(scheduler.poll(0));
+
+		// NOTE: this is what the marketplace manager does when the spawn area changed
+		scheduler.wake(ParkReason.SPAWN_POINT);
+		assertSame(transaction, scheduler.poll(0));
+	}
+
+	@Test
+	public void retriesTransactionsWaitingForASpawnPointAfterTheDelay()
+	{
+		final TwitchTransaction transaction = addAndPoll("a");
+
+		scheduler.park(transaction, ParkReason.SPAWN_POINT, SPAWN_POINT_WAKE_AT_MS);
+
+		assertNull(scheduler.poll(SPAWN_POINT_WAKE_AT_MS - 1));
+		assertSame(transaction, scheduler.poll(SPAWN_POINT_WAKE_AT_MS));
+	}
+
+	@Test
+	public void ignoresTimedWakesOfAnEarlierPark()
+	{
+		final TwitchTransaction transaction = addAndPoll("a");
+
+		scheduler.park(transaction, ParkReason.SPAWN_POINT, SPAWN_POINT_WAKE_AT_MS);
+		scheduler.wake(ParkReason.SPAWN_POINT);
+		assertSame(transaction, scheduler.poll(0));
+
+		// parked again without a wake time, the previous wake time should not wake it up
+		scheduler.park(transaction, ParkReason.PRODUCT, null);
+
+		assertNull(scheduler.poll(SPAWN_POINT_WAKE_AT_MS));
+		assertTrue(scheduler.contains(transaction));
+	}
+
+	@Test
+	public void keepsTheOrderOfArrivalAfterWakingUp()
+	{
+		final TwitchTransaction first = createTransaction("first");
+		final TwitchTransaction second = createTransaction("second");
+		final TwitchTransaction third = createTransaction("third");
+
+		scheduler.addAll(Arrays.asList(first, second, third));
+		scheduler.park(scheduler.poll(0), ParkReason.SPAWN_POINT, null);
+		scheduler.park(scheduler.poll(0), ParkReason.PRODUCT, null);
+		assertSame(third, scheduler.poll(0));
+		scheduler.park(third, ParkReason.COOLDOWN, COOLDOWN_WAKE_AT_MS);
+
+		// woken up in the reverse order of arrival
+		scheduler.wake(ParkReason.PRODUCT);
+		scheduler.wake(ParkReason.SPAWN_POINT);
+
+		assertSame(first, scheduler.poll(COOLDOWN_WAKE_AT_MS));
+		assertSame(second, scheduler.poll(COOLDOWN_WAKE_AT_MS));
+		assertSame(third, scheduler.poll(COOLDOWN_WAKE_AT_MS));
+	}
+
+	@Test
+	public void onlyParksPolledTransactions()
+	{
+		final TwitchTransaction transaction = createTransaction("a");
+
+		scheduler.add(transaction);
+		scheduler.park(transaction, ParkReason.PRODUCT, null);
+
+		assertSame(transaction, scheduler.poll(0));
+	}
+
+	@Test
+	public void removesTransactionsWhereverTheyAre()
+	{
+		final TwitchTransaction ready = createTransaction("ready");
+		final TwitchTransaction parked = createTransaction("parked");
+		final TwitchTransaction polled = createTransaction("polled");
+
+		scheduler.addAll(Arrays.asList(parked, polled, ready));
+		scheduler.park(scheduler.poll(0), ParkReason.COOLDOWN, COOLDOWN_WAKE_AT_MS);
+		assertSame(polled, scheduler.poll(0));
+
+		assertTrue(scheduler.remove(ready));
+		assertTrue(scheduler.remove(parked));
+		assertTrue(scheduler.remove(polled));
+		assertFalse(scheduler.remove(polled));
+
+		// the timed wake of the removed transaction should not bring it back
+		assertNull(scheduler.poll(COOLDOWN_WAKE_AT_MS));
+		assertEquals(0, scheduler.size());
+
+		// adding it again queues it at the end
+		scheduler.add(createTransaction("other"));
+		scheduler.add(parked);
+		assertEquals("other", scheduler.poll(0).id);
+		assertSame(parked, scheduler.poll(0));
+	}
+
+	@Test
+	public void clearsAllTransactions()
+	{
+		final TwitchTransaction parked = addAndPoll("parked");
+
+		scheduler.park(parked, ParkReason.COOLDOWN, COOLDOWN_WAKE_AT_MS);
+		scheduler.add(createTransaction("ready"));
+		scheduler.clear();
+
+		assertEquals(0, scheduler.size());
+		assertNull(scheduler.poll(COOLDOWN_WAKE_AT_MS));
+		assertTrue(scheduler.getTransactions().isEmpty());
+	}
+
+	@Test(timeout = 5000)
+	public void ordersABurstOfParkedTransactions()
+	{
+		final ArrayList<TwitchTransaction> transactions = new ArrayList<>();
+		final ParkReason[] reasons = ParkReason.values();
+
+		for (int transactionIndex = 0; transactionIndex < BURST_AMOUNT; transactionIndex++)
+		{
+			transactions.add(createTransaction(String.valueOf(transactionIndex)));
+		}
+
+		scheduler.addAll(transactions);
+
+		// park every transaction once for all of the reasons
+		for (int transactionIndex = 0; transactionIndex < BURST_AMOUNT; transactionIndex++)
+		{
+			final TwitchTransaction transaction = scheduler.poll(0);
+			final ParkReason reason = reasons[transactionIndex % reasons.length];
+
+			assertSame(transactions.get(transactionIndex), transaction);
+			scheduler.park(transaction, reason, reason == ParkReason.COOLDOWN ? COOLDOWN_WAKE_AT_MS : null);
+		}
+
+		assertNull(scheduler.poll(0));
+		assertEquals(transactions, scheduler.getTransactions());
+
+		// wake up all of the reasons in a different order than they were parked
+		scheduler.wake(ParkReason.SPAWN_POINT);
+		catalogueStore.update((catalogue) -> catalogue.withStreamerProducts(Collections.emptyList()));
+
+		final ArrayList<TwitchTransaction> polledTransactions = new ArrayList<>();
+		TwitchTransaction transaction;
+
+		while ((transaction = scheduler.poll(COOLDOWN_WAKE_AT_MS)) != null)
+		{
+			polledTransactions.add(transaction);
+			scheduler.remove(transaction);
+		}
+
+		assertEquals(transactions, polledTransactions);
+		assertEquals(0, scheduler.size());
+	}
+
+	private TwitchTransaction addAndPoll(String id)
+	{
+		scheduler.add(createTransaction(id));
+
+		return scheduler.poll(0);
+	}
+
+	private static TwitchTransaction createTransaction(String id)
+	{
+		final TwitchTransaction transaction = new TwitchTransaction();
+
+		transaction.id = id;
+
+		return transaction;
+	}
+}